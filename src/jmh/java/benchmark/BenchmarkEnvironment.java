@@ -0,0 +1,415 @@
+package benchmark;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+import app_config.AppPaths;
+import providers.FormulaService;
+import providers.IFormulaService;
+import providers.ITableDaoService;
+import providers.TableDaoService;
+import table_database.Database;
+import table_database.TableDao;
+import table_relations.Relation;
+import table_skeleton.TableCell;
+import table_skeleton.TableRow;
+import xlsx_reader.TableSchema;
+import xlsx_reader.TableSchemaList;
+
+/**
+ * Synthetic environment of the benchmarks. The configuration files (tables
+ * schema, picklists, message .xsd and properties) are generated in the working
+ * directory and a throwaway Derby database is created from them, therefore the
+ * benchmarks do not depend on the configuration of a real tool and never call
+ * the DCF.
+ *
+ * The schema has a {@link #REPORT_SHEET} table and a {@link #RESULT_SHEET}
+ * table, child of the report, with picklist, formula and natural key columns.
+ *
+ */
+public class BenchmarkEnvironment {
+
+	/**
+	 * Jvm argument of the forks, to keep the logging out of the measures
+	 */
+	public static final String LOG_CONFIG = "-Dlog4j.configurationFile=log4j2-benchmark.xml";
+
+	public static final String REPORT_SHEET = AppPaths.REPORT_SHEET;
+	public static final String RESULT_SHEET = "Result";
+
+	public static final String PICKLIST = "benchList";
+	public static final int PICKLIST_SIZE = 200;
+
+	// columns of the results
+	public static final String RES_ID = "resId";
+	public static final String SAMP_TYPE = "sampType";
+	public static final String SAMP_COUNTRY = "sampCountry";
+	public static final String RES_VALUE = "resValue";
+	public static final String RES_UNIT = "resUnit";
+	public static final String RES_CODE = "resCode";
+	public static final String RES_LABEL = "resLabel";
+	public static final String RES_COMMENT = "resComment";
+
+	private static final String[] SCHEMA_HEADERS = new String[] { "id", "code", "label", "xmlTag", "type",
+			"mandatory", "editable", "visible", "picklistKey", "defaultCode", "defaultValue", "codeFormula",
+			"labelFormula", "putInOutput", "order", "naturalKey" };
+
+	private static final String[] UNITS = new String[] { "g", "kg", "mg", "ml" };
+	private static final String[] COUNTRIES = new String[] { "IT", "FR", "DE", "ES", "PT", "GR", "NL", "BE" };
+
+	private static boolean ready;
+
+	private static ITableDaoService daoService;
+	private static IFormulaService formulaService;
+
+	/**
+	 * Create the configuration and the database, only the first time that it
+	 * is called in the jvm
+	 *
+	 * @throws IOException
+	 */
+	public static synchronized void setUp() throws IOException {
+
+		if (ready)
+			return;
+
+		new File(AppPaths.CONFIG_FOLDER).mkdirs();
+		new File(AppPaths.XML_FOLDER).mkdirs();
+		new File(AppPaths.TEMP_FOLDER).mkdirs();
+
+		writeProperties();
+		writeTablesSchema();
+		writePicklist();
+		writeMessageXsd();
+
+		// throwaway database
+		FileUtils.deleteDirectory(new File(AppPaths.DB_FOLDER));
+
+		Database db = new Database();
+		db.connect();
+
+		daoService = new TableDaoService(new TableDao());
+		formulaService = new FormulaService(daoService);
+
+		ready = true;
+	}
+
+	public static ITableDaoService getDaoService() {
+		return daoService;
+	}
+
+	public static IFormulaService getFormulaService() {
+		return formulaService;
+	}
+
+	public static TableSchema getReportSchema() {
+		return TableSchemaList.getByName(REPORT_SHEET);
+	}
+
+	public static TableSchema getResultSchema() {
+		return TableSchemaList.getByName(RESULT_SHEET);
+	}
+
+	/**
+	 * Create a report and its results in the database
+	 *
+	 * @param senderId
+	 * @param version
+	 * @param results  number of results
+	 * @return
+	 */
+	public static BenchmarkReport createReport(String senderId, String version, int results) {
+
+		BenchmarkReport report = new BenchmarkReport(new TableRow(getReportSchema()));
+		report.setSenderId(senderId);
+		report.setVersion(version);
+		report.setStatus("DRAFT");
+		report.setYear("2020");
+		report.setMonth("1");
+
+		daoService.add(report);
+
+		daoService.addAll(createResults(report.getDatabaseId(), results, new Random(42)));
+
+		return report;
+	}
+
+	/**
+	 * Create a new version of a report in the database. Ten percent of the
+	 * results are changed, five percent are removed and five percent are new
+	 *
+	 * @param previous
+	 * @param version
+	 * @return
+	 */
+	public static BenchmarkReport createAmendedReport(BenchmarkReport previous, String version) {
+
+		BenchmarkReport report = new BenchmarkReport(new TableRow(getReportSchema()));
+		report.setSenderId(previous.getSenderId());
+		report.setVersion(version);
+		report.setStatus("DRAFT");
+		report.setYear(previous.getYear());
+		report.setMonth(previous.getMonth());
+		report.setPreviousVersion(previous);
+
+		daoService.add(report);
+
+		List<TableRow> results = new ArrayList<>();
+
+		int i = 0;
+		for (TableRow old : previous.getRecords(daoService)) {
+
+			i++;
+
+			// removed
+			if (i % 20 == 0)
+				continue;
+
+			TableRow result = new TableRow(old);
+			result.put(Relation.foreignKeyFromParent(REPORT_SHEET), report.getDatabaseId());
+
+			// changed
+			if (i % 10 == 0)
+				result.put(RES_VALUE, new TableCell(String.valueOf(i * 7), String.valueOf(i * 7)));
+
+			results.add(result);
+		}
+
+		// new results
+		List<TableRow> added = createResults(report.getDatabaseId(), i / 20, new Random(7));
+		for (TableRow result : added) {
+			String id = "new-" + result.getCode(RES_ID);
+			result.put(RES_ID, new TableCell(id, id));
+			result.updateFormulas();
+		}
+
+		results.addAll(added);
+
+		daoService.addAll(results);
+
+		return report;
+	}
+
+	/**
+	 * Create results which are not saved in the database. One result out of
+	 * fifty has the same natural key of the previous one.
+	 *
+	 * @param reportId database id of the parent report
+	 * @param count
+	 * @param random
+	 * @return
+	 */
+	public static List<TableRow> createResults(int reportId, int count, Random random) {
+
+		TableSchema schema = getResultSchema();
+
+		List<TableRow> results = new ArrayList<>(count);
+
+		TableRow previous = null;
+
+		for (int i = 0; i < count; ++i) {
+
+			TableRow row = new TableRow(schema);
+
+			row.put(Relation.foreignKeyFromParent(REPORT_SHEET), reportId);
+
+			String id = "row-" + i;
+			row.put(RES_ID, new TableCell(id, id));
+
+			if (previous != null && i % 50 == 0) {
+				// duplicated natural key
+				row.put(SAMP_TYPE, previous.get(SAMP_TYPE));
+				row.put(SAMP_COUNTRY, previous.get(SAMP_COUNTRY));
+				row.put(RES_UNIT, previous.get(RES_UNIT));
+			} else {
+
+				int type = random.nextInt(PICKLIST_SIZE);
+				row.put(SAMP_TYPE, new TableCell(getPicklistCode(type), getPicklistLabel(type)));
+
+				String country = COUNTRIES[random.nextInt(COUNTRIES.length)];
+				row.put(SAMP_COUNTRY, new TableCell(country, country));
+
+				String unit = UNITS[random.nextInt(UNITS.length)];
+				row.put(RES_UNIT, new TableCell(unit, unit));
+			}
+
+			String value = String.valueOf(random.nextInt(100000));
+			row.put(RES_VALUE, new TableCell(value, value));
+
+			row.updateFormulas();
+
+			results.add(row);
+			previous = row;
+		}
+
+		return results;
+	}
+
+	public static String getPicklistCode(int index) {
+		return "T" + index;
+	}
+
+	public static String getPicklistLabel(int index) {
+		return "Sample type " + index;
+	}
+
+	/**
+	 * Write the properties read by the application
+	 *
+	 * @throws IOException
+	 */
+	private static void writeProperties() throws IOException {
+
+		Properties properties = new Properties();
+		properties.setProperty("Application.Name", "benchmark");
+		properties.setProperty("Application.Version", "1.0.0");
+		properties.setProperty("Db.MinRequiredVersion", "1.0.0");
+
+		try (OutputStream out = new FileOutputStream(AppPaths.APP_CONFIG_FILE);) {
+			properties.storeToXML(out, "benchmark configuration");
+		}
+	}
+
+	/**
+	 * Write the tables schema .xlsx
+	 *
+	 * @throws IOException
+	 */
+	private static void writeTablesSchema() throws IOException {
+
+		try (XSSFWorkbook wb = new XSSFWorkbook();) {
+
+			Sheet relations = wb.createSheet(AppPaths.RELATIONS_SHEET);
+			addRow(relations, 0, "parentTable", "childTable", "directRelation");
+			addRow(relations, 1, REPORT_SHEET, RESULT_SHEET, "yes");
+
+			Sheet report = wb.createSheet(REPORT_SHEET);
+			addRow(report, 0, SCHEMA_HEADERS);
+			addColumn(report, 1, AppPaths.REPORT_SENDER_ID, "string", null, null, null, null, null, "no", "1", "yes");
+			addColumn(report, 2, AppPaths.REPORT_VERSION, "string", null, null, null, null, null, "no", "2", "no");
+			addColumn(report, 3, AppPaths.REPORT_STATUS, "string", null, null, null, null, null, "no", "3", "no");
+			addColumn(report, 4, AppPaths.REPORT_YEAR_COL, "string", null, null, null, null, null, "no", "4", "no");
+			addColumn(report, 5, AppPaths.REPORT_MONTH_COL, "string", null, null, null, null, null, "no", "5", "no");
+			addColumn(report, 6, AppPaths.REPORT_MESSAGE_ID, "string", null, null, null, null, null, "no", "6", "no");
+			addColumn(report, 7, AppPaths.REPORT_DATASET_ID, "string", null, null, null, null, null, "no", "7", "no");
+
+			String fk = Relation.foreignKeyFromParent(REPORT_SHEET);
+
+			Sheet result = wb.createSheet(RESULT_SHEET);
+			addRow(result, 0, SCHEMA_HEADERS);
+			addColumn(result, 1, fk, "foreignKey", null, null, null, null, null, "no", "0", "no");
+			addColumn(result, 2, RES_ID, "string", null, null, null, null, null, "yes", "1", "no");
+			addColumn(result, 3, SAMP_TYPE, "picklist", PICKLIST, null, null, null, null, "yes", "2", "yes");
+			addColumn(result, 4, SAMP_COUNTRY, "string", null, null, null, null, null, "yes", "3", "yes");
+			addColumn(result, 5, RES_VALUE, "string", null, null, null, null, null, "yes", "4", "no");
+			addColumn(result, 6, RES_UNIT, "string", null, "g", null, null, null, "yes", "5", "yes");
+			addColumn(result, 7, RES_CODE, "string", null, null,
+					"%" + RES_ID + ".code-%" + SAMP_TYPE + ".code-ZERO_PADDING(%" + RES_VALUE + ".code,6)",
+					"%" + RES_ID + ".code-%" + SAMP_TYPE + ".code-ZERO_PADDING(%" + RES_VALUE + ".code,6)", null,
+					"yes", "6", "no");
+			addColumn(result, 8, RES_LABEL, "string", null, null, "%" + SAMP_TYPE + ".code",
+					"%" + SAMP_TYPE + ".label (%" + SAMP_COUNTRY + ".label)", null, "yes", "7", "no");
+			addColumn(result, 9, RES_COMMENT, "string", null, null, null, null,
+					"IF((%" + SAMP_TYPE + ".code==T0),no,yes)", "yes", "8", "no");
+
+			Sheet config = wb.createSheet(AppPaths.MESSAGE_CONFIG_SHEET);
+			addRow(config, 0, SCHEMA_HEADERS);
+			addColumn(config, 1, AppPaths.MESSAGE_CONFIG_OP_TYPE, "string", null, null, null, null, null, "yes", "1",
+					"no");
+			addColumn(config, 2, AppPaths.MESSAGE_CONFIG_INTERNAL_OP_TYPE, "string", null, null, null, null, null,
+					"no", "2", "no");
+			addColumn(config, 3, "senderMessageId", "string", null, null, "BENCH_%opType.code",
+					"BENCH_%opType.code", null, "yes", "3", "no");
+			addColumn(config, 4, "dcCode", "string", null, "TEST_DC", null, null, null, "yes", "4", "no");
+
+			try (OutputStream out = new FileOutputStream(AppPaths.TABLES_SCHEMA_FILE);) {
+				wb.write(out);
+			}
+		}
+	}
+
+	/**
+	 * Add a column to a schema sheet
+	 */
+	private static void addColumn(Sheet sheet, int index, String id, String type, String picklistKey,
+			String defaultValue, String codeFormula, String labelFormula, String editable, String putInOutput,
+			String order, String naturalKey) {
+
+		addRow(sheet, index, id, id, id, id, type, "no", editable == null ? "yes" : editable, "yes", picklistKey,
+				defaultValue, defaultValue, codeFormula, labelFormula, putInOutput, order, naturalKey);
+	}
+
+	/**
+	 * Add a row of text cells, null values are left empty
+	 */
+	private static void addRow(Sheet sheet, int index, String... values) {
+
+		Row row = sheet.createRow(index);
+
+		for (int i = 0; i < values.length; ++i) {
+			if (values[i] != null)
+				row.createCell(i).setCellValue(values[i]);
+		}
+	}
+
+	/**
+	 * Write the picklist used by the results
+	 *
+	 * @throws IOException
+	 */
+	private static void writePicklist() throws IOException {
+
+		File file = new File(AppPaths.XML_FOLDER + PICKLIST + ".xml");
+
+		try (PrintWriter out = new PrintWriter(file, StandardCharsets.UTF_8.name());) {
+
+			out.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+			out.println("<" + PICKLIST + ">");
+			out.println("<selectionList>");
+
+			for (int i = 0; i < PICKLIST_SIZE; ++i) {
+				out.println("<selection code=\"" + getPicklistCode(i) + "\"><description>" + getPicklistLabel(i)
+						+ "</description></selection>");
+			}
+
+			out.println("</selectionList>");
+			out.println("</" + PICKLIST + ">");
+		}
+	}
+
+	/**
+	 * Write the .xsd of the message, with the columns of the message config
+	 * sheet
+	 *
+	 * @throws IOException
+	 */
+	private static void writeMessageXsd() throws IOException {
+
+		try (PrintWriter out = new PrintWriter(AppPaths.MESSAGE_GDE2_XSD, StandardCharsets.UTF_8.name());) {
+
+			out.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+			out.println("<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\">");
+			out.println("<xs:complexType name=\"headerType\"><xs:sequence>");
+			out.println("<xs:element name=\"senderMessageId\" type=\"xs:string\"/>");
+			out.println("<xs:element name=\"dcCode\" type=\"xs:string\"/>");
+			out.println("</xs:sequence></xs:complexType>");
+			out.println("<xs:complexType name=\"operationType\"><xs:sequence>");
+			out.println("<xs:element name=\"opType\" type=\"xs:string\"/>");
+			out.println("</xs:sequence></xs:complexType>");
+			out.println("</xs:schema>");
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package benchmark;
+
+import java.util.Collection;
+
+import providers.ITableDaoService;
+import report.EFSAReport;
+import report.Report;
+import report.ReportList;
+import table_skeleton.TableRow;
+
+/**
+ * Report of the synthetic schema of the benchmarks, its records are the
+ * results which have the report as parent
+ *
+ */
+public class BenchmarkReport extends Report {
+
+	private BenchmarkReport previousVersion;
+
+	public BenchmarkReport(TableRow row) {
+		super(row);
+	}
+
+	public void setPreviousVersion(BenchmarkReport previousVersion) {
+		this.previousVersion = previousVersion;
+	}
+
+	@Override
+	public Collection<TableRow> getRecords(ITableDaoService daoService) {
+		return daoService.getByParentId(BenchmarkEnvironment.getResultSchema(), BenchmarkEnvironment.REPORT_SHEET,
+				getDatabaseId(), true);
+	}
+
+	@Override
+	public ReportList getAllVersions(ITableDaoService daoService) {
+
+		ReportList versions = new ReportList();
+
+		for (BenchmarkReport report = this; report != null; report = report.previousVersion)
+			versions.add(report);
+
+		return versions;
+	}
+
+	@Override
+	public EFSAReport getPreviousVersion(ITableDaoService daoService) {
+		return previousVersion;
+	}
+
+	@Override
+	public String getRowIdFieldName() {
+		return BenchmarkEnvironment.RES_ID;
+	}
+}
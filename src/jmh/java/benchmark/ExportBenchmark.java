@@ -0,0 +1,144 @@
+package benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xml.sax.SAXException;
+
+import amend_manager.AmendException;
+import amend_manager.DatasetComparison;
+import amend_manager.ReportXmlBuilder;
+import app_config.AppPaths;
+import duplicates_detector.Checkable;
+import duplicates_detector.Duplicate;
+import duplicates_detector.DuplicatesDetector;
+import message.MessageConfigBuilder;
+import message_creator.MessageXmlBuilder;
+import message_creator.OperationType;
+import providers.IFormulaService;
+import providers.ITableDaoService;
+import report.ReportException;
+import table_exporter.TableToExcel;
+import table_skeleton.TableRow;
+
+/**
+ * Creation of the files of a report: the .xml message of a baseline and of an
+ * amended version, the message from records already in memory, the .xlsx of
+ * the results and the detection of the duplicated records
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = BenchmarkEnvironment.LOG_CONFIG)
+public class ExportBenchmark {
+
+	@Param({ "1000", "10000" })
+	public int rows;
+
+	private ITableDaoService daoService;
+	private IFormulaService formulaService;
+
+	private BenchmarkReport baseline;
+	private BenchmarkReport amended;
+
+	private List<TableRow> records;
+	private List<DatasetComparison> comparisons;
+
+	private File out;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+
+		BenchmarkEnvironment.setUp();
+
+		daoService = BenchmarkEnvironment.getDaoService();
+		formulaService = BenchmarkEnvironment.getFormulaService();
+
+		baseline = BenchmarkEnvironment.createReport("export-" + rows, "00", rows);
+		amended = BenchmarkEnvironment.createAmendedReport(baseline, "01");
+
+		records = new ArrayList<>(baseline.getRecords(daoService));
+
+		comparisons = new ArrayList<>(records.size());
+		for (TableRow record : records) {
+			comparisons.add(new DatasetComparison(record.getLabel(BenchmarkEnvironment.RES_ID), baseline.getVersion(),
+					record.toXml(false)));
+		}
+
+		out = new File(AppPaths.TEMP_FOLDER + "benchmark-export-" + rows);
+	}
+
+	@TearDown(Level.Iteration)
+	public void deleteFile() {
+		out.delete();
+	}
+
+	private MessageConfigBuilder getMessageConfig() {
+		MessageConfigBuilder config = new MessageConfigBuilder(formulaService, Collections.<TableRow>emptyList());
+		config.setOpType(OperationType.INSERT);
+		config.setOut(out);
+		return config;
+	}
+
+	@Benchmark
+	public File exportBaseline()
+			throws IOException, ParserConfigurationException, SAXException, ReportException, AmendException {
+
+		try (ReportXmlBuilder builder = new ReportXmlBuilder(baseline, getMessageConfig(),
+				baseline.getRowIdFieldName(), daoService, formulaService);) {
+			return builder.exportReport();
+		}
+	}
+
+	@Benchmark
+	public File exportAmended()
+			throws IOException, ParserConfigurationException, SAXException, ReportException, AmendException {
+
+		try (ReportXmlBuilder builder = new ReportXmlBuilder(amended, getMessageConfig(),
+				amended.getRowIdFieldName(), daoService, formulaService);) {
+			return builder.exportReport();
+		}
+	}
+
+	@Benchmark
+	public File messageXml() throws IOException, ParserConfigurationException, SAXException {
+
+		try (MessageXmlBuilder builder = new MessageXmlBuilder(out, getMessageConfig());) {
+			return builder.export(comparisons);
+		}
+	}
+
+	@Benchmark
+	public File excel() throws IOException {
+		new TableToExcel(daoService).export(BenchmarkEnvironment.getResultSchema(), out);
+		return out;
+	}
+
+	@Benchmark
+	public Collection<Duplicate<Checkable>> duplicates() {
+		return DuplicatesDetector.detect(records);
+	}
+}
@@ -0,0 +1,97 @@
+package benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import formula.FormulaException;
+import formula.FormulaSolver;
+import providers.ITableDaoService;
+import table_skeleton.TableColumn;
+import table_skeleton.TableRow;
+import xlsx_reader.TableHeaders.XlsxHeader;
+import xlsx_reader.TableSchema;
+import xml_catalog_reader.XmlContents;
+import xml_catalog_reader.XmlLoader;
+
+/**
+ * Solution of the formulas of the results and lookups in the picklists. The
+ * rows are kept in memory, the database is not used.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = BenchmarkEnvironment.LOG_CONFIG)
+public class FormulaBenchmark {
+
+	@Param({ "1000" })
+	public int rows;
+
+	private ITableDaoService daoService;
+	private TableSchema schema;
+	private List<TableRow> results;
+	private String[] codes;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+
+		BenchmarkEnvironment.setUp();
+
+		daoService = BenchmarkEnvironment.getDaoService();
+		schema = BenchmarkEnvironment.getResultSchema();
+		results = BenchmarkEnvironment.createResults(0, rows, new Random(42));
+
+		codes = new String[rows];
+		Random random = new Random(3);
+		for (int i = 0; i < rows; ++i)
+			codes[i] = BenchmarkEnvironment.getPicklistCode(random.nextInt(BenchmarkEnvironment.PICKLIST_SIZE));
+	}
+
+	@Benchmark
+	public void solveAll(Blackhole bh) throws FormulaException {
+
+		for (TableRow row : results) {
+			FormulaSolver solver = new FormulaSolver(row, daoService);
+			bh.consume(solver.solveAll(XlsxHeader.CODE_FORMULA.getHeaderName()));
+			bh.consume(solver.solveAll(XlsxHeader.LABEL_FORMULA.getHeaderName()));
+		}
+	}
+
+	@Benchmark
+	public void isVisibleAndEditable(Blackhole bh) {
+
+		for (TableRow row : results) {
+			for (TableColumn column : schema) {
+				bh.consume(column.isVisible(row));
+				bh.consume(column.isEditable(row));
+			}
+		}
+	}
+
+	@Benchmark
+	public void picklistLookup(Blackhole bh) {
+
+		for (String code : codes) {
+			XmlContents contents = XmlLoader.getByPicklistKey(BenchmarkEnvironment.PICKLIST);
+			bh.consume(contents.getElementByCode(code));
+		}
+	}
+}
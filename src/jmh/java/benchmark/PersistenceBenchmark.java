@@ -0,0 +1,97 @@
+package benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import providers.ITableDaoService;
+import table_skeleton.TableRow;
+import table_skeleton.TableRowList;
+import xlsx_reader.TableSchema;
+
+/**
+ * Insertion and reading of the results of a report in the Derby database
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = BenchmarkEnvironment.LOG_CONFIG)
+public class PersistenceBenchmark {
+
+	@Param({ "1000", "10000" })
+	public int rows;
+
+	private ITableDaoService daoService;
+	private TableSchema schema;
+
+	// report read by the benchmarks
+	private BenchmarkReport report;
+
+	// report which receives the inserted rows
+	private BenchmarkReport target;
+
+	/**
+	 * Rows inserted by a single invocation, which are deleted afterwards
+	 */
+	@State(Scope.Benchmark)
+	public static class Insertion {
+
+		private List<TableRow> rows;
+
+		@Setup(Level.Invocation)
+		public void prepareRows(PersistenceBenchmark bench) {
+			rows = BenchmarkEnvironment.createResults(bench.target.getDatabaseId(), bench.rows, new Random(1));
+		}
+
+		@TearDown(Level.Invocation)
+		public void deleteRows(PersistenceBenchmark bench) {
+			bench.daoService.deleteByParentId(bench.schema, BenchmarkEnvironment.REPORT_SHEET,
+					bench.target.getDatabaseId());
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+
+		BenchmarkEnvironment.setUp();
+
+		daoService = BenchmarkEnvironment.getDaoService();
+		schema = BenchmarkEnvironment.getResultSchema();
+
+		report = BenchmarkEnvironment.createReport("persistence-" + rows, "00", rows);
+		target = BenchmarkEnvironment.createReport("persistence-target-" + rows, "00", 0);
+	}
+
+	@Benchmark
+	public int[] addAll(Insertion insertion) {
+		return daoService.addAll(insertion.rows);
+	}
+
+	@Benchmark
+	public TableRowList getByParentId() {
+		return daoService.getByParentId(schema, BenchmarkEnvironment.REPORT_SHEET, report.getDatabaseId(), true);
+	}
+
+	@Benchmark
+	public TableRowList getAll() {
+		return daoService.getAll(schema);
+	}
+}
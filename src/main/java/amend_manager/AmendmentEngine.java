@@ -0,0 +1,481 @@
+package amend_manager;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Computes the amendments between two versions of a dataset without using the
+ * database. The records are kept in insertion order and are identified by
+ * their row id and by a hash of their xml, so that the versions can be joined
+ * with hash maps. The xml of the records is kept in memory until the memory
+ * budget is reached, then it is written to a temporary file which is deleted
+ * when the engine is closed.
+ *
+ * The result is the same of the queries which were executed on the
+ * DATASET_COMPARISON table:
+ * <ul>
+ * <li>records which did not change between the versions are removed;</li>
+ * <li>records of the latest version which changed get the update
+ * amendment and replace their old version;</li>
+ * <li>records present only in the old version get the delete amendment.</li>
+ * </ul>
+ * As for the primary key of the table, records without a row id or with a
+ * row id which was already added for the same version are discarded.
+ *
+ */
+public class AmendmentEngine implements AutoCloseable {
+
+	private static final Logger LOGGER = LogManager.getLogger(AmendmentEngine.class);
+
+	private final long memoryBudget;
+	private final MessageDigest digest;
+
+	private final List<Record> records;
+	private final Set<List<String>> keys; // row id and version of the records
+	private long memoryUsed;
+
+	private File spillFile;
+	private DataOutputStream spillWriter;
+	private int spilledCount;
+
+	/**
+	 * Create an engine
+	 * @param memoryBudget number of bytes of xml which can be kept in memory
+	 * before spilling the records to a temporary file
+	 */
+	public AmendmentEngine(long memoryBudget) {
+		this.memoryBudget = memoryBudget;
+		this.records = new ArrayList<>();
+		this.keys = new HashSet<>();
+
+		try {
+			this.digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not supported by the platform", e);
+		}
+	}
+
+	/**
+	 * Add a record of a version of the dataset
+	 * @param rowId identifier of the record across the versions
+	 * @param version version of the dataset which contains the record
+	 * @param xmlRecord xml of the record
+	 * @return false if the record was discarded since it has no row id or its
+	 * row id was already added for the version
+	 * @throws IOException if the record cannot be written to the temporary file
+	 */
+	public boolean add(String rowId, String version, String xmlRecord) throws IOException {
+
+		if (rowId == null || !keys.add(Arrays.asList(rowId, version))) {
+			LOGGER.error("Cannot add the record with row id=" + rowId + " and version=" + version
+					+ " since it has no row id or it is duplicated, it will not be exported");
+			return false;
+		}
+
+		byte[] xmlBytes = xmlRecord.getBytes(StandardCharsets.UTF_8);
+
+		Record record = new Record(rowId, version, digest.digest(xmlBytes));
+
+		// strings use two bytes for each char
+		long size = 2L * xmlRecord.length();
+
+		if (spillWriter == null && memoryUsed + size <= memoryBudget) {
+			record.xmlRecord = xmlRecord;
+			memoryUsed += size;
+		}
+		else {
+			spill(xmlBytes);
+			record.spilled = true;
+		}
+
+		records.add(record);
+
+		return true;
+	}
+
+	/**
+	 * Write the xml of a record at the end of the temporary file
+	 * @param xmlBytes
+	 * @throws IOException
+	 */
+	private void spill(byte[] xmlBytes) throws IOException {
+
+		if (spillWriter == null) {
+
+			spillFile = File.createTempFile("amendment", ".tmp");
+			spillFile.deleteOnExit();
+
+			spillWriter = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(spillFile)));
+
+			LOGGER.info("Amendment memory budget of " + memoryBudget
+					+ " bytes exceeded, spilling the records to " + spillFile);
+		}
+
+		spillWriter.writeInt(xmlBytes.length);
+		spillWriter.write(xmlBytes);
+
+		spilledCount++;
+	}
+
+	/**
+	 * Compute the amendments between the two versions of the dataset
+	 * @param latestVersion
+	 * @param oldVersion
+	 */
+	public void solveAmendments(String latestVersion, String oldVersion) {
+
+		removeOldRecordVersions();
+		setUpdateAmendment(latestVersion, oldVersion);
+		setDeleteAmendment(latestVersion, oldVersion);
+	}
+
+	/**
+	 * Remove all the records whose xml is the same in both the versions,
+	 * together with all the other records with their row id
+	 */
+	private void removeOldRecordVersions() {
+
+		Map<RecordKey, Integer> counts = new HashMap<>();
+		for (Record record : records) {
+			counts.merge(new RecordKey(record.rowId, record.hash), 1, Integer::sum);
+		}
+
+		Set<String> unchanged = new HashSet<>();
+		for (Map.Entry<RecordKey, Integer> entry : counts.entrySet()) {
+			if (entry.getValue() == 2)
+				unchanged.add(entry.getKey().rowId);
+		}
+
+		for (Record record : records) {
+			if (unchanged.contains(record.rowId))
+				record.removed = true;
+		}
+
+		LOGGER.debug("Removed the records of " + unchanged.size() + " unchanged row ids");
+	}
+
+	/**
+	 * Set the update amendment to the records of the latest version
+	 * which are also in the old version, then remove their old version
+	 */
+	private void setUpdateAmendment(String latestVersion, String oldVersion) {
+
+		Map<String, Integer> counts = new HashMap<>();
+		for (Record record : records) {
+			if (!record.removed)
+				counts.merge(record.rowId, 1, Integer::sum);
+		}
+
+		// row ids present in the old version which have two records
+		Set<String> amended = new HashSet<>();
+		for (Record record : records) {
+			if (!record.removed && oldVersion.equals(record.version)
+					&& counts.get(record.rowId) == 2)
+				amended.add(record.rowId);
+		}
+
+		Set<String> updated = new HashSet<>();
+		for (Record record : records) {
+			if (!record.removed && latestVersion.equals(record.version) && amended.contains(record.rowId)) {
+				record.amType = AmendType.UPDATE;
+				updated.add(record.rowId);
+			}
+		}
+
+		for (Record record : records) {
+			if (!record.removed && record.amType == null && updated.contains(record.rowId))
+				record.removed = true;
+		}
+
+		LOGGER.debug("Set the update amendment to " + updated.size() + " row ids");
+	}
+
+	/**
+	 * Set the delete amendment to the records which are present
+	 * just in the old version
+	 */
+	private void setDeleteAmendment(String latestVersion, String oldVersion) {
+
+		Set<String> latestIds = new HashSet<>();
+		for (Record record : records) {
+			if (!record.removed && latestVersion.equals(record.version))
+				latestIds.add(record.rowId);
+		}
+
+		int deleted = 0;
+		for (Record record : records) {
+
+			if (record.removed || !oldVersion.equals(record.version))
+				continue;
+
+			if (!latestIds.contains(record.rowId)) {
+				record.amType = AmendType.DELETE;
+				deleted++;
+			}
+		}
+
+		LOGGER.debug("Set the delete amendment to " + deleted + " records");
+	}
+
+	/**
+	 * Get the number of records which are still part of the dataset
+	 * @return
+	 */
+	public int size() {
+
+		int size = 0;
+		for (Record record : records) {
+			if (!record.removed)
+				size++;
+		}
+
+		return size;
+	}
+
+	/**
+	 * Get the records which are still part of the dataset, in insertion order.
+	 * The records which were spilled are read from the temporary file while
+	 * iterating, therefore the collection should be iterated just once.
+	 * @return
+	 * @throws IOException if the temporary file cannot be completed
+	 */
+	public Collection<DatasetComparison> getAll() throws IOException {
+
+		if (spillWriter != null)
+			spillWriter.flush();
+
+		final int size = size();
+
+		return new AbstractCollection<DatasetComparison>() {
+
+			@Override
+			public Iterator<DatasetComparison> iterator() {
+				return new RecordIterator();
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+		};
+	}
+
+	/**
+	 * Delete the temporary file, if it was created
+	 */
+	@Override
+	public void close() {
+
+		records.clear();
+		keys.clear();
+
+		if (spillFile == null)
+			return;
+
+		try {
+			spillWriter.close();
+		} catch (IOException e) {
+			LOGGER.error("Cannot close the amendment temporary file " + spillFile, e);
+			e.printStackTrace();
+		}
+
+		if (!spillFile.delete())
+			LOGGER.warn("Cannot delete the amendment temporary file " + spillFile);
+
+		spillFile = null;
+		spillWriter = null;
+	}
+
+	/**
+	 * Iterates the records which were not removed, reading
+	 * sequentially the spilled ones from the temporary file
+	 *
+	 */
+	private class RecordIterator implements Iterator<DatasetComparison> {
+
+		private int index;
+		private int spilledRead;
+		private DataInputStream reader;
+		private Record next;
+
+		RecordIterator() {
+			this.index = -1;
+			advance();
+		}
+
+		private void advance() {
+
+			next = null;
+
+			while (++index < records.size()) {
+				Record record = records.get(index);
+
+				if (!record.removed) {
+					next = record;
+					return;
+				}
+
+				// skip the xml of the spilled records which were removed
+				if (record.spilled)
+					readSpilled(false);
+			}
+
+			closeReader();
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		@Override
+		public DatasetComparison next() {
+
+			if (next == null)
+				throw new NoSuchElementException();
+
+			Record record = next;
+
+			String xmlRecord = record.spilled ? readSpilled(true) : record.xmlRecord;
+
+			if (record.amType != null)
+				xmlRecord = xmlRecord + "<amType>" + record.amType.getCode() + "</amType>";
+
+			DatasetComparison comp = new DatasetComparison(record.rowId, record.version, xmlRecord,
+					record.amType, null);
+
+			advance();
+
+			return comp;
+		}
+
+		/**
+		 * Read the next xml from the temporary file
+		 * @param decode false to skip the xml
+		 * @return
+		 */
+		private String readSpilled(boolean decode) {
+
+			try {
+
+				if (reader == null)
+					reader = new DataInputStream(new BufferedInputStream(new FileInputStream(spillFile)));
+
+				int length = reader.readInt();
+
+				spilledRead++;
+
+				if (!decode) {
+					reader.skipBytes(length);
+					return null;
+				}
+
+				byte[] bytes = new byte[length];
+				reader.readFully(bytes);
+
+				return new String(bytes, StandardCharsets.UTF_8);
+
+			} catch (IOException e) {
+				closeReader();
+				throw new UncheckedIOException("Cannot read the amendment temporary file " + spillFile, e);
+			}
+		}
+
+		private void closeReader() {
+
+			if (reader == null)
+				return;
+
+			try {
+				reader.close();
+			} catch (IOException e) {
+				LOGGER.error("Cannot close the amendment temporary file " + spillFile, e);
+				e.printStackTrace();
+			}
+
+			reader = null;
+
+			LOGGER.debug("Read " + spilledRead + " of " + spilledCount + " spilled records");
+		}
+	}
+
+	/**
+	 * Record of a version of the dataset
+	 *
+	 */
+	private static class Record {
+
+		private final String rowId;
+		private final String version;
+		private final byte[] hash;
+
+		// null if the record was spilled
+		private String xmlRecord;
+		private boolean spilled;
+
+		private AmendType amType;
+		private boolean removed;
+
+		Record(String rowId, String version, byte[] hash) {
+			this.rowId = rowId;
+			this.version = version;
+			this.hash = hash;
+		}
+	}
+
+	/**
+	 * Key of the records with the same row id and xml
+	 *
+	 */
+	private static class RecordKey {
+
+		private final String rowId;
+		private final byte[] hash;
+
+		RecordKey(String rowId, byte[] hash) {
+			this.rowId = rowId;
+			this.hash = hash;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * Objects.hashCode(rowId) + Arrays.hashCode(hash);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+
+			if (!(obj instanceof RecordKey))
+				return false;
+
+			RecordKey other = (RecordKey) obj;
+
+			return Objects.equals(rowId, other.rowId) && Arrays.equals(hash, other.hash);
+		}
+	}
+}
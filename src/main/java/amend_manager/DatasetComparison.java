@@ -1,5 +1,7 @@
 package amend_manager;
 
+import table_skeleton.TableRow;
+
 public class DatasetComparison {
 
 	private String rowId;
@@ -10,6 +12,9 @@ public class DatasetComparison {
 	
 	private StringBuilder xmlRecordBuilder;
 	
+	// record already parsed as row, if available
+	private TableRow row;
+	
 	public DatasetComparison(String rowId, 
 			String version, String xmlRecord, AmendType amType, String isNullified) {
 		this.rowId = rowId;
@@ -77,6 +82,15 @@ public class DatasetComparison {
 		this.isNullified = isNullified;
 	}
 	
+	/**
+	 * Set the row which contains the nodes of the xml record,
+	 * to avoid parsing the xml record again
+	 * @param row
+	 */
+	public void setRow(TableRow row) {
+		this.row = row;
+	}
+	
 	public String getRowId() {
 		return rowId;
 	}
@@ -94,6 +108,14 @@ public class DatasetComparison {
 		return isNullified;
 	}
 	
+	/**
+	 * Get the row parsed from the xml record
+	 * @return the row or null if it was not set
+	 */
+	public TableRow getRow() {
+		return row;
+	}
+	
 	@Override
 	public String toString() {
 		return "rowId=" + rowId
@@ -18,6 +18,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import dataset.Dataset;
+import table_skeleton.TableRow;
 import table_skeleton.TableVersion;
 
 /**
@@ -31,6 +32,10 @@ public class DatasetComparisonParser implements AutoCloseable {
 
 	private static final Logger LOGGER = LogManager.getLogger(DatasetComparisonParser.class);
 
+	// factories are not guaranteed to be thread-safe, one for each thread
+	private static final ThreadLocal<XMLInputFactory> INPUT_FACTORY = ThreadLocal
+			.withInitial(DatasetComparisonParser::createInputFactory);
+
 	private String rowIdField;
 	private String versionField;
 
@@ -76,9 +81,24 @@ public class DatasetComparisonParser implements AutoCloseable {
 		this.endRecord = false;
 
 		// initialise xml parser
+		this.eventReader = createEventReader(input);
+	}
+
+	private static XMLInputFactory createInputFactory() {
 		XMLInputFactory factory = XMLInputFactory.newInstance();
 		factory.setProperty(XMLInputFactory.IS_COALESCING, true);
-		this.eventReader = factory.createXMLEventReader(input);
+		return factory;
+	}
+
+	/**
+	 * Create a coalescing event reader, reusing the factory of the thread
+	 * 
+	 * @param input
+	 * @return
+	 * @throws XMLStreamException
+	 */
+	static XMLEventReader createEventReader(InputStream input) throws XMLStreamException {
+		return INPUT_FACTORY.get().createXMLEventReader(input);
 	}
 
 	/**
@@ -135,6 +155,7 @@ public class DatasetComparisonParser implements AutoCloseable {
 
 		if (qName.equals("result")) {
 			this.datasetComp = new DatasetComparison();
+			this.datasetComp.setRow(new TableRow());
 			this.isResultBlock = true;
 		} else if (qName.equals(versionField)) {
 			this.isVersionNode = true;
@@ -170,6 +191,9 @@ public class DatasetComparisonParser implements AutoCloseable {
 
 				this.datasetComp.addXmlNode(xmlNode.toString());
 
+				// parse the row in the same pass
+				RowParser.putNode(this.datasetComp.getRow(), currentNode, contents);
+
 				// if we have the id save it
 				if (currentNode.equals(rowIdField)) {
 					this.datasetComp.setRowId(contents);
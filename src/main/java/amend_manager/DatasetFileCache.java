@@ -0,0 +1,169 @@
+package amend_manager;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import app_config.AppPaths;
+import dataset.NoAttachmentException;
+import providers.IReportService;
+import soap.DetailedSOAPException;
+
+/**
+ * Local cache of the dataset files downloaded from the DCF. Each dataset is
+ * downloaded only once, also if it is requested by several threads at the same
+ * time. The files are stored by the hash of their content, therefore versions
+ * with the same content share the same file. The files are deleted when the
+ * cache is closed.
+ *
+ */
+public class DatasetFileCache implements AutoCloseable {
+
+	private static final Logger LOGGER = LogManager.getLogger(DatasetFileCache.class);
+
+	private static final String CACHE_FOLDER = AppPaths.TEMP_FOLDER + "datasets";
+
+	private final IReportService reportService;
+	private final File folder;
+
+	// files by dataset id
+	private final Map<String, File> files;
+
+	// locks by dataset id, to download each dataset once
+	private final Map<String, Object> locks;
+
+	public DatasetFileCache(IReportService reportService) {
+		this.reportService = reportService;
+		this.folder = new File(CACHE_FOLDER);
+		this.files = new ConcurrentHashMap<>();
+		this.locks = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Get the file of a dataset, downloading it if it is not in the cache
+	 * @param datasetId
+	 * @return
+	 * @throws DetailedSOAPException
+	 * @throws NoAttachmentException
+	 * @throws IOException
+	 */
+	public File get(String datasetId) throws DetailedSOAPException, NoAttachmentException, IOException {
+
+		File file = files.get(datasetId);
+
+		if (file != null)
+			return file;
+
+		synchronized (locks.computeIfAbsent(datasetId, id -> new Object())) {
+
+			// downloaded by another thread in the meanwhile
+			file = files.get(datasetId);
+
+			if (file != null)
+				return file;
+
+			LOGGER.debug("Downloading dataset with id=" + datasetId);
+
+			File downloaded = reportService.download(datasetId);
+
+			file = store(downloaded);
+
+			LOGGER.debug("Dataset with id=" + datasetId + " cached in " + file);
+
+			files.put(datasetId, file);
+
+			return file;
+		}
+	}
+
+	/**
+	 * Move a downloaded file into the cache folder, using the hash of its
+	 * content as name
+	 * @param downloaded
+	 * @return
+	 * @throws IOException
+	 */
+	private File store(File downloaded) throws IOException {
+
+		if (downloaded == null || !downloaded.exists())
+			throw new IOException("Cannot find the dataset attachment in the DCF response.");
+
+		if (!folder.exists() && !folder.mkdirs() && !folder.exists())
+			throw new IOException("Cannot create the datasets cache folder " + folder);
+
+		File file = new File(folder, hash(downloaded) + ".xml");
+
+		synchronized (this) {
+
+			// same content already cached
+			if (file.exists()) {
+				Files.delete(downloaded.toPath());
+				return file;
+			}
+
+			Files.move(downloaded.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+
+		return file;
+	}
+
+	/**
+	 * Compute the hash of the content of a file
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 */
+	private static String hash(File file) throws IOException {
+
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not supported by the platform", e);
+		}
+
+		byte[] buffer = new byte[8192];
+
+		try (InputStream input = Files.newInputStream(file.toPath());) {
+			int read;
+			while ((read = input.read(buffer)) != -1) {
+				digest.update(buffer, 0, read);
+			}
+		}
+
+		StringBuilder sb = new StringBuilder();
+		for (byte b : digest.digest()) {
+			sb.append(String.format("%02x", b));
+		}
+
+		return sb.toString();
+	}
+
+	/**
+	 * Delete all the cached files
+	 */
+	@Override
+	public void close() {
+
+		Set<File> cached = new HashSet<>(files.values());
+
+		files.clear();
+		locks.clear();
+
+		for (File file : cached) {
+			if (file.exists() && !file.delete())
+				LOGGER.warn("Cannot delete the cached dataset file " + file);
+		}
+	}
+}
@@ -7,18 +7,29 @@ import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.xml.stream.XMLStreamException;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import app_config.PropertiesReader;
 import dataset.Dataset;
 import dataset.DatasetList;
 import dataset.IDataset;
 import dataset.NoAttachmentException;
 import formula.FormulaException;
+import metrics.Metrics;
 import progress_bar.ProgressListener;
 import providers.IReportService;
 import providers.ITableDaoService;
@@ -42,6 +53,14 @@ public abstract class ReportImporter {
 
 	private int processedDatasets;
 
+	// records of the imported versions which were not amended yet. If they
+	// exceed the memory budget they are moved to APP.DATASET_COMPARISON
+	private List<DatasetComparison> comparisons;
+	private long comparisonsSize;
+	private long memoryBudget;
+	private boolean storedInTable;
+	private DatasetFileCache fileCache;
+
 	private ITableDaoService daoService;
 	private IReportService reportService;
 
@@ -60,6 +79,8 @@ public abstract class ReportImporter {
 			ITableDaoService daoService) {
 
 		this.processedDatasets = 1;
+		this.comparisons = new ArrayList<>();
+		this.memoryBudget = PropertiesReader.getImportMemoryBudget();
 
 		this.rowIdField = rowIdField;
 		this.versionField = versionField;
@@ -108,7 +129,7 @@ public abstract class ReportImporter {
 		LOGGER.debug("Downloading..");
 		String datasetId = dataset.getId();
 
-		File file = reportService.download(datasetId);
+		File file = fileCache.get(datasetId);
 
 		Dataset populatedDataset = reportService.datasetFromFile(file);
 
@@ -166,62 +187,84 @@ public abstract class ReportImporter {
 		// sort the datasets by version ascendent
 		datasetVersions.sortAsc();
 
-		// in order, import the datasets processing the amendments if needed
-		for (IDataset data : datasetVersions) {
+		// the versions after the last existing one are not needed
+		List<Dataset> versions = getVersionsToImport(n);
 
-			Dataset dataset = (Dataset) data;
+		int threads = Math.max(1, Math.min(versions.size(), PropertiesReader.getImportMaxParallelDownloads()));
 
-			setProgress(processedDatasets / datasetVersions.size() * 25);
+		ExecutorService executor = createExecutor(threads);
 
-			LOGGER.debug("importSingleVersion=" + dataset);
+		try (DatasetFileCache cache = new DatasetFileCache(reportService);) {
 
-			// import the single dataset into db
-			importSingleVersion((Dataset) dataset);
+			this.fileCache = cache;
 
-			setProgress(processedDatasets / datasetVersions.size() * 100);
-			processedDatasets++;
+			// download and parse the versions in parallel, they are then processed
+			// in order as soon as they are ready. Only a version for each thread
+			// is parsed in advance, to limit the records kept in memory
+			List<Future<List<DatasetComparison>>> parsedVersions = new ArrayList<>();
+			while (parsedVersions.size() < Math.min(threads, versions.size()))
+				submitParsing(executor, versions, parsedVersions);
 
-			// get the dataset version
-			int currentVersion = TableVersion.getNumVersion(dataset.getVersion());
+			// in order, import the datasets processing the amendments if needed
+			for (int i = 0; i < versions.size(); ++i) {
 
-			LOGGER.debug("The version of the imported dataset is " + currentVersion);
+				Dataset dataset = versions.get(i);
 
-			if (currentVersion == k || currentVersion == n) {
+				setProgress(processedDatasets / datasetVersions.size() * 25);
 
-				if (currentVersion == n)
-					LOGGER.debug("-> which is the last one");
-				else
-					LOGGER.debug("-> which is the last accepted one");
+				LOGGER.debug("importSingleVersion=" + dataset);
 
-				LOGGER.debug("--> therefore process amendments and create the report");
+				// import the single dataset
+				importSingleVersion(parsedVersions.get(i));
+				parsedVersions.set(i, null);
 
-				// populate the dataset with metadata (operation/header)
-				Dataset popDataset = download(dataset);
+				if (parsedVersions.size() < versions.size())
+					submitParsing(executor, versions, parsedVersions);
 
-				// process the dataset header/operation
-				TableRow newReport = importDatasetMetadata(popDataset);
-				if (this.newVersions == null) {
-					this.newVersions = new TableRowList(newReport.getSchema());
-				}
+				setProgress(processedDatasets / datasetVersions.size() * 100);
+				processedDatasets++;
+
+				// get the dataset version
+				int currentVersion = TableVersion.getNumVersion(dataset.getVersion());
+
+				LOGGER.debug("The version of the imported dataset is " + currentVersion);
+
+				if (currentVersion == k || currentVersion == n) {
+
+					if (currentVersion == n)
+						LOGGER.debug("-> which is the last one");
+					else
+						LOGGER.debug("-> which is the last accepted one");
 
-				newVersions.add(newReport);
+					LOGGER.debug("--> therefore process amendments and create the report");
 
-				// process the amendments of the current dataset
-				LOGGER.debug("Processing amendments");
-				processAmendments();
+					// populate the dataset with metadata (operation/header)
+					Dataset popDataset = download(dataset);
 
-				// generate local report starting from dataset
-				LOGGER.debug("Saving the imported report version into the database");
-				createLocalReport();
+					// process the dataset header/operation
+					TableRow newReport = importDatasetMetadata(popDataset);
+					if (this.newVersions == null) {
+						this.newVersions = new TableRowList(newReport.getSchema());
+					}
 
-				// if we have reached the last processable dataset stop
-				if (currentVersion == n) {
-					break;
+					newVersions.add(newReport);
+
+					// process the amendments of the current dataset
+					LOGGER.debug("Processing amendments");
+					processAmendments();
+
+					// generate local report starting from dataset
+					LOGGER.debug("Saving the imported report version into the database");
+					createLocalReport();
 				}
 			}
 		}
+		finally {
+			executor.shutdownNow();
+			this.fileCache = null;
+		}
 
-		// at the end clear the database table
+		// at the end clear the comparison records
 		clearTable();
 
 		// delete all the old versions (we don't need them anymore)
@@ -254,57 +297,205 @@ public abstract class ReportImporter {
 	}
 
 	/**
-	 * Import a single dataset version into the database
+	 * Get the versions which need to be imported, up to the last existing one
 	 * 
-	 * @param dataset
+	 * @param lastExistingVersion
+	 * @return
+	 */
+	private List<Dataset> getVersionsToImport(int lastExistingVersion) {
+
+		List<Dataset> versions = new ArrayList<>();
+
+		for (IDataset data : datasetVersions) {
+
+			Dataset dataset = (Dataset) data;
+			versions.add(dataset);
+
+			if (TableVersion.getNumVersion(dataset.getVersion()) == lastExistingVersion)
+				break;
+		}
+
+		return versions;
+	}
+
+	/**
+	 * Create the executor which downloads and parses the versions
+	 * 
+	 * @param threads
+	 * @return
+	 */
+	private ExecutorService createExecutor(int threads) {
+
+		AtomicInteger counter = new AtomicInteger();
+
+		return Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "report-import-" + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Start downloading and parsing the next version
+	 * 
+	 * @param executor
+	 * @param versions       all the versions to be imported
+	 * @param parsedVersions versions already submitted
+	 */
+	private void submitParsing(ExecutorService executor, List<Dataset> versions,
+			List<Future<List<DatasetComparison>>> parsedVersions) {
+
+		Dataset dataset = versions.get(parsedVersions.size());
+		DatasetFileCache cache = this.fileCache;
+
+		parsedVersions.add(executor.submit(() -> parseDatasetFile(cache.get(dataset.getId()))));
+	}
+
+	/**
+	 * Import a single dataset version, waiting until it is parsed
+	 * 
+	 * @param parsedVersion
 	 * @throws DetailedSOAPException
 	 * @throws XMLStreamException
 	 * @throws IOException
 	 * @throws NoAttachmentException
 	 */
-	private void importSingleVersion(Dataset dataset)
+	private void importSingleVersion(Future<List<DatasetComparison>> parsedVersion)
 			throws DetailedSOAPException, XMLStreamException, IOException, NoAttachmentException {
 
-		// download the dataset file
-		File file = reportService.download(dataset.getId());
+		List<DatasetComparison> records;
+
+		try {
+			records = parsedVersion.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while importing the dataset", e);
+		} catch (ExecutionException e) {
+
+			Throwable cause = e.getCause();
+
+			if (cause instanceof DetailedSOAPException)
+				throw (DetailedSOAPException) cause;
+			if (cause instanceof NoAttachmentException)
+				throw (NoAttachmentException) cause;
+			if (cause instanceof XMLStreamException)
+				throw (XMLStreamException) cause;
+			if (cause instanceof IOException)
+				throw (IOException) cause;
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+
+			throw new IOException("Cannot import the dataset", cause);
+		}
 
 		setProgress(processedDatasets / datasetVersions.size() * 75);
 
-		// import the file
-		importDatasetFile(file);
+		addComparisons(records);
 	}
 
 	/**
-	 * Import a dataset file into the comparison table
+	 * Import a dataset file into the comparison records
 	 * 
 	 * @param file
 	 * @throws XMLStreamException
 	 * @throws IOException
 	 */
 	private void importDatasetFile(File file) throws XMLStreamException, IOException {
+		addComparisons(parseDatasetFile(file));
+	}
+
+	/**
+	 * Add the records of a version to the comparison records. If the memory
+	 * budget is exceeded, all the records are moved to the dataset comparison
+	 * table and the amendments are processed there, as with large reports the
+	 * parsed rows could not fit in memory
+	 * 
+	 * @param records
+	 */
+	private void addComparisons(List<DatasetComparison> records) {
+
+		DatasetComparisonDao dao = new DatasetComparisonDao();
+
+		if (storedInTable) {
+			for (DatasetComparison comp : records)
+				dao.add(comp);
+			return;
+		}
+
+		comparisons.addAll(records);
+
+		// each char of the xml is stored once in the record and
+		// once in its parsed row, as 2 bytes chars
+		for (DatasetComparison comp : records) {
+			if (comp.getXmlRecord() != null)
+				comparisonsSize += comp.getXmlRecord().length() * 4L;
+		}
+
+		if (comparisonsSize <= memoryBudget)
+			return;
+
+		LOGGER.info("Import memory budget of " + memoryBudget + " bytes exceeded, moving " + comparisons.size()
+				+ " records to the dataset comparison table");
+
+		// remove records left by interrupted imports
+		dao.deleteAll();
+
+		for (DatasetComparison comp : comparisons)
+			dao.add(comp);
+
+		comparisons.clear();
+		comparisonsSize = 0;
+		storedInTable = true;
+	}
+
+	/**
+	 * Parse the records of a dataset file, together with their rows
+	 * 
+	 * @param file
+	 * @return
+	 * @throws XMLStreamException
+	 * @throws IOException
+	 */
+	private List<DatasetComparison> parseDatasetFile(File file) throws XMLStreamException, IOException {
 
 		if (file == null || !file.exists()) {
 			throw new IOException("Cannot find the dataset attachment in the DCF response.");
 		}
 
+		List<DatasetComparison> records = new ArrayList<>();
+
+		long start = Metrics.start();
+
 		// parse it to extract the relevant information
 		try (DatasetComparisonParser parser = new DatasetComparisonParser(file, rowIdField, versionField);) {
 
-			// for each dataset comparison insert into the db
 			DatasetComparison comp;
 			while ((comp = parser.next()) != null) {
-				DatasetComparisonDao dao = new DatasetComparisonDao();
-				dao.add(comp);
+				records.add(comp);
 			}
-
-			parser.close();
+		} finally {
+			Metrics.stop("xml.parse", "dataset", start);
 		}
+
+		LOGGER.debug("Parsed " + records.size() + " records from " + file);
+
+		return records;
 	}
 
 	/**
 	 * Process the amendments of the current processed dataset
 	 */
 	private void processAmendments() {
+
+		if (storedInTable) {
+			deleteNullifiedRecordsFromTable();
+			deleteOldVersionsOfRecordsFromTable();
+			deleteRemovedRecordsFromTable();
+			return;
+		}
+
 		deleteNullifiedRecords();
 		deleteOldVersionsOfRecords();
 		deleteRemovedRecords();
@@ -314,6 +505,42 @@ public abstract class ReportImporter {
 	 * Delete all the records which were amended as deleted
 	 */
 	private void deleteNullifiedRecords() {
+		comparisons.removeIf(comp -> "1".equals(comp.getIsNullified()));
+	}
+
+	/**
+	 * Delete all the records which are not the last version of their row id
+	 */
+	private void deleteOldVersionsOfRecords() {
+
+		Map<String, String> lastVersions = new HashMap<>();
+		Set<String> rowIds = new HashSet<>();
+
+		for (DatasetComparison comp : comparisons) {
+
+			String rowId = comp.getRowId();
+			String version = comp.getVersion();
+
+			rowIds.add(rowId);
+
+			if (rowId != null && version != null)
+				lastVersions.merge(rowId, version, (v1, v2) -> v1.compareTo(v2) >= 0 ? v1 : v2);
+		}
+
+		// a row id without a version cannot be compared, as in
+		// the sql not in, then none of the records is deleted
+		if (rowIds.contains(null) || !lastVersions.keySet().containsAll(rowIds))
+			return;
+
+		comparisons.removeIf(comp -> comp.getVersion() != null
+				&& !comp.getVersion().equals(lastVersions.get(comp.getRowId())));
+	}
+
+	private void deleteRemovedRecords() {
+		comparisons.removeIf(comp -> comp.getAmType() == AmendType.DELETE);
+	}
+
+	private void deleteNullifiedRecordsFromTable() {
 
 		StringBuilder query = new StringBuilder();
 		query.append("delete from APP.DATASET_COMPARISON ").append("where IS_NULLIFIED = '1'");
@@ -322,7 +549,7 @@ public abstract class ReportImporter {
 		dao.executeQuery(query.toString());
 	}
 
-	private void deleteOldVersionsOfRecords() {
+	private void deleteOldVersionsOfRecordsFromTable() {
 
 		StringBuilder query = new StringBuilder();
 		query.append("delete from APP.DATASET_COMPARISON ").append("where ROW_ID || VERSION not in (")
@@ -332,7 +559,7 @@ public abstract class ReportImporter {
 		dao.executeQuery(query.toString());
 	}
 
-	private void deleteRemovedRecords() {
+	private void deleteRemovedRecordsFromTable() {
 
 		StringBuilder query = new StringBuilder();
 		query.append("delete from APP.DATASET_COMPARISON ").append("where AM_TYPE = 'D'");
@@ -351,13 +578,23 @@ public abstract class ReportImporter {
 	 */
 	private void createLocalReport() throws XMLStreamException, IOException, FormulaException, ParseException {
 
-		DatasetComparisonDao dao = new DatasetComparisonDao();
-		List<DatasetComparison> list = dao.getAll();
 		List<TableRow> rows = new ArrayList<>();
 
-		for (DatasetComparison comp : list) {
-			TableRow row = getRowFromXml(comp.getXmlRecord());
-			rows.add(row);
+		if (storedInTable) {
+
+			DatasetComparisonDao dao = new DatasetComparisonDao();
+
+			for (DatasetComparison comp : dao.getAll())
+				rows.add(getRowFromXml(comp.getXmlRecord()));
+
+		} else {
+
+			for (DatasetComparison comp : comparisons) {
+
+				// copy the parsed row, since the imported
+				// rows are changed by the implementations
+				rows.add(new TableRow(comp.getRow()));
+			}
 		}
 
 		// import the rows
@@ -380,13 +617,10 @@ public abstract class ReportImporter {
 		xmlRecord = "<dummy>" + xmlRecord + "</dummy>";
 
 		InputStream input = new ByteArrayInputStream(xmlRecord.getBytes(encoding));
-		RowParser parser = new RowParser(input);
-
-		TableRow row = parser.parse();
 
-		parser.close();
-
-		return row;
+		try (RowParser parser = new RowParser(input);) {
+			return parser.parse();
+		}
 	}
 
 	/**
@@ -422,12 +656,18 @@ public abstract class ReportImporter {
 	}
 
 	/**
-	 * Clear comparisons table
+	 * Clear the comparison records
 	 */
 	private void clearTable() {
-		LOGGER.debug("Clearing DatasetComparison table");
-		DatasetComparisonDao dao = new DatasetComparisonDao();
-		dao.deleteAll();
+		LOGGER.debug("Clearing the dataset comparison records");
+		comparisons.clear();
+		comparisonsSize = 0;
+
+		if (storedInTable) {
+			DatasetComparisonDao dao = new DatasetComparisonDao();
+			dao.deleteAll();
+			storedInTable = false;
+		}
 	}
 
 	/**
@@ -2,6 +2,7 @@ package amend_manager;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Collection;
 
 import javax.xml.parsers.ParserConfigurationException;
@@ -10,6 +11,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.xml.sax.SAXException;
 
+import app_config.PropertiesReader;
 import message.MessageConfigBuilder;
 import message_creator.MessageXmlBuilder;
 import progress_bar.ProgressListener;
@@ -82,11 +84,6 @@ public class ReportXmlBuilder implements AutoCloseable {
 		}
 	}
 	
-	private void clearTable() {
-		DatasetComparisonDao dao = new DatasetComparisonDao();
-		dao.deleteAll();
-	}
-	
 	/**
 	 * 
 	 * @return
@@ -101,67 +98,65 @@ public class ReportXmlBuilder implements AutoCloseable {
 		
 		LOGGER.info("Exporting report " + report);
 		
-		clearTable();
-		
-		// extract the report into the comparisons table
-		extractSingleVersion(report);
-		
-		String latestVersion = report.getVersion();
-		
-		LOGGER.debug("The version of the report is " + latestVersion);
-		
-		setProgress(40);
-		
-		// if baseline, just extract it and export it
-		if (report.isBaselineVersion()) {
-			LOGGER.info("Export finished since the report does not have amended versions");
+		try (AmendmentEngine engine = new AmendmentEngine(PropertiesReader.getAmendmentMemoryBudget());) {
+			
+			// extract the report into the amendment engine
+			extractSingleVersion(report, engine);
+			
+			String latestVersion = report.getVersion();
+			
+			LOGGER.debug("The version of the report is " + latestVersion);
+			
+			setProgress(40);
+			
+			// if baseline, just extract it and export it
+			if (report.isBaselineVersion()) {
+				LOGGER.info("Export finished since the report does not have amended versions");
+				setProgress(100);
+				return createXmlFile(engine);
+			}
+			
+			// otherwise extract also the previous version
+			EFSAReport previousReport = report.getPreviousVersion(daoService);
+			
+			if (previousReport == null) {
+				throw new ReportException("Cannot export report " 
+						+ report.getVersion() 
+						+ " since its previous version cannot be found.");
+			}
+			
+			// extract also the previous report
+			extractSingleVersion(previousReport, engine);
+			
+			String oldVersion = previousReport.getVersion();
+			
+			setProgress(60);
+			
+			// solve the amendments of the two versions
+			solveDuplications(engine, latestVersion, oldVersion);
+			
+			setProgress(80);
+			
+			// export the final xml file with the merged dataset
+			File xml = createXmlFile(engine);
+			
 			setProgress(100);
-			File file = createXmlFile();
-			clearTable();
-			return file;
-		}
-		
-		// otherwise extract also the previous version
-		EFSAReport previousReport = report.getPreviousVersion(daoService);
-		
-		if (previousReport == null) {
-			throw new ReportException("Cannot export report " 
-					+ report.getVersion() 
-					+ " since its previous version cannot be found.");
+			
+			return xml;
 		}
-		
-		// extract also the previous report
-		extractSingleVersion(previousReport);
-		
-		String oldVersion = previousReport.getVersion();
-		
-		setProgress(60);
-		
-		// solve the amendments of the two versions
-		solveDuplications(latestVersion, oldVersion);
-		
-		setProgress(80);
-		
-		// export the final xml file with the merged dataset
-		File xml = createXmlFile();
-		
-		setProgress(100);
-		
-		clearTable();
-		
-		return xml;
 	}
 	
 	/**
-	 * Extract a single version and put it into the database
+	 * Extract a single version and put it into the amendment engine
 	 * @param record
+	 * @throws IOException 
 	 */
-	private void extractSingleVersion(EFSAReport report) {
+	private void extractSingleVersion(EFSAReport report, AmendmentEngine engine) throws IOException {
 		
 		// for each row
 		for (TableRow record : report.getRecords(daoService)) {
 		
-			LOGGER.debug("Adding to the DATASET_COMPARISON table the record " + record);
+			LOGGER.debug("Adding to the amendment engine the record " + record);
 			
 			// update all the record formulas
 			formulaService.updateFormulas(record);
@@ -172,12 +167,8 @@ public class ReportXmlBuilder implements AutoCloseable {
 			// get the version
 			String version = report.getVersion();
 			
-			// create the dataset comparison object
-			DatasetComparison comp = new DatasetComparison(rowId, version, record.toXml(false));
-
-			// save it into the comparison table
-			DatasetComparisonDao dao = new DatasetComparisonDao();
-			dao.add(comp);
+			// add it to the compared records
+			engine.add(rowId, version, record.toXml(false));
 		}
 	}
 	
@@ -185,15 +176,12 @@ public class ReportXmlBuilder implements AutoCloseable {
 	 * Solve the duplications and set the amendments
 	 * @throws AmendException 
 	 */
-	private void solveDuplications(String latestVersion, String oldVersion) throws AmendException {
-		
-		DatasetComparisonDao dao = new DatasetComparisonDao();
+	private void solveDuplications(AmendmentEngine engine, String latestVersion, String oldVersion) 
+			throws AmendException {
 		
-		removeOldRecordVersions();
-		setUpdateAmendment(latestVersion, oldVersion);
-		setDeleteAmendment(latestVersion, oldVersion);
+		engine.solveAmendments(latestVersion, oldVersion);
 		
-		if (dao.getAll().isEmpty())
+		if (engine.size() == 0)
 			throw new AmendException("Cannot create .xml file with no data");
 	}
 	
@@ -204,10 +192,9 @@ public class ReportXmlBuilder implements AutoCloseable {
 	 * @throws SAXException 
 	 * @throws ParserConfigurationException 
 	 */
-	private File createXmlFile() throws IOException, ParserConfigurationException, SAXException {
+	private File createXmlFile(AmendmentEngine engine) throws IOException, ParserConfigurationException, SAXException {
 		
-		DatasetComparisonDao dao = new DatasetComparisonDao();
-		Collection<DatasetComparison> comps = dao.getAll();
+		Collection<DatasetComparison> comps = engine.getAll();
 		
 		// export the xml file
 		try(MessageXmlBuilder creator = new MessageXmlBuilder(
@@ -216,104 +203,14 @@ public class ReportXmlBuilder implements AutoCloseable {
 			LOGGER.debug("Creating the xml file of the dataset");
 			return creator.export(comps);
 		}
-	}
-	
-	/**
-	 * Remove all the records which belong to an old version
-	 * and they were replaced by a newer version
-	 */
-	private void removeOldRecordVersions() {
-
-		StringBuilder query = new StringBuilder();
-		query.append("delete from APP.DATASET_COMPARISON ")
-			.append("where ROW_ID in ( ")
-				.append("select ROW_ID ")
-				.append("from APP.DATASET_COMPARISON ")
-				.append("group by ROW_ID, XML_RECORD ")
-				.append("having COUNT(VERSION) = 2 ")
-			.append(") ");
-		
-		DatasetComparisonDao dao = new DatasetComparisonDao();
-		dao.executeQuery(query.toString());
-		
-		LOGGER.debug("Removing all the records which belonged to an old version");
-	}
-	
-	/**
-	 * Set the update amendment to the updated row
-	 */
-	private void setUpdateAmendment(String latestVersion, String oldVersion) {
-		
-		StringBuilder query = new StringBuilder();
-		
-		// set update amendment
-		query.append("update APP.DATASET_COMPARISON ")
-			.append("set XML_RECORD = XML_RECORD || '<amType>U</amType>',")
-			.append("AM_TYPE = 'U' ")
-			.append("where VERSION = ")
-			.append("'").append(latestVersion).append("'")
-			.append(" and ")
-			.append("ROW_ID in (")
-				.append("select ROW_ID ")
-				.append("from APP.DATASET_COMPARISON ")
-				.append("where VERSION = ")
-				.append("'").append(oldVersion).append("'")
-				.append(" and ROW_ID in (")  // avoid to set amType = U for new records
-					.append("select ROW_ID ")
-					.append("from APP.DATASET_COMPARISON ")
-					.append("group by ROW_ID ")
-					.append("having COUNT(VERSION) = 2")
-				.append(")")
-			.append(")");
-		
-		DatasetComparisonDao dao = new DatasetComparisonDao();
-		dao.executeQuery(query.toString());
-		
-		// then delete the old record versions related
-		// to the just changed records
-		StringBuilder query2 = new StringBuilder();
-		query2.append("delete from APP.DATASET_COMPARISON ")
-			.append("where AM_TYPE is null ")
-			.append("and ")
-			.append("ROW_ID in (")
-				.append("select ROW_ID ")
-				.append("from APP.DATASET_COMPARISON ")
-				.append("where AM_TYPE = 'U' ")
-			.append(")");
-		
-		dao.executeQuery(query2.toString());
-	}
-	
-	/**
-	 * Set the delete amendment for records that are present
-	 * just in the older version (i.e. they were deleted)
-	 */
-	private void setDeleteAmendment(String latestVersion, String oldVersion) {
-
-		StringBuilder query = new StringBuilder();
-		
-		// set delete amendment
-		query.append("update APP.DATASET_COMPARISON ")
-			.append("set XML_RECORD = XML_RECORD || '<amType>D</amType>',")
-			.append("AM_TYPE = 'D' ")
-			.append("where VERSION = ")
-			.append("'").append(oldVersion).append("'")
-			.append(" and ")
-			.append("ROW_ID not in (")
-				.append("select ROW_ID ")
-				.append("from APP.DATASET_COMPARISON ")
-				.append("where VERSION = ")
-				.append("'").append(latestVersion).append("'")
-			.append(")");
-		
-		DatasetComparisonDao dao = new DatasetComparisonDao();
-		dao.executeQuery(query.toString());
+		catch (UncheckedIOException e) {
+			// the records spilled to disk cannot be read back
+			throw e.getCause();
+		}
 	}
 
 	@Override
 	public void close() {
-		LOGGER.debug("Clearing temp table");
-		// clear the temporary table
-		clearTable();
+		// the amendment engine is closed at the end of each export
 	}
 }
@@ -8,7 +8,6 @@ import java.io.IOException;
 import java.io.InputStream;
 
 import javax.xml.stream.XMLEventReader;
-import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.events.StartElement;
@@ -61,9 +60,7 @@ public class RowParser implements Closeable {
 		this.datasetRow = new TableRow();
 
 		// initialise xml parser
-		XMLInputFactory factory = XMLInputFactory.newInstance();
-		factory.setProperty(XMLInputFactory.IS_COALESCING, true);
-		this.eventReader = factory.createXMLEventReader(input);
+		this.eventReader = DatasetComparisonParser.createEventReader(input);
 	}
 
 	/**
@@ -127,11 +124,23 @@ public class RowParser implements Closeable {
 		if (contents == null || currentNode == null || contents.trim().isEmpty())
 			return;
 
+		putNode(datasetRow, currentNode, contents);
+	}
+
+	/**
+	 * Save the contents of an xml node into the row
+	 * 
+	 * @param datasetRow
+	 * @param currentNode
+	 * @param contents
+	 */
+	static void putNode(TableRow datasetRow, String currentNode, String contents) {
+
 		// this check allows to extract the statusHerd value from the sampEventInfo and
 		// set it in the row (since no node in xml with statusHerd)
 		//
 		// <sampEventInfo>statusHerd=F/N<sampEventInfo>
-		if (this.currentNode.contains("sampEventInfo")) {
+		if (currentNode.contains("sampEventInfo")) {
 			String[] content = contents.split("=");
 			if (content.length > 0)
 				datasetRow.put("statusHerd", content[1]);
@@ -37,6 +37,22 @@ public class PropertiesReader {
 	private static final String TECH_SUPPORT_EMAIL_SUBJECT = "TechnicalSupport.Email.Subject";
 	private static final String TECH_SUPPORT_EMAIL_BODY = "TechnicalSupport.Email.Body";
 	private static final String DB_REQUIRED_VERSION_PROPERTY = "Db.MinRequiredVersion";
+	private static final String DB_POOL_SIZE_PROPERTY = "Db.PoolSize";
+	private static final String DB_POOL_TIMEOUT_PROPERTY = "Db.PoolBorrowTimeout";
+	private static final String DB_BATCH_SIZE_PROPERTY = "Db.BatchSize";
+	private static final String DB_STATEMENT_CACHE_PROPERTY = "Db.StatementCacheSize";
+	private static final String AMENDMENT_MEMORY_PROPERTY = "Amendment.MemoryBudgetMb";
+	private static final String IMPORT_THREADS_PROPERTY = "Import.MaxParallelDownloads";
+	private static final String IMPORT_MEMORY_PROPERTY = "Import.MemoryBudgetMb";
+	private static final String DCF_CACHE_TTL_PROPERTY = "Dcf.CacheTimeToLive";
+	private static final String DCF_OFFLINE_PROPERTY = "Dcf.OfflineMode";
+	private static final String TASKS_REMOTE_POOL_PROPERTY = "Tasks.RemotePoolSize";
+	private static final String TASKS_REPORT_POOL_PROPERTY = "Tasks.ReportPoolSize";
+	private static final String TASKS_QUEUE_PROPERTY = "Tasks.QueueSize";
+	private static final String METRICS_ENABLED_PROPERTY = "Metrics.Enabled";
+	private static final String METRICS_FILE_PROPERTY = "Metrics.DumpFile";
+	private static final String PARENT_CACHE_PROPERTY = "Relations.ParentCacheSize";
+	private static final String TABLE_LAZY_ROWS_PROPERTY = "Table.LazyLoadingRows";
 	private static final String APP_NAME_PROPERTY = "Application.Name";
 	private static final String APP_VERSION_PROPERTY = "Application.Version";
 	private static final String APP_ICON_PROPERTY = "Application.Icon";
@@ -103,6 +119,158 @@ public class PropertiesReader {
 		return getValue(DB_REQUIRED_VERSION_PROPERTY);
 	}
 	
+	/**
+	 * Get the maximum number of database connections which
+	 * can be open at the same time
+	 * @return
+	 */
+	public static int getDbPoolSize() {
+		return getIntValue(DB_POOL_SIZE_PROPERTY, 4);
+	}
+	
+	/**
+	 * Get the maximum time in milliseconds that a thread
+	 * waits for a free database connection
+	 * @return
+	 */
+	public static long getDbPoolBorrowTimeout() {
+		return getIntValue(DB_POOL_TIMEOUT_PROPERTY, 30000);
+	}
+	
+	/**
+	 * Get the number of rows which are sent together
+	 * to the database in bulk insertions
+	 * @return
+	 */
+	public static int getDbBatchSize() {
+		return getIntValue(DB_BATCH_SIZE_PROPERTY, 500);
+	}
+	
+	/**
+	 * Get the number of prepared statements which are kept
+	 * open for each database connection, 0 to disable the cache
+	 * @return
+	 */
+	public static int getDbStatementCacheSize() {
+		return Math.max(0, getIntValue(DB_STATEMENT_CACHE_PROPERTY, 64));
+	}
+	
+	/**
+	 * Get the number of bytes of records which can be kept
+	 * in memory while computing the amendments of a report.
+	 * Beyond it the records are written to a temporary file
+	 * @return
+	 */
+	public static long getAmendmentMemoryBudget() {
+		return getIntValue(AMENDMENT_MEMORY_PROPERTY, 64) * 1024L * 1024L;
+	}
+	
+	/**
+	 * Get the maximum number of dataset versions which are
+	 * downloaded and parsed at the same time while importing a report
+	 * @return
+	 */
+	public static int getImportMaxParallelDownloads() {
+		return Math.max(1, getIntValue(IMPORT_THREADS_PROPERTY, 4));
+	}
+	
+	/**
+	 * Get the number of bytes of records which can be kept in
+	 * memory while importing a report. Beyond it the records are
+	 * stored in the dataset comparison table
+	 * @return
+	 */
+	public static long getImportMemoryBudget() {
+		return getIntValue(IMPORT_MEMORY_PROPERTY, 64) * 1024L * 1024L;
+	}
+	
+	/**
+	 * Get the milliseconds for which the datasets lists
+	 * and the acks received from the DCF are reused
+	 * @return
+	 */
+	public static long getDcfCacheTimeToLive() {
+		return getIntValue(DCF_CACHE_TTL_PROPERTY, 120) * 1000L;
+	}
+	
+	/**
+	 * Check if the DCF should not be contacted to read
+	 * datasets lists and acks, using the last known ones
+	 * @return
+	 */
+	public static boolean isDcfOfflineMode() {
+		return BooleanValue.isTrue(getValue(DCF_OFFLINE_PROPERTY));
+	}
+	
+	/**
+	 * Get the maximum number of background tasks which
+	 * call the DCF web services at the same time
+	 * @return
+	 */
+	public static int getRemoteTasksPoolSize() {
+		return Math.max(1, getIntValue(TASKS_REMOTE_POOL_PROPERTY, 4));
+	}
+	
+	/**
+	 * Get the maximum number of reports which are
+	 * processed in background at the same time
+	 * @return
+	 */
+	public static int getReportTasksPoolSize() {
+		return Math.max(1, getIntValue(TASKS_REPORT_POOL_PROPERTY, 2));
+	}
+	
+	/**
+	 * Get the maximum number of background tasks which
+	 * can wait for a free thread in each pool
+	 * @return
+	 */
+	public static int getTasksQueueSize() {
+		return Math.max(0, getIntValue(TASKS_QUEUE_PROPERTY, 100));
+	}
+	
+	/**
+	 * Check if the timers and counters of the main
+	 * operations should be collected
+	 * @return
+	 */
+	public static boolean isMetricsEnabled() {
+		return BooleanValue.isTrue(getValue(METRICS_ENABLED_PROPERTY));
+	}
+	
+	/**
+	 * Get the file where the metrics are written
+	 * when the application is closed
+	 * @return
+	 */
+	public static String getMetricsDumpFile() {
+		
+		String file = getValue(METRICS_FILE_PROPERTY);
+		
+		if (file == null || file.isEmpty() || file.startsWith("!"))
+			return AppPaths.LOG_FOLDER + "metrics.txt";
+		
+		return file;
+	}
+	
+	/**
+	 * Get the maximum number of parent rows kept
+	 * in memory to solve the relations
+	 * @return
+	 */
+	public static int getParentCacheSize() {
+		return Math.max(1, getIntValue(PARENT_CACHE_PROPERTY, 1000));
+	}
+	
+	/**
+	 * Get the number of rows beyond which the rows of
+	 * a table are loaded only when they become visible
+	 * @return
+	 */
+	public static int getLazyLoadingRows() {
+		return Math.max(0, getIntValue(TABLE_LAZY_ROWS_PROPERTY, 2000));
+	}
+	
 	/**
 	 * Get the email that the user should contact
 	 * in case of technical support need
@@ -383,6 +551,30 @@ public class PropertiesReader {
 	}
 	
 	
+	/**
+	 * Get an integer property value, using the default value
+	 * if the property is missing or malformed
+	 * @param property
+	 * @param defaultValue
+	 * @return
+	 */
+	private static int getIntValue(String property, int defaultValue) {
+		
+		String value = getValue(property);
+		
+		if (value == null)
+			return defaultValue;
+		
+		try {
+			return Integer.valueOf(value.trim());
+		}
+		catch(NumberFormatException e) {
+			LOGGER.warn("Expected number for " + property + ", found=" + value 
+					+ ". Using default=" + defaultValue);
+			return defaultValue;
+		}
+	}
+	
 	/**
 	 * Get a property value given the key
 	 * @param property
@@ -3,6 +3,9 @@ package dataset;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
 
 import report.VersionComparator;
 import soap.GetDatasetsList;
@@ -20,6 +23,31 @@ public class DatasetList extends ArrayList<IDataset> implements IDcfDatasetsList
 	 */
 	private static final long serialVersionUID = 1L;
 
+	// maximum number of compiled filters kept in memory
+	private static final int MAX_PATTERNS = 64;
+
+	// compiled filters by regex, since the same filters are used for each
+	// refresh of the datasets list
+	private static final Map<String, Pattern> PATTERNS = Collections
+			.synchronizedMap(new LinkedHashMap<String, Pattern>(16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, Pattern> eldest) {
+					return size() > MAX_PATTERNS;
+				}
+			});
+
+	/**
+	 * Get the compiled pattern of a filter
+	 * 
+	 * @param regex
+	 * @return
+	 */
+	private static Pattern getPattern(String regex) {
+		return PATTERNS.computeIfAbsent(regex, Pattern::compile);
+	}
+
 	/**
 	 * Check if the datasets list contains a report with the chosen senderId
 	 * 
@@ -40,6 +68,8 @@ public class DatasetList extends ArrayList<IDataset> implements IDcfDatasetsList
 
 		DatasetList filteredList = new DatasetList();
 
+		Pattern pattern = getPattern(regex);
+
 		for (IDataset dataset : this) {
 
 			String datasetId = dataset.getId();
@@ -48,7 +78,7 @@ public class DatasetList extends ArrayList<IDataset> implements IDcfDatasetsList
 			if (datasetId == null)
 				continue;
 
-			if (datasetId.matches(regex))
+			if (pattern.matcher(datasetId).matches())
 				filteredList.add(dataset);
 		}
 
@@ -65,6 +95,8 @@ public class DatasetList extends ArrayList<IDataset> implements IDcfDatasetsList
 
 		DatasetList filteredList = new DatasetList();
 
+		Pattern pattern = getPattern(regex);
+
 		for (IDataset dataset : this) {
 
 			String senderId = dataset.getSenderId();
@@ -73,7 +105,7 @@ public class DatasetList extends ArrayList<IDataset> implements IDcfDatasetsList
 			if (senderId == null)
 				continue;
 
-			if (senderId.matches(regex))
+			if (pattern.matcher(senderId).matches())
 				filteredList.add(dataset);
 		}
 
@@ -90,6 +122,8 @@ public class DatasetList extends ArrayList<IDataset> implements IDcfDatasetsList
 
 		DatasetList filteredList = new DatasetList();
 
+		Pattern pattern = getPattern(regex);
+
 		for (IDataset dataset : this) {
 
 			String senderId = dataset.getDecomposedSenderId();
@@ -98,7 +132,7 @@ public class DatasetList extends ArrayList<IDataset> implements IDcfDatasetsList
 			if (senderId == null)
 				continue;
 
-			if (senderId.matches(regex))
+			if (pattern.matcher(senderId).matches())
 				filteredList.add(dataset);
 		}
 
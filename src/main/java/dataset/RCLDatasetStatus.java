@@ -216,11 +216,11 @@ public enum RCLDatasetStatus {
 	 */
 	public static RCLDatasetStatus fromString(String text) {
 		
-		String myStatus = text.toLowerCase().replaceAll(" ", "").replaceAll("_", "");
+		String myStatus = normalize(text);
 		
 		for (RCLDatasetStatus b : RCLDatasetStatus.values()) {
 			
-			String otherStatus = b.status.toLowerCase().replaceAll(" ", "").replaceAll("_", "");
+			String otherStatus = normalize(b.status);
 			
 			if (otherStatus.equalsIgnoreCase(myStatus)) {
 				return b;
@@ -230,6 +230,26 @@ public enum RCLDatasetStatus {
 		return OTHER;
 	}
 	
+	/**
+	 * Remove spaces and underscores from the status and put it in lower case
+	 * @param status
+	 * @return
+	 */
+	private static String normalize(String status) {
+		
+		StringBuilder sb = new StringBuilder(status.length());
+		
+		for (int i = 0; i < status.length(); ++i) {
+			
+			char c = status.charAt(i);
+			
+			if (c != ' ' && c != '_')
+				sb.append(Character.toLowerCase(c));
+		}
+		
+		return sb.toString();
+	}
+	
 	public static RCLDatasetStatus fromDcfStatus(DcfDatasetStatus status) {
 		
 		if (status == null) {
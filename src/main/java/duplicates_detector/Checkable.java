@@ -8,4 +8,15 @@ public interface Checkable {
 	 * @return
 	 */
 	public boolean sameAs(Object arg0);
+	
+	/**
+	 * Get a fingerprint of the fields compared by {@link #sameAs(Object)}.
+	 * Two objects which are the same must have equal fingerprints, while
+	 * objects with different fingerprints are never compared.
+	 * @return the fingerprint, or null if it cannot be computed and
+	 * the object needs to be compared with all the others
+	 */
+	public default Object getFingerprint() {
+		return null;
+	}
 }
@@ -2,7 +2,9 @@ package duplicates_detector;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Class to check if in a list there are duplicates or not. It can be used only
@@ -17,33 +19,89 @@ import java.util.List;
 public class DuplicatesDetector {
 
 	/**
-	 * Detect the duplicates from a list of objects.
+	 * Detect the duplicates from a list of objects. The objects are grouped
+	 * by their {@link Checkable#getFingerprint()} and only the objects of the
+	 * same group are compared. Objects without fingerprint are compared with
+	 * all the others. The duplicates are returned in the same order of a
+	 * comparison of all the pairs.
 	 * 
 	 * @param list
 	 * @return
 	 */
 	public static Collection<Duplicate<Checkable>> detect(List<?> list) {
 
-		Collection<Duplicate<Checkable>> duplicates = new ArrayList<>();
+		Map<Object, List<Integer>> buckets = new HashMap<>();
+		List<Integer> notBucketed = new ArrayList<>();
+		boolean[] bucketed = new boolean[list.size()];
+
+		for (int i = 0; i < list.size(); ++i) {
 
-		// for each element in the list but the last
-		for (int i = 0; i < list.size() - 1; ++i) {
+			Object fingerprint = ((Checkable) list.get(i)).getFingerprint();
 
-			// get current element
-			Checkable first = (Checkable) list.get(i);
+			if (fingerprint == null)
+				notBucketed.add(i);
+			else {
+				buckets.computeIfAbsent(fingerprint, key -> new ArrayList<>()).add(i);
+				bucketed[i] = true;
+			}
+		}
 
-			// compare with all the others in the order
-			for (int j = i + 1; j < list.size(); ++j) {
+		// positions of the duplicates
+		List<int[]> pairs = new ArrayList<>();
 
-				Checkable second = (Checkable) list.get(j);
-				// if they are equal
-				if (first.sameAs(second)) {
-					Duplicate<Checkable> dup = new Duplicate<>(first, second);
-					duplicates.add(dup);
+		// compare the elements of the same bucket
+		for (List<Integer> bucket : buckets.values()) {
+			for (int i = 0; i < bucket.size() - 1; ++i) {
+				for (int j = i + 1; j < bucket.size(); ++j) {
+					addIfSame(list, bucket.get(i), bucket.get(j), pairs);
 				}
 			}
 		}
 
+		// compare the elements without fingerprint with all the others,
+		// always in the order of the list as in the pairs comparison
+		for (int i = 0; i < notBucketed.size(); ++i) {
+
+			int position = notBucketed.get(i);
+
+			for (int j = 0; j < list.size(); ++j) {
+
+				// pairs of elements without fingerprint are compared once
+				if (j < position && bucketed[j])
+					addIfSame(list, j, position, pairs);
+				else if (j > position)
+					addIfSame(list, position, j, pairs);
+			}
+		}
+
+		pairs.sort((p1, p2) -> p1[0] != p2[0] ? Integer.compare(p1[0], p2[0]) : Integer.compare(p1[1], p2[1]));
+
+		Collection<Duplicate<Checkable>> duplicates = new ArrayList<>();
+
+		for (int[] pair : pairs) {
+			Checkable first = (Checkable) list.get(pair[0]);
+			Checkable second = (Checkable) list.get(pair[1]);
+			duplicates.add(new Duplicate<>(first, second));
+		}
+
 		return duplicates;
 	}
+
+	/**
+	 * Add the positions of two elements to the pairs if they are equal
+	 * 
+	 * @param list
+	 * @param i     position of the first element
+	 * @param j     position of the second element, after the first
+	 * @param pairs
+	 */
+	private static void addIfSame(List<?> list, int i, int j, List<int[]> pairs) {
+
+		Checkable first = (Checkable) list.get(i);
+		Checkable second = (Checkable) list.get(j);
+
+		// if they are equal
+		if (first.sameAs(second))
+			pairs.add(new int[] { i, j });
+	}
 }
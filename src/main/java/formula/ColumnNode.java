@@ -0,0 +1,73 @@
+package formula;
+
+import java.util.Collection;
+
+import table_skeleton.TableColumn;
+import table_skeleton.TableRow;
+import xlsx_reader.TableHeaders.XlsxHeader;
+
+/**
+ * Reference to a column of the row (%columnId.code/label)
+ *
+ */
+class ColumnNode implements FormulaNode {
+
+	private final ColumnFormula formula;
+
+	ColumnNode(String text) throws FormulaException {
+		this.formula = new ColumnFormula(text);
+	}
+
+	@Override
+	public String evaluate(FormulaContext context) throws FormulaException {
+
+		TableRow row = context.getRow();
+		TableColumn colSchema = row.getSchema().getById(formula.getColumnId());
+
+		// value present (or wrong column), standard solution
+		if (colSchema == null || row.get(formula.getColumnId()) != null)
+			return formula.solve(row);
+
+		// if no value is present in the row, then
+		// the formula of the referenced column is
+		// solved in its place
+		XlsxHeader header;
+		switch (formula.getFieldType()) {
+		case "code":
+			header = XlsxHeader.CODE_FORMULA;
+			break;
+		case "label":
+			header = XlsxHeader.LABEL_FORMULA;
+			break;
+		default:
+			return formula.solve(row);
+		}
+
+		String key = colSchema.getId() + "." + header.getHeaderName();
+
+		// circular reference, nothing can be solved
+		if (!context.startSolving(key))
+			return "";
+
+		try {
+			return colSchema.getCompiledFormula(header.getHeaderName()).evaluate(context);
+		} finally {
+			context.endSolving(key);
+		}
+	}
+
+	@Override
+	public void collectColumns(Collection<String> columnIds) {
+		columnIds.add(formula.getColumnId());
+	}
+
+	@Override
+	public boolean usesParents() {
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return formula.getUnsolvedFormula();
+	}
+}
@@ -64,6 +64,18 @@ public class ComparatorFormula implements IFormula {
 
 	@Override
 	public String solve() throws FormulaException {
+		return compare(leftOperand, operator, rightOperand);
+	}
+	
+	/**
+	 * Compare two operands ignoring the case
+	 * @param leftOperand
+	 * @param operator {@link #EQUAL} or {@link #DISEQUAL}
+	 * @param rightOperand
+	 * @return the true or false value in string format
+	 * @throws FormulaException
+	 */
+	public static String compare(String leftOperand, String operator, String rightOperand) throws FormulaException {
 		
 		boolean comparison = false;
 		
@@ -0,0 +1,41 @@
+package formula;
+
+import java.util.Collection;
+
+/**
+ * Comparison of two operands (op1==op2), (op1!=op2)
+ *
+ */
+class ComparatorNode implements FormulaNode {
+
+	private final FormulaNode left;
+	private final String operator;
+	private final FormulaNode right;
+
+	ComparatorNode(FormulaNode left, String operator, FormulaNode right) {
+		this.left = left;
+		this.operator = operator;
+		this.right = right;
+	}
+
+	@Override
+	public String evaluate(FormulaContext context) throws FormulaException {
+		return ComparatorFormula.compare(left.evaluate(context).trim(), operator, right.evaluate(context).trim());
+	}
+
+	@Override
+	public void collectColumns(Collection<String> columnIds) {
+		left.collectColumns(columnIds);
+		right.collectColumns(columnIds);
+	}
+
+	@Override
+	public boolean usesParents() {
+		return left.usesParents() || right.usesParents();
+	}
+
+	@Override
+	public String toString() {
+		return "(" + left + operator + right + ")";
+	}
+}
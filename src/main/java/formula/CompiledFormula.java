@@ -0,0 +1,83 @@
+package formula;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import providers.ITableDaoService;
+import table_skeleton.TableRow;
+
+/**
+ * Formula of the .xlsx configuration compiled into a tree of nodes by
+ * {@link FormulaCompiler}. The tree is immutable, therefore the same compiled
+ * formula can be shared among threads and evaluated for any row of the schema
+ * without parsing the text again.
+ *
+ */
+public class CompiledFormula {
+
+	private final String text;
+	private final FormulaNode root;
+	private final Set<String> columnIds;
+	private final boolean usesParents;
+
+	CompiledFormula(String text, FormulaNode root) {
+		this.text = text;
+		this.root = root;
+
+		Set<String> ids = new LinkedHashSet<>();
+		root.collectColumns(ids);
+		this.columnIds = Collections.unmodifiableSet(ids);
+		this.usesParents = root.usesParents();
+	}
+
+	/**
+	 * Get the text from which the formula was compiled
+	 * @return
+	 */
+	public String getText() {
+		return text;
+	}
+
+	public boolean isEmpty() {
+		return text.isEmpty();
+	}
+
+	/**
+	 * Get the ids of the columns of the row which are referenced by the formula
+	 * with %columnId.code/label
+	 * @return
+	 */
+	public Set<String> getReferencedColumns() {
+		return columnIds;
+	}
+
+	/**
+	 * Check if the formula reads values of the parents of the row
+	 * with RELATION{parentTableName,parentColumnId.code/label}
+	 * @return
+	 */
+	public boolean usesParents() {
+		return usesParents;
+	}
+
+	/**
+	 * Solve the formula using the row values
+	 * @param row
+	 * @param daoService service used to retrieve the parents of the row
+	 * @return the solved formula (not trimmed)
+	 * @throws FormulaException
+	 */
+	public String evaluate(TableRow row, ITableDaoService daoService) throws FormulaException {
+		return evaluate(new FormulaContext(row, daoService));
+	}
+
+	String evaluate(FormulaContext context) throws FormulaException {
+		return root.evaluate(context);
+	}
+
+	@Override
+	public String toString() {
+		return "CompiledFormula: " + root;
+	}
+}
@@ -0,0 +1,52 @@
+package formula;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Sequence of nodes whose values are concatenated
+ *
+ */
+class ConcatNode implements FormulaNode {
+
+	private final FormulaNode[] parts;
+
+	ConcatNode(List<FormulaNode> parts) {
+		this.parts = parts.toArray(new FormulaNode[parts.size()]);
+	}
+
+	@Override
+	public String evaluate(FormulaContext context) throws FormulaException {
+
+		StringBuilder sb = new StringBuilder();
+		for (FormulaNode part : parts)
+			sb.append(part.evaluate(context));
+
+		return sb.toString();
+	}
+
+	@Override
+	public void collectColumns(Collection<String> columnIds) {
+		for (FormulaNode part : parts)
+			part.collectColumns(columnIds);
+	}
+
+	@Override
+	public boolean usesParents() {
+
+		for (FormulaNode part : parts) {
+			if (part.usesParents())
+				return true;
+		}
+
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (FormulaNode part : parts)
+			sb.append(part);
+		return sb.toString();
+	}
+}
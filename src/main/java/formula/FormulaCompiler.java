@@ -0,0 +1,274 @@
+package formula;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import formula.FormulaLexer.Kind;
+
+/**
+ * Compiler of the formulas written in the .xlsx configuration. The text is read
+ * once, character by character, and transformed into a tree of
+ * {@link FormulaNode} which is then evaluated by {@link CompiledFormula}.
+ * Differently from the replacement of the solved pieces in the text, the values
+ * of the columns are never parsed again and function calls can be nested, as
+ * IF((%a.code==X),ZERO_PADDING(%b.code,3),null).
+ *
+ * The tokens are recognized with a {@link FormulaLexer}, as the formula
+ * finder does, while the compiler builds their nesting.
+ *
+ */
+public class FormulaCompiler {
+
+	// the longest names first, so that IF_NOT_NULL is not read as IF
+	private static final String[] FUNCTIONS = new String[] { 
+			FunctionFormula.IF_NOT_NULL,
+			FunctionFormula.ZERO_PADDING, 
+			FunctionFormula.RIGHT_TRIM, 
+			FunctionFormula.LEFT_TRIM, 
+			FunctionFormula.HASH,
+			FunctionFormula.NEXT, 
+			FunctionFormula.AND, 
+			FunctionFormula.SUM, 
+			FunctionFormula.OR, 
+			FunctionFormula.IF };
+
+	private static final String[] COMPARATORS = new String[] { 
+			ComparatorFormula.EQUAL, 
+			ComparatorFormula.DISEQUAL };
+
+	/**
+	 * Where a sequence of nodes ends
+	 */
+	private enum Scope {
+		FORMULA,   // end of the text
+		OPERAND,   // comma or right bracket of a function call
+		BRACKETS   // right bracket or comparator of a bracket
+	}
+
+	private final String text;
+	private final FormulaLexer lexer;
+	private int pos;
+
+	private FormulaCompiler(String text) {
+		this.text = text;
+		this.lexer = new FormulaLexer(text, FUNCTIONS, COMPARATORS);
+		this.pos = 0;
+	}
+
+	/**
+	 * Compile a formula
+	 * @param formula text of the formula, null is considered as empty
+	 * @return
+	 * @throws FormulaException if the formula is not well formed
+	 */
+	public static CompiledFormula compile(String formula) throws FormulaException {
+
+		String text = formula == null ? "" : formula;
+
+		FormulaCompiler compiler = new FormulaCompiler(text);
+		FormulaNode root = compiler.parseSequence(Scope.FORMULA);
+
+		return new CompiledFormula(text, root);
+	}
+
+	/**
+	 * Parse nodes until the end of the scope is reached
+	 * @param scope
+	 * @return
+	 * @throws FormulaException
+	 */
+	private FormulaNode parseSequence(Scope scope) throws FormulaException {
+
+		List<FormulaNode> nodes = new ArrayList<>();
+		StringBuilder plainText = new StringBuilder();
+
+		while (pos < text.length() && !isScopeEnd(scope)) {
+
+			// concatenation, nothing to add
+			if (text.startsWith(KeywordFormula.CONCAT_KEYWORD, pos)) {
+				pos += KeywordFormula.CONCAT_KEYWORD.length();
+				continue;
+			}
+
+			FormulaNode node = parseNode();
+
+			// plain character
+			if (node == null) {
+				plainText.append(text.charAt(pos));
+				pos++;
+				continue;
+			}
+
+			if (plainText.length() > 0) {
+				nodes.add(new TextNode(plainText.toString()));
+				plainText.setLength(0);
+			}
+
+			nodes.add(node);
+		}
+
+		if (plainText.length() > 0)
+			nodes.add(new TextNode(plainText.toString()));
+
+		if (nodes.isEmpty())
+			return new TextNode("");
+
+		if (nodes.size() == 1)
+			return nodes.get(0);
+
+		return new ConcatNode(nodes);
+	}
+
+	private boolean isScopeEnd(Scope scope) {
+
+		char c = text.charAt(pos);
+
+		switch (scope) {
+		case OPERAND:
+			return c == ',' || c == ')';
+		case BRACKETS:
+			return c == ')' || isComparator();
+		default:
+			return false;
+		}
+	}
+
+	private boolean isComparator() {
+		return lexer.comparatorAt(pos) != null;
+	}
+
+	/**
+	 * Parse the node which starts at the current position
+	 * @return the node, or null if the current character is plain text. In
+	 *         this case the position is not changed.
+	 * @throws FormulaException
+	 */
+	private FormulaNode parseNode() throws FormulaException {
+
+		// %columnId.code/label
+		int end = lexer.match(Kind.COLUMN, null, pos);
+		if (end >= 0)
+			return new ColumnNode(read(end));
+
+		// RELATION{parentTableName,parentColumnId.code/label}
+		end = lexer.match(Kind.RELATION, null, pos);
+		if (end >= 0)
+			return new RelationNode(read(end));
+
+		end = lexer.match(Kind.ROW_KEYWORD, null, pos);
+		if (end >= 0)
+			return new KeywordNode(read(end), true);
+
+		end = lexer.match(Kind.KEYWORD, null, pos);
+		if (end >= 0)
+			return new KeywordNode(read(end), false);
+
+		FormulaNode function = parseFunction();
+		if (function != null)
+			return function;
+
+		if (text.charAt(pos) == '(')
+			return parseBrackets();
+
+		return null;
+	}
+
+	/**
+	 * Read the text of the token which starts at the current position
+	 * @param end end of the token (exclusive)
+	 * @return
+	 */
+	private String read(int end) {
+		String token = text.substring(pos, end);
+		pos = end;
+		return token;
+	}
+
+	/**
+	 * Parse functionName(op1,op2,...)
+	 * @return the function or null if no function starts at the current
+	 *         position
+	 * @throws FormulaException
+	 */
+	private FormulaNode parseFunction() throws FormulaException {
+
+		// the function name must not be the end of another word
+		if (pos > 0 && FormulaLexer.isWordChar(text.charAt(pos - 1)))
+			return null;
+
+		String name = lexer.functionCallAt(pos);
+
+		if (name == null)
+			return null;
+
+		int start = pos;
+		pos += name.length() + 1;
+
+		List<FormulaNode> operands = new ArrayList<>();
+
+		while (true) {
+
+			operands.add(parseSequence(Scope.OPERAND));
+
+			if (pos >= text.length())
+				throw new FormulaException("Wrong function formula, missing bracket: " + text.substring(start));
+
+			char c = text.charAt(pos);
+			pos++;
+
+			if (c == ')')
+				break;
+		}
+
+		return new FunctionNode(name, operands);
+	}
+
+	/**
+	 * Parse (text) or a comparison (op1==op2), (op1!=op2). If the bracket is
+	 * not closed, it is considered as plain text.
+	 * @return
+	 * @throws FormulaException
+	 */
+	private FormulaNode parseBrackets() throws FormulaException {
+
+		int start = pos;
+		pos++;
+
+		FormulaNode left = parseSequence(Scope.BRACKETS);
+
+		if (pos >= text.length()) {
+			pos = start;
+			return null;
+		}
+
+		// simple text in brackets
+		if (!isComparator()) {
+
+			pos++;
+
+			List<FormulaNode> nodes = new ArrayList<>();
+			nodes.add(new TextNode("("));
+			nodes.add(left);
+			nodes.add(new TextNode(")"));
+
+			return new ConcatNode(nodes);
+		}
+
+		String operator = lexer.comparatorAt(pos);
+		pos += operator.length();
+
+		FormulaNode right = parseSequence(Scope.BRACKETS);
+
+		if (pos >= text.length()) {
+			pos = start;
+			return null;
+		}
+
+		if (isComparator())
+			throw new FormulaException("Wrong comparison for " + text.substring(start));
+
+		pos++;
+
+		return new ComparatorNode(left, operator, right);
+	}
+}
@@ -0,0 +1,47 @@
+package formula;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import providers.ITableDaoService;
+import table_skeleton.TableRow;
+
+/**
+ * Information needed to evaluate a {@link CompiledFormula}
+ *
+ */
+class FormulaContext {
+
+	private final TableRow row;
+	private final ITableDaoService daoService;
+
+	// column formulas which are being evaluated, used to stop circular references
+	private final Set<String> solving;
+
+	FormulaContext(TableRow row, ITableDaoService daoService) {
+		this.row = row;
+		this.daoService = daoService;
+		this.solving = new HashSet<>();
+	}
+
+	public TableRow getRow() {
+		return row;
+	}
+
+	public ITableDaoService getDaoService() {
+		return daoService;
+	}
+
+	/**
+	 * Mark a column formula as in evaluation
+	 * @param key
+	 * @return false if the formula is already being evaluated
+	 */
+	boolean startSolving(String key) {
+		return solving.add(key);
+	}
+
+	void endSolving(String key) {
+		solving.remove(key);
+	}
+}
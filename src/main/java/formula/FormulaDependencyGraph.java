@@ -0,0 +1,353 @@
+package formula;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import table_skeleton.TableColumn;
+import xlsx_reader.TableHeaders.XlsxHeader;
+import xlsx_reader.TableSchema;
+
+/**
+ * Dependencies among the code and label formulas of the columns of a
+ * {@link TableSchema}. A column depends on another column if its formula
+ * contains %columnId.code/label. The columns are sorted in topological order,
+ * so that each formula is solved after the formulas it depends on. The direct
+ * and transitive references of each formula are computed when the graph is
+ * built. The formulas which are part of a circular dependency, or depend on
+ * it, cannot be solved and are left out of the order.
+ * The graph is immutable and can be shared among threads.
+ *
+ */
+public class FormulaDependencyGraph {
+
+	private static final Logger LOGGER = LogManager.getLogger(FormulaDependencyGraph.class);
+
+	private final String tableName;
+	private final Map<String, PropertyGraph> graphs;
+
+	public FormulaDependencyGraph(TableSchema schema) {
+
+		this.tableName = schema.getSheetName();
+		this.graphs = new HashMap<>();
+
+		for (XlsxHeader header : new XlsxHeader[] { XlsxHeader.CODE_FORMULA, XlsxHeader.LABEL_FORMULA }) {
+			graphs.put(header.getHeaderName(), new PropertyGraph(schema, header.getHeaderName()));
+		}
+	}
+
+	/**
+	 * Get all the columns which have a formula for the column property, in
+	 * topological order, without the circular columns
+	 * @param fieldHeader {@link XlsxHeader#CODE_FORMULA} or
+	 * {@link XlsxHeader#LABEL_FORMULA}
+	 * @return
+	 */
+	public List<TableColumn> getOrder(String fieldHeader) {
+		return getGraph(fieldHeader).order;
+	}
+
+	/**
+	 * Get the columns whose formula needs to be solved again after that the
+	 * changed columns got a new value: the changed columns which have a
+	 * formula (it can read their own value) and the columns whose formula
+	 * depends, directly or through other formulas, on at least one of them.
+	 * The circular columns are never included.
+	 * @param fieldHeader {@link XlsxHeader#CODE_FORMULA} or
+	 * {@link XlsxHeader#LABEL_FORMULA}
+	 * @param changedColumnIds
+	 * @return the columns in topological order
+	 */
+	public List<TableColumn> getDependents(String fieldHeader, Collection<String> changedColumnIds) {
+
+		PropertyGraph graph = getGraph(fieldHeader);
+
+		Set<String> visited = new HashSet<>();
+		List<TableColumn> out = new ArrayList<>();
+
+		for (String id : changedColumnIds) {
+
+			if (graph.positions.containsKey(id) && visited.add(id))
+				out.add(graph.columns.get(id));
+
+			for (TableColumn dependent : graph.getTransitiveDependents(id)) {
+				if (visited.add(dependent.getId()))
+					out.add(dependent);
+			}
+		}
+
+		Collections.sort(out, new Comparator<TableColumn>() {
+			@Override
+			public int compare(TableColumn arg0, TableColumn arg1) {
+				return Integer.compare(graph.positions.get(arg0.getId()), graph.positions.get(arg1.getId()));
+			}
+		});
+
+		return out;
+	}
+
+	/**
+	 * Check if the references of the column property are in the graph
+	 * @param fieldHeader
+	 * @return true for {@link XlsxHeader#CODE_FORMULA} and
+	 * {@link XlsxHeader#LABEL_FORMULA}
+	 */
+	public boolean contains(String fieldHeader) {
+		return graphs.containsKey(fieldHeader);
+	}
+
+	/**
+	 * Get the columns referenced directly by the formula of a column, as
+	 * written in the formula (also the column itself and columns which are
+	 * not in the table)
+	 * @param fieldHeader {@link XlsxHeader#CODE_FORMULA} or
+	 * {@link XlsxHeader#LABEL_FORMULA}
+	 * @param columnId
+	 * @return the ids of the columns, empty if the column has no formula
+	 */
+	public Set<String> getReferences(String fieldHeader, String columnId) {
+		Set<String> references = getGraph(fieldHeader).references.get(columnId);
+		return references == null ? Collections.<String>emptySet() : references;
+	}
+
+	/**
+	 * Get the columns of the table on which the formula of a column depends,
+	 * directly or through the formulas of the referenced columns. The column
+	 * itself is included only if it is part of a circular dependency.
+	 * @param fieldHeader {@link XlsxHeader#CODE_FORMULA} or
+	 * {@link XlsxHeader#LABEL_FORMULA}
+	 * @param columnId
+	 * @return the ids of the columns, empty if the column has no formula
+	 */
+	public Set<String> getTransitiveReferences(String fieldHeader, String columnId) {
+		Set<String> references = getGraph(fieldHeader).transitiveReferences.get(columnId);
+		return references == null ? Collections.<String>emptySet() : references;
+	}
+
+	/**
+	 * Get the columns which cannot be sorted, since they are part of a
+	 * circular dependency or depend on it. Their formulas are not solved
+	 * by {@link FormulaSolver}
+	 * @param fieldHeader
+	 * @return
+	 */
+	public Collection<String> getCircularColumns(String fieldHeader) {
+		return getGraph(fieldHeader).circular;
+	}
+
+	/**
+	 * Check that no formula depends on itself, also through other formulas
+	 * @throws FormulaException if a circular dependency is found
+	 */
+	public void checkCycles() throws FormulaException {
+
+		for (Map.Entry<String, PropertyGraph> entry : graphs.entrySet()) {
+
+			Collection<String> circular = entry.getValue().circular;
+
+			if (!circular.isEmpty()) {
+				throw new FormulaException("Circular dependency in the " + entry.getKey() + " of the table "
+						+ tableName + " among the columns " + circular);
+			}
+		}
+	}
+
+	private PropertyGraph getGraph(String fieldHeader) {
+
+		PropertyGraph graph = graphs.get(fieldHeader);
+
+		if (graph == null)
+			throw new IllegalArgumentException("No dependencies are computed for " + fieldHeader);
+
+		return graph;
+	}
+
+	/**
+	 * Dependencies of a single column property
+	 */
+	private static class PropertyGraph {
+
+		// columns with a formula, by id
+		private final Map<String, TableColumn> columns = new LinkedHashMap<>();
+
+		// columns used in the formula of the key column
+		private final Map<String, Set<String>> references = new HashMap<>();
+		private final Map<String, Set<String>> transitiveReferences = new HashMap<>();
+
+		// columns which use the key column in their formula
+		private final Map<String, List<String>> dependents = new HashMap<>();
+
+		// columns which use the key column also through other formulas, sorted
+		private final Map<String, List<TableColumn>> transitiveDependents = new HashMap<>();
+
+		private final List<TableColumn> order = new ArrayList<>();
+		private final Map<String, Integer> positions = new HashMap<>();
+		private final List<String> circular = new ArrayList<>();
+
+		PropertyGraph(TableSchema schema, String fieldHeader) {
+
+			for (TableColumn col : schema) {
+
+				CompiledFormula formula;
+				try {
+					formula = col.getCompiledFormula(fieldHeader);
+				} catch (FormulaException e) {
+					LOGGER.error("Cannot compile " + fieldHeader + " of column=" + col.getId() + " of table="
+							+ schema.getSheetName(), e);
+					e.printStackTrace();
+					continue;
+				}
+
+				if (formula.isEmpty())
+					continue;
+
+				columns.put(col.getId(), col);
+				references.put(col.getId(), Collections.unmodifiableSet(formula.getReferencedColumns()));
+			}
+
+			// number of formulas needed before solving each formula
+			Map<String, Integer> missing = new HashMap<>();
+
+			// columns of the table used by each formula, without self references
+			Map<String, List<String>> used = new HashMap<>();
+
+			for (String id : columns.keySet()) {
+
+				int count = 0;
+				List<String> usedColumns = new ArrayList<>();
+
+				for (String ref : references.get(id)) {
+
+					// self references read the previous value of the cell
+					if (ref.equals(id) || schema.getById(ref) == null)
+						continue;
+
+					usedColumns.add(ref);
+
+					List<String> list = dependents.get(ref);
+					if (list == null) {
+						list = new ArrayList<>();
+						dependents.put(ref, list);
+					}
+					list.add(id);
+
+					if (columns.containsKey(ref))
+						count++;
+				}
+
+				missing.put(id, count);
+				used.put(id, usedColumns);
+			}
+
+			// Kahn algorithm, keeping the schema order among independent columns
+			Deque<String> ready = new ArrayDeque<>();
+			for (String id : columns.keySet()) {
+				if (missing.get(id) == 0)
+					ready.add(id);
+			}
+
+			while (!ready.isEmpty()) {
+
+				String id = ready.poll();
+				add(id);
+
+				for (String dependent : getDependents(id)) {
+					int count = missing.get(dependent) - 1;
+					missing.put(dependent, count);
+					if (count == 0)
+						ready.add(dependent);
+				}
+			}
+
+			// columns in a cycle cannot be solved
+			for (String id : columns.keySet()) {
+				if (!positions.containsKey(id)) {
+					circular.add(id);
+					transitiveReferences.put(id,
+							Collections.unmodifiableSet(getTransitiveReferences(id, used)));
+				}
+			}
+
+			// dependencies through other formulas, following the topological order
+			// so that the lists of the dependents are already sorted
+			for (TableColumn col : order) {
+
+				Set<String> transitive = getTransitiveReferences(col.getId(), used);
+				transitiveReferences.put(col.getId(), Collections.unmodifiableSet(transitive));
+
+				for (String ref : transitive) {
+
+					List<TableColumn> list = transitiveDependents.get(ref);
+					if (list == null) {
+						list = new ArrayList<>();
+						transitiveDependents.put(ref, list);
+					}
+					list.add(col);
+				}
+			}
+
+			for (Map.Entry<String, List<TableColumn>> entry : transitiveDependents.entrySet())
+				entry.setValue(Collections.unmodifiableList(entry.getValue()));
+		}
+
+		/**
+		 * Visit the dependencies starting from a column
+		 * @param id
+		 * @param used columns of the table used by each formula
+		 * @return
+		 */
+		private static Set<String> getTransitiveReferences(String id, Map<String, List<String>> used) {
+
+			Set<String> visited = new LinkedHashSet<>();
+			Deque<String> queue = new ArrayDeque<>();
+			queue.add(id);
+
+			while (!queue.isEmpty()) {
+
+				String current = queue.poll();
+
+				List<String> refs = used.get(current);
+
+				if (refs == null)
+					continue;
+
+				for (String ref : refs) {
+					if (visited.add(ref))
+						queue.add(ref);
+				}
+			}
+
+			return visited;
+		}
+
+		private void add(String id) {
+			positions.put(id, order.size());
+			order.add(columns.get(id));
+		}
+
+		List<String> getDependents(String id) {
+			List<String> list = dependents.get(id);
+			return list == null ? Collections.<String>emptyList() : list;
+		}
+
+		List<TableColumn> getTransitiveDependents(String id) {
+			List<TableColumn> list = transitiveDependents.get(id);
+			return list == null ? Collections.<TableColumn>emptyList() : list;
+		}
+
+
+	}
+}
@@ -1,16 +1,19 @@
 package formula;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.List;
 
+import formula.FormulaLexer.Kind;
+import formula.FormulaLexer.Token;
 import providers.ITableDaoService;
 
+/**
+ * Find the formulas contained in a text. The text is scanned by the
+ * {@link FormulaLexer}, no regex is compiled.
+ *
+ */
 public class FormulaFinder {
 
-	// regex components
-	private static final String NUMBER = "[0-9]{1,13}(\\.[0-9]*)?";
-	private static final String LETTER = "[a-zA-Z]";
-	private static final String VARIABLE = "((" + NUMBER + ")|(" + LETTER + "))+";
+	private static final String[] NONE = new String[0];
 
 	public static final String RELATION_REGEX = "RELATION\\{.+?,.+?\\}";
 
@@ -26,34 +29,14 @@ public class FormulaFinder {
 
 		FormulaList formulas = new FormulaList();
 
-		// regex to match function names
-		StringBuilder regex = new StringBuilder();
+		// functions with from 1 parameter to n parameters, up to the first closed bracket
+		FormulaLexer lexer = new FormulaLexer(text, new String[] { functionName }, NONE);
 
-		// function name
-		regex.append(functionName);
-
-		String operand = ".*?";
-
-		// regex to match functions that have from 1 parameter to n parameters
-
-		regex.append("\\(") // open function bracket
-				.append("(")
-				.append(operand)
-				.append(",)*?")
-				.append(operand)
-				.append("\\)"); // close function bracket
-
-		String pattern = regex.toString();
-
-		Pattern p = Pattern.compile(pattern);
-		Matcher m = p.matcher(text);
-
-		while (m.find()) {
-			String formula = m.group();
-			FunctionFormula funcFormula = new FunctionFormula(formula);
+		for (Token token : lexer.tokenize(Kind.FUNCTION)) {
+			FunctionFormula funcFormula = new FunctionFormula(token.getText());
 			formulas.add(funcFormula);
 		}
-		
+
 		return formulas;
 	}
 
@@ -107,14 +90,9 @@ public class FormulaFinder {
 
 		FormulaList colFormulas = new FormulaList();
 
-		String pattern = "\\%\\w+?\\.(code|label)";
-		Pattern p = Pattern.compile(pattern);
-		Matcher m = p.matcher(text);
-
 		// compile all the column formulas
-		while (m.find()) {
-			String formula = m.group();
-			ColumnFormula colFormula = new ColumnFormula(formula);
+		for (Token token : tokenize(text, Kind.COLUMN)) {
+			ColumnFormula colFormula = new ColumnFormula(token.getText());
 			colFormulas.add(colFormula);
 		}
 
@@ -132,14 +110,9 @@ public class FormulaFinder {
 
 		FormulaList relFormulas = new FormulaList();
 
-		Pattern p = Pattern.compile(RELATION_REGEX);
-
-		Matcher m = p.matcher(text);
-
-		// compile all the relation formulas
-		while (m.find()) {
-			String formula = m.group();
-			RelationFormula relFormula = new RelationFormula(formula, daoService);
+		// compile all the relation formulas (same matches of RELATION_REGEX)
+		for (Token token : tokenize(text, Kind.RELATION)) {
+			RelationFormula relFormula = new RelationFormula(token.getText(), daoService);
 			relFormulas.add(relFormula);
 		}
 
@@ -158,15 +131,11 @@ public class FormulaFinder {
 
 		FormulaList formulas = new FormulaList();
 
-		String operand = "(" + VARIABLE + "|)";
-		String pattern = "\\(" + operand + "\\s*" + operator + "\\s*" + operand + "\\)";
+		// operands made of letters and numbers, they can be empty
+		FormulaLexer lexer = new FormulaLexer(text, NONE, new String[] { operator });
 
-		Pattern r = Pattern.compile(pattern);
-		Matcher m = r.matcher(text);
-
-		while (m.find()) {
-			String formula = m.group();
-			ComparatorFormula compFormula = new ComparatorFormula(formula, operator);
+		for (Token token : lexer.tokenize(Kind.COMPARATOR)) {
+			ComparatorFormula compFormula = new ComparatorFormula(token.getText(), operator);
 			formulas.add(compFormula);
 		}
 
@@ -185,27 +154,8 @@ public class FormulaFinder {
 		FormulaList formulas = new FormulaList();
 
 		// search for keywords
-		StringBuilder sb = new StringBuilder();
-		sb.append("(").append(toRegex(KeywordFormula.APP_NAME_KEYWORD)).append("|")
-				.append(toRegex(KeywordFormula.APP_VERSION_KEYWORD)).append("|")
-				.append(toRegex(KeywordFormula.APP_DC_CODE_KEYWORD)).append("|")
-				.append(toRegex(KeywordFormula.APP_DC_TEST_CODE_KEYWORD)).append("|")
-				.append(toRegex(KeywordFormula.APP_DC_TABLE_KEYWORD)).append("|")
-				.append(toRegex(KeywordFormula.NULL_KEYWORD)).append("|").append(toRegex(KeywordFormula.CONCAT_KEYWORD))
-				.append("|").append(toRegex(KeywordFormula.TODAY_KEYWORD)).append("|")
-				.append(toRegex(KeywordFormula.LAST_MONTH_CODE_KEYWORD)).append("|")
-				.append(toRegex(KeywordFormula.LAST_MONTH_LABEL_KEYWORD)).append("|")
-				.append(toRegex(KeywordFormula.LAST_MONTH_YEAR_CODE_KEYWORD)).append("|")
-				.append(toRegex(KeywordFormula.LAST_MONTH_YEAR_LABEL_KEYWORD)).append(")");
-
-		String pattern = sb.toString();
-
-		Pattern r = Pattern.compile(pattern);
-		Matcher m = r.matcher(text);
-
-		while (m.find()) {
-			String formula = m.group();
-			KeywordFormula keyFormula = new KeywordFormula(formula);
+		for (Token token : tokenize(text, Kind.KEYWORD)) {
+			KeywordFormula keyFormula = new KeywordFormula(token.getText());
 			formulas.add(keyFormula);
 		}
 
@@ -224,17 +174,8 @@ public class FormulaFinder {
 		FormulaList formulas = new FormulaList();
 
 		// search for keywords
-		StringBuilder sb = new StringBuilder();
-		sb.append("(").append(toRegex(RowKeywordFormula.ROW_ID_KEYWORD)).append(")");
-
-		String pattern = sb.toString();
-
-		Pattern r = Pattern.compile(pattern);
-		Matcher m = r.matcher(text);
-
-		while (m.find()) {
-			String formula = m.group();
-			RowKeywordFormula keyFormula = new RowKeywordFormula(formula);
+		for (Token token : tokenize(text, Kind.ROW_KEYWORD)) {
+			RowKeywordFormula keyFormula = new RowKeywordFormula(token.getText());
 			formulas.add(keyFormula);
 		}
 
@@ -242,12 +183,13 @@ public class FormulaFinder {
 	}
 
 	/**
-	 * Convert a string into a regex by escaping special characters
+	 * Get the tokens of a kind which does not depend on names or operators
 	 * 
-	 * @param formula
+	 * @param text
+	 * @param kind
 	 * @return
 	 */
-	private static String toRegex(String formula) {
-		return formula.replace("{", "\\{").replace("}", "\\}").replace("|", "\\|").replace(".", "\\.");
+	private static List<Token> tokenize(String text, Kind kind) {
+		return new FormulaLexer(text, NONE, NONE).tokenize(kind);
 	}
 }
@@ -0,0 +1,384 @@
+package formula;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Scanner of the tokens of a formula. {@link FormulaFinder} gets all the tokens
+ * with {@link #tokenize(Kind...)}, while {@link FormulaCompiler} checks which
+ * token starts at its current position with {@link #match(Kind, String, int)},
+ * {@link #functionCallAt(int)} and {@link #comparatorAt(int)}, so that both
+ * recognize the tokens in the same way.
+ *
+ * The text is read only once: at each position all the kinds of tokens are
+ * checked, so that the tokens can be nested (e.g. a column inside a function
+ * call). Each kind of token restarts from the end of its last token, as it
+ * happens searching it alone in the text.
+ *
+ * Functions and comparators are searched only for the names and operators
+ * passed to the constructor.
+ *
+ */
+class FormulaLexer {
+
+	enum Kind {
+		KEYWORD,      // {app.name}, null, today.timestamp...
+		ROW_KEYWORD,  // {rowId}
+		COLUMN,       // %columnId.code or %columnId.label
+		RELATION,     // RELATION{parent,field}
+		COMPARATOR,   // (a==b), (a!=b)
+		FUNCTION      // NAME(op1,op2,...)
+	}
+
+	// in the order in which they are checked
+	private static final String[] KEYWORDS = new String[] {
+			KeywordFormula.APP_NAME_KEYWORD,
+			KeywordFormula.APP_VERSION_KEYWORD,
+			KeywordFormula.APP_DC_CODE_KEYWORD,
+			KeywordFormula.APP_DC_TEST_CODE_KEYWORD,
+			KeywordFormula.APP_DC_TABLE_KEYWORD,
+			KeywordFormula.NULL_KEYWORD,
+			KeywordFormula.CONCAT_KEYWORD,
+			KeywordFormula.TODAY_KEYWORD,
+			KeywordFormula.LAST_MONTH_CODE_KEYWORD,
+			KeywordFormula.LAST_MONTH_LABEL_KEYWORD,
+			KeywordFormula.LAST_MONTH_YEAR_CODE_KEYWORD,
+			KeywordFormula.LAST_MONTH_YEAR_LABEL_KEYWORD };
+
+	private static final String RELATION_START = "RELATION{";
+	private static final String CODE_FIELD = ".code";
+	private static final String LABEL_FIELD = ".label";
+
+	/**
+	 * Token found in the text
+	 */
+	static final class Token {
+
+		private final Kind kind;
+		private final String name; // function name or comparator operator
+		private final String text;
+
+		private Token(Kind kind, String name, String text) {
+			this.kind = kind;
+			this.name = name;
+			this.text = text;
+		}
+
+		Kind getKind() {
+			return kind;
+		}
+
+		/**
+		 * Get the name of the function or the operator of the comparator
+		 * @return
+		 */
+		String getName() {
+			return name;
+		}
+
+		String getText() {
+			return text;
+		}
+
+		@Override
+		public String toString() {
+			return kind + ": " + text;
+		}
+	}
+
+	private final String text;
+	private final String[] functions;
+	private final String[] comparators;
+
+	/**
+	 * Create a scanner
+	 * @param text the formula
+	 * @param functions names of the functions to be found
+	 * @param comparators operators of the comparators to be found
+	 */
+	FormulaLexer(String text, String[] functions, String[] comparators) {
+		this.text = text == null ? "" : text;
+		this.functions = functions;
+		this.comparators = comparators;
+	}
+
+	/**
+	 * Get the tokens of some kinds, in the order in which they start
+	 * @param kinds kinds of the tokens to be found, all if empty
+	 * @return
+	 */
+	List<Token> tokenize(Kind... kinds) {
+
+		boolean[] enabled = new boolean[Kind.values().length];
+		for (Kind kind : kinds)
+			enabled[kind.ordinal()] = true;
+
+		if (kinds.length == 0)
+			Arrays.fill(enabled, true);
+
+		// position from which each kind can match again. Functions and
+		// comparators are tracked for each name, as separate kinds
+		int simpleKinds = Kind.COMPARATOR.ordinal();
+		int[] resume = new int[simpleKinds + comparators.length + functions.length];
+
+		List<Token> tokens = new ArrayList<>();
+
+		for (int pos = 0; pos < text.length(); ++pos) {
+
+			for (int slot = 0; slot < resume.length; ++slot) {
+
+				if (resume[slot] > pos)
+					continue;
+
+				Kind kind;
+				String name = null;
+
+				if (slot < simpleKinds) {
+					kind = Kind.values()[slot];
+				} else if (slot < simpleKinds + comparators.length) {
+					kind = Kind.COMPARATOR;
+					name = comparators[slot - simpleKinds];
+				} else {
+					kind = Kind.FUNCTION;
+					name = functions[slot - simpleKinds - comparators.length];
+				}
+
+				if (!enabled[kind.ordinal()])
+					continue;
+
+				int end = match(kind, name, pos);
+
+				if (end < 0)
+					continue;
+
+				tokens.add(new Token(kind, name, text.substring(pos, end)));
+				resume[slot] = end;
+			}
+		}
+
+		return tokens;
+	}
+
+	/**
+	 * Get the function whose call starts at the position, that is its name
+	 * followed by the open bracket. The operands are not read.
+	 * @param pos
+	 * @return the name of the function or null if no call starts there
+	 */
+	String functionCallAt(int pos) {
+
+		for (String function : functions) {
+
+			int open = pos + function.length();
+
+			if (text.startsWith(function, pos) && open < text.length() && text.charAt(open) == '(')
+				return function;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Get the operator which starts at the position
+	 * @param pos
+	 * @return the operator or null if no operator starts there
+	 */
+	String comparatorAt(int pos) {
+
+		for (String comparator : comparators) {
+			if (text.startsWith(comparator, pos))
+				return comparator;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Check if a token starts at the position
+	 * @param kind kind of the token
+	 * @param name function name or comparator operator, null for the others
+	 * @param pos
+	 * @return the end of the token (exclusive) or -1 if no token is found
+	 */
+	int match(Kind kind, String name, int pos) {
+
+		switch (kind) {
+		case KEYWORD:
+			for (String keyword : KEYWORDS) {
+				if (text.startsWith(keyword, pos))
+					return pos + keyword.length();
+			}
+			return -1;
+		case ROW_KEYWORD:
+			return text.startsWith(RowKeywordFormula.ROW_ID_KEYWORD, pos)
+					? pos + RowKeywordFormula.ROW_ID_KEYWORD.length()
+					: -1;
+		case COLUMN:
+			return matchColumn(pos);
+		case RELATION:
+			return matchRelation(pos);
+		case COMPARATOR:
+			return matchComparator(name, pos);
+		case FUNCTION:
+			return matchFunction(name, pos);
+		default:
+			return -1;
+		}
+	}
+
+	/**
+	 * %columnId.code or %columnId.label
+	 */
+	private int matchColumn(int pos) {
+
+		if (text.charAt(pos) != '%')
+			return -1;
+
+		int i = pos + 1;
+		while (i < text.length() && isWordChar(text.charAt(i)))
+			i++;
+
+		// no column id
+		if (i == pos + 1)
+			return -1;
+
+		if (text.startsWith(CODE_FIELD, i))
+			return i + CODE_FIELD.length();
+
+		if (text.startsWith(LABEL_FIELD, i))
+			return i + LABEL_FIELD.length();
+
+		return -1;
+	}
+
+	/**
+	 * RELATION{parent,field}, both parts not empty
+	 */
+	private int matchRelation(int pos) {
+
+		if (!text.startsWith(RELATION_START, pos))
+			return -1;
+
+		int start = pos + RELATION_START.length();
+
+		int comma = find(',', start + 1, start);
+
+		if (comma < 0)
+			return -1;
+
+		int close = find('}', comma + 2, comma + 1);
+
+		return close < 0 ? -1 : close + 1;
+	}
+
+	/**
+	 * NAME(...) up to the first closed bracket
+	 */
+	private int matchFunction(String name, int pos) {
+
+		if (!text.startsWith(name, pos))
+			return -1;
+
+		int open = pos + name.length();
+
+		if (open >= text.length() || text.charAt(open) != '(')
+			return -1;
+
+		int close = find(')', open + 1, open + 1);
+
+		return close < 0 ? -1 : close + 1;
+	}
+
+	/**
+	 * (operand operator operand), where the operands are made of letters and
+	 * numbers and can be empty
+	 */
+	private int matchComparator(String operator, int pos) {
+
+		if (text.charAt(pos) != '(')
+			return -1;
+
+		int i = skipWhitespaces(readOperand(pos + 1));
+
+		if (!text.startsWith(operator, i))
+			return -1;
+
+		i = readOperand(skipWhitespaces(i + operator.length()));
+
+		if (i >= text.length() || text.charAt(i) != ')')
+			return -1;
+
+		return i + 1;
+	}
+
+	/**
+	 * Read letters and digits. A dot is part of the operand only after a digit
+	 * (decimal numbers)
+	 * @return the position after the operand
+	 */
+	private int readOperand(int pos) {
+
+		int i = pos;
+
+		while (i < text.length()) {
+
+			char c = text.charAt(i);
+
+			boolean letter = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+			boolean digit = c >= '0' && c <= '9';
+			boolean decimal = c == '.' && i > pos && isDigit(text.charAt(i - 1));
+
+			if (!letter && !digit && !decimal)
+				break;
+
+			i++;
+		}
+
+		return i;
+	}
+
+	private int skipWhitespaces(int pos) {
+
+		int i = pos;
+		while (i < text.length() && isWhitespace(text.charAt(i)))
+			i++;
+
+		return i;
+	}
+
+	/**
+	 * Find the first occurrence of a character in the same line
+	 * @param c the character
+	 * @param from first position where the character can be
+	 * @param lineStart first position which must not be a line break
+	 * @return the position or -1 if not found
+	 */
+	private int find(char c, int from, int lineStart) {
+
+		for (int i = lineStart; i < text.length(); ++i) {
+
+			char current = text.charAt(i);
+
+			if (current == c && i >= from)
+				return i;
+
+			if (current == '\n' || current == '\r')
+				return -1;
+		}
+
+		return -1;
+	}
+
+	static boolean isWordChar(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || isDigit(c) || c == '_';
+	}
+
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	private static boolean isWhitespace(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+	}
+}
@@ -0,0 +1,33 @@
+package formula;
+
+import java.util.Collection;
+
+/**
+ * Node of a formula compiled by {@link FormulaCompiler}. Nodes are immutable
+ * and can be evaluated several times against different rows.
+ *
+ */
+interface FormulaNode {
+
+	/**
+	 * Evaluate the node
+	 * @param context row and services used to solve the node
+	 * @return the solved text
+	 * @throws FormulaException
+	 */
+	public String evaluate(FormulaContext context) throws FormulaException;
+
+	/**
+	 * Add to the collection the ids of the columns of the row referenced by
+	 * the node (%columnId.code/label)
+	 * @param columnIds
+	 */
+	public void collectColumns(Collection<String> columnIds);
+	
+	/**
+	 * Check if the node reads values of the parents of the row
+	 * (RELATION{parentTableName,parentColumnId.code/label})
+	 * @return
+	 */
+	public boolean usesParents();
+}
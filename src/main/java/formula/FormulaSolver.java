@@ -1,9 +1,11 @@
 package formula;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
 
+import metrics.Metrics;
 import providers.ITableDaoService;
 import providers.TableDaoService;
 import table_database.TableDao;
@@ -54,6 +56,31 @@ public class FormulaSolver {
 		return formula;
 	}
 	
+	/**
+	 * Solve a single formula of a specific column of the row, without
+	 * creating a {@link Formula}.
+	 * @param column
+	 * @param fieldHeader
+	 * @return the solved formula or null if the column has no formula for
+	 * the {@code fieldHeader}
+	 * @throws FormulaException
+	 */
+	public String evaluate(TableColumn column, String fieldHeader) throws FormulaException {
+		
+		CompiledFormula formula = column.getCompiledFormula(fieldHeader);
+		
+		if (formula.isEmpty())
+			return null;
+		
+		long start = Metrics.start();
+		
+		try {
+			return formula.evaluate(row, daoService).trim();
+		} finally {
+			Metrics.stop("formula", column.getId(), fieldHeader, start);
+		}
+	}
+	
 	/**
 	 * Solve all the formulas related to a single column property
 	 * ({@link XlsxHeader}) for all the row fields specified
@@ -71,17 +98,22 @@ public class FormulaSolver {
 		// get all the formulas
 		FormulaParser parser = new FormulaParser(row, daoService);
 		
-		ArrayList<Formula> formulas = parser.parse(fieldHeader);
+		// solve the formulas in topological order, so that the
+		// referenced columns are always solved before
+		for (TableColumn column : row.getSchema().getFormulaGraph().getOrder(fieldHeader)) {
 
-		// sort the formulas based on their number of dependencies
-		Collections.sort(formulas, new DependenciesSorter());
-		
-		// solve all the formulas starting from the
-		// formulas with 0 dependencies
-		for (Formula formula : formulas) {
-
-			// solve the formula and get the resolved text
-			String solvedFormula = formula.solve();
+			long start = Metrics.start();
+			
+			Formula formula;
+			String solvedFormula;
+			try {
+				formula = parser.parse(column, fieldHeader);
+				
+				// solve the formula and get the resolved text
+				solvedFormula = formula.solve();
+			} finally {
+				Metrics.stop("formula", column.getId(), fieldHeader, start);
+			}
 			
 			// skip if no value is found
 			if (solvedFormula == null || solvedFormula.isEmpty())
@@ -95,26 +127,42 @@ public class FormulaSolver {
 		
 		return solvedFormulas;
 	}
-
+	
 	/**
-	 * Sorter that sort the formulas based on their number of dependencies
-	 * @author avonva
-	 *
+	 * Solve again only the code and label formulas which depend, also
+	 * indirectly, on the changed columns. The formulas are solved in
+	 * topological order and the row is updated as in {@link #solveAll(String)}.
+	 * @param changedColumnIds ids of the columns whose value was changed
+	 * @return the ids of the changed columns and of the solved columns
+	 * @throws FormulaException
 	 */
-	private class DependenciesSorter implements Comparator<Formula> {
-
-		@Override
-		public int compare(Formula arg0, Formula arg1) {
-			
-			int dep0 = arg0.getDependenciesCount();
-			int dep1 = arg1.getDependenciesCount();
+	public Set<String> solveDependents(Collection<String> changedColumnIds) throws FormulaException {
+		
+		Set<String> changed = new HashSet<>(changedColumnIds);
+		FormulaDependencyGraph graph = row.getSchema().getFormulaGraph();
+		
+		// code formulas first, then the label formulas which
+		// can depend also on the new codes
+		String[] headers = new String[] {
+				XlsxHeader.CODE_FORMULA.getHeaderName(),
+				XlsxHeader.LABEL_FORMULA.getHeaderName()
+		};
+		
+		for (String fieldHeader : headers) {
 			
-			if (dep0 == dep1)
-				return 0;
-			else if (dep0 < dep1)
-				return -1;
-			else
-				return 1;
+			for (TableColumn column : graph.getDependents(fieldHeader, changed)) {
+				
+				String solvedFormula = evaluate(column, fieldHeader);
+				
+				// skip if no value is found
+				if (solvedFormula == null || solvedFormula.isEmpty())
+					continue;
+				
+				row.update(column, solvedFormula, fieldHeader);
+				changed.add(column.getId());
+			}
 		}
+		
+		return changed;
 	}
 }
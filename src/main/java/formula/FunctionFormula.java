@@ -47,6 +47,17 @@ public class FunctionFormula implements IFormula {
 		compile();
 	}
 	
+	/**
+	 * Create a function with operands which were already solved
+	 * @param functionName
+	 * @param operands
+	 */
+	public FunctionFormula(String functionName, List<String> operands) {
+		this.functionName = functionName;
+		this.operands = operands;
+		this.formula = functionName + "(" + String.join(",", operands) + ")";
+	}
+	
 	@Override
 	public String getUnsolvedFormula() {
 		return formula;
@@ -0,0 +1,61 @@
+package formula;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Function call functionName(op1,op2,op3,...). The operands can contain other
+ * function calls.
+ *
+ */
+class FunctionNode implements FormulaNode {
+
+	private final String functionName;
+	private final FormulaNode[] operands;
+
+	FunctionNode(String functionName, List<FormulaNode> operands) {
+		this.functionName = functionName;
+		this.operands = operands.toArray(new FormulaNode[operands.size()]);
+	}
+
+	@Override
+	public String evaluate(FormulaContext context) throws FormulaException {
+
+		List<String> values = new ArrayList<>(operands.length);
+		for (FormulaNode operand : operands)
+			values.add(operand.evaluate(context));
+
+		return new FunctionFormula(functionName, values).solve();
+	}
+
+	@Override
+	public void collectColumns(Collection<String> columnIds) {
+		for (FormulaNode operand : operands)
+			operand.collectColumns(columnIds);
+	}
+
+	@Override
+	public boolean usesParents() {
+
+		for (FormulaNode operand : operands) {
+			if (operand.usesParents())
+				return true;
+		}
+
+		return false;
+	}
+
+	@Override
+	public String toString() {
+
+		StringBuilder sb = new StringBuilder(functionName).append("(");
+		for (int i = 0; i < operands.length; ++i) {
+			if (i > 0)
+				sb.append(",");
+			sb.append(operands[i]);
+		}
+
+		return sb.append(")").toString();
+	}
+}
@@ -0,0 +1,38 @@
+package formula;
+
+import java.util.Collection;
+
+/**
+ * Keyword which depends on the application or on the current date, or on the
+ * row if {@code rowKeyword} is set (see {@link KeywordFormula} and
+ * {@link RowKeywordFormula})
+ *
+ */
+class KeywordNode implements FormulaNode {
+
+	private final IFormula formula;
+	private final boolean rowKeyword;
+
+	KeywordNode(String text, boolean rowKeyword) throws FormulaException {
+		this.formula = rowKeyword ? new RowKeywordFormula(text) : new KeywordFormula(text);
+		this.rowKeyword = rowKeyword;
+	}
+
+	@Override
+	public String evaluate(FormulaContext context) throws FormulaException {
+		return rowKeyword ? formula.solve(context.getRow()) : formula.solve();
+	}
+
+	@Override
+	public void collectColumns(Collection<String> columnIds) {}
+
+	@Override
+	public boolean usesParents() {
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return formula.getUnsolvedFormula();
+	}
+}
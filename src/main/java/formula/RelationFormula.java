@@ -88,6 +88,17 @@ public class RelationFormula implements IFormula {
 
 	@Override
 	public String solve(TableRow row) throws FormulaException {
+		return solve(row, daoService);
+	}
+
+	/**
+	 * Solve the formula retrieving the parent with the given service
+	 * @param row
+	 * @param daoService
+	 * @return
+	 * @throws FormulaException
+	 */
+	public String solve(TableRow row, ITableDaoService daoService) throws FormulaException {
 
 		// get the relation with the parent
 		Relation r = row.getSchema().getRelationByParentTable(parentTable);
@@ -0,0 +1,34 @@
+package formula;
+
+import java.util.Collection;
+
+/**
+ * Field of the parent row (RELATION{parentTableName,parentColumnId.code/label})
+ *
+ */
+class RelationNode implements FormulaNode {
+
+	private final RelationFormula formula;
+
+	RelationNode(String text) throws FormulaException {
+		this.formula = new RelationFormula(text, null);
+	}
+
+	@Override
+	public String evaluate(FormulaContext context) throws FormulaException {
+		return formula.solve(context.getRow(), context.getDaoService());
+	}
+
+	@Override
+	public void collectColumns(Collection<String> columnIds) {}
+
+	@Override
+	public boolean usesParents() {
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return formula.getUnsolvedFormula();
+	}
+}
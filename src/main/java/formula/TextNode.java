@@ -0,0 +1,34 @@
+package formula;
+
+import java.util.Collection;
+
+/**
+ * Plain text of a formula
+ *
+ */
+class TextNode implements FormulaNode {
+
+	private final String text;
+
+	TextNode(String text) {
+		this.text = text;
+	}
+
+	@Override
+	public String evaluate(FormulaContext context) {
+		return text;
+	}
+
+	@Override
+	public void collectColumns(Collection<String> columnIds) {}
+
+	@Override
+	public boolean usesParents() {
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return text;
+	}
+}
@@ -134,6 +134,17 @@ public class Warnings {
 		return new String[] {title, message, code};
 	}
 	
+	/**
+	 * Warning for the information of the DCF which are not available
+	 * in offline mode, as if the DCF could not be reached
+	 * @return
+	 */
+	public static Message createOfflineWarning() {
+		Message m = create(Messages.get("error.title"), Messages.get("no.connection"), SWT.ICON_ERROR);
+		m.setCode("ERR600");
+		return m;
+	}
+	
 	public static Message createSOAPWarning(DetailedSOAPException e) {
 		String[] warnings = getSOAPWarning(e);
 		Message m = create(warnings[0], warnings[1], SWT.ICON_ERROR);
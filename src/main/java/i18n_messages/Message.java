@@ -15,6 +15,7 @@ public class Message {
 	
 	private static final String VARIABLE_PLACEHOLDER = "%s";
 	private static final String VARIABLE_PLACEHOLDER_REGEX = VARIABLE_PLACEHOLDER + "\\d+";  // as %s1, %s2, ...
+	private static final Pattern VARIABLE_PLACEHOLDER_PATTERN = Pattern.compile(VARIABLE_PLACEHOLDER_REGEX);
 	
 	private String key;
 	private String message;
@@ -33,8 +34,7 @@ public class Message {
 
 	public Message replace(String... values) {
 		
-		Pattern p = Pattern.compile(VARIABLE_PLACEHOLDER_REGEX);
-		Matcher m = p.matcher(this.message);
+		Matcher m = VARIABLE_PLACEHOLDER_PATTERN.matcher(this.message);
 		
 		List<String> placeholders = new ArrayList<>();
 		
@@ -0,0 +1,129 @@
+package message_creator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.w3c.dom.Document;
+import org.xml.sax.SAXException;
+
+import app_config.AppPaths;
+
+/**
+ * Order of the header and operation elements of a GDE2 message, as defined in
+ * its .xsd. The .xsd is parsed only the first time that its schema is
+ * requested, then the element order is shared by all the messages created by
+ * the process.
+ *
+ */
+public class MessageSchema {
+
+	private static final Logger LOGGER = LogManager.getLogger(MessageSchema.class);
+
+	// schemas by .xsd file name
+	private static final Map<String, MessageSchema> SCHEMAS = new HashMap<>();
+
+	private final List<String> headerElements;
+	private final List<String> operationElements;
+
+	private MessageSchema(List<String> headerElements, List<String> operationElements) {
+		this.headerElements = Collections.unmodifiableList(headerElements);
+		this.operationElements = Collections.unmodifiableList(operationElements);
+	}
+
+	/**
+	 * Get the schema of the {@link AppPaths#MESSAGE_GDE2_XSD}
+	 * @return
+	 * @throws IOException
+	 * @throws SAXException
+	 * @throws ParserConfigurationException
+	 */
+	public static MessageSchema getInstance() throws ParserConfigurationException, SAXException, IOException {
+		return getInstance(AppPaths.MESSAGE_GDE2_XSD);
+	}
+
+	/**
+	 * Get the schema of a message .xsd, parsing the file if it is the first
+	 * request
+	 * @param xsdFilename
+	 * @return
+	 * @throws IOException
+	 * @throws SAXException
+	 * @throws ParserConfigurationException
+	 */
+	public static MessageSchema getInstance(String xsdFilename)
+			throws ParserConfigurationException, SAXException, IOException {
+
+		synchronized (SCHEMAS) {
+
+			MessageSchema schema = SCHEMAS.get(xsdFilename);
+
+			if (schema == null) {
+				schema = load(xsdFilename);
+				SCHEMAS.put(xsdFilename, schema);
+			}
+
+			return schema;
+		}
+	}
+
+	/**
+	 * Parse the .xsd and extract the elements order
+	 * @param xsdFilename
+	 * @return
+	 * @throws IOException
+	 * @throws SAXException
+	 * @throws ParserConfigurationException
+	 */
+	private static MessageSchema load(String xsdFilename)
+			throws ParserConfigurationException, SAXException, IOException {
+
+		LOGGER.info("Loading message schema " + xsdFilename);
+
+		Document xsd = new XmlReader(xsdFilename).parse();
+
+		XsdParser parser = new XsdParser(xsd);
+
+		return new MessageSchema(getNames(parser.getHeaderElements()), getNames(parser.getOperationElements()));
+	}
+
+	private static List<String> getNames(List<XSElement> elements) {
+
+		List<String> names = new ArrayList<>();
+
+		for (XSElement element : elements) {
+
+			if (element.getName() == null || element.getName().isEmpty()) {
+				LOGGER.warn("Null element name found in the xsd file");
+				continue;
+			}
+
+			names.add(element.getName());
+		}
+
+		return names;
+	}
+
+	/**
+	 * Get the names of the header elements, in order
+	 * @return
+	 */
+	public List<String> getHeaderElements() {
+		return headerElements;
+	}
+
+	/**
+	 * Get the names of the operation elements, in order
+	 * @return
+	 */
+	public List<String> getOperationElements() {
+		return operationElements;
+	}
+}
@@ -1,22 +1,28 @@
 package message_creator;
 
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.util.ArrayList;
-import java.util.Collection;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 import javax.xml.parsers.ParserConfigurationException;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
 
 import amend_manager.DatasetComparison;
 import app_config.AppPaths;
 import message.MessageConfigBuilder;
+import metrics.Metrics;
 import table_skeleton.TableCell;
 import table_skeleton.TableColumn;
 import table_skeleton.TableRow;
@@ -24,7 +30,12 @@ import table_skeleton.TableRow;
 /**
  * Export a collection of {@link TableRow} into an .xml file which contains also
  * an header and an operation block. The header and the operation blocks are
- * defined in the {@link AppPaths#MESSAGE_CONFIG_SHEET} schema.
+ * defined in the {@link AppPaths#MESSAGE_CONFIG_SHEET} schema, while their
+ * order is defined in the {@link MessageSchema}.
+ * 
+ * The message is streamed to the file while the records are read, therefore
+ * the records do not need to be all in memory at the same time. The records
+ * are already xml and they are written as they are.
  * 
  * @author avonva
  *
@@ -37,9 +48,9 @@ public class MessageXmlBuilder implements AutoCloseable {
 
 	private File file; // file to create
 	private MessageConfigBuilder messageConfig; // configuration to create the message
-	private Document gde2Xsd; // schema of a generic message
+	private MessageSchema gde2Schema; // schema of a generic message
 
-	private PrintWriter writer; // writer of the file
+	private Writer writer; // writer of the file
 
 	/**
 	 * Export a dataset into the selected file default operation type = Insert
@@ -52,14 +63,49 @@ public class MessageXmlBuilder implements AutoCloseable {
 	 */
 	public MessageXmlBuilder(File file, MessageConfigBuilder messageConfig)
 			throws ParserConfigurationException, SAXException, IOException {
+		this(file, messageConfig, false);
+	}
 
-		// get the gde2 .xsd
-		XmlReader reader = new XmlReader(AppPaths.MESSAGE_GDE2_XSD);
-		this.gde2Xsd = reader.parse();
+	/**
+	 * Export a dataset into the selected file default operation type = Insert
+	 * 
+	 * @param file
+	 * @param messageConfig
+	 * @param compress true to compress the file with gzip (for local archiving,
+	 *                 the DCF accepts only plain .xml files)
+	 * @throws IOException
+	 * @throws SAXException
+	 * @throws ParserConfigurationException
+	 */
+	public MessageXmlBuilder(File file, MessageConfigBuilder messageConfig, boolean compress)
+			throws ParserConfigurationException, SAXException, IOException {
+		// get the gde2 .xsd elements order
+		this(file, messageConfig, MessageSchema.getInstance(), compress);
+	}
 
+	/**
+	 * Export a dataset into the selected file, using the elements order of a
+	 * custom schema
+	 * 
+	 * @param file
+	 * @param messageConfig
+	 * @param gde2Schema
+	 * @param compress
+	 * @throws IOException
+	 */
+	MessageXmlBuilder(File file, MessageConfigBuilder messageConfig, MessageSchema gde2Schema, boolean compress)
+			throws IOException {
+
+		this.gde2Schema = gde2Schema;
 		this.file = file;
 		this.messageConfig = messageConfig;
-		this.writer = new PrintWriter(file, "UTF-8");
+
+		OutputStream stream = new FileOutputStream(file);
+
+		if (compress)
+			stream = new GZIPOutputStream(stream);
+
+		this.writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
 	}
 
 	/**
@@ -69,7 +115,7 @@ public class MessageXmlBuilder implements AutoCloseable {
 	 * @throws IOException
 	 */
 	public File exportEmpty() throws IOException {
-		return export(new ArrayList<>());
+		return export(Collections.<DatasetComparison>emptyIterator());
 	}
 
 	/**
@@ -78,13 +124,30 @@ public class MessageXmlBuilder implements AutoCloseable {
 	 * @throws IOException
 	 * @return a handle to the exported file
 	 */
-	public File export(Collection<DatasetComparison> data) throws IOException {
+	public File export(Iterable<DatasetComparison> data) throws IOException {
+		return export(data.iterator());
+	}
+
+	/**
+	 * Export the records returned by an iterator into an xml. The records are
+	 * written as soon as they are returned by the iterator.
+	 * 
+	 * @throws IOException
+	 * @return a handle to the exported file
+	 */
+	public File export(Iterator<DatasetComparison> data) throws IOException {
 
-		// print the header
-		printMessage(data);
+		long start = Metrics.start();
 
-		// close the writer
-		writer.close();
+		try {
+			// print the message
+			printMessage(data);
+
+			// close the writer
+			close();
+		} finally {
+			Metrics.stop("xml.write", "message", start);
+		}
 
 		return file;
 	}
@@ -95,13 +158,13 @@ public class MessageXmlBuilder implements AutoCloseable {
 	 * @param root
 	 * @throws IOException
 	 */
-	private void printMessage(Collection<DatasetComparison> data) throws IOException {
+	private void printMessage(Iterator<DatasetComparison> data) throws IOException {
 
 		// add xml header
-		writer.println("<?xml version='1.0' encoding='UTF-8'?>");
+		println("<?xml version='1.0' encoding='UTF-8'?>");
 
 		// add first node
-		writer.println("<message>");
+		println("<message>");
 
 		// print the header
 		printHeader();
@@ -109,7 +172,7 @@ public class MessageXmlBuilder implements AutoCloseable {
 		// print the payload with the dataset
 		printPayload(data);
 
-		writer.println("</message>");
+		println("</message>");
 	}
 
 	/**
@@ -117,11 +180,11 @@ public class MessageXmlBuilder implements AutoCloseable {
 	 * 
 	 * @throws IOException
 	 */
-	private void printPayload(Collection<DatasetComparison> data) throws IOException {
-		writer.println("<payload>");
+	private void printPayload(Iterator<DatasetComparison> data) throws IOException {
+		println("<payload>");
 		printOperation();
 		printDataset(data);
-		writer.println("</payload>");
+		println("</payload>");
 	}
 
 	/**
@@ -130,30 +193,26 @@ public class MessageXmlBuilder implements AutoCloseable {
 	 * @throws IOException
 	 */
 	private void printHeader() throws IOException {
-		XsdParser parser = new XsdParser(gde2Xsd);
-		List<XSElement> headerNodes = parser.getHeaderElements();
-		printElementList(headerNodes, "header");
+		printElementList(gde2Schema.getHeaderElements(), "header");
 	}
 
 	/**
-	 * Print the header of the message
+	 * Print the operation of the message
 	 * 
 	 * @throws IOException
 	 */
 	private void printOperation() throws IOException {
-		XsdParser parser = new XsdParser(gde2Xsd);
-		List<XSElement> opNodes = parser.getOperationElements();
-		printElementList(opNodes, "operation");
+		printElementList(gde2Schema.getOperationElements(), "operation");
 	}
 
 	/**
 	 * Print in the writer a list of elements
 	 * 
-	 * @param list     list of elements to be printed
+	 * @param list     names of the elements to be printed
 	 * @param nodeName node that will contain all the node of the list in the .xml
 	 * @throws IOException
 	 */
-	private void printElementList(List<XSElement> list, String nodeName) throws IOException {
+	private void printElementList(List<String> list, String nodeName) throws IOException {
 
 		StringBuilder sb = new StringBuilder();
 
@@ -161,14 +220,7 @@ public class MessageXmlBuilder implements AutoCloseable {
 		TableRow config = messageConfig.getMessageConfig();
 
 		// for each element of the .xsd (in order!)
-		for (XSElement element : list) {
-
-			String elementName = element.getName();
-
-			if (elementName == null) {
-				LOGGER.warn("Null element name found in the xsd file");
-				continue;
-			}
+		for (String elementName : list) {
 
 			// get the schema of the column
 			TableColumn column = config.getSchema().getById(elementName);
@@ -201,12 +253,10 @@ public class MessageXmlBuilder implements AutoCloseable {
 			}
 
 			// append the value of the configuration to the xml node
-			sb.append(getXmlNode(elementName, nodeValue));
+			sb.append(getXmlNode(elementName, escape(nodeValue)));
 		}
 
-		String text = getXmlNode(nodeName, sb.toString());
-
-		writer.println(text);
+		println(getXmlNode(nodeName, sb.toString()));
 	}
 
 	/**
@@ -214,23 +264,24 @@ public class MessageXmlBuilder implements AutoCloseable {
 	 * 
 	 * @throws IOException
 	 */
-	private void printDataset(Collection<DatasetComparison> data) throws IOException {
+	private void printDataset(Iterator<DatasetComparison> data) throws IOException {
 
-		writer.println("<dataset>");
+		println("<dataset>");
 
-		for (DatasetComparison comp : data) {
-			print(comp);
+		while (data.hasNext()) {
+			print(data.next());
 		}
 
-		writer.println("</dataset>");
+		println("</dataset>");
 	}
 
 	/**
 	 * Print a single row with its elements
 	 * 
 	 * @param row
+	 * @throws IOException
 	 */
-	private void print(DatasetComparison row) {
+	private void print(DatasetComparison row) throws IOException {
 
 		rowCounter++;
 
@@ -240,7 +291,32 @@ public class MessageXmlBuilder implements AutoCloseable {
 		LOGGER.debug(sb.toString());
 
 		// print the row nodes into the file
-		writer.println(getXmlNode("result", row.getXmlRecord()));
+		printRecord(row.getXmlRecord());
+	}
+
+	/**
+	 * Print a record inside a result node. The record is already xml (it was
+	 * created with its nodes already escaped), therefore it is written as it is
+	 * without any escaping and without copying it in a bigger string.
+	 * 
+	 * @param xmlRecord
+	 * @throws IOException
+	 */
+	private void printRecord(String xmlRecord) throws IOException {
+		writer.write("<result>");
+		writer.write(xmlRecord);
+		println("</result>");
+	}
+
+	/**
+	 * Write a line of text
+	 * 
+	 * @param text
+	 * @throws IOException
+	 */
+	private void println(String text) throws IOException {
+		writer.write(text);
+		writer.write(System.lineSeparator());
 	}
 
 	/**
@@ -260,8 +336,23 @@ public class MessageXmlBuilder implements AutoCloseable {
 		return node.toString();
 	}
 
+	/**
+	 * Escape the characters of a text which cannot be used in an xml node
+	 * 
+	 * @param text
+	 * @return
+	 */
+	private static String escape(String text) {
+		return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+	}
+
 	@Override
 	public void close() throws IOException {
+
+		if (writer == null)
+			return;
+
 		this.writer.close();
+		this.writer = null;
 	}
 }
@@ -0,0 +1,250 @@
+package metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import app_config.PropertiesReader;
+
+/**
+ * In-process registry of timers and counters of the main operations (database,
+ * formulas, catalogues, xml and DCF calls). The metrics are collected only if
+ * enabled in the properties file, otherwise each call costs a single check.
+ *
+ * Usage:
+ *
+ * <pre>
+ * long start = Metrics.start();
+ * ...
+ * Metrics.stop("dao.getAll", schema.getSheetName(), start);
+ * </pre>
+ *
+ * When enabled, the metrics are published in JMX as {@link #OBJECT_NAME} and
+ * written to the dump file of the properties when the application is closed.
+ *
+ */
+public class Metrics {
+
+	private static final Logger LOGGER = LogManager.getLogger(Metrics.class);
+
+	public static final String OBJECT_NAME = "efsa_rcl:type=Metrics";
+
+	private static final Map<String, Timer> TIMERS = new ConcurrentHashMap<>();
+	private static final Map<String, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+
+	private static volatile boolean enabled;
+
+	static {
+		if (PropertiesReader.isMetricsEnabled())
+			enable(new File(PropertiesReader.getMetricsDumpFile()));
+	}
+
+	/**
+	 * Start collecting the metrics, publish them in JMX and dump them in a file
+	 * when the jvm is closed
+	 *
+	 * @param dumpFile file where the metrics are written at the end, null to
+	 *                 skip it
+	 */
+	public static synchronized void enable(File dumpFile) {
+
+		if (enabled)
+			return;
+
+		enabled = true;
+
+		LOGGER.info("Runtime metrics enabled");
+
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			if (!server.isRegistered(name))
+				server.registerMBean(new MetricsControl(), name);
+		} catch (JMException e) {
+			LOGGER.error("Cannot publish the metrics in JMX", e);
+			e.printStackTrace();
+		}
+
+		if (dumpFile != null) {
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				try {
+					dump(dumpFile);
+				} catch (IOException e) {
+					LOGGER.error("Cannot dump the metrics in " + dumpFile, e);
+					e.printStackTrace();
+				}
+			}, "metrics-dump"));
+		}
+	}
+
+	/**
+	 * Stop or restart collecting the metrics, the collected values are kept
+	 *
+	 * @param value
+	 */
+	public static void setEnabled(boolean value) {
+		enabled = value;
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Get the start time of an operation
+	 *
+	 * @return the time to be passed to {@link #stop(String, String, long)}, 0
+	 *         if the metrics are disabled
+	 */
+	public static long start() {
+		return enabled ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Record the end of an operation
+	 *
+	 * @param name  name of the timer
+	 * @param start value returned by {@link #start()}
+	 */
+	public static void stop(String name, long start) {
+
+		if (!enabled || start == 0)
+			return;
+
+		record(name, System.nanoTime() - start);
+	}
+
+	/**
+	 * Record the end of an operation
+	 *
+	 * @param name  name of the timer
+	 * @param key   detail of the operation (as the table or the column), the
+	 *              timer is named name.key
+	 * @param start value returned by {@link #start()}
+	 */
+	public static void stop(String name, String key, long start) {
+
+		if (!enabled || start == 0)
+			return;
+
+		record(name + "." + key, System.nanoTime() - start);
+	}
+
+	/**
+	 * Record the end of an operation
+	 *
+	 * @param name  name of the timer
+	 * @param key1  first detail of the operation
+	 * @param key2  second detail of the operation, the timer is named
+	 *              name.key1.key2
+	 * @param start value returned by {@link #start()}
+	 */
+	public static void stop(String name, String key1, String key2, long start) {
+
+		if (!enabled || start == 0)
+			return;
+
+		record(name + "." + key1 + "." + key2, System.nanoTime() - start);
+	}
+
+	private static void record(String name, long nanos) {
+		TIMERS.computeIfAbsent(name, n -> new Timer()).record(nanos);
+	}
+
+	/**
+	 * Increase a counter
+	 *
+	 * @param name name of the counter
+	 * @param key  detail of the event, the counter is named name.key
+	 */
+	public static void increment(String name, String key) {
+
+		if (!enabled)
+			return;
+
+		COUNTERS.computeIfAbsent(name + "." + key, n -> new LongAdder()).increment();
+	}
+
+	/**
+	 * Get a timer by its name
+	 *
+	 * @param name
+	 * @return the timer or null if the operation was never recorded
+	 */
+	public static Timer getTimer(String name) {
+		return TIMERS.get(name);
+	}
+
+	/**
+	 * Get the value of a counter
+	 *
+	 * @param name
+	 * @return
+	 */
+	public static long getCount(String name) {
+		LongAdder counter = COUNTERS.get(name);
+		return counter == null ? 0 : counter.sum();
+	}
+
+	/**
+	 * Remove all the collected values
+	 */
+	public static void reset() {
+		TIMERS.clear();
+		COUNTERS.clear();
+	}
+
+	/**
+	 * Get the collected values, one line for each timer and counter sorted by
+	 * name
+	 *
+	 * @return
+	 */
+	public static List<String> snapshot() {
+
+		List<String> lines = new ArrayList<>();
+
+		for (Map.Entry<String, Timer> entry : new TreeMap<>(TIMERS).entrySet())
+			lines.add(entry.getKey() + " " + entry.getValue());
+
+		for (Map.Entry<String, LongAdder> entry : new TreeMap<>(COUNTERS).entrySet())
+			lines.add(entry.getKey() + " count=" + entry.getValue().sum());
+
+		return lines;
+	}
+
+	/**
+	 * Write the collected values to a file
+	 *
+	 * @param file
+	 * @throws IOException
+	 */
+	public static void dump(File file) throws IOException {
+
+		File parent = file.getAbsoluteFile().getParentFile();
+		if (parent != null && !parent.exists())
+			parent.mkdirs();
+
+		try (PrintWriter out = new PrintWriter(file, StandardCharsets.UTF_8.name());) {
+			for (String line : snapshot())
+				out.println(line);
+		}
+
+		LOGGER.info("Metrics written to " + file);
+	}
+}
@@ -0,0 +1,46 @@
+package metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * JMX view of the {@link Metrics}
+ *
+ */
+public class MetricsControl implements MetricsControlMBean {
+
+	@Override
+	public boolean isEnabled() {
+		return Metrics.isEnabled();
+	}
+
+	@Override
+	public void setEnabled(boolean enabled) {
+		Metrics.setEnabled(enabled);
+	}
+
+	@Override
+	public String[] getSnapshot() {
+		List<String> lines = Metrics.snapshot();
+		return lines.toArray(new String[lines.size()]);
+	}
+
+	@Override
+	public void reset() {
+		Metrics.reset();
+	}
+
+	@Override
+	public String dump(String filename) {
+
+		File file = new File(filename);
+
+		try {
+			Metrics.dump(file);
+			return "Metrics written to " + file.getAbsolutePath();
+		} catch (IOException e) {
+			return "Cannot write the metrics: " + e.getMessage();
+		}
+	}
+}
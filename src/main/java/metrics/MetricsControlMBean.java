@@ -0,0 +1,30 @@
+package metrics;
+
+/**
+ * Management interface of the {@link Metrics} published in JMX
+ *
+ */
+public interface MetricsControlMBean {
+
+	public boolean isEnabled();
+
+	public void setEnabled(boolean enabled);
+
+	/**
+	 * Get the timers and counters, one line each
+	 * @return
+	 */
+	public String[] getSnapshot();
+
+	/**
+	 * Remove all the collected values
+	 */
+	public void reset();
+
+	/**
+	 * Write the collected values to a file
+	 * @param filename
+	 * @return
+	 */
+	public String dump(String filename);
+}
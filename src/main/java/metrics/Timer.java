@@ -0,0 +1,67 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Number of executions of an operation and the time that they took. It can be
+ * updated by several threads at the same time without locking.
+ *
+ */
+public class Timer {
+
+	private final LongAdder count;
+	private final LongAdder totalNanos;
+	private final LongAccumulator maxNanos;
+
+	Timer() {
+		this.count = new LongAdder();
+		this.totalNanos = new LongAdder();
+		this.maxNanos = new LongAccumulator(Math::max, 0);
+	}
+
+	/**
+	 * Record an execution
+	 * @param nanos duration of the execution
+	 */
+	void record(long nanos) {
+		count.increment();
+		totalNanos.add(nanos);
+		maxNanos.accumulate(nanos);
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	/**
+	 * Get the total time of the executions in milliseconds
+	 * @return
+	 */
+	public double getTotalMillis() {
+		return totalNanos.sum() / 1e6;
+	}
+
+	/**
+	 * Get the mean time of an execution in milliseconds
+	 * @return
+	 */
+	public double getMeanMillis() {
+		long n = getCount();
+		return n == 0 ? 0 : getTotalMillis() / n;
+	}
+
+	/**
+	 * Get the longest execution in milliseconds
+	 * @return
+	 */
+	public double getMaxMillis() {
+		return maxNanos.get() / 1e6;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("count=%d total=%.1fms mean=%.3fms max=%.3fms", getCount(), getTotalMillis(),
+				getMeanMillis(), getMaxMillis());
+	}
+}
@@ -0,0 +1,231 @@
+package providers;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import ack.DcfAck;
+import config.Config;
+import dataset.DatasetList;
+import soap.DetailedSOAPException;
+import user.User;
+
+/**
+ * Time-bounded cache of the datasets lists and of the acks read from another
+ * {@link IDcfDataSource}. The datasets list of a data collection is requested
+ * only once for all the threads until it expires or it is invalidated, for
+ * example after sending a dataset. Only the acks which are ready are cached,
+ * since they cannot change anymore. The elements are cached separately for
+ * each environment and user, since they see different datasets.
+ *
+ * In offline mode the source is never called and the last known values are
+ * returned also if expired. If a value was never read, a
+ * {@link DcfOfflineException} is thrown.
+ *
+ */
+public class DcfCache implements IDcfDataSource {
+
+	private static final Logger LOGGER = LogManager.getLogger(DcfCache.class);
+
+	private final IDcfDataSource source;
+	private final long timeToLive;
+	private volatile boolean offline;
+
+	// datasets lists by environment, user and data collection code
+	private final Map<String, Entry<DatasetList>> datasetsLists;
+
+	// acks by environment, user and message id
+	private final Map<String, Entry<DcfAck>> acks;
+
+	// locks by key of the datasets list, to request each list once
+	private final Map<String, Object> locks;
+
+	/**
+	 * Create the cache
+	 *
+	 * @param source     source of the information
+	 * @param timeToLive milliseconds after which an element is requested again
+	 *                   to the source
+	 */
+	public DcfCache(IDcfDataSource source, long timeToLive) {
+		this.source = source;
+		this.timeToLive = timeToLive;
+		this.datasetsLists = new ConcurrentHashMap<>();
+		this.acks = new ConcurrentHashMap<>();
+		this.locks = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Enable or disable the offline mode
+	 *
+	 * @param offline
+	 */
+	public void setOffline(boolean offline) {
+		this.offline = offline;
+	}
+
+	public boolean isOffline() {
+		return offline;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * @throws DcfOfflineException if offline and the list was never read
+	 */
+	@Override
+	public DatasetList getDatasetsList(String dataCollectionCode) throws DetailedSOAPException {
+
+		String key = getKey(dataCollectionCode);
+
+		Entry<DatasetList> entry = datasetsLists.get(key);
+
+		if (isUsable(entry))
+			return copy(entry.value);
+
+		if (offline) {
+			throw new DcfOfflineException(
+					"Offline mode, no datasets list available for data collection=" + dataCollectionCode);
+		}
+
+		synchronized (locks.computeIfAbsent(key, k -> new Object())) {
+
+			// requested by another thread in the meanwhile
+			entry = datasetsLists.get(key);
+
+			if (isUsable(entry))
+				return copy(entry.value);
+
+			LOGGER.debug("Requesting the datasets list of data collection=" + dataCollectionCode);
+
+			DatasetList list = source.getDatasetsList(dataCollectionCode);
+
+			datasetsLists.put(key, new Entry<>(list));
+
+			return copy(list);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * @throws DcfOfflineException if offline and the ack was never read
+	 */
+	@Override
+	public DcfAck getAck(String messageId) throws DetailedSOAPException {
+
+		String key = getKey(messageId);
+
+		Entry<DcfAck> entry = acks.get(key);
+
+		if (isUsable(entry))
+			return entry.value;
+
+		if (offline)
+			throw new DcfOfflineException("Offline mode, no ack available for message id=" + messageId);
+
+		DcfAck ack = source.getAck(messageId);
+
+		// acks still in processing will change
+		if (ack != null && ack.isReady())
+			acks.put(key, new Entry<>(ack));
+
+		return ack;
+	}
+
+	/**
+	 * Remove the datasets list of a data collection, to request it again
+	 *
+	 * @param dataCollectionCode
+	 */
+	public void invalidate(String dataCollectionCode) {
+		LOGGER.debug("Invalidating the datasets list of data collection=" + dataCollectionCode);
+		datasetsLists.remove(getKey(dataCollectionCode));
+	}
+
+	/**
+	 * Request the datasets list of a data collection again at the next call,
+	 * also if not expired (as when the user asks to refresh a report). The
+	 * list is kept for the offline mode
+	 *
+	 * @param dataCollectionCode
+	 */
+	public void expire(String dataCollectionCode) {
+		datasetsLists.computeIfPresent(getKey(dataCollectionCode), (key, entry) -> new Entry<>(entry.value, 0));
+	}
+
+	/**
+	 * Remove the ack of a message, to request it again
+	 *
+	 * @param messageId
+	 */
+	public void invalidateAck(String messageId) {
+		acks.remove(getKey(messageId));
+	}
+
+	/**
+	 * Remove all the cached elements
+	 */
+	public void invalidateAll() {
+		datasetsLists.clear();
+		acks.clear();
+	}
+
+	/**
+	 * Get the key of an element for the current environment and user
+	 *
+	 * @param id data collection code or message id
+	 * @return
+	 */
+	private static String getKey(String id) {
+		return Config.getEnvironment() + "|" + User.getInstance().getUsername() + "|" + id;
+	}
+
+	/**
+	 * Check if an entry can be returned
+	 *
+	 * @param entry
+	 * @return
+	 */
+	private boolean isUsable(Entry<?> entry) {
+
+		if (entry == null)
+			return false;
+
+		return offline || System.currentTimeMillis() - entry.time < timeToLive;
+	}
+
+	/**
+	 * Copy a list, since the callers can sort it
+	 *
+	 * @param list
+	 * @return
+	 */
+	private static DatasetList copy(DatasetList list) {
+		DatasetList copy = new DatasetList();
+		copy.addAll(list);
+		return copy;
+	}
+
+	/**
+	 * Cached element with its creation time
+	 *
+	 * @param <T>
+	 */
+	private static class Entry<T> {
+
+		private final T value;
+		private final long time;
+
+		Entry(T value) {
+			this(value, System.currentTimeMillis());
+		}
+
+		Entry(T value, long time) {
+			this.value = value;
+			this.time = time;
+		}
+	}
+}
@@ -0,0 +1,16 @@
+package providers;
+
+/**
+ * Thrown by the {@link DcfCache} in offline mode when the requested
+ * information was never read from the DCF, so that it is not mistaken for
+ * an empty answer of the DCF
+ * 
+ */
+public class DcfOfflineException extends RuntimeException {
+
+	private static final long serialVersionUID = -3316437981545021442L;
+
+	public DcfOfflineException(String message) {
+		super(message);
+	}
+}
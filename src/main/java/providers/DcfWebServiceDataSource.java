@@ -0,0 +1,55 @@
+package providers;
+
+import ack.DcfAck;
+import config.Config;
+import dataset.DatasetList;
+import dataset.IDataset;
+import metrics.Metrics;
+import soap.DetailedSOAPException;
+import soap_interface.IGetAck;
+import soap_interface.IGetDatasetsList;
+import user.User;
+
+/**
+ * Reads the DCF information calling the DCF web services with the current
+ * {@link User} in the current environment
+ * 
+ */
+public class DcfWebServiceDataSource implements IDcfDataSource {
+
+	private IGetAck getAck;
+	private IGetDatasetsList<IDataset> getDatasetsList;
+
+	public DcfWebServiceDataSource(IGetAck getAck, IGetDatasetsList<IDataset> getDatasetsList) {
+		this.getAck = getAck;
+		this.getDatasetsList = getDatasetsList;
+	}
+
+	@Override
+	public DatasetList getDatasetsList(String dataCollectionCode) throws DetailedSOAPException {
+
+		DatasetList output = new DatasetList();
+
+		long start = Metrics.start();
+
+		try {
+			getDatasetsList.getList(Config.getEnvironment(), User.getInstance(), dataCollectionCode, output);
+		} finally {
+			Metrics.stop("dcf.getDatasetsList", start);
+		}
+
+		return output;
+	}
+
+	@Override
+	public DcfAck getAck(String messageId) throws DetailedSOAPException {
+
+		long start = Metrics.start();
+
+		try {
+			return getAck.getAck(Config.getEnvironment(), User.getInstance(), messageId);
+		} finally {
+			Metrics.stop("dcf.getAck", start);
+		}
+	}
+}
@@ -1,5 +1,7 @@
 package providers;
 
+import java.util.Collection;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -41,20 +43,20 @@ public class FormulaService implements IFormulaService {
 		FormulaSolver solver = new FormulaSolver(row, daoService);
 
 		try {
-			Formula label = solver.solve(col, XlsxHeader.DEFAULT_VALUE.getHeaderName());
-			sel.setLabel(label.getSolvedFormula());
+			String label = solver.evaluate(col, XlsxHeader.DEFAULT_VALUE.getHeaderName());
+			sel.setLabel(label);
 		} catch (FormulaException e) {
 			e.printStackTrace();
 			LOGGER.error("Cannot solve formula for column=" + colId, e);
 		}
 
 		try {
-			Formula code = solver.solve(col, XlsxHeader.DEFAULT_CODE.getHeaderName());
+			String code = solver.evaluate(col, XlsxHeader.DEFAULT_CODE.getHeaderName());
 
 			if (col.getPicklistKey() == null || col.getPicklistKey().isEmpty())
-				sel.setCode(code.getSolvedFormula());
+				sel.setCode(code);
 			else
-				sel = row.getTableColumnValue(code.getSolvedFormula(), col.getPicklistKey());
+				sel = row.getTableColumnValue(code, col.getPicklistKey());
 
 		} catch (FormulaException e) {
 			e.printStackTrace();
@@ -68,9 +70,7 @@ public class FormulaService implements IFormulaService {
 	public String solve(TableRow row, TableColumn column, XlsxHeader columnProperty) throws FormulaException {
 
 		FormulaSolver solver = new FormulaSolver(row, daoService);
-		Formula formula = solver.solve(column, columnProperty.getHeaderName());
-
-		return formula.getSolvedFormula();
+		return solver.evaluate(column, columnProperty.getHeaderName());
 	}
 
 	@Override
@@ -95,4 +95,17 @@ public class FormulaService implements IFormulaService {
 			LOGGER.error("Cannot solve row formulas", e);
 		}
 	}
+
+	@Override
+	public void updateFormulas(TableRow row, Collection<String> changedColumnIds) {
+
+		FormulaSolver solver = new FormulaSolver(row, daoService);
+
+		try {
+			solver.solveDependents(changedColumnIds);
+		} catch (FormulaException e) {
+			e.printStackTrace();
+			LOGGER.error("Cannot solve row formulas", e);
+		}
+	}
 }
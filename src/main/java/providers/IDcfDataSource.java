@@ -0,0 +1,30 @@
+package providers;
+
+import ack.DcfAck;
+import dataset.DatasetList;
+import soap.DetailedSOAPException;
+
+/**
+ * Source of the DCF information which are read while managing the reports
+ * 
+ */
+public interface IDcfDataSource {
+
+	/**
+	 * Get all the datasets of a data collection
+	 * 
+	 * @param dataCollectionCode
+	 * @return
+	 * @throws DetailedSOAPException
+	 */
+	public DatasetList getDatasetsList(String dataCollectionCode) throws DetailedSOAPException;
+
+	/**
+	 * Get the ack of a message
+	 * 
+	 * @param messageId
+	 * @return the ack or null if not available
+	 * @throws DetailedSOAPException
+	 */
+	public DcfAck getAck(String messageId) throws DetailedSOAPException;
+}
@@ -1,5 +1,7 @@
 package providers;
 
+import java.util.Collection;
+
 import formula.FormulaException;
 import table_skeleton.TableColumn;
 import table_skeleton.TableRow;
@@ -23,6 +25,14 @@ public interface IFormulaService {
 	 */
 	public void updateFormulas(TableRow row);
 	
+	/**
+	 * Update only the code and label formulas of the row which
+	 * depend on the changed columns
+	 * @param row
+	 * @param changedColumnIds ids of the columns whose value was changed
+	 */
+	public void updateFormulas(TableRow row, Collection<String> changedColumnIds);
+	
 	/**
 	 * Initialise the row with the default values
 	 * note that this will override all the values of the row
@@ -41,7 +41,8 @@ public interface IReportService {
 	 * Create a new report
 	 * 
 	 * @param report
-	 * @return error if something wrong happened
+	 * @return error if something wrong happened, ERR600 if the datasets of the
+	 *         DCF are not available in offline mode
 	 * @throws DetailedSOAPException
 	 */
 	public RCLError create(Report report) throws DetailedSOAPException;
@@ -52,6 +53,7 @@ public interface IReportService {
 	 * @param messageId
 	 * @return
 	 * @throws DetailedSOAPException
+	 * @throws DcfOfflineException   if the ack is not available in offline mode
 	 */
 	public DcfAck getAckOf(String messageId) throws DetailedSOAPException;
 
@@ -72,6 +74,8 @@ public interface IReportService {
 	 * @param dcYear
 	 * @return
 	 * @throws DetailedSOAPException
+	 * @throws DcfOfflineException   if the datasets are not available in offline
+	 *                               mode
 	 */
 	public DatasetList getDatasetsOf(String senderDatasetId, String dcYear) throws DetailedSOAPException;
 
@@ -230,13 +234,25 @@ public interface IReportService {
 	public TableRowList getAllVersions(String senderId);
 
 	/**
-	 * Refresh the report status
+	 * Refresh the report status. The datasets list of the DCF is read again
+	 * only when it expires, therefore refreshing many reports costs a single
+	 * request
 	 * 
 	 * @param report
 	 * @return
 	 */
 	public Message refreshStatus(Report report);
 
+	/**
+	 * Refresh the report status
+	 * 
+	 * @param report
+	 * @param reload true to read again the datasets list of the DCF also if
+	 *               not expired, as when the user refreshes the report
+	 * @return
+	 */
+	public Message refreshStatus(Report report, boolean reload);
+
 	/**
 	 * Display an ack
 	 * 
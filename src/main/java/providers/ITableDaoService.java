@@ -1,5 +1,11 @@
 package providers;
 
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+import table_database.ITableCursor;
+import table_database.TableQuery;
 import table_skeleton.TableRow;
 import table_skeleton.TableRowList;
 import xlsx_reader.TableSchema;
@@ -13,6 +19,15 @@ public interface ITableDaoService {
 	 */
 	public int add(TableRow row);
 	
+	/**
+	 * Add a collection of rows into the database in a single
+	 * transaction. The generated ids are set in the rows.
+	 * @param rows rows which follow the same schema
+	 * @return the generated ids in the same order of the rows,
+	 * or null if the rows could not be added
+	 */
+	public int[] addAll(Collection<TableRow> rows);
+	
 	/**
 	 * Update a row in the database
 	 * @param row
@@ -27,6 +42,41 @@ public interface ITableDaoService {
 	 */
 	public TableRowList getAll(TableSchema schema);
 	
+	/**
+	 * Read all the records of a table one at a time, without
+	 * loading the entire table in memory
+	 * @param schema
+	 * @param action called for each record
+	 * @throws SQLException if the records cannot be read
+	 */
+	public void forEach(TableSchema schema, Consumer<TableRow> action) throws SQLException;
+	
+	/**
+	 * Read the records of a query one at a time, without
+	 * loading them in memory
+	 * @param query
+	 * @param action called for each record
+	 * @throws SQLException if the records cannot be read
+	 */
+	public void forEach(TableQuery query, Consumer<TableRow> action) throws SQLException;
+	
+	/**
+	 * Open a forward only cursor over the records of a query.
+	 * The cursor must be closed.
+	 * @param query
+	 * @return
+	 */
+	public ITableCursor iterate(TableQuery query);
+	
+	/**
+	 * Get a page of the records of a query, starting after
+	 * the id of the last record of the previous page
+	 * @param query
+	 * @param afterId 0 for the first page
+	 * @return the page, empty if there are no more records
+	 */
+	public TableRowList getPage(TableQuery query, int afterId);
+	
 	/**
 	 * Get a row by its id in the chosen table
 	 * @param schema
@@ -47,6 +47,7 @@ import message.MessageConfigBuilder;
 import message.MessageResponse;
 import message.SendMessageException;
 import message_creator.OperationType;
+import metrics.Metrics;
 import progress_bar.ProgressListener;
 import report.DisplayAckResult;
 import report.EFSAReport;
@@ -59,6 +60,8 @@ import soap_interface.IGetAck;
 import soap_interface.IGetDataset;
 import soap_interface.IGetDatasetsList;
 import soap_interface.ISendMessage;
+import table_database.ITableCursor;
+import table_database.TableQuery;
 import table_relations.Relation;
 import table_skeleton.TableCell;
 import table_skeleton.TableColumn;
@@ -84,7 +87,7 @@ public class ReportService implements IReportService {
 	private static final Logger LOGGER = LogManager.getLogger(ReportService.class);
 
 	private IGetAck getAck;
-	private IGetDatasetsList<IDataset> getDatasetsList;
+	private DcfCache dcfCache;
 	protected ITableDaoService daoService;
 	private ISendMessage sendMessage;
 	private IGetDataset getDataset;
@@ -94,14 +97,43 @@ public class ReportService implements IReportService {
 	public ReportService(IGetAck getAck, IGetDatasetsList<IDataset> getDatasetsList, ISendMessage sendMessage,
 			IGetDataset getDataset, ITableDaoService daoService, IFormulaService formulaService) {
 
+		this(getAck, new DcfWebServiceDataSource(getAck, getDatasetsList), sendMessage, getDataset, daoService,
+				formulaService);
+	}
+
+	/**
+	 * Create the service reading the datasets lists and the acks from a custom
+	 * source (as an in memory source in tests)
+	 * 
+	 * @param getAck       used for the detailed acks
+	 * @param dcfSource
+	 * @param sendMessage
+	 * @param getDataset
+	 * @param daoService
+	 * @param formulaService
+	 */
+	public ReportService(IGetAck getAck, IDcfDataSource dcfSource, ISendMessage sendMessage, IGetDataset getDataset,
+			ITableDaoService daoService, IFormulaService formulaService) {
+
 		this.getAck = getAck;
-		this.getDatasetsList = getDatasetsList;
+		this.dcfCache = new DcfCache(dcfSource, PropertiesReader.getDcfCacheTimeToLive());
+		this.dcfCache.setOffline(PropertiesReader.isDcfOfflineMode());
 		this.sendMessage = sendMessage;
 		this.getDataset = getDataset;
 		this.daoService = daoService;
 		this.formulaService = formulaService;
 	}
 
+	/**
+	 * Get the cache of the datasets lists and acks, to invalidate it or to
+	 * switch to offline mode
+	 * 
+	 * @return
+	 */
+	public DcfCache getDcfCache() {
+		return dcfCache;
+	}
+
 	public ITableDaoService getDaoService() {
 		return daoService;
 	}
@@ -156,7 +188,14 @@ public class ReportService implements IReportService {
 	@Override
 	public File download(String datasetId) throws DetailedSOAPException, NoAttachmentException {
 
-		File file = getDataset.getDatasetFile(Config.getEnvironment(), User.getInstance(), datasetId);
+		long start = Metrics.start();
+
+		File file;
+		try {
+			file = getDataset.getDatasetFile(Config.getEnvironment(), User.getInstance(), datasetId);
+		} finally {
+			Metrics.stop("dcf.getDataset", start);
+		}
 
 		if (file == null)
 			throw new NoAttachmentException("Cannot find the attachment of the dataset with id=" + datasetId);
@@ -199,10 +238,14 @@ public class ReportService implements IReportService {
 	 */
 	private MessageResponse send(File file, OperationType opType) throws DetailedSOAPException, IOException {
 
-		// send the report and get the response to the message
-		MessageResponse response = sendMessage.send(Config.getEnvironment(), User.getInstance(), file);
+		long start = Metrics.start();
 
-		return response;
+		// send the report and get the response to the message
+		try {
+			return sendMessage.send(Config.getEnvironment(), User.getInstance(), file);
+		} finally {
+			Metrics.stop("dcf.sendMessage", start);
+		}
 	}
 
 	/**
@@ -330,6 +373,9 @@ public class ReportService implements IReportService {
 
 			response = this.send(file, messageConfig.getOpType());
 
+			// the datasets of the data collection are changed
+			dcfCache.invalidate(PropertiesReader.getDataCollectionCode(report.getYear()));
+
 			// Update the report
 			updateReportWithSendResponse(report, messageConfig.getOpType(), response);
 
@@ -423,7 +469,7 @@ public class ReportService implements IReportService {
 		}
 
 		// get state
-		DcfAck ack = getAck.getAck(Config.getEnvironment(), User.getInstance(), messageId);
+		DcfAck ack = dcfCache.getAck(messageId);
 
 		return ack;
 	}
@@ -438,20 +484,20 @@ public class ReportService implements IReportService {
 		if (detailedResId.isEmpty())
 			return null;
 
-		// get state
-		DcfAckDetailedResId ack = getAck.getAckDetailedResId(Config.getEnvironment(), User.getInstance(),
-				detailedResId);
+		long start = Metrics.start();
 
-		return ack;
+		// get state
+		try {
+			return getAck.getAckDetailedResId(Config.getEnvironment(), User.getInstance(), detailedResId);
+		} finally {
+			Metrics.stop("dcf.getAckDetailedResId", start);
+		}
 	}
 
 	@Override
 	public DatasetList getDatasetsOf(String senderDatasetId, String dcYear) throws DetailedSOAPException {
 
-		DatasetList output = new DatasetList();
-
-		getDatasetsList.getList(Config.getEnvironment(), User.getInstance(),
-				PropertiesReader.getDataCollectionCode(dcYear), output);
+		DatasetList output = dcfCache.getDatasetsList(PropertiesReader.getDataCollectionCode(dcYear));
 
 		return output.filterBySenderId(senderDatasetId);
 	}
@@ -500,13 +546,19 @@ public class ReportService implements IReportService {
 
 	@Override
 	public boolean isLocallyPresent(String senderDatasetId) {
-		for (TableRow row : daoService.getAll(TableSchemaList.getByName(AppPaths.REPORT_SHEET))) {
 
-			String otherSenderId = row.getLabel(AppPaths.REPORT_SENDER_ID);
+		TableQuery query = new TableQuery(TableSchemaList.getByName(AppPaths.REPORT_SHEET));
+
+		// read one report at a time, stopping at the first match
+		try (ITableCursor cursor = daoService.iterate(query);) {
+			while (cursor.hasNext()) {
 
-			// if same sender dataset id then return true
-			if (otherSenderId != null && otherSenderId.equals(senderDatasetId))
-				return true;
+				String otherSenderId = cursor.next().getLabel(AppPaths.REPORT_SENDER_ID);
+
+				// if same sender dataset id then return true
+				if (otherSenderId != null && otherSenderId.equals(senderDatasetId))
+					return true;
+			}
 		}
 
 		return false;
@@ -520,7 +572,14 @@ public class ReportService implements IReportService {
 			return new RCLError("WARN304");
 		}
 
-		Dataset oldReport = getDataset(report);
+		Dataset oldReport;
+		try {
+			oldReport = getDataset(report);
+		} catch (DcfOfflineException e) {
+			// without the datasets of the DCF a duplicated report could be created
+			LOGGER.warn("Cannot create the report=" + report.getSenderId(), e);
+			return new RCLError("ERR600");
+		}
 
 		// if the report already exists
 		// with the selected sender dataset id
@@ -646,13 +705,27 @@ public class ReportService implements IReportService {
 	}
 
 	/**
-	 * Refresh the status of a report
+	 * Refresh the status of a report, using the datasets list read by the
+	 * other refreshes until it expires
 	 * 
-	 * @param shell
 	 * @param report
-	 * @param listener
 	 */
 	public Message refreshStatus(Report report) {
+		return refreshStatus(report, false);
+	}
+
+	/**
+	 * Refresh the status of a report
+	 * 
+	 * @param report
+	 * @param reload true if requested by the user for the report, to read
+	 *               again the datasets list also if not expired
+	 */
+	public Message refreshStatus(Report report, boolean reload) {
+
+		// requested by the user, do not use an old datasets list
+		if (reload)
+			dcfCache.expire(PropertiesReader.getDataCollectionCode(report.getYear()));
 
 		DcfAck ack = null;
 		try {
@@ -661,6 +734,9 @@ public class ReportService implements IReportService {
 			LOGGER.error("Cannot get the ack for the report=" + report.getSenderId(), e);
 			e.printStackTrace();
 			return Warnings.createSOAPWarning(e);
+		} catch (DcfOfflineException e) {
+			LOGGER.warn("Cannot get the ack for the report=" + report.getSenderId(), e);
+			return Warnings.createOfflineWarning();
 		}
 
 		// if no ack return
@@ -768,6 +844,9 @@ public class ReportService implements IReportService {
 			LOGGER.error("Cannot get the dataset of the report=" + report.getSenderId(), e);
 			e.printStackTrace();
 			return Warnings.createSOAPWarning(e);
+		} catch (DcfOfflineException e) {
+			LOGGER.warn("Cannot get the dataset of the report=" + report.getSenderId(), e);
+			return Warnings.createOfflineWarning();
 		}
 
 		// if no dataset return error
@@ -878,8 +957,13 @@ public class ReportService implements IReportService {
 		// get the file using the detailed ack res id
 		File fileLog = null;
 		try {
-			fileLog = new GetFile().getFile(Config.getEnvironment(), User.getInstance(),
-					ack.getLog().getDetailedAckResId());
+			long start = Metrics.start();
+			try {
+				fileLog = new GetFile().getFile(Config.getEnvironment(), User.getInstance(),
+						ack.getLog().getDetailedAckResId());
+			} finally {
+				Metrics.stop("dcf.getFile", start);
+			}
 		} catch (SOAPException | IOException e1) {
 			LOGGER.error("Error in accessing file: ", e1);
 			// TODO Auto-generated catch block
@@ -932,6 +1016,9 @@ public class ReportService implements IReportService {
 				LOGGER.error("Cannot get ack for messageId=" + localMessageId, e);
 				e.printStackTrace();
 				return new DisplayAckResult(Warnings.createSOAPWarning(e));
+			} catch (DcfOfflineException e) {
+				LOGGER.warn("Cannot get ack for messageId=" + localMessageId, e);
+				return new DisplayAckResult(Warnings.createOfflineWarning());
 			} catch (TransformerException e) {
 				LOGGER.error("Cannot get ack for messageId=" + localMessageId, e);
 				e.printStackTrace();
@@ -948,6 +1035,9 @@ public class ReportService implements IReportService {
 			LOGGER.error("Cannot get dataset in GetDatasetList for datasetId=" + datasetId, e);
 			e.printStackTrace();
 			return new DisplayAckResult(Warnings.createSOAPWarning(e));
+		} catch (DcfOfflineException e) {
+			LOGGER.warn("Cannot get dataset in GetDatasetList for datasetId=" + datasetId, e);
+			return new DisplayAckResult(Warnings.createOfflineWarning());
 		}
 
 		// if no dataset return error
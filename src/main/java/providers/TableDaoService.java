@@ -1,6 +1,13 @@
 package providers;
 
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+import metrics.Metrics;
+import table_database.ITableCursor;
 import table_database.ITableDao;
+import table_database.TableQuery;
 import table_skeleton.TableRow;
 import table_skeleton.TableRowList;
 import xlsx_reader.TableSchema;
@@ -13,60 +20,191 @@ public class TableDaoService implements ITableDaoService {
 		this.dao = dao;
 	}
 	
+	/**
+	 * Get the table of a collection of rows, for the metrics
+	 * @param rows
+	 * @return
+	 */
+	private static String getTable(Collection<TableRow> rows) {
+		
+		if (rows.isEmpty())
+			return "empty";
+		
+		return rows.iterator().next().getSchema().getSheetName();
+	}
+	
 	@Override
 	public int add(TableRow row) {
-		int id = dao.add(row);
+		
+		long start = Metrics.start();
+		
+		int id;
+		try {
+			id = dao.add(row);
+		} finally {
+			Metrics.stop("dao.add", row.getSchema().getSheetName(), start);
+		}
+		
 		row.setId(id);
+		
 		return id;
 	}
 
+	@Override
+	public int[] addAll(Collection<TableRow> rows) {
+		
+		long start = Metrics.start();
+		
+		int[] ids;
+		try {
+			ids = dao.addAll(rows);
+		} finally {
+			Metrics.stop("dao.addAll", getTable(rows), start);
+		}
+		
+		if (ids == null)
+			return null;
+		
+		int i = 0;
+		for (TableRow row : rows)
+			row.setId(ids[i++]);
+		
+		return ids;
+	}
+
 	@Override
 	public boolean update(TableRow row) {
-		return dao.update(row);
+		long start = Metrics.start();
+		try {
+			return dao.update(row);
+		} finally {
+			Metrics.stop("dao.update", row.getSchema().getSheetName(), start);
+		}
 	}
 	
 	@Override
 	public TableRowList getAll(TableSchema schema) {
-		return dao.getAll(schema);
+		long start = Metrics.start();
+		try {
+			return dao.getAll(schema);
+		} finally {
+			Metrics.stop("dao.getAll", schema.getSheetName(), start);
+		}
+	}
+	
+	@Override
+	public void forEach(TableSchema schema, Consumer<TableRow> action) throws SQLException {
+		long start = Metrics.start();
+		try {
+			dao.forEach(schema, action);
+		} finally {
+			Metrics.stop("dao.forEach", schema.getSheetName(), start);
+		}
+	}
+
+	@Override
+	public void forEach(TableQuery query, Consumer<TableRow> action) throws SQLException {
+		long start = Metrics.start();
+		try {
+			dao.forEach(query, action);
+		} finally {
+			Metrics.stop("dao.forEach", query.getSchema().getSheetName(), start);
+		}
+	}
+
+	@Override
+	public ITableCursor iterate(TableQuery query) {
+		Metrics.increment("dao.iterate", query.getSchema().getSheetName());
+		return dao.iterate(query);
+	}
+
+	@Override
+	public TableRowList getPage(TableQuery query, int afterId) {
+		long start = Metrics.start();
+		try {
+			return dao.getPage(query, afterId);
+		} finally {
+			Metrics.stop("dao.getPage", query.getSchema().getSheetName(), start);
+		}
 	}
 
 	@Override
 	public TableRow getById(TableSchema schema, int id) {
-		return dao.getById(schema, id);
+		long start = Metrics.start();
+		try {
+			return dao.getById(schema, id);
+		} finally {
+			Metrics.stop("dao.getById", schema.getSheetName(), start);
+		}
 	}
 
 	@Override
 	public TableRowList getByParentId(TableSchema schema, String parentTable, int parentId, boolean solveFormulas) {
-		return dao.getByParentId(schema, parentTable, parentId, solveFormulas);
+		long start = Metrics.start();
+		try {
+			return dao.getByParentId(schema, parentTable, parentId, solveFormulas);
+		} finally {
+			Metrics.stop("dao.getByParentId", schema.getSheetName(), start);
+		}
 	}
 	
 	@Override
 	public TableRowList getByParentId(TableSchema schema, String parentTable, int parentId, boolean solveFormulas, String order) {
-		return dao.getByParentId(schema, parentTable, parentId, solveFormulas, order);
+		long start = Metrics.start();
+		try {
+			return dao.getByParentId(schema, parentTable, parentId, solveFormulas, order);
+		} finally {
+			Metrics.stop("dao.getByParentId", schema.getSheetName(), start);
+		}
 	}
 	
 	@Override
 	public TableRowList getByStringField(TableSchema schema, String fieldName, String value) {
-		return dao.getByStringField(schema, fieldName, value);
+		long start = Metrics.start();
+		try {
+			return dao.getByStringField(schema, fieldName, value);
+		} finally {
+			Metrics.stop("dao.getByStringField", schema.getSheetName(), start);
+		}
 	}
 	
 	@Override
 	public boolean delete(TableRowList list) {
-		return dao.delete(list);
+		long start = Metrics.start();
+		try {
+			return dao.delete(list);
+		} finally {
+			Metrics.stop("dao.delete", getTable(list), start);
+		}
 	}
 	
 	@Override
 	public boolean delete(TableSchema schema, int rowId) {
-		return dao.delete(schema, rowId);
+		long start = Metrics.start();
+		try {
+			return dao.delete(schema, rowId);
+		} finally {
+			Metrics.stop("dao.delete", schema.getSheetName(), start);
+		}
 	}
 	
 	@Override
 	public boolean deleteByParentId(TableSchema schema, String parentTable, int parentId) {
-		return dao.deleteByParentId(schema, parentTable, parentId);
+		long start = Metrics.start();
+		try {
+			return dao.deleteByParentId(schema, parentTable, parentId);
+		} finally {
+			Metrics.stop("dao.deleteByParentId", schema.getSheetName(), start);
+		}
 	}
 	
 	@Override
 	public boolean deleteByStringField(TableSchema schema, String fieldName, String value) {
-		return dao.deleteByStringField(schema, fieldName, value);
+		long start = Metrics.start();
+		try {
+			return dao.deleteByStringField(schema, fieldName, value);
+		} finally {
+			Metrics.stop("dao.deleteByStringField", schema.getSheetName(), start);
+		}
 	}
 }
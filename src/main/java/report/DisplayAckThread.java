@@ -1,9 +1,18 @@
 package report;
 
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
 import providers.IReportService;
+import task_manager.TaskManager;
 
 public class DisplayAckThread extends Thread {
 	
+	private static final Logger LOGGER = LogManager.getLogger(DisplayAckThread.class);
+	
 	private DisplayAckResult result;
 	private EFSAReport report;
 	private IReportService reportService;
@@ -14,6 +23,15 @@ public class DisplayAckThread extends Thread {
 		this.reportService = reportService;
 	}
 	
+	/**
+	 * Run the task in the {@link TaskManager#REMOTE_POOL}, as
+	 * {@link #submit()}
+	 */
+	@Override
+	public synchronized void start() {
+		submit();
+	}
+	
 	@Override
 	public void run() {
 		
@@ -27,6 +45,24 @@ public class DisplayAckThread extends Thread {
 		this.listener = listener;
 	}
 	
+	/**
+	 * Run the task in the {@link TaskManager#REMOTE_POOL} instead of
+	 * starting a new thread. If the pool is full, the listener is notified
+	 * with {@link ThreadFinishedListener#terminated(Runnable, Exception)}
+	 * @return future which can be used to wait or cancel the task, null if
+	 * the task was rejected
+	 */
+	public Future<?> submit() {
+		try {
+			return TaskManager.getInstance().getRemotePool().submit(this);
+		} catch (RejectedExecutionException e) {
+			LOGGER.error("Cannot display the ack of report=" + report.getSenderId(), e);
+			if (listener != null)
+				listener.terminated(this, e);
+			return null;
+		}
+	}
+	
 	public DisplayAckResult getDisplayAckResult() {
 		return result;
 	}
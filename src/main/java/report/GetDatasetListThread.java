@@ -1,5 +1,8 @@
 package report;
 
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -8,6 +11,7 @@ import dataset.DatasetList;
 import dataset.IDataset;
 import soap.DetailedSOAPException;
 import soap.GetDatasetsList;
+import task_manager.TaskManager;
 import user.IDcfUser;
 
 public class GetDatasetListThread extends Thread {
@@ -25,6 +29,24 @@ public class GetDatasetListThread extends Thread {
 		this.dcCode = dcCode;
 	}
 	
+	/**
+	 * Run the task in the {@link TaskManager#REMOTE_POOL} instead of
+	 * starting a new thread. If the pool is full, the listener is notified
+	 * with {@link ThreadFinishedListener#terminated(Runnable, Exception)}
+	 * @return future which can be used to wait or cancel the task, null if
+	 * the task was rejected
+	 */
+	public Future<?> submit() {
+		try {
+			return TaskManager.getInstance().getRemotePool().submit(this);
+		} catch (RejectedExecutionException e) {
+			LOGGER.error("Cannot get the datasets list of data collection=" + dcCode, e);
+			if (listener != null)
+				listener.terminated(this, e);
+			return null;
+		}
+	}
+	
 	@Override
 	public void run() {
 		try {
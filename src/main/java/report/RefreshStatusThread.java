@@ -1,28 +1,86 @@
 package report;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
 import global_utils.Message;
 import providers.IReportService;
+import task_manager.TaskManager;
 
 public class RefreshStatusThread extends Thread {
 
+	private static final Logger LOGGER = LogManager.getLogger(RefreshStatusThread.class);
+
 	private IReportService reportService;
 	private ThreadFinishedListener listener;
 	private Report report;
+	private boolean reload;
 	private Message result;
 	
+	/**
+	 * Refresh requested by the user for a single report, the datasets
+	 * list is read again from the DCF
+	 * @param report
+	 * @param reportService
+	 */
 	public RefreshStatusThread(Report report, IReportService reportService) {
+		this(report, reportService, true);
+	}
+	
+	/**
+	 * @param report
+	 * @param reportService
+	 * @param reload true to read the datasets list again also if not expired,
+	 * see {@link IReportService#refreshStatus(Report, boolean)}
+	 */
+	public RefreshStatusThread(Report report, IReportService reportService, boolean reload) {
 		this.report = report;
 		this.reportService = reportService;
+		this.reload = reload;
 	}
 	
 	public void setListener(ThreadFinishedListener listener) {
 		this.listener = listener;
 	}
 	
+	/**
+	 * Run the refresh in the {@link TaskManager#REMOTE_POOL} instead of
+	 * starting a new thread. If the pool is full, the listener is notified
+	 * with {@link ThreadFinishedListener#terminated(Runnable, Exception)}
+	 * @return future which can be used to wait or cancel the task, null if
+	 * the task was rejected
+	 */
+	public Future<?> submit() {
+		try {
+			return TaskManager.getInstance().getRemotePool().submit(this);
+		} catch (RejectedExecutionException e) {
+			LOGGER.error("Cannot refresh the status of report=" + report.getSenderId(), e);
+			if (listener != null)
+				listener.terminated(this, e);
+			return null;
+		}
+	}
+	
+	/**
+	 * Run the refresh in the {@link TaskManager#REMOTE_POOL}, as
+	 * {@link #submit()}
+	 */
+	@Override
+	public synchronized void start() {
+		submit();
+	}
+	
 	@Override
 	public void run() {
 		
-		result = reportService.refreshStatus(report);
+		result = reportService.refreshStatus(report, reload);
 		
 		if (listener != null)
 			listener.finished(this);
@@ -31,4 +89,60 @@ public class RefreshStatusThread extends Thread {
 	public Message getLog() {
 		return result;
 	}
+	
+	/**
+	 * Refresh the status of several reports concurrently, using at most the
+	 * threads of the {@link TaskManager#REMOTE_POOL}. The datasets list is
+	 * read once for all the reports, until it expires. The refreshes are
+	 * submitted from a task of the {@link TaskManager#REPORT_POOL}, so that
+	 * waiting for a free place in the remote pool never blocks the caller
+	 * @param reports
+	 * @param reportService
+	 * @param listener notified for each report
+	 * @return future which ends when all the reports are refreshed, cancelling
+	 * it cancels the refreshes not yet finished
+	 * @throws RejectedExecutionException if the report pool is full
+	 */
+	public static Future<?> refreshAll(Collection<? extends Report> reports, IReportService reportService,
+			ThreadFinishedListener listener) {
+		
+		List<Report> copy = new ArrayList<>(reports);
+		
+		return TaskManager.getInstance().getReportPool().submit(() -> {
+			
+			List<Future<?>> futures = new ArrayList<>();
+			
+			try {
+				for (Report report : copy) {
+					
+					if (Thread.currentThread().isInterrupted())
+						throw new InterruptedException();
+					
+					RefreshStatusThread refresh = new RefreshStatusThread(report, reportService, false);
+					refresh.setListener(listener);
+					
+					Future<?> future = refresh.submit();
+					if (future != null)
+						futures.add(future);
+				}
+				
+				for (Future<?> future : futures) {
+					try {
+						future.get();
+					} catch (ExecutionException e) {
+						// already logged by the pool
+					}
+				}
+				
+			} catch (InterruptedException e) {
+				
+				LOGGER.info("Refresh of " + copy.size() + " reports cancelled");
+				
+				for (Future<?> future : futures)
+					future.cancel(true);
+				
+				Thread.currentThread().interrupt();
+			}
+		});
+	}
 }
@@ -19,6 +19,7 @@ import message.SendMessageException;
 import message_creator.OperationType;
 import progress_bar.FormProgressBar;
 import progress_bar.ProgressListener;
+import providers.DcfOfflineException;
 import providers.IReportService;
 import soap.DetailedSOAPException;
 
@@ -131,7 +132,7 @@ public abstract class ReportActions {
 		Dataset dataset;
 		try {
 			dataset = reportService.getDataset(report);
-		} catch (DetailedSOAPException e) {
+		} catch (DetailedSOAPException | DcfOfflineException e) {
 			LOGGER.error("Cannot send report=" + report.getSenderId(), e);
 			e.printStackTrace();
 			shell.setCursor(shell.getDisplay().getSystemCursor(SWT.CURSOR_ARROW));
@@ -209,7 +210,7 @@ public abstract class ReportActions {
 			}
 		});
 
-		sender.start();
+		sender.submit();
 	}
 
 	/**
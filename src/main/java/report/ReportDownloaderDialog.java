@@ -204,7 +204,7 @@ public abstract class ReportDownloaderDialog {
 					}
 				});
 				
-				thread.start();
+				thread.submit();
 			}
 
 			@Override
@@ -264,7 +264,7 @@ public abstract class ReportDownloaderDialog {
 				});
 			}
 		});
-		thread.start();
+		thread.submit();
 	}
 	
 	public DatasetList getAllVersions() {
@@ -1,6 +1,8 @@
 package report;
 
 import java.io.IOException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 
 import javax.xml.parsers.ParserConfigurationException;
 
@@ -15,6 +17,7 @@ import message.SendMessageException;
 import progress_bar.ProgressListener;
 import providers.IReportService;
 import soap.DetailedSOAPException;
+import task_manager.TaskManager;
 
 public class ReportExportAndSendThread extends Thread {
 
@@ -39,6 +42,24 @@ public class ReportExportAndSendThread extends Thread {
 		this.progressListener = progressListener;
 	}
 
+	/**
+	 * Run the task in the {@link TaskManager#REPORT_POOL} instead of starting
+	 * a new thread. If the pool is full, the progress listener is notified with
+	 * {@link ProgressListener#progressStopped(Exception)}
+	 * @return future which can be used to wait or cancel the task, null if
+	 * the task was rejected
+	 */
+	public Future<?> submit() {
+		try {
+			return TaskManager.getInstance().getReportPool().submit(this);
+		} catch (RejectedExecutionException e) {
+			LOGGER.error("Cannot send report=" + report.getSenderId(), e);
+			if (progressListener != null)
+				this.progressListener.progressStopped(e);
+			return null;
+		}
+	}
+
 	@Override
 	public void run() {
 
@@ -1,10 +1,14 @@
 package report;
 
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import amend_manager.ReportImporter;
 import progress_bar.ProgressListener;
+import task_manager.TaskManager;
 
 /**
  * Thread to import a report
@@ -27,6 +31,24 @@ public class ReportImporterThread extends Thread {
 		this.importer.setProgressListener(progressListener);
 	}
 	
+	/**
+	 * Run the import in the {@link TaskManager#REPORT_POOL} instead of
+	 * starting a new thread. If the pool is full, the progress listener is
+	 * notified with {@link ProgressListener#progressStopped(Exception)}
+	 * @return future which can be used to wait or cancel the task, null if
+	 * the task was rejected
+	 */
+	public Future<?> submit() {
+		try {
+			return TaskManager.getInstance().getReportPool().submit(this);
+		} catch (RejectedExecutionException e) {
+			LOGGER.error("Cannot import report", e);
+			if (progressListener != null)
+				this.progressListener.progressStopped(e);
+			return null;
+		}
+	}
+	
 	@Override
 	public void run() {
 		
@@ -0,0 +1,384 @@
+package table_database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Bounded and thread-safe pool of connections to the embedded database.
+ * Connections are opened lazily up to {@link #getMaxSize()} and are
+ * validated each time they are borrowed. The connections returned by
+ * {@link #borrow()} are proxies: calling {@link Connection#close()} gives the
+ * physical connection back to the pool instead of closing it, therefore the
+ * usual try-with-resources blocks can be used as before.
+ *
+ * Each connection can also keep its prepared statements open, see
+ * {@link StatementCache}.
+ *
+ */
+public class ConnectionPool {
+
+	private static final Logger LOGGER = LogManager.getLogger(ConnectionPool.class);
+
+	// seconds given to the driver to validate a connection
+	private static final int VALIDATION_TIMEOUT = 2;
+
+	private final String url;
+	private final int maxSize;
+	private final long borrowTimeout;
+	private final int statementCacheSize;
+
+	private final Semaphore permits;
+	private final BlockingDeque<PooledConnection> idle;
+
+	// connections borrowed before the last drain are closed when returned
+	private final AtomicInteger generation;
+
+	// statistics
+	private final AtomicInteger active;
+	private final AtomicLong borrowCount;
+	private final AtomicLong totalWaitNanos;
+	private final AtomicLong maxWaitNanos;
+	private final AtomicLong createdCount;
+	private final AtomicLong discardedCount;
+	private final AtomicLong timeoutCount;
+
+	/**
+	 * Create a new pool
+	 *
+	 * @param url           jdbc url used to open the physical connections
+	 * @param maxSize       maximum number of connections which can be open at
+	 *                      the same time
+	 * @param borrowTimeout maximum time in milliseconds that a thread waits for
+	 *                      a free connection before failing
+	 */
+	public ConnectionPool(String url, int maxSize, long borrowTimeout) {
+		this(url, maxSize, borrowTimeout, 0);
+	}
+
+	/**
+	 * Create a new pool which caches the prepared statements of each connection
+	 *
+	 * @param url                jdbc url used to open the physical connections
+	 * @param maxSize            maximum number of connections which can be open
+	 *                           at the same time
+	 * @param borrowTimeout      maximum time in milliseconds that a thread waits
+	 *                           for a free connection before failing
+	 * @param statementCacheSize maximum number of prepared statements kept open
+	 *                           for each connection, 0 to disable the cache
+	 */
+	public ConnectionPool(String url, int maxSize, long borrowTimeout, int statementCacheSize) {
+
+		if (maxSize <= 0)
+			throw new IllegalArgumentException("The pool size must be positive, found=" + maxSize);
+
+		this.url = url;
+		this.maxSize = maxSize;
+		this.borrowTimeout = borrowTimeout;
+		this.statementCacheSize = statementCacheSize;
+
+		this.permits = new Semaphore(maxSize, true);
+		this.idle = new LinkedBlockingDeque<>();
+		this.generation = new AtomicInteger();
+
+		this.active = new AtomicInteger();
+		this.borrowCount = new AtomicLong();
+		this.totalWaitNanos = new AtomicLong();
+		this.maxWaitNanos = new AtomicLong();
+		this.createdCount = new AtomicLong();
+		this.discardedCount = new AtomicLong();
+		this.timeoutCount = new AtomicLong();
+	}
+
+	/**
+	 * Borrow a connection from the pool. The caller must close it to give it
+	 * back.
+	 *
+	 * @return
+	 * @throws SQLException if no connection is available within the borrow
+	 *                      timeout or if a new connection cannot be opened
+	 */
+	public Connection borrow() throws SQLException {
+
+		long start = System.nanoTime();
+
+		try {
+			if (!permits.tryAcquire(borrowTimeout, TimeUnit.MILLISECONDS)) {
+				timeoutCount.incrementAndGet();
+				throw new SQLException("No database connection available after " + borrowTimeout
+						+ "ms. Active connections=" + active.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for a database connection", e);
+		}
+
+		long wait = System.nanoTime() - start;
+		borrowCount.incrementAndGet();
+		totalWaitNanos.addAndGet(wait);
+		maxWaitNanos.accumulateAndGet(wait, Math::max);
+
+		try {
+
+			PooledConnection pooled = takeValidIdle();
+
+			if (pooled == null)
+				pooled = open();
+
+			active.incrementAndGet();
+
+			return pooled.lease();
+
+		} catch (SQLException | RuntimeException e) {
+			permits.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * Get the first idle connection which is still valid, discarding the
+	 * broken ones
+	 *
+	 * @return the connection or null if no idle connection is available
+	 */
+	private PooledConnection takeValidIdle() {
+
+		PooledConnection pooled;
+		while ((pooled = idle.pollFirst()) != null) {
+
+			if (pooled.isValid())
+				return pooled;
+
+			LOGGER.warn("Discarding invalid pooled database connection");
+			discard(pooled);
+		}
+
+		return null;
+	}
+
+	/**
+	 * Open a new physical connection
+	 *
+	 * @return
+	 * @throws SQLException
+	 */
+	private PooledConnection open() throws SQLException {
+		Connection physical = DriverManager.getConnection(url);
+		createdCount.incrementAndGet();
+		LOGGER.debug("Opened new pooled database connection, total created=" + createdCount.get());
+		return new PooledConnection(physical, generation.get());
+	}
+
+	/**
+	 * Give back a connection to the pool. Pending transactions are rolled back
+	 * and the auto commit is restored, so that the next borrower always
+	 * receives a clean connection.
+	 *
+	 * @param pooled
+	 */
+	private void giveBack(PooledConnection pooled) {
+
+		active.decrementAndGet();
+
+		try {
+
+			Connection physical = pooled.physical;
+
+			if (!physical.getAutoCommit()) {
+				physical.rollback();
+				physical.setAutoCommit(true);
+			}
+
+			physical.clearWarnings();
+
+			// the pool was drained while the connection was in use
+			if (pooled.generation != generation.get())
+				discard(pooled);
+			else
+				idle.offerFirst(pooled);
+
+		} catch (SQLException e) {
+			LOGGER.warn("Cannot reset pooled database connection, discarding it", e);
+			discard(pooled);
+		} finally {
+			permits.release();
+		}
+	}
+
+	/**
+	 * Close a physical connection without giving it back to the pool,
+	 * together with its cached statements
+	 *
+	 * @param pooled
+	 */
+	private void discard(PooledConnection pooled) {
+
+		discardedCount.incrementAndGet();
+
+		if (pooled.statements != null)
+			pooled.statements.clear();
+
+		try {
+			pooled.physical.close();
+		} catch (SQLException e) {
+			LOGGER.debug("Error in closing discarded database connection", e);
+		}
+	}
+
+	/**
+	 * Close all the idle connections. Connections which are currently in use
+	 * will be closed as soon as they are given back. The pool can still be
+	 * used after draining, new connections will be opened when needed.
+	 */
+	public void drain() {
+
+		generation.incrementAndGet();
+
+		int count = 0;
+		PooledConnection pooled;
+		while ((pooled = idle.pollFirst()) != null) {
+			discard(pooled);
+			count++;
+		}
+
+		LOGGER.info("Database connection pool drained, closed=" + count + " still active=" + active.get());
+	}
+
+	/**
+	 * Get the maximum number of connections of the pool
+	 *
+	 * @return
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Get a snapshot of the pool statistics
+	 *
+	 * @return
+	 */
+	public PoolStatistics getStatistics() {
+		return new PoolStatistics(maxSize, active.get(), idle.size(), borrowCount.get(), totalWaitNanos.get(),
+				maxWaitNanos.get(), createdCount.get(), discardedCount.get(), timeoutCount.get());
+	}
+
+	/**
+	 * Physical connection owned by the pool
+	 *
+	 */
+	private class PooledConnection {
+
+		private final Connection physical;
+		private final int generation;
+		private final StatementCache statements; // null if disabled
+
+		PooledConnection(Connection physical, int generation) {
+			this.physical = physical;
+			this.generation = generation;
+			this.statements = statementCacheSize > 0 ? new StatementCache(physical, statementCacheSize) : null;
+		}
+
+		boolean isValid() {
+			try {
+				return !physical.isClosed() && physical.isValid(VALIDATION_TIMEOUT);
+			} catch (SQLException e) {
+				return false;
+			}
+		}
+
+		/**
+		 * Wrap the physical connection into a proxy which can be closed only
+		 * once by the borrower
+		 *
+		 * @return
+		 */
+		Connection lease() {
+			return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+					new Class<?>[] { Connection.class }, new LeaseHandler(this));
+		}
+	}
+
+	/**
+	 * Forwards all the calls to the physical connection, except for the close
+	 * which gives back the connection to the pool
+	 *
+	 */
+	private class LeaseHandler implements InvocationHandler {
+
+		private final PooledConnection pooled;
+		private boolean closed;
+
+		LeaseHandler(PooledConnection pooled) {
+			this.pooled = pooled;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+			switch (method.getName()) {
+			case "close":
+				if (!closed) {
+					closed = true;
+					giveBack(pooled);
+				}
+				return null;
+			case "isClosed":
+				return closed || pooled.physical.isClosed();
+			case "equals":
+				return proxy == args[0];
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "toString":
+				return "PooledConnection[" + pooled.physical + (closed ? ", closed]" : "]");
+			default:
+				break;
+			}
+
+			if (closed)
+				throw new SQLException("The connection was already given back to the pool");
+
+			if (isCacheable(method, args))
+				return pooled.statements.prepare((Connection) proxy, (String) args[0],
+						args.length == 1 ? Statement.NO_GENERATED_KEYS : (Integer) args[1]);
+
+			try {
+				return method.invoke(pooled.physical, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+
+		/**
+		 * Only prepareStatement(sql) and prepareStatement(sql, autoGeneratedKeys)
+		 * use the statement cache
+		 *
+		 * @param method
+		 * @param args
+		 * @return
+		 */
+		private boolean isCacheable(Method method, Object[] args) {
+
+			if (pooled.statements == null || !method.getName().equals("prepareStatement"))
+				return false;
+
+			Class<?>[] types = method.getParameterTypes();
+
+			return types.length == 1 || (types.length == 2 && types[1] == int.class);
+		}
+	}
+}
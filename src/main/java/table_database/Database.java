@@ -34,6 +34,9 @@ public class Database {
 
 	private IDatabaseBuilder dbBuilder;
 
+	// connection pool, created when the first connection is requested
+	private static volatile ConnectionPool pool;
+
 	public Database(IDatabaseBuilder dbBuilder) {
 		this.dbBuilder = dbBuilder;
 	}
@@ -244,7 +247,8 @@ public class Database {
 	}
 
 	/**
-	 * Shutdown the database
+	 * Shutdown the database. All the pooled connections are closed before
+	 * stopping the embedded engine.
 	 * 
 	 * @throws SQLException
 	 */
@@ -252,6 +256,10 @@ public class Database {
 
 		LOGGER.info("Shutting down database");
 
+		LOGGER.info("Connection pool statistics: " + getPoolStatistics());
+
+		getPool().drain();
+
 		try {
 			DriverManager.getConnection(CLOSE_DB_URL);
 		} catch (SQLException e) {
@@ -261,13 +269,61 @@ public class Database {
 	}
 
 	/**
-	 * Get the connection with the database
+	 * Get the connection with the database. The connection is borrowed from
+	 * the pool, closing it gives it back to the pool.
 	 * 
 	 * @return
 	 * @throws SQLException
 	 */
 	public static Connection getConnection() throws SQLException {
-		Connection con = DriverManager.getConnection(DB_URL);
-		return con;
+		return getPool().borrow();
+	}
+
+	/**
+	 * Get the current statistics of the connection pool
+	 * 
+	 * @return
+	 */
+	public static PoolStatistics getPoolStatistics() {
+		return getPool().getStatistics();
+	}
+
+	/**
+	 * Get the connection pool, creating it with the configuration the first
+	 * time
+	 * 
+	 * @return
+	 */
+	private static ConnectionPool getPool() {
+
+		ConnectionPool current = pool;
+
+		if (current == null) {
+			synchronized (Database.class) {
+
+				current = pool;
+
+				if (current == null) {
+					current = new ConnectionPool(DB_URL, PropertiesReader.getDbPoolSize(),
+							PropertiesReader.getDbPoolBorrowTimeout(), PropertiesReader.getDbStatementCacheSize());
+					pool = current;
+				}
+			}
+		}
+
+		return current;
+	}
+
+	/**
+	 * Replace the connection pool, as with an in-memory database in the tests.
+	 * The previous pool is not drained.
+	 * 
+	 * @param newPool
+	 * @return the previous pool, null if it was not created yet
+	 */
+	static synchronized ConnectionPool setPool(ConnectionPool newPool) {
+		ConnectionPool previous = pool;
+		pool = newPool;
+		return previous;
 	}
 }
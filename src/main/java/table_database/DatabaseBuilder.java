@@ -2,11 +2,18 @@ package table_database;
 
 import java.io.IOException;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.Date;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -31,6 +38,15 @@ public class DatabaseBuilder implements IDatabaseBuilder {
 	private static final Logger LOGGER = LogManager.getLogger(DatabaseBuilder.class);
 
 	private static final String DB_URL = "jdbc:derby:" + AppPaths.DB_FOLDER + ";create=true";
+	
+	private static final String TEMP_COLUMN_SUFFIX = "_NEW";
+	private static final int STORAGE_BATCH_SIZE = 500;
+
+	/**
+	 * Table which keeps the values that could not be converted when the
+	 * storage of a column was changed
+	 */
+	static final String STORAGE_BACKUP_TABLE = "STORAGE_BACKUP";
 
 	/**
 	 * Create the application database in the defined path
@@ -166,6 +182,298 @@ public class DatabaseBuilder implements IDatabaseBuilder {
 		return key;
 	}
 
+	/**
+	 * Get an index of a table using its name
+	 * 
+	 * @param tableName
+	 * @param indexName
+	 * @return the index or null if not present
+	 * @throws SQLException
+	 */
+	public TableIndex getIndexByName(String tableName, String indexName) throws SQLException {
+
+		// ordinal position => column name
+		TreeMap<Integer, String> columns = new TreeMap<>();
+
+		try (Connection con = DriverManager.getConnection(DB_URL);
+				ResultSet rs = con.getMetaData().getIndexInfo("", "APP", tableName.toUpperCase(), false, true)) {
+
+			while (rs.next()) {
+
+				String name = rs.getString("INDEX_NAME");
+
+				if (name != null && name.equalsIgnoreCase(indexName))
+					columns.put(rs.getInt("ORDINAL_POSITION"), rs.getString("COLUMN_NAME"));
+			}
+		}
+
+		if (columns.isEmpty())
+			return null;
+
+		return new TableIndex(tableName, indexName, new ArrayList<>(columns.values()));
+	}
+
+	/**
+	 * Get all the indexes of the tables, using a single connection
+	 * 
+	 * @param tableNames
+	 * @return the indexes
+	 * @throws SQLException
+	 */
+	public Collection<TableIndex> getIndexes(Collection<String> tableNames) throws SQLException {
+
+		Collection<TableIndex> indexes = new ArrayList<>();
+
+		try (Connection con = DriverManager.getConnection(DB_URL);) {
+
+			DatabaseMetaData metaData = con.getMetaData();
+
+			for (String tableName : tableNames) {
+
+				// index name => ordinal position => column name
+				Map<String, TreeMap<Integer, String>> columns = new LinkedHashMap<>();
+
+				try (ResultSet rs = metaData.getIndexInfo("", "APP", tableName.toUpperCase(), false, true)) {
+
+					while (rs.next()) {
+
+						String name = rs.getString("INDEX_NAME");
+
+						if (name != null)
+							columns.computeIfAbsent(name, key -> new TreeMap<>()).put(rs.getInt("ORDINAL_POSITION"),
+									rs.getString("COLUMN_NAME"));
+					}
+				}
+
+				for (Map.Entry<String, TreeMap<Integer, String>> index : columns.entrySet())
+					indexes.add(new TableIndex(tableName, index.getKey(), new ArrayList<>(index.getValue().values())));
+			}
+		}
+
+		return indexes;
+	}
+
+	/**
+	 * Create a secondary index in the database
+	 * 
+	 * @param index
+	 * @throws IOException
+	 * @throws SQLException
+	 */
+	public void addIndex(TableIndex index) throws IOException, SQLException {
+
+		DatabaseStructureCreator creator = new DatabaseStructureCreator();
+
+		String query = creator.getCreateIndexQuery(index);
+
+		try (Connection con = DriverManager.getConnection(DB_URL); SQLExecutor executor = new SQLExecutor(con);) {
+			executor.exec(query);
+		}
+		LOGGER.debug("Adding index " + index + " completed");
+	}
+
+	/**
+	 * Remove a secondary index from the database
+	 * 
+	 * @param index
+	 * @throws IOException
+	 * @throws SQLException
+	 */
+	public void removeIndex(TableIndex index) throws IOException, SQLException {
+
+		DatabaseStructureCreator creator = new DatabaseStructureCreator();
+
+		String query = creator.getDropIndexQuery(index);
+
+		try (Connection con = DriverManager.getConnection(DB_URL); SQLExecutor executor = new SQLExecutor(con);) {
+			executor.exec(query);
+		}
+		LOGGER.debug("Removing index " + index + " completed");
+	}
+
+	/**
+	 * Change the sql type of an existing column. A new column is created with
+	 * the new type, the values are copied and converted, then the old column is
+	 * dropped and the new one renamed. The values which cannot be stored with
+	 * the new type (not convertible or, for text, too long) are copied in the
+	 * {@link #STORAGE_BACKUP_TABLE} table, with the id of their row, and set to
+	 * null. Everything is done in a single transaction, therefore if the
+	 * conversion fails the column is left unchanged and nothing is backed up.
+	 * 
+	 * @param schema
+	 * @param oldColumn
+	 * @param newColumn
+	 * @return true if the column was converted
+	 * @throws SQLException
+	 */
+	public boolean changeColumnStorage(TableSchema schema, TableColumn oldColumn, TableColumn newColumn)
+			throws SQLException {
+
+		try (Connection con = DriverManager.getConnection(DB_URL);) {
+			return changeColumnStorage(con, schema, oldColumn, newColumn);
+		}
+	}
+
+	/**
+	 * Change the sql type of an existing column using the {@code con}
+	 * connection, see {@link #changeColumnStorage(TableSchema, TableColumn, TableColumn)}
+	 * 
+	 * @param con
+	 * @param schema
+	 * @param oldColumn
+	 * @param newColumn
+	 * @return true if the column was converted
+	 * @throws SQLException
+	 */
+	static boolean changeColumnStorage(Connection con, TableSchema schema, TableColumn oldColumn,
+			TableColumn newColumn) throws SQLException {
+
+		String table = "APP." + schema.getSheetName();
+		String idField = schema.getTableIdField();
+		String column = newColumn.getId();
+		String tempColumn = column + TEMP_COLUMN_SUFFIX;
+
+		StorageType oldType = oldColumn.getStorageType();
+		StorageType newType = newColumn.getStorageType();
+
+		con.setAutoCommit(false);
+
+		try (Statement stmt = con.createStatement();) {
+
+			if (!existsTable(con, STORAGE_BACKUP_TABLE))
+				stmt.executeUpdate(getCreateStorageBackupQuery());
+
+			stmt.executeUpdate("alter table " + table + " add column " + tempColumn + " " + newType.getSqlType());
+
+			String select = "select " + idField + ", " + column + " from " + table;
+			String update = "update " + table + " set " + tempColumn + " = ? where " + idField + " = ?";
+			String backup = "insert into APP." + STORAGE_BACKUP_TABLE
+					+ " (TABLE_NAME, COLUMN_NAME, ROW_ID, OLD_STORAGE, NEW_STORAGE, VAR_VALUE, BACKUP_DATE)"
+					+ " values (?, ?, ?, ?, ?, ?, current_timestamp)";
+
+			int backedUp = 0;
+
+			try (ResultSet rs = stmt.executeQuery(select);
+					PreparedStatement updateStmt = con.prepareStatement(update);
+					PreparedStatement backupStmt = con.prepareStatement(backup);) {
+
+				int count = 0;
+				while (rs.next()) {
+
+					String value = oldType.read(rs, column);
+
+					// already null
+					if (value == null)
+						continue;
+
+					int rowId = rs.getInt(idField);
+
+					// keep the value in the backup table, the column is set to null
+					if (!canStore(newType, value)) {
+
+						LOGGER.warn("Cannot store value=" + value + " of column " + column + " of table " + table
+								+ " with " + idField + "=" + rowId + " as " + newType + ". It is moved to the "
+								+ STORAGE_BACKUP_TABLE + " table");
+
+						backupStmt.setString(1, schema.getSheetName());
+						backupStmt.setString(2, column);
+						backupStmt.setInt(3, rowId);
+						backupStmt.setString(4, oldType.getHeaderName());
+						backupStmt.setString(5, newType.getHeaderName());
+						backupStmt.setString(6, value);
+						backupStmt.addBatch();
+
+						backedUp++;
+						continue;
+					}
+
+					newType.bind(updateStmt, 1, value);
+					updateStmt.setInt(2, rowId);
+					updateStmt.addBatch();
+
+					if (++count % STORAGE_BATCH_SIZE == 0)
+						updateStmt.executeBatch();
+				}
+
+				updateStmt.executeBatch();
+				backupStmt.executeBatch();
+			}
+
+			stmt.executeUpdate("alter table " + table + " drop column " + column);
+			stmt.executeUpdate("rename column " + table + "." + tempColumn + " to " + column);
+
+			con.commit();
+
+			if (backedUp > 0)
+				LOGGER.warn(backedUp + " values of column " + column + " of table " + table
+						+ " could not be stored as " + newType + " and were moved to the " + STORAGE_BACKUP_TABLE
+						+ " table");
+
+		} catch (SQLException e) {
+
+			con.rollback();
+
+			LOGGER.error("Cannot change the storage of column " + column + " of table " + table + " from "
+					+ oldType + " to " + newType + ". The column is left unchanged", e);
+			e.printStackTrace();
+
+			return false;
+		}
+
+		LOGGER.debug("Changing storage of column " + column + " to " + newType + " completed");
+
+		return true;
+	}
+
+	/**
+	 * Check if a value can be stored in a column of type {@code type}. Unlike
+	 * {@link StorageType#accepts(String)}, the length of the text is checked,
+	 * since the value may come from a wider column.
+	 * 
+	 * @param type
+	 * @param value
+	 * @return
+	 */
+	private static boolean canStore(StorageType type, String value) {
+
+		if (type.isText())
+			return value.length() <= type.getWidth();
+
+		return type.accepts(value);
+	}
+
+	/**
+	 * Check if a table exists in the APP schema
+	 * 
+	 * @param con
+	 * @param tableName
+	 * @return
+	 * @throws SQLException
+	 */
+	private static boolean existsTable(Connection con, String tableName) throws SQLException {
+
+		try (ResultSet rs = con.getMetaData().getTables(null, "APP", tableName.toUpperCase(),
+				new String[] { "TABLE" })) {
+			return rs.next();
+		}
+	}
+
+	/**
+	 * Get the query which creates the {@link #STORAGE_BACKUP_TABLE} table
+	 * 
+	 * @return
+	 */
+	private static String getCreateStorageBackupQuery() {
+		return "create table APP." + STORAGE_BACKUP_TABLE + " ("
+				+ "TABLE_NAME varchar(128) not null, "
+				+ "COLUMN_NAME varchar(128) not null, "
+				+ "ROW_ID integer not null, "
+				+ "OLD_STORAGE varchar(20), "
+				+ "NEW_STORAGE varchar(20), "
+				+ "VAR_VALUE " + StorageType.LONG_TEXT.getSqlType() + ", "
+				+ "BACKUP_DATE timestamp)";
+	}
+
 	/**
 	 * Add basic information to the database
 	 * 
@@ -2,8 +2,13 @@ package table_database;
 
 import java.io.IOException;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import java.util.ListIterator;
 
+import app_config.AppPaths;
 import table_skeleton.TableColumn;
 import table_skeleton.TableColumn.ColumnType;
 import xlsx_reader.TableSchema;
@@ -19,6 +24,14 @@ import xlsx_reader.TableSchemaList;
 public class DatabaseStructureCreator {
 
 	public static final String DB_INFO_TABLE = "APP.DB_INFO";
+	public static final String DATASET_COMPARISON_TABLE = "DATASET_COMPARISON";
+	
+	private static final String INDEX_PREFIX = "IDX_";
+	private static final String NATURAL_KEY_INDEX_SUFFIX = "_NK";
+	
+	// a key of a derby index must fit in half of a page (4096 bytes by
+	// default), therefore the declared width of the indexed columns is limited
+	private static final int MAX_INDEX_KEY_WIDTH = StorageType.TEXT.getWidth();
 	
 	/**
 	 * Get a complete query to generate the database
@@ -42,6 +55,15 @@ public class DatabaseStructureCreator {
 		for (TableSchema table : tables)
 			query.append("\n" + getIntegrityConstraintsQuery(table));
 		
+		// add the secondary indexes
+		for (TableSchema table : tables) {
+			for (TableIndex index : getIndexes(table))
+				query.append(getCreateIndexQuery(index));
+		}
+		
+		for (TableIndex index : getDatasetComparisonIndexes())
+			query.append(getCreateIndexQuery(index));
+		
 		return query.toString();
 	}
 	
@@ -55,7 +77,8 @@ public class DatabaseStructureCreator {
 
 		// cannot say not null, since if other rows are already inserted 
 		// they will get null as value and thus throwing an error
-		String colType = column.getType() == ColumnType.FOREIGNKEY ? "integer" : "varchar(1000)";
+		String colType = column.getType() == ColumnType.FOREIGNKEY ? "integer" 
+				: column.getStorageType().getSqlType();
 		
 		String query = "ALTER TABLE APP." + tableName + " ADD " 
 				+ column.getId() + " " + colType + " ;";
@@ -126,7 +149,7 @@ public class DatabaseStructureCreator {
 			query.append(" integer not null");
 		}
 		else
-			query.append(" varchar(1000)");
+			query.append(" ").append(col.getStorageType().getSqlType());
 		
 		return query.toString();
 	}
@@ -152,6 +175,134 @@ public class DatabaseStructureCreator {
 		return query.toString();
 	}
 
+	/**
+	 * Get the indexes of the dataset comparison table, used
+	 * by the amendments set operations
+	 * @return
+	 */
+	public Collection<TableIndex> getDatasetComparisonIndexes() {
+		
+		Collection<TableIndex> indexes = new ArrayList<>();
+		
+		indexes.add(new TableIndex(DATASET_COMPARISON_TABLE, 
+				INDEX_PREFIX + DATASET_COMPARISON_TABLE + "_VERSION", Arrays.asList("VERSION")));
+		
+		indexes.add(new TableIndex(DATASET_COMPARISON_TABLE, 
+				INDEX_PREFIX + DATASET_COMPARISON_TABLE + "_AM_TYPE", Arrays.asList("AM_TYPE")));
+		
+		return indexes;
+	}
+	
+	/**
+	 * Get the secondary indexes needed by a table. An index is created
+	 * for each foreign key, for each lookup column and for the
+	 * columns which compose the natural key of the table (a single
+	 * index for all of them). Columns wider than {@link #MAX_INDEX_KEY_WIDTH}
+	 * are not indexed and the natural key index contains only its first
+	 * columns whose total width fits the limit.
+	 * @param table
+	 * @return
+	 */
+	public Collection<TableIndex> getIndexes(TableSchema table) {
+		
+		Collection<TableIndex> indexes = new ArrayList<>();
+		
+		String tableName = table.getSheetName();
+		
+		List<String> naturalKey = new ArrayList<>();
+		int naturalKeyWidth = 0;
+		boolean naturalKeyFull = false;
+		
+		for (TableColumn col : table) {
+			
+			int width = getIndexWidth(col);
+			
+			if ((col.isForeignKey() || isLookup(table, col)) && width <= MAX_INDEX_KEY_WIDTH) {
+				indexes.add(new TableIndex(tableName, 
+						INDEX_PREFIX + tableName + "_" + col.getId(), Arrays.asList(col.getId())));
+			}
+			
+			if (!col.isNaturalKey() || naturalKeyFull)
+				continue;
+			
+			// keep the index on the leading columns, which is
+			// still used by the searches on the whole natural key
+			if (naturalKeyWidth + width > MAX_INDEX_KEY_WIDTH) {
+				naturalKeyFull = true;
+				continue;
+			}
+			
+			naturalKey.add(col.getId());
+			naturalKeyWidth += width;
+		}
+		
+		if (!naturalKey.isEmpty()) {
+			indexes.add(new TableIndex(tableName, 
+					INDEX_PREFIX + tableName + NATURAL_KEY_INDEX_SUFFIX, naturalKey));
+		}
+		
+		return indexes;
+	}
+	
+	/**
+	 * Get the declared width of a column in an index
+	 * @param col
+	 * @return
+	 */
+	private int getIndexWidth(TableColumn col) {
+		
+		// foreign keys are stored as integers
+		if (col.isForeignKey())
+			return 4;
+		
+		return col.getStorageType().getWidth();
+	}
+	
+	/**
+	 * Check if a column is used to search rows. The sender id of the
+	 * reports is always searched to retrieve the report versions
+	 * @param table
+	 * @param col
+	 * @return
+	 */
+	private boolean isLookup(TableSchema table, TableColumn col) {
+		
+		if (col.isLookup())
+			return true;
+		
+		return table.getSheetName().equals(AppPaths.REPORT_SHEET) 
+				&& col.getId().equals(AppPaths.REPORT_SENDER_ID);
+	}
+	
+	/**
+	 * Get the query needed to create an index
+	 * @param index
+	 * @return
+	 */
+	public String getCreateIndexQuery(TableIndex index) {
+		
+		StringBuilder query = new StringBuilder();
+		
+		query.append("create index ")
+			.append(index.getName())
+			.append(" on APP.")
+			.append(index.getTableName())
+			.append("(")
+			.append(String.join(", ", index.getColumns()))
+			.append(");\n");
+		
+		return query.toString();
+	}
+	
+	/**
+	 * Get the query needed to remove an index
+	 * @param index
+	 * @return
+	 */
+	public String getDropIndexQuery(TableIndex index) {
+		return "drop index APP." + index.getName() + ";\n";
+	}
+	
 	/**
 	 * Get the query needed to create the info table
 	 * for the database (contains version, date of creation...)
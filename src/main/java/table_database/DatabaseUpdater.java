@@ -3,6 +3,11 @@ package table_database;
 import java.io.File;
 import java.io.IOException;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -55,9 +60,60 @@ public class DatabaseUpdater {
 			}
 		}
 
+		updateIndexes(newList);
+
 		LOGGER.info("Database updated!");
 	}
 
+	/**
+	 * Create the secondary indexes which are missing in the database and
+	 * recreate the ones whose columns changed. Existing databases are
+	 * migrated in place when their structure is updated. The current
+	 * indexes are read all at once.
+	 * 
+	 * @param tables
+	 * @throws IOException
+	 * @throws SQLException
+	 */
+	public void updateIndexes(TableSchemaList tables) throws IOException, SQLException {
+
+		DatabaseStructureCreator creator = new DatabaseStructureCreator();
+
+		Collection<TableIndex> indexes = new ArrayList<>();
+
+		for (TableSchema table : tables)
+			indexes.addAll(creator.getIndexes(table));
+
+		indexes.addAll(creator.getDatasetComparisonIndexes());
+
+		Collection<String> tableNames = new LinkedHashSet<>();
+		for (TableIndex index : indexes)
+			tableNames.add(index.getTableName());
+
+		// index name in upper case => index in the database
+		Map<String, TableIndex> currentIndexes = new HashMap<>();
+		for (TableIndex current : dbBuilder.getIndexes(tableNames))
+			currentIndexes.put(current.getName().toUpperCase(), current);
+
+		for (TableIndex index : indexes) {
+
+			TableIndex current = currentIndexes.get(index.getName().toUpperCase());
+
+			// already up to date
+			if (current != null && current.hasSameColumns(index))
+				continue;
+
+			if (current != null) {
+				LOGGER.info("Updating index " + index);
+				dbBuilder.removeIndex(current);
+			} else {
+				LOGGER.info("Creating index " + index);
+			}
+
+			dbBuilder.addIndex(index);
+		}
+	}
+
 	/**
 	 * Update a table from old to new
 	 * 
@@ -174,6 +230,46 @@ public class DatabaseUpdater {
 			// NOT SUPPORTED, it can lead to errors due to
 			// different data types (integers/strings casts)
 		}
+		
+		// foreign keys are always integers
+		else if (!oldCol.isForeignKey() && oldCol.getStorageType() != newCol.getStorageType()) {
+			LOGGER.info("Changing storage of column " + oldCol.getId() + " from " 
+					+ oldCol.getStorageType() + " to " + newCol.getStorageType());
+			changeColumnStorage(table, oldCol, newCol);
+		}
+	}
+
+	/**
+	 * Change the sql type of a column. The indexes which use the column are
+	 * removed, they are created again by {@link #updateIndexes(TableSchemaList)}
+	 * 
+	 * @param table
+	 * @param oldCol
+	 * @param newCol
+	 * @throws IOException
+	 * @throws SQLException if the column cannot be converted. The update is
+	 *                      stopped, so that it is tried again at the next start
+	 */
+	private void changeColumnStorage(TableSchema table, TableColumn oldCol, TableColumn newCol)
+			throws IOException, SQLException {
+
+		DatabaseStructureCreator creator = new DatabaseStructureCreator();
+
+		for (TableIndex index : creator.getIndexes(table)) {
+
+			if (!index.getColumns().contains(oldCol.getId()))
+				continue;
+
+			TableIndex current = dbBuilder.getIndexByName(index.getTableName(), index.getName());
+
+			if (current != null)
+				dbBuilder.removeIndex(current);
+		}
+
+		if (!dbBuilder.changeColumnStorage(table, oldCol, newCol)) {
+			throw new SQLException("Cannot change the storage of column " + oldCol.getId() + " of table "
+					+ table.getSheetName() + " from " + oldCol.getStorageType() + " to " + newCol.getStorageType());
+		}
 	}
 
 	/**
@@ -2,6 +2,7 @@ package table_database;
 
 import java.io.IOException;
 import java.sql.SQLException;
+import java.util.Collection;
 
 import table_skeleton.TableColumn;
 import xlsx_reader.TableSchema;
@@ -65,4 +66,52 @@ public interface IDatabaseBuilder {
 	 * @throws SQLException
 	 */
 	public ForeignKey getForeignKeyByColumnName(String fkTableName, String foreignKeyColName) throws SQLException;
+	
+	/**
+	 * Get an index of a table using its name
+	 * @param tableName
+	 * @param indexName
+	 * @return the index or null if not present
+	 * @throws SQLException
+	 */
+	public TableIndex getIndexByName(String tableName, String indexName) throws SQLException;
+	
+	/**
+	 * Get all the indexes of the tables, using a single connection
+	 * @param tableNames
+	 * @return the indexes
+	 * @throws SQLException
+	 */
+	public Collection<TableIndex> getIndexes(Collection<String> tableNames) throws SQLException;
+	
+	/**
+	 * Create a secondary index in the database
+	 * @param index
+	 * @throws IOException
+	 * @throws SQLException
+	 */
+	public void addIndex(TableIndex index) throws IOException, SQLException;
+	
+	/**
+	 * Remove a secondary index from the database
+	 * @param index
+	 * @throws IOException
+	 * @throws SQLException
+	 */
+	public void removeIndex(TableIndex index) throws IOException, SQLException;
+	
+	/**
+	 * Change the sql type of an existing column, converting its values
+	 * from the old to the new {@link StorageType}. The values which cannot
+	 * be stored with the new type are copied in a backup table and set to
+	 * null. The indexes which use the column must be removed before.
+	 * @param schema
+	 * @param oldColumn column as it is in the database
+	 * @param newColumn column with the new storage type
+	 * @return true if the column was converted, false if the conversion
+	 * failed (the column is left unchanged)
+	 * @throws SQLException
+	 */
+	public boolean changeColumnStorage(TableSchema schema, TableColumn oldColumn, TableColumn newColumn) 
+			throws SQLException;
 }
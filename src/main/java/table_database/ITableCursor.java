@@ -0,0 +1,29 @@
+package table_database;
+
+import java.util.Iterator;
+
+import table_skeleton.TableRow;
+
+/**
+ * Forward only iterator over the rows of a table, which reads the rows from
+ * the database one page at a time. It should be closed to release the page
+ * read in advance:
+ *
+ * <pre>
+ * try (ITableCursor cursor = dao.iterate(query);) {
+ * 	while (cursor.hasNext()) {
+ * 		TableRow row = cursor.next();
+ * 		...
+ * 	}
+ * }
+ * </pre>
+ *
+ */
+public interface ITableCursor extends Iterator<TableRow>, AutoCloseable {
+
+	/**
+	 * Release the database resources
+	 */
+	@Override
+	public void close();
+}
@@ -2,6 +2,8 @@ package table_database;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.function.Consumer;
 
 import table_skeleton.TableRow;
 import table_skeleton.TableRowList;
@@ -24,6 +26,24 @@ public interface ITableDao {
 	 */
 	public int add(TableRow row);
 	
+	/**
+	 * Add a collection of rows to the table in a single transaction
+	 * @param rows rows which follow the same schema
+	 * @return the generated ids in the same order of the rows,
+	 * or null if the rows could not be added
+	 */
+	public int[] addAll(Collection<TableRow> rows);
+	
+	/**
+	 * Add a collection of rows to the table in a single transaction,
+	 * sending them to the database in batches of {@code batchSize} rows
+	 * @param rows rows which follow the same schema
+	 * @param batchSize
+	 * @return the generated ids in the same order of the rows,
+	 * or null if the rows could not be added
+	 */
+	public int[] addAll(Collection<TableRow> rows, int batchSize);
+	
 	/**
 	 * Add a new row to the table
 	 * @param row
@@ -71,6 +91,70 @@ public interface ITableDao {
 	 */
 	public TableRowList getAll(TableSchema schema);
 	
+	/**
+	 * Read all the rows of the table one at a time, ordered by id, without
+	 * keeping them in memory
+	 * @param schema
+	 * @param action called for each row, with the formulas solved
+	 * @throws SQLException if the rows cannot be read, also after some
+	 * rows were already passed to the action
+	 */
+	public void forEach(TableSchema schema, Consumer<TableRow> action) throws SQLException;
+	
+	/**
+	 * Read the rows of a query one at a time, ordered by id, without
+	 * keeping them in memory
+	 * @param query
+	 * @param action called for each row
+	 * @throws SQLException if the rows cannot be read, also after some
+	 * rows were already passed to the action
+	 */
+	public void forEach(TableQuery query, Consumer<TableRow> action) throws SQLException;
+	
+	/**
+	 * Open a forward only cursor over the rows of a query, ordered by id.
+	 * The cursor must be closed.
+	 * @param query
+	 * @return
+	 */
+	public ITableCursor iterate(TableQuery query);
+	
+	/**
+	 * Get the first {@link TableQuery#getPageSize()} rows of a query with
+	 * an id greater than {@code afterId} (keyset pagination)
+	 * @param query
+	 * @param afterId id of the last row of the previous page, 0 for the first page
+	 * @return the page, empty if there are no more rows
+	 */
+	public TableRowList getPage(TableQuery query, int afterId);
+	
+	/**
+	 * Get the ids of all the rows of the table, ordered by id
+	 * @param schema
+	 * @return
+	 */
+	public int[] getIds(TableSchema schema);
+	
+	/**
+	 * Get the ids of all the rows that has as parent the {@code parentId}
+	 * in the parent table {@code parentTable}, ordered by id
+	 * @param schema
+	 * @param parentTable
+	 * @param parentId
+	 * @return
+	 */
+	public int[] getIdsByParentId(TableSchema schema, String parentTable, int parentId);
+	
+	/**
+	 * Get the rows with the chosen ids, ordered by id. Used to load
+	 * a small window of a table, all the ids are put in the same query.
+	 * @param schema
+	 * @param ids
+	 * @param solveFormulas
+	 * @return
+	 */
+	public TableRowList getByIds(TableSchema schema, int[] ids, boolean solveFormulas);
+	
 	/**
 	 * Remove a row by its id
 	 * @param rowId
@@ -0,0 +1,356 @@
+package table_database;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import table_relations.Relation;
+import table_skeleton.TableCell;
+import table_skeleton.TableColumn;
+import table_skeleton.TableRow;
+import xlsx_reader.TableSchema;
+
+/**
+ * Statements used by the {@link TableDao} to read and write the rows of a
+ * table, built only once from its {@link TableSchema}. It contains the sql
+ * of the queries and the binders which set the values of the columns in the
+ * insert and update statements. The plan cannot be changed, if the columns of
+ * the schema change a new plan is created. Only the sql of the partial
+ * updates is added while it is used.
+ *
+ */
+public class PersistencePlan {
+
+	private static final Logger LOGGER = LogManager.getLogger(PersistencePlan.class);
+
+	private static final int MAX_PARTIAL_UPDATES = 256;
+
+	private final String table;
+	private final String idField;
+
+	private final String insertQuery;
+	private final String updateQuery;
+	private final String selectAllQuery;
+	private final String selectByIdQuery;
+	private final String selectIdsQuery;
+	private final String deleteAllQuery;
+	private final String deleteByIdQuery;
+	private final String countBetweenIdsQuery;
+
+	// parent table => queries by parent id
+	private final Map<String, ParentQueries> parentQueries;
+
+	private final ColumnBinder[] binders;
+
+	// positions of the updated columns => sql of the partial update
+	private final Map<String, String> partialUpdateQueries;
+
+	/**
+	 * Build the plan of a table
+	 *
+	 * @param schema
+	 */
+	public PersistencePlan(TableSchema schema) {
+
+		this.table = "APP." + schema.getSheetName();
+		this.idField = schema.getTableIdField();
+
+		// foreign keys of the relations
+		Set<String> foreignKeys = new HashSet<>();
+		Map<String, ParentQueries> parents = new HashMap<>();
+
+		if (schema.getRelations() != null) {
+			for (Relation r : schema.getRelations()) {
+				foreignKeys.add(r.getForeignKey());
+				parents.putIfAbsent(r.getParent(), new ParentQueries(r.getForeignKey()));
+			}
+		}
+
+		this.parentQueries = Collections.unmodifiableMap(parents);
+		this.partialUpdateQueries = new ConcurrentHashMap<>();
+
+		this.binders = new ColumnBinder[schema.size()];
+
+		StringBuilder columns = new StringBuilder();
+		StringBuilder values = new StringBuilder();
+		StringBuilder sets = new StringBuilder();
+
+		for (int i = 0; i < schema.size(); ++i) {
+
+			TableColumn column = schema.get(i);
+
+			binders[i] = new ColumnBinder(schema.getSheetName(), column, foreignKeys.contains(column.getId()));
+
+			if (i > 0) {
+				columns.append(",");
+				values.append(",");
+				sets.append(",");
+			}
+
+			columns.append(column.getId());
+			values.append("?");
+			sets.append(column.getId()).append(" = ?");
+		}
+
+		this.insertQuery = "insert into " + table + " (" + columns + ") values (" + values + ")";
+		this.updateQuery = "update " + table + " set " + sets + " where " + idField + " = ?";
+		this.selectAllQuery = "select * from " + table + " order by " + idField + " asc";
+		this.selectByIdQuery = "select * from " + table + " where " + idField + " = ?";
+		this.selectIdsQuery = "select " + idField + " from " + table + " order by " + idField + " asc";
+		this.deleteAllQuery = "delete from " + table;
+		this.deleteByIdQuery = "delete from " + table + " where " + idField + " = ?";
+		this.countBetweenIdsQuery = "select count(*) from " + table + " where " + idField + " between ? and ?";
+	}
+
+	/**
+	 * Set the values of a row in the parameters of the insert or update
+	 * statement
+	 *
+	 * @param row
+	 * @param stmt
+	 * @param setWhereId true to set also the id of the row, as needed by the
+	 *                   update statement
+	 * @throws SQLException
+	 */
+	public void bind(TableRow row, PreparedStatement stmt, boolean setWhereId) throws SQLException {
+
+		for (int i = 0; i < binders.length; ++i)
+			binders[i].bind(row, stmt, i + 1);
+
+		if (setWhereId)
+			stmt.setInt(binders.length + 1, row.getDatabaseId());
+	}
+
+	/**
+	 * Get the positions of the columns whose values were changed after the row
+	 * was read from or written to the database
+	 *
+	 * @param row
+	 * @return positions in the schema, empty if nothing changed
+	 */
+	public int[] getChangedColumns(TableRow row) {
+
+		int[] changed = new int[binders.length];
+		int size = 0;
+
+		for (int i = 0; i < binders.length; ++i) {
+			if (row.isChanged(binders[i].column.getId()))
+				changed[size++] = i;
+		}
+
+		return Arrays.copyOf(changed, size);
+	}
+
+	/**
+	 * Get the update statement of some columns, with the id of the row as
+	 * last parameter
+	 *
+	 * @param columns positions of the columns, as returned by
+	 *                {@link #getChangedColumns(TableRow)}
+	 * @return
+	 */
+	public String getUpdateQuery(int[] columns) {
+
+		if (columns.length == binders.length)
+			return updateQuery;
+
+		String key = Arrays.toString(columns);
+
+		String query = partialUpdateQueries.get(key);
+
+		if (query != null)
+			return query;
+
+		StringBuilder sets = new StringBuilder();
+		for (int i = 0; i < columns.length; ++i) {
+
+			if (i > 0)
+				sets.append(",");
+
+			sets.append(binders[columns[i]].column.getId()).append(" = ?");
+		}
+
+		query = "update " + table + " set " + sets + " where " + idField + " = ?";
+
+		// the combinations of columns edited together are usually few
+		if (partialUpdateQueries.size() < MAX_PARTIAL_UPDATES)
+			partialUpdateQueries.put(key, query);
+
+		return query;
+	}
+
+	/**
+	 * Set the values of some columns of a row and its id in the parameters of
+	 * {@link #getUpdateQuery(int[])}
+	 *
+	 * @param row
+	 * @param stmt
+	 * @param columns
+	 * @throws SQLException
+	 */
+	public void bindUpdate(TableRow row, PreparedStatement stmt, int[] columns) throws SQLException {
+
+		for (int i = 0; i < columns.length; ++i)
+			binders[columns[i]].bind(row, stmt, i + 1);
+
+		stmt.setInt(columns.length + 1, row.getDatabaseId());
+	}
+
+	/**
+	 * Get the name of the table, with the schema
+	 *
+	 * @return
+	 */
+	public String getTable() {
+		return table;
+	}
+
+	public String getInsertQuery() {
+		return insertQuery;
+	}
+
+	public String getUpdateQuery() {
+		return updateQuery;
+	}
+
+	public String getSelectAllQuery() {
+		return selectAllQuery;
+	}
+
+	public String getSelectByIdQuery() {
+		return selectByIdQuery;
+	}
+
+	public String getSelectIdsQuery() {
+		return selectIdsQuery;
+	}
+
+	public String getDeleteAllQuery() {
+		return deleteAllQuery;
+	}
+
+	public String getDeleteByIdQuery() {
+		return deleteByIdQuery;
+	}
+
+	public String getCountBetweenIdsQuery() {
+		return countBetweenIdsQuery;
+	}
+
+	/**
+	 * Get the queries which use the foreign key of a parent table
+	 *
+	 * @param parentTable
+	 * @return the queries, or null if the table is not a parent
+	 */
+	public ParentQueries getParentQueries(String parentTable) {
+		return parentQueries.get(parentTable);
+	}
+
+	/**
+	 * Queries on the rows of a parent
+	 */
+	public class ParentQueries {
+
+		private final String foreignKey;
+		private final String selectQuery;
+		private final String selectIdsQuery;
+		private final String deleteQuery;
+
+		private ParentQueries(String foreignKey) {
+
+			String where = " where " + foreignKey + " = ?";
+
+			this.foreignKey = foreignKey;
+			this.selectQuery = "select * from " + table + where + " order by " + idField + " asc";
+			this.selectIdsQuery = "select " + idField + " from " + table + where + " order by " + idField + " asc";
+			this.deleteQuery = "delete from " + table + where;
+		}
+
+		public String getForeignKey() {
+			return foreignKey;
+		}
+
+		/**
+		 * Get the select of the rows of the parent
+		 *
+		 * @param order asc or desc
+		 * @return
+		 */
+		public String getSelectQuery(String order) {
+
+			if ("asc".equalsIgnoreCase(order))
+				return selectQuery;
+
+			return "select * from " + table + " where " + foreignKey + " = ? order by " + idField + " " + order;
+		}
+
+		public String getSelectIdsQuery() {
+			return selectIdsQuery;
+		}
+
+		public String getDeleteQuery() {
+			return deleteQuery;
+		}
+	}
+
+	/**
+	 * Sets the value of a column in a statement
+	 */
+	private static final class ColumnBinder {
+
+		private final String table;
+		private final TableColumn column;
+		private final boolean foreignKey;
+
+		ColumnBinder(String table, TableColumn column, boolean foreignKey) {
+			this.table = table;
+			this.column = column;
+			this.foreignKey = foreignKey;
+		}
+
+		void bind(TableRow row, PreparedStatement stmt, int index) throws SQLException {
+
+			TableCell cell = row.get(column.getId());
+
+			String value = "";
+
+			if (cell == null) {
+
+				if (LOGGER.isDebugEnabled())
+					LOGGER.debug("No value found for " + column.getId() + " in table " + table
+							+ ". Putting an empty value.");
+			} else {
+
+				// save always the code
+				value = cell.getCode();
+
+				// if no code is found, use the label
+				if (value == null || value.isEmpty())
+					value = cell.getLabel();
+			}
+
+			if (!foreignKey) {
+				column.getStorageType().bind(stmt, index, value);
+				return;
+			}
+
+			// relation ids are integers
+			try {
+				stmt.setInt(index, Integer.valueOf(value));
+			} catch (NumberFormatException e) {
+				LOGGER.error("Wrong integer field " + column.getId() + " with value " + value, e);
+				e.printStackTrace();
+			}
+		}
+	}
+}
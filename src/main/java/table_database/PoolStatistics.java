@@ -0,0 +1,119 @@
+package table_database;
+
+/**
+ * Snapshot of the statistics of a {@link ConnectionPool}
+ *
+ */
+public class PoolStatistics {
+
+	private final int maxSize;
+	private final int active;
+	private final int idle;
+	private final long borrowCount;
+	private final long totalWaitNanos;
+	private final long maxWaitNanos;
+	private final long createdCount;
+	private final long discardedCount;
+	private final long timeoutCount;
+
+	public PoolStatistics(int maxSize, int active, int idle, long borrowCount, long totalWaitNanos,
+			long maxWaitNanos, long createdCount, long discardedCount, long timeoutCount) {
+		this.maxSize = maxSize;
+		this.active = active;
+		this.idle = idle;
+		this.borrowCount = borrowCount;
+		this.totalWaitNanos = totalWaitNanos;
+		this.maxWaitNanos = maxWaitNanos;
+		this.createdCount = createdCount;
+		this.discardedCount = discardedCount;
+		this.timeoutCount = timeoutCount;
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Number of connections currently borrowed
+	 *
+	 * @return
+	 */
+	public int getActive() {
+		return active;
+	}
+
+	/**
+	 * Number of open connections waiting to be borrowed
+	 *
+	 * @return
+	 */
+	public int getIdle() {
+		return idle;
+	}
+
+	public long getBorrowCount() {
+		return borrowCount;
+	}
+
+	/**
+	 * Average time spent waiting for a free connection
+	 *
+	 * @return
+	 */
+	public double getAverageWaitMillis() {
+
+		if (borrowCount == 0)
+			return 0;
+
+		return totalWaitNanos / 1_000_000.0 / borrowCount;
+	}
+
+	/**
+	 * Longest time spent waiting for a free connection
+	 *
+	 * @return
+	 */
+	public double getMaxWaitMillis() {
+		return maxWaitNanos / 1_000_000.0;
+	}
+
+	/**
+	 * Number of physical connections opened since the start
+	 *
+	 * @return
+	 */
+	public long getCreatedCount() {
+		return createdCount;
+	}
+
+	/**
+	 * Number of physical connections closed because invalid or drained
+	 *
+	 * @return
+	 */
+	public long getDiscardedCount() {
+		return discardedCount;
+	}
+
+	/**
+	 * Number of borrow requests which failed for timeout
+	 *
+	 * @return
+	 */
+	public long getTimeoutCount() {
+		return timeoutCount;
+	}
+
+	@Override
+	public String toString() {
+		return "maxSize=" + maxSize
+				+ ";active=" + active
+				+ ";idle=" + idle
+				+ ";borrowed=" + borrowCount
+				+ ";avgWaitMs=" + String.format("%.3f", getAverageWaitMillis())
+				+ ";maxWaitMs=" + String.format("%.3f", getMaxWaitMillis())
+				+ ";created=" + createdCount
+				+ ";discarded=" + discardedCount
+				+ ";timeouts=" + timeoutCount;
+	}
+}
@@ -0,0 +1,230 @@
+package table_database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import metrics.Metrics;
+
+/**
+ * Prepared statements of a single pooled connection, kept open and reused
+ * when the same sql is prepared again. The statements returned by
+ * {@link #prepare(Connection, String, int)} are proxies: calling
+ * {@link PreparedStatement#close()} clears their parameters and gives them
+ * back to the cache. When the cache is full the least recently used statement
+ * is closed.
+ *
+ * It is used only by the borrower of the connection, therefore it is not
+ * thread-safe.
+ *
+ */
+class StatementCache {
+
+	private static final Logger LOGGER = LogManager.getLogger(StatementCache.class);
+
+	private final Connection physical;
+	private final Map<String, CachedStatement> statements;
+
+	/**
+	 * Create a cache
+	 *
+	 * @param physical connection used to prepare the statements
+	 * @param maxSize  maximum number of statements kept open
+	 */
+	StatementCache(Connection physical, int maxSize) {
+
+		this.physical = physical;
+		this.statements = new LinkedHashMap<String, CachedStatement>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+
+				if (size() <= maxSize)
+					return false;
+
+				eldest.getValue().evict();
+				return true;
+			}
+		};
+	}
+
+	/**
+	 * Get a prepared statement for the sql, reusing the cached one if present
+	 *
+	 * @param owner             connection returned by the statement
+	 * @param sql
+	 * @param autoGeneratedKeys as in
+	 *                          {@link Connection#prepareStatement(String, int)}
+	 * @return
+	 * @throws SQLException
+	 */
+	PreparedStatement prepare(Connection owner, String sql, int autoGeneratedKeys) throws SQLException {
+
+		String key = autoGeneratedKeys + ":" + sql;
+
+		CachedStatement cached = statements.get(key);
+
+		// closed after an error
+		if (cached != null && cached.evicted) {
+			statements.remove(key);
+			cached = null;
+		}
+
+		if (cached == null) {
+
+			Metrics.increment("db.statement", "miss");
+
+			cached = new CachedStatement(physical.prepareStatement(sql, autoGeneratedKeys));
+			statements.put(key, cached);
+
+		} else if (cached.inUse) {
+
+			// the same sql is used twice at the same time, the second
+			// statement is not cached
+			return physical.prepareStatement(sql, autoGeneratedKeys);
+
+		} else {
+			Metrics.increment("db.statement", "hit");
+		}
+
+		return cached.lease(owner);
+	}
+
+	/**
+	 * Close all the statements, used when the connection is closed
+	 */
+	void clear() {
+
+		for (CachedStatement cached : new ArrayList<>(statements.values()))
+			cached.evict();
+
+		statements.clear();
+	}
+
+	/**
+	 * Statement kept in the cache
+	 */
+	private static class CachedStatement {
+
+		private final PreparedStatement statement;
+		private boolean inUse;
+		private boolean evicted;
+
+		CachedStatement(PreparedStatement statement) {
+			this.statement = statement;
+		}
+
+		PreparedStatement lease(Connection owner) {
+
+			inUse = true;
+
+			return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+					new Class<?>[] { PreparedStatement.class }, new StatementLease(this, owner));
+		}
+
+		/**
+		 * Clear the statement for the next use
+		 */
+		void release() {
+
+			inUse = false;
+
+			if (evicted) {
+				close();
+				return;
+			}
+
+			try {
+				statement.clearParameters();
+				statement.clearBatch();
+				statement.clearWarnings();
+			} catch (SQLException e) {
+				LOGGER.warn("Cannot reset cached statement, closing it", e);
+				evicted = true;
+				close();
+			}
+		}
+
+		/**
+		 * Remove the statement from the cache. It is closed as soon as it is
+		 * not used anymore.
+		 */
+		void evict() {
+
+			evicted = true;
+
+			if (!inUse)
+				close();
+		}
+
+		private void close() {
+			try {
+				statement.close();
+			} catch (SQLException e) {
+				LOGGER.debug("Error in closing cached statement", e);
+			}
+		}
+	}
+
+	/**
+	 * Forwards all the calls to the cached statement, except for the close
+	 * which gives back the statement to the cache
+	 *
+	 */
+	private static class StatementLease implements InvocationHandler {
+
+		private final CachedStatement cached;
+		private final Connection owner;
+		private boolean closed;
+
+		StatementLease(CachedStatement cached, Connection owner) {
+			this.cached = cached;
+			this.owner = owner;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+			switch (method.getName()) {
+			case "close":
+				if (!closed) {
+					closed = true;
+					cached.release();
+				}
+				return null;
+			case "isClosed":
+				return closed || cached.statement.isClosed();
+			case "getConnection":
+				return owner;
+			case "equals":
+				return proxy == args[0];
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "toString":
+				return "CachedStatement[" + cached.statement + (closed ? ", closed]" : "]");
+			default:
+				break;
+			}
+
+			if (closed)
+				throw new SQLException("The statement was already closed");
+
+			try {
+				return method.invoke(cached.statement, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+	}
+}
@@ -0,0 +1,282 @@
+package table_database;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import app_config.BooleanValue;
+
+/**
+ * SQL type used to store the values of a column in the database. It is
+ * declared in the storageType column of the tables schema. Columns without
+ * storage type are stored as text, as before.
+ *
+ * The values of the rows are always strings, they are converted to the SQL
+ * type when they are written and converted back to strings when they are
+ * read. The text read is the canonical form of the value, which can differ
+ * from the text written: decimals lose the trailing zeros ("1.50" is read as
+ * "1.5") and booleans are read as {@link BooleanValue#getTrueValue()} or
+ * {@link BooleanValue#getFalseValue()} ("true" is read as "yes").
+ *
+ */
+public enum StorageType {
+
+	TEXT("text", "varchar(1000)", Types.VARCHAR, 1000),
+	SHORT_TEXT("shortText", "varchar(100)", Types.VARCHAR, 100),
+	LONG_TEXT("longText", "varchar(32672)", Types.VARCHAR, 32672),
+	INTEGER("integer", "bigint", Types.BIGINT, 8),
+	DECIMAL("decimal", "decimal(31,10)", Types.DECIMAL, 16),
+	DATE("date", "date", Types.DATE, 4),
+	TIMESTAMP("timestamp", "timestamp", Types.TIMESTAMP, 12),
+	BOOLEAN("boolean", "boolean", Types.BOOLEAN, 1);
+
+	private static final Logger LOGGER = LogManager.getLogger(StorageType.class);
+
+	private String headerName;
+	private String sqlType;
+	private int jdbcType;
+	private int width;
+
+	private StorageType(String headerName, String sqlType, int jdbcType, int width) {
+		this.headerName = headerName;
+		this.sqlType = sqlType;
+		this.jdbcType = jdbcType;
+		this.width = width;
+	}
+
+	/**
+	 * Get the name used in the tables schema
+	 * @return
+	 */
+	public String getHeaderName() {
+		return headerName;
+	}
+
+	/**
+	 * Get the type used in the create/alter table statements
+	 * @return
+	 */
+	public String getSqlType() {
+		return sqlType;
+	}
+
+	/**
+	 * Get the declared width of the values, in characters for the
+	 * strings and in bytes for the other types
+	 * @return
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Check if the values are stored as strings
+	 * @return
+	 */
+	public boolean isText() {
+		return jdbcType == Types.VARCHAR;
+	}
+
+	/**
+	 * Get the storage type that matches the {@code text}. If no type
+	 * is specified or the type is not known (with a warning), {@link #TEXT}
+	 * is returned.
+	 * @param text
+	 * @return
+	 */
+	public static StorageType fromString(String text) {
+
+		if (text == null || text.isEmpty())
+			return TEXT;
+
+		for (StorageType type : StorageType.values()) {
+			if (type.headerName.equalsIgnoreCase(text.trim()))
+				return type;
+		}
+
+		LOGGER.warn("Unknown storage type=" + text + ", the column is stored as " + TEXT.headerName);
+
+		return TEXT;
+	}
+
+	/**
+	 * Check if a value can be stored with this type. Empty values are
+	 * always accepted, since they are stored as null.
+	 * @param value
+	 * @return
+	 */
+	public boolean accepts(String value) {
+
+		if (value == null || isText() || value.trim().isEmpty())
+			return true;
+
+		return toSortKey(value) != null;
+	}
+
+	/**
+	 * Set a value in a statement, converting it to the SQL type. Empty
+	 * values are stored as null in the typed columns.
+	 * @param stmt
+	 * @param index index of the parameter
+	 * @param value
+	 * @throws SQLException if the value cannot be converted
+	 */
+	public void bind(PreparedStatement stmt, int index, String value) throws SQLException {
+
+		if (isText()) {
+			stmt.setString(index, value);
+			return;
+		}
+
+		if (value == null || value.trim().isEmpty()) {
+			stmt.setNull(index, jdbcType);
+			return;
+		}
+
+		String trimmed = value.trim();
+
+		try {
+
+			switch (this) {
+			case INTEGER:
+				stmt.setLong(index, Long.parseLong(trimmed));
+				break;
+			case DECIMAL:
+				stmt.setBigDecimal(index, new BigDecimal(trimmed));
+				break;
+			case DATE:
+				stmt.setDate(index, Date.valueOf(trimmed));
+				break;
+			case TIMESTAMP:
+				stmt.setTimestamp(index, parseTimestamp(trimmed));
+				break;
+			case BOOLEAN:
+				stmt.setBoolean(index, parseBoolean(trimmed));
+				break;
+			default:
+				stmt.setString(index, value);
+				break;
+			}
+
+		} catch (IllegalArgumentException e) { // also NumberFormatException
+			throw new SQLDataException("Cannot store " + value + " as " + headerName, e);
+		}
+	}
+
+	/**
+	 * Read the value of a column from the current row of a result set
+	 * @param rs
+	 * @param column name of the column
+	 * @return the value in its canonical string format, or null if not set
+	 * @throws SQLException
+	 */
+	public String read(ResultSet rs, String column) throws SQLException {
+
+		switch (this) {
+		case INTEGER:
+			long longValue = rs.getLong(column);
+			return rs.wasNull() ? null : String.valueOf(longValue);
+		case DECIMAL:
+			BigDecimal decimal = rs.getBigDecimal(column);
+			return decimal == null ? null : decimal.stripTrailingZeros().toPlainString();
+		case DATE:
+			Date date = rs.getDate(column);
+			return date == null ? null : date.toString();
+		case TIMESTAMP:
+			Timestamp timestamp = rs.getTimestamp(column);
+			return timestamp == null ? null : formatTimestamp(timestamp);
+		case BOOLEAN:
+			boolean bool = rs.getBoolean(column);
+			if (rs.wasNull())
+				return null;
+			return bool ? BooleanValue.getTrueValue() : BooleanValue.getFalseValue();
+		default:
+			return rs.getString(column);
+		}
+	}
+
+	/**
+	 * Get the key used to sort the values of the column
+	 * @param value
+	 * @return the key or null if the value is empty or cannot be converted
+	 */
+	public Comparable<?> toSortKey(String value) {
+
+		if (value == null)
+			return null;
+
+		if (isText())
+			return value;
+
+		String trimmed = value.trim();
+
+		if (trimmed.isEmpty())
+			return null;
+
+		try {
+
+			switch (this) {
+			case INTEGER:
+				return Long.valueOf(trimmed);
+			case DECIMAL:
+				return new BigDecimal(trimmed);
+			case DATE:
+				return Date.valueOf(trimmed);
+			case TIMESTAMP:
+				return parseTimestamp(trimmed);
+			case BOOLEAN:
+				return parseBoolean(trimmed);
+			default:
+				return value;
+			}
+
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Accept both yyyy-mm-dd hh:mm:ss and yyyy-mm-ddThh:mm:ss, or only the date
+	 * @param value
+	 * @return
+	 */
+	private static Timestamp parseTimestamp(String value) {
+
+		String text = value.replace('T', ' ');
+
+		if (text.length() == 10)
+			text = text + " 00:00:00";
+
+		return Timestamp.valueOf(text);
+	}
+
+	private static String formatTimestamp(Timestamp timestamp) {
+
+		String text = timestamp.toString();
+
+		// no fractional seconds
+		if (text.endsWith(".0"))
+			text = text.substring(0, text.length() - 2);
+
+		return text;
+	}
+
+	private static boolean parseBoolean(String value) {
+
+		if (BooleanValue.isTrue(value))
+			return true;
+
+		if (BooleanValue.isFalse(value))
+			return false;
+
+		throw new IllegalArgumentException("Not a boolean value: " + value);
+	}
+}
@@ -0,0 +1,103 @@
+package table_database;
+
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.NoSuchElementException;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import table_skeleton.TableRow;
+import table_skeleton.TableRowList;
+
+/**
+ * {@link ITableCursor} which reads the rows one page at a time, with keyset
+ * pagination. The connection is borrowed only while a page is read, so that
+ * the formulas of the rows can read other rows (as their parents) without
+ * waiting for a free connection.
+ *
+ */
+class TableCursor implements ITableCursor {
+
+	private static final Logger LOGGER = LogManager.getLogger(TableCursor.class);
+
+	private final TableDao dao;
+	private final TableQuery query;
+
+	private final Deque<TableRow> page; // rows read but not returned yet
+	private int lastId; // id of the last row read
+	private boolean lastPage;
+	private boolean closed;
+
+	TableCursor(TableDao dao, TableQuery query) throws SQLException {
+
+		this.dao = dao;
+		this.query = query;
+		this.page = new ArrayDeque<>();
+
+		// read the first page, to report the errors of the query
+		readNextPage();
+	}
+
+	/**
+	 * Read the rows after the last one, without solving their formulas
+	 * 
+	 * @throws SQLException
+	 */
+	private void readNextPage() throws SQLException {
+
+		TableRowList rows = dao.readPage(query, lastId);
+
+		page.addAll(rows);
+
+		if (!rows.isEmpty())
+			lastId = rows.get(rows.size() - 1).getDatabaseId();
+
+		lastPage = rows.size() < query.getPageSize();
+	}
+
+	@Override
+	public boolean hasNext() {
+
+		if (closed)
+			return false;
+
+		if (page.isEmpty() && !lastPage) {
+			try {
+				readNextPage();
+			} catch (SQLException e) {
+				LOGGER.error("Cannot read the next row of " + query, e);
+				e.printStackTrace();
+			}
+		}
+
+		if (page.isEmpty()) {
+			close();
+			return false;
+		}
+
+		return true;
+	}
+
+	@Override
+	public TableRow next() {
+
+		if (!hasNext())
+			throw new NoSuchElementException();
+
+		TableRow row = page.poll();
+
+		// the connection of the page is already released
+		if (query.isSolveFormulas())
+			dao.solveFormulas(row);
+
+		return row;
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		page.clear();
+	}
+}
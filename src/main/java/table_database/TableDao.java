@@ -1,22 +1,26 @@
 package table_database;
 
-import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.util.Iterator;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import app_config.AppPaths;
-import table_relations.Relation;
+import app_config.PropertiesReader;
+import table_relations.ParentCache;
 import table_skeleton.TableCell;
 import table_skeleton.TableColumn;
 import table_skeleton.TableRow;
 import table_skeleton.TableRowList;
 import xlsx_reader.TableSchema;
+import xml_catalog_reader.Selection;
 import xml_catalog_reader.XmlContents;
 import xml_catalog_reader.XmlLoader;
 
@@ -34,7 +38,7 @@ public class TableDao implements ITableDao {
 	private static final Logger LOGGER = LogManager.getLogger(TableDao.class);
 
 	private String getTable(TableSchema schema) {
-		return "APP." + schema.getSheetName();
+		return schema.getPersistencePlan().getTable();
 	}
 	
 	/*
@@ -43,99 +47,24 @@ public class TableDao implements ITableDao {
 	}*/
 
 	/**
-	 * Get the query needed to add a row to the table
+	 * Set the value of a field in the first parameter of a statement, using the
+	 * storage type of its column
 	 * 
-	 * @return
-	 */
-	private String getAddQuery(TableSchema schema) {
-
-		StringBuilder query = new StringBuilder();
-		query.append("insert into " + getTable(schema) + " (");
-
-		// set the columns names
-		Iterator<TableColumn> iterator = schema.iterator();
-		while (iterator.hasNext()) {
-
-			TableColumn col = iterator.next();
-
-			query.append(col.getId());
-
-			// append the comma if there is another field
-			if (iterator.hasNext())
-				query.append(",");
-			else
-				query.append(")"); // else, close statement
-		}
-
-		// values statement
-		query.append(" values (");
-
-		// add the ?
-		iterator = schema.iterator();
-		while (iterator.hasNext()) {
-
-			// go to the next
-			iterator.next();
-
-			query.append("?");
-
-			// append the comma if there is another field
-			if (iterator.hasNext())
-				query.append(",");
-			else
-				query.append(")"); // else, close statement
-		}
-
-		return query.toString();
-	}
-
-	/**
-	 * Get the query needed to update a row to the table
-	 * 
-	 * @return
-	 */
-	private String getUpdateQuery(TableSchema schema) {
-
-		StringBuilder query = new StringBuilder();
-		query.append("update " + getTable(schema) + " set ");
-
-		// set the columns names
-		Iterator<TableColumn> iterator = schema.iterator();
-		while (iterator.hasNext()) {
-
-			TableColumn col = iterator.next();
-
-			query.append(col.getId());
-			query.append(" = ?");
-
-			// append the comma if there is another field
-			if (iterator.hasNext())
-				query.append(",");
-		}
-
-		query.append(" where ").append(schema.getTableIdField()).append(" = ?");
-
-		return query.toString();
-	}
-
-	/**
-	 * Check if the id is a foreignKey for a parent table of the current table
-	 * 
-	 * @param id
-	 * @return
-	 * @throws IOException
+	 * @param schema
+	 * @param fieldName
+	 * @param stmt
+	 * @param value
+	 * @throws SQLException
 	 */
-	private boolean isRelationId(TableSchema schema, String id) throws IOException {
-
-		if (schema.getRelations() == null)
-			return false;
+	private void setFieldParameter(TableSchema schema, String fieldName, PreparedStatement stmt, String value)
+			throws SQLException {
 
-		for (Relation r : schema.getRelations()) {
-			if (r.getForeignKey().equals(id))
-				return true;
-		}
+		TableColumn column = schema.getById(fieldName);
 
-		return false;
+		if (column == null || column.isForeignKey())
+			stmt.setString(1, value);
+		else
+			column.getStorageType().bind(stmt, 1, value);
 	}
 
 	/**
@@ -146,65 +75,7 @@ public class TableDao implements ITableDao {
 	 * @throws SQLException
 	 */
 	private void setParameters(TableRow row, PreparedStatement stmt, boolean setWhereId) throws SQLException {
-
-		int currentIndex = 1;
-
-		for (int i = 0; i < row.getSchema().size(); ++i) {
-
-			TableColumn col = row.getSchema().get(i);
-
-			TableCell colValue = row.get(col.getId());
-
-			// TODO here it is possible to flag the columns which are null
-			/*
-			 * if (colValue == null) {
-			 * 
-			 * if(col.getId()==CustomStrings.AN_METH_TYPE_COL) { //set its default value
-			 * colValue= }
-			 * 
-			 * LOGGER.info("No value found for " + col.getId() + " in table " +
-			 * row.getSchema().getSheetName() + ". Putting an empty value.");
-			 * 
-			 * colValue = new TableCell(); }
-			 */
-
-			if (colValue == null) {
-
-				LOGGER.info("No value found for " + col.getId() + " in table " + row.getSchema().getSheetName()
-						+ ". Putting an empty value.");
-
-				colValue = new TableCell();
-			}
-
-			// save always the code
-			String value = colValue.getCode();
-
-			// if no code is found, use the label
-			if (value == null || value.isEmpty())
-				value = colValue.getLabel();
-
-			// If we have a relation ID => then convert into integer
-			try {
-
-				if (isRelationId(row.getSchema(), col.getId()))
-					stmt.setInt(currentIndex, Integer.valueOf(value));
-				else {
-					stmt.setString(currentIndex, value);
-				}
-
-			} catch (NumberFormatException | IOException e) {
-				LOGGER.error("Wrong integer field " + col.getId() + " with value " + value, e);
-				e.printStackTrace();
-			}
-
-			// increase current index
-			currentIndex++;
-		}
-
-		// set also the id of the row
-		if (setWhereId) {
-			stmt.setInt(currentIndex, row.getDatabaseId());
-		}
+		row.getSchema().getPersistencePlan().bind(row, stmt, setWhereId);
 	}
 
 	/**
@@ -218,7 +89,7 @@ public class TableDao implements ITableDao {
 		int id = -1;
 
 		try (Connection con = Database.getConnection();
-				PreparedStatement stmt = con.prepareStatement(getAddQuery(row.getSchema()),
+				PreparedStatement stmt = con.prepareStatement(row.getSchema().getPersistencePlan().getInsertQuery(),
 						Statement.RETURN_GENERATED_KEYS);) {
 
 			// set the row values in the parameters
@@ -240,6 +111,7 @@ public class TableDao implements ITableDao {
 		}
 
 		if (id != -1) {
+			row.clearChanges();
 			LOGGER.debug("Row " + id + " successfully added in " + getTable(row.getSchema()));
 		} else {
 			LOGGER.error("Errors in adding " + row + " to " + getTable(row.getSchema()));
@@ -258,12 +130,23 @@ public class TableDao implements ITableDao {
 
 		boolean ok = true;
 
+		PersistencePlan plan = row.getSchema().getPersistencePlan();
+
+		// write only the changed values
+		int[] columns = plan.getChangedColumns(row);
+
+		if (columns.length == 0) {
+			LOGGER.debug("Row " + row.getDatabaseId() + " of " + getTable(row.getSchema())
+					+ " was not changed, skipping update");
+			return true;
+		}
+
 		try (Connection con = Database.getConnection();
-				PreparedStatement stmt = con.prepareStatement(getUpdateQuery(row.getSchema()));) {
+				PreparedStatement stmt = con.prepareStatement(plan.getUpdateQuery(columns));) {
 
 			// set the row values in the parameters
 			// with the where id included
-			setParameters(row, stmt, true);
+			plan.bindUpdate(row, stmt, columns);
 
 			// insert the element
 			stmt.executeUpdate();
@@ -275,7 +158,11 @@ public class TableDao implements ITableDao {
 			ok = false;
 		}
 
+		// the parents cache must read the new values
+		ParentCache.getInstance().invalidate(row.getSchema().getSheetName(), row.getDatabaseId());
+
 		if (ok) {
+			row.clearChanges();
 			LOGGER.debug("Row " + row.getDatabaseId() + " successfully updated in " + getTable(row.getSchema()));
 		} else {
 			LOGGER.error("Errors in updating " + row + " for " + getTable(row.getSchema()));
@@ -294,7 +181,9 @@ public class TableDao implements ITableDao {
 
 		boolean ok = true;
 
-		String query = "delete from " + getTable(schema);
+		String query = schema.getPersistencePlan().getDeleteAllQuery();
+
+		ParentCache.getInstance().invalidate(schema.getSheetName());
 
 		try (Connection con = Database.getConnection(); PreparedStatement stmt = con.prepareStatement(query);) {
 
@@ -326,9 +215,9 @@ public class TableDao implements ITableDao {
 
 		boolean ok = true;
 
-		Relation r = schema.getRelationByParentTable(parentTable);
+		String query = schema.getPersistencePlan().getParentQueries(parentTable).getDeleteQuery();
 
-		String query = "delete from " + getTable(schema) + " where " + r.getForeignKey() + " = ?";
+		ParentCache.getInstance().invalidate(schema.getSheetName());
 
 		try (Connection con = Database.getConnection(); PreparedStatement stmt = con.prepareStatement(query);) {
 
@@ -347,7 +236,10 @@ public class TableDao implements ITableDao {
 	}
 
 	/**
-	 * Get a row from the result set
+	 * Get a row from the result set. Note that solving the formulas can read
+	 * the parents of the row with other connections, while the connection of
+	 * the result set is still borrowed. The methods of the dao read the rows
+	 * without formulas and solve them after the connection is closed.
 	 * 
 	 * @param rs
 	 * @return
@@ -357,6 +249,47 @@ public class TableDao implements ITableDao {
 
 		// here we need all the columns because we also
 		// compute composite fields
+		TableRow row = readRow(schema, schema, rs);
+
+		if (solveFormulas)
+			solveFormulas(row);
+
+		return row;
+	}
+
+	/**
+	 * Solve the formulas of a row read from the database. It is called only
+	 * after the connection used to read the row is given back to the pool,
+	 * since the formulas can read other rows (as the parents of the row)
+	 * 
+	 * @param row
+	 */
+	protected void solveFormulas(TableRow row) {
+		row.updateFormulas();
+	}
+
+	/**
+	 * Solve the formulas of rows read from the database
+	 * 
+	 * @param rows
+	 */
+	private void solveFormulas(Collection<TableRow> rows) {
+		for (TableRow row : rows)
+			solveFormulas(row);
+	}
+
+	/**
+	 * Get a row from the result set, reading only the chosen columns, without
+	 * solving its formulas
+	 * 
+	 * @param schema
+	 * @param columns
+	 * @param rs
+	 * @return
+	 * @throws SQLException
+	 */
+	private TableRow readRow(TableSchema schema, Iterable<TableColumn> columns, ResultSet rs) throws SQLException {
+
 		TableRow row = new TableRow(schema);
 
 		// put the id
@@ -367,7 +300,7 @@ public class TableDao implements ITableDao {
 		sel.setLabel(String.valueOf(id));
 		row.put(schema.getTableIdField(), sel);
 
-		for (TableColumn column : schema) {
+		for (TableColumn column : columns) {
 
 			TableCell selection = null;
 
@@ -388,7 +321,7 @@ public class TableDao implements ITableDao {
 				String value = null;
 
 				try {
-					value = rs.getString(column.getId());
+					value = column.getStorageType().read(rs, column.getId());
 				} catch (SQLException e) {
 					LOGGER.error("Error in accessing column", e);
 				}
@@ -406,6 +339,7 @@ public class TableDao implements ITableDao {
 					if (code != null && !code.isEmpty()) {
 
 						XmlContents contents = XmlLoader.getByPicklistKey(column.getPicklistKey());
+						Selection element = contents == null ? null : contents.getElementByCode(code);
 
 						if (contents == null) {
 
@@ -415,7 +349,7 @@ public class TableDao implements ITableDao {
 									+ column.getPicklistKey() + ". Putting an empty value.");
 
 							selection = new TableCell();
-						} else if (contents.getElementByCode(code) == null) {
+						} else if (element == null) {
 
 							LOGGER.error("IMPORTANT: The element " + code + " is missing in the picklist "
 									+ column.getPicklistKey() + " in the " + AppPaths.XML_FOLDER
@@ -423,7 +357,7 @@ public class TableDao implements ITableDao {
 
 							selection = new TableCell();
 						} else {
-							selection = new TableCell(contents.getElementByCode(code));
+							selection = new TableCell(element);
 						}
 					} else
 						selection = new TableCell();
@@ -447,9 +381,9 @@ public class TableDao implements ITableDao {
 			row.put(column.getId(), selection);
 		}
 
-		// solve automatic fields
-		if (solveFormulas)
-			row.updateFormulas();
+		// the values are the ones of the database, the formulas
+		// which give a different result are changes to be saved
+		row.clearChanges();
 
 		return row;
 	}
@@ -474,10 +408,7 @@ public class TableDao implements ITableDao {
 
 		TableRowList rows = new TableRowList(schema);
 
-		Relation r = schema.getRelationByParentTable(parentTable);
-
-		String query = "select * from " + getTable(schema) + " where " + r.getForeignKey() + " = ? order by "
-				+ schema.getTableIdField() + " " + order;
+		String query = schema.getPersistencePlan().getParentQueries(parentTable).getSelectQuery(order);
 
 		try (Connection con = Database.getConnection(); PreparedStatement stmt = con.prepareStatement(query);) {
 
@@ -488,7 +419,7 @@ public class TableDao implements ITableDao {
 
 				while (rs.next()) {
 
-					TableRow row = getByResultSet(schema, rs, solveFormulas);
+					TableRow row = readRow(schema, schema, rs);
 
 					if (row != null)
 						rows.add(row);
@@ -503,6 +434,10 @@ public class TableDao implements ITableDao {
 			e.printStackTrace();
 		}
 
+		// solve automatic fields, once the connection is released
+		if (solveFormulas)
+			solveFormulas(rows);
+
 		return rows;
 	}
 
@@ -516,14 +451,14 @@ public class TableDao implements ITableDao {
 
 		TableRowList rows = new TableRowList(schema);
 
-		String query = "select * from " + getTable(schema) + " order by " + schema.getTableIdField() + " asc";
+		String query = schema.getPersistencePlan().getSelectAllQuery();
 
 		try (Connection con = Database.getConnection(); PreparedStatement stmt = con.prepareStatement(query);) {
 
 			try (ResultSet rs = stmt.executeQuery();) {
 				while (rs.next()) {
 
-					TableRow row = getByResultSet(schema, rs, true);
+					TableRow row = readRow(schema, schema, rs);
 					if (row != null)
 						rows.add(row);
 				}
@@ -537,6 +472,337 @@ public class TableDao implements ITableDao {
 			e.printStackTrace();
 		}
 
+		// solve automatic fields, once the connection is released
+		solveFormulas(rows);
+
+		return rows;
+	}
+
+	/**
+	 * Read all the rows of the table one at a time, ordered by id, without
+	 * keeping them in memory
+	 * 
+	 * @param schema
+	 * @param action called for each row, with the formulas solved
+	 * @throws SQLException
+	 */
+	public void forEach(TableSchema schema, Consumer<TableRow> action) throws SQLException {
+		forEach(new TableQuery(schema), action);
+	}
+
+	/**
+	 * Read the rows of a query one at a time, ordered by id, without keeping
+	 * them in memory. The rows are read one page at a time, as in
+	 * {@link #iterate(TableQuery)}, but an error stops the reading instead of
+	 * ending it as if there were no more rows.
+	 * 
+	 * @param query
+	 * @param action called for each row
+	 * @throws SQLException
+	 */
+	public void forEach(TableQuery query, Consumer<TableRow> action) throws SQLException {
+
+		int lastId = 0;
+		TableRowList page;
+
+		do {
+
+			page = readPage(query, lastId);
+
+			for (TableRow row : page) {
+
+				// the connection of the page is already released
+				if (query.isSolveFormulas())
+					solveFormulas(row);
+
+				action.accept(row);
+			}
+
+			if (!page.isEmpty())
+				lastId = page.get(page.size() - 1).getDatabaseId();
+
+		} while (page.size() >= query.getPageSize());
+	}
+
+	/**
+	 * Open a forward only cursor over the rows of a query, ordered by id. The
+	 * cursor must be closed.
+	 * 
+	 * @param query
+	 * @return the cursor, empty if the query could not be executed
+	 */
+	public ITableCursor iterate(TableQuery query) {
+
+		try {
+			return new TableCursor(this, query);
+		} catch (SQLException e) {
+			LOGGER.error("Cannot read the rows of " + query, e);
+			e.printStackTrace();
+		}
+
+		return new ITableCursor() {
+
+			@Override
+			public boolean hasNext() {
+				return false;
+			}
+
+			@Override
+			public TableRow next() {
+				throw new NoSuchElementException();
+			}
+
+			@Override
+			public void close() {
+			}
+		};
+	}
+
+	/**
+	 * Get a page of the rows of a query, that is the first
+	 * {@link TableQuery#getPageSize()} rows with an id greater than
+	 * {@code afterId}. The next page is obtained passing the id of the last row
+	 * of the page (keyset pagination), until an empty page is returned.
+	 * 
+	 * @param query
+	 * @param afterId id of the last row of the previous page, 0 for the first
+	 *                page
+	 * @return
+	 */
+	public TableRowList getPage(TableQuery query, int afterId) {
+
+		TableRowList rows = new TableRowList(query.getSchema());
+
+		try {
+			rows.addAll(readPage(query, afterId));
+		} catch (SQLException e) {
+			LOGGER.error("Cannot get the page after id=" + afterId + " of " + query, e);
+			e.printStackTrace();
+		}
+
+		// solve automatic fields, once the connection is released
+		if (query.isSolveFormulas())
+			solveFormulas(rows);
+
+		return rows;
+	}
+
+	/**
+	 * Read a page of the rows of a query, without solving their formulas
+	 * 
+	 * @param query
+	 * @param afterId id of the last row of the previous page
+	 * @return
+	 * @throws SQLException
+	 */
+	TableRowList readPage(TableQuery query, int afterId) throws SQLException {
+
+		TableRowList rows = new TableRowList(query.getSchema());
+
+		try (Connection con = Database.getConnection();
+				PreparedStatement stmt = con.prepareStatement(getSelectQuery(query, true));) {
+
+			setSelectParameters(query, stmt, afterId);
+
+			try (ResultSet rs = stmt.executeQuery();) {
+				while (rs.next()) {
+
+					TableRow row = readRow(query.getSchema(), query.getColumns(), rs);
+					if (row != null)
+						rows.add(row);
+				}
+			}
+		}
+
+		return rows;
+	}
+
+	/**
+	 * Get the select statement of a query
+	 * 
+	 * @param query
+	 * @param paged true to read only a page of rows after an id
+	 * @return
+	 */
+	String getSelectQuery(TableQuery query, boolean paged) {
+
+		TableSchema schema = query.getSchema();
+		String idField = schema.getTableIdField();
+
+		StringBuilder sql = new StringBuilder("select ");
+
+		if (query.getColumnIds() == null) {
+			sql.append("*");
+		} else {
+			sql.append(idField);
+			for (TableColumn column : query.getColumns())
+				sql.append(",").append(column.getId());
+		}
+
+		sql.append(" from ").append(getTable(schema));
+
+		String where = " where ";
+
+		if (query.hasParent()) {
+			String foreignKey = schema.getPersistencePlan().getParentQueries(query.getParentTable()).getForeignKey();
+			sql.append(where).append(foreignKey).append(" = ?");
+			where = " and ";
+		}
+
+		if (paged)
+			sql.append(where).append(idField).append(" > ?");
+
+		sql.append(" order by ").append(idField).append(" asc");
+
+		if (paged)
+			sql.append(" fetch first ").append(query.getPageSize()).append(" rows only");
+
+		return sql.toString();
+	}
+
+	/**
+	 * Set the parameters of {@link #getSelectQuery(TableQuery, boolean)}
+	 * 
+	 * @param query
+	 * @param stmt
+	 * @param afterId id after which the page starts, ignored if negative
+	 * @throws SQLException
+	 */
+	void setSelectParameters(TableQuery query, PreparedStatement stmt, int afterId) throws SQLException {
+
+		int index = 1;
+
+		if (query.hasParent())
+			stmt.setInt(index++, query.getParentId());
+
+		if (afterId >= 0)
+			stmt.setInt(index++, afterId);
+	}
+
+	/**
+	 * Get the ids of all the rows of the table, ordered by id
+	 * 
+	 * @param schema
+	 * @return
+	 */
+	public int[] getIds(TableSchema schema) {
+
+		String query = schema.getPersistencePlan().getSelectIdsQuery();
+
+		try (Connection con = Database.getConnection(); PreparedStatement stmt = con.prepareStatement(query);) {
+			return readIds(stmt);
+		} catch (SQLException e) {
+			LOGGER.error("Cannot get the ids of the rows", e);
+			e.printStackTrace();
+		}
+
+		return new int[0];
+	}
+
+	/**
+	 * Get the ids of all the rows that has as parent the {@code parentId} in the
+	 * parent table {@code parentTable}, ordered by id
+	 * 
+	 * @param schema
+	 * @param parentTable
+	 * @param parentId
+	 * @return
+	 */
+	public int[] getIdsByParentId(TableSchema schema, String parentTable, int parentId) {
+
+		String query = schema.getPersistencePlan().getParentQueries(parentTable).getSelectIdsQuery();
+
+		try (Connection con = Database.getConnection(); PreparedStatement stmt = con.prepareStatement(query);) {
+
+			stmt.setInt(1, parentId);
+
+			return readIds(stmt);
+
+		} catch (SQLException e) {
+			LOGGER.error("Cannot get the ids of the rows by parentId=" + parentId, e);
+			e.printStackTrace();
+		}
+
+		return new int[0];
+	}
+
+	/**
+	 * Execute a query which returns only the ids
+	 * 
+	 * @param stmt
+	 * @return
+	 * @throws SQLException
+	 */
+	private int[] readIds(PreparedStatement stmt) throws SQLException {
+
+		int[] ids = new int[256];
+		int size = 0;
+
+		try (ResultSet rs = stmt.executeQuery();) {
+			while (rs.next()) {
+
+				if (size == ids.length)
+					ids = Arrays.copyOf(ids, size * 2);
+
+				ids[size++] = rs.getInt(1);
+			}
+		}
+
+		return Arrays.copyOf(ids, size);
+	}
+
+	/**
+	 * Get the rows with the chosen ids, ordered by id. All the ids are put in the
+	 * same query, therefore it should be used for small windows of the table.
+	 * 
+	 * @param schema
+	 * @param ids
+	 * @param solveFormulas
+	 * @return
+	 */
+	public TableRowList getByIds(TableSchema schema, int[] ids, boolean solveFormulas) {
+
+		TableRowList rows = new TableRowList(schema);
+
+		if (ids.length == 0)
+			return rows;
+
+		StringBuilder query = new StringBuilder();
+		query.append("select * from ").append(getTable(schema)).append(" where ").append(schema.getTableIdField())
+				.append(" in (");
+
+		for (int i = 0; i < ids.length; ++i) {
+			if (i > 0)
+				query.append(",");
+			query.append("?");
+		}
+
+		query.append(") order by ").append(schema.getTableIdField()).append(" asc");
+
+		try (Connection con = Database.getConnection();
+				PreparedStatement stmt = con.prepareStatement(query.toString());) {
+
+			for (int i = 0; i < ids.length; ++i)
+				stmt.setInt(i + 1, ids[i]);
+
+			try (ResultSet rs = stmt.executeQuery();) {
+				while (rs.next()) {
+
+					TableRow row = readRow(schema, schema, rs);
+					if (row != null)
+						rows.add(row);
+				}
+			}
+
+		} catch (SQLException e) {
+			LOGGER.error("Cannot get the rows by ids", e);
+			e.printStackTrace();
+		}
+
+		// solve automatic fields, once the connection is released
+		if (solveFormulas)
+			solveFormulas(rows);
+
 		return rows;
 	}
 
@@ -550,7 +816,9 @@ public class TableDao implements ITableDao {
 
 		boolean ok = true;
 
-		String query = "delete from " + getTable(schema) + " where " + schema.getTableIdField() + " = ?";
+		String query = schema.getPersistencePlan().getDeleteByIdQuery();
+
+		ParentCache.getInstance().invalidate(schema.getSheetName(), rowId);
 
 		try (Connection con = Database.getConnection(); PreparedStatement stmt = con.prepareStatement(query);) {
 
@@ -565,7 +833,7 @@ public class TableDao implements ITableDao {
 		}
 
 		if (ok) {
-			LOGGER.info("Row " + rowId + " successfully deleted from " + getTable(schema));
+			LOGGER.debug("Row " + rowId + " successfully deleted from " + getTable(schema));
 		} else {
 			LOGGER.error("Row " + rowId + " cannot be deleted from " + getTable(schema));
 		}
@@ -583,7 +851,7 @@ public class TableDao implements ITableDao {
 
 		TableSchema schema = list.get(0).getSchema();
 
-		String query = "delete from " + getTable(schema) + " where " + schema.getTableIdField() + " = ?";
+		String query = schema.getPersistencePlan().getDeleteByIdQuery();
 
 		try (Connection con = Database.getConnection(); PreparedStatement stmt = con.prepareStatement(query);) {
 
@@ -591,6 +859,8 @@ public class TableDao implements ITableDao {
 				stmt.setInt(1, row.getDatabaseId());
 
 				stmt.addBatch();
+
+				ParentCache.getInstance().invalidate(schema.getSheetName(), row.getDatabaseId());
 			}
 
 			stmt.executeBatch();
@@ -661,47 +931,157 @@ public class TableDao implements ITableDao {
 	*/
 
 	/**
-	 * shahaal add the cloned rows in db
+	 * Add a collection of rows to the table in bulk, using the default batch
+	 * size
 	 * 
-	 * @param list
+	 * @param rows
 	 * @return
 	 */
-	public boolean addAll(TableRowList list) {
+	public int[] addAll(Collection<TableRow> rows) {
+		return addAll(rows, PropertiesReader.getDbBatchSize());
+	}
 
-		boolean ok = true;
+	/**
+	 * Add a collection of rows to the table in bulk. All the rows must follow
+	 * the same schema. A single prepared statement is used and the rows are
+	 * sent to the database in batches of {@code batchSize} elements. Everything
+	 * is done in a single transaction, therefore either all the rows are added
+	 * or none.
+	 * 
+	 * @param rows
+	 * @param batchSize
+	 * @return the generated ids, in the same order of the rows, or null if the
+	 *         rows could not be added
+	 */
+	public int[] addAll(Collection<TableRow> rows, int batchSize) {
 
-		if (list.isEmpty())
-			return ok;
+		if (rows.isEmpty())
+			return new int[0];
 
-		TableSchema schema = list.get(0).getSchema();
+		if (batchSize <= 0)
+			throw new IllegalArgumentException("The batch size must be positive, found=" + batchSize);
 
-		try (Connection con = Database.getConnection();
-				PreparedStatement stmt = con.prepareStatement(getAddQuery(schema), Statement.RETURN_GENERATED_KEYS);) {
+		TableSchema schema = rows.iterator().next().getSchema();
 
-			int count = 0;
+		int[] ids = new int[rows.size()];
 
-			for (TableRow row : list) {
-				// set the row values in the parameters
-				setParameters(row, stmt, false);
+		try (Connection con = Database.getConnection();) {
+
+			con.setAutoCommit(false);
 
-				// add the batch and increment the counter
-				// stmt.addBatch();
-				count++;
+			try (Statement lock = con.createStatement();
+					PreparedStatement stmt = con.prepareStatement(schema.getPersistencePlan().getInsertQuery(),
+							Statement.RETURN_GENERATED_KEYS);) {
 
-				// execute the batch
-				if (count == list.size()) {
-					// insert the elements
-					stmt.executeUpdate();
+				// lock the table in order to get consecutive ids in each batch
+				lock.execute("lock table " + getTable(schema) + " in exclusive mode");
+
+				int added = 0;
+				int pending = 0;
+
+				for (TableRow row : rows) {
+
+					if (!schema.equals(row.getSchema()))
+						throw new SQLException("Cannot add rows of " + getTable(row.getSchema()) + " together with rows of "
+								+ getTable(schema));
+
+					// set the row values in the parameters
+					setParameters(row, stmt, false);
+					stmt.addBatch();
+					pending++;
+
+					if (pending == batchSize) {
+						executeBatch(con, stmt, schema, ids, added, pending);
+						added += pending;
+						pending = 0;
+					}
 				}
+
+				// send the remaining rows
+				if (pending > 0)
+					executeBatch(con, stmt, schema, ids, added, pending);
+
+				con.commit();
+
+			} catch (SQLException e) {
+				con.rollback();
+				throw e;
 			}
 
 		} catch (SQLException e) {
-			LOGGER.error("Cannot add list of records", e);
+			LOGGER.error("Cannot add list of records to " + getTable(schema), e);
 			e.printStackTrace();
-			ok = false;
+			return null;
 		}
 
-		return ok;
+		for (TableRow row : rows)
+			row.clearChanges();
+
+		LOGGER.debug(ids.length + " rows successfully added in " + getTable(schema));
+
+		return ids;
+	}
+
+	/**
+	 * Execute the pending batch of insertions and save the generated ids in
+	 * {@code ids}, starting from the {@code offset} position
+	 * 
+	 * @param con
+	 * @param stmt
+	 * @param schema
+	 * @param ids
+	 * @param offset
+	 * @param count  number of rows in the batch
+	 * @throws SQLException
+	 */
+	private void executeBatch(Connection con, PreparedStatement stmt, TableSchema schema, int[] ids, int offset,
+			int count) throws SQLException {
+
+		stmt.executeBatch();
+
+		int lastId = -1;
+		int keys = 0;
+
+		try (ResultSet rs = stmt.getGeneratedKeys();) {
+			while (rs != null && rs.next()) {
+				lastId = rs.getInt(1);
+				if (keys < count)
+					ids[offset + keys] = lastId;
+				keys++;
+			}
+		}
+
+		// the driver returned all the keys
+		if (keys == count)
+			return;
+
+		// the embedded driver returns only the key of the last row of the batch
+		if (lastId == -1) {
+			try (Statement identity = con.createStatement();
+					ResultSet rs = identity.executeQuery("values IDENTITY_VAL_LOCAL()");) {
+				if (rs.next())
+					lastId = rs.getInt(1);
+			}
+		}
+
+		// the table is locked, therefore the ids of the batch are consecutive
+		int firstId = lastId - count + 1;
+
+		String query = schema.getPersistencePlan().getCountBetweenIdsQuery();
+
+		try (PreparedStatement check = con.prepareStatement(query);) {
+
+			check.setInt(1, firstId);
+			check.setInt(2, lastId);
+
+			try (ResultSet rs = check.executeQuery();) {
+				if (!rs.next() || rs.getInt(1) != count)
+					throw new SQLException("Cannot retrieve the generated ids of the batch in " + getTable(schema));
+			}
+		}
+
+		for (int i = 0; i < count; ++i)
+			ids[offset + i] = firstId + i;
 	}
 
 	/**
@@ -717,9 +1097,11 @@ public class TableDao implements ITableDao {
 
 		String query = "delete from " + getTable(schema) + " where " + fieldName + " = ?";
 
+		ParentCache.getInstance().invalidate(schema.getSheetName());
+
 		try (Connection con = Database.getConnection(); PreparedStatement stmt = con.prepareStatement(query);) {
 
-			stmt.setString(1, value);
+			setFieldParameter(schema, fieldName, stmt, value);
 			stmt.executeUpdate();
 
 		} catch (SQLException e) {
@@ -747,7 +1129,7 @@ public class TableDao implements ITableDao {
 
 		TableRow row = null;
 
-		String query = "select * from " + getTable(schema) + " where " + schema.getTableIdField() + " = ?";
+		String query = schema.getPersistencePlan().getSelectByIdQuery();
 
 		try (Connection con = Database.getConnection(); PreparedStatement stmt = con.prepareStatement(query);) {
 
@@ -755,7 +1137,7 @@ public class TableDao implements ITableDao {
 
 			try (ResultSet rs = stmt.executeQuery();) {
 				if (rs.next()) {
-					row = getByResultSet(schema, rs, true);
+					row = readRow(schema, schema, rs);
 				}
 			} catch (SQLException e) {
 				LOGGER.error("Error in getting all the rows by id " + id, e);
@@ -767,6 +1149,10 @@ public class TableDao implements ITableDao {
 			e.printStackTrace();
 		}
 
+		// solve automatic fields, once the connection is released
+		if (row != null)
+			solveFormulas(row);
+
 		return row;
 	}
 
@@ -785,11 +1171,11 @@ public class TableDao implements ITableDao {
 
 		try (Connection con = Database.getConnection(); PreparedStatement stmt = con.prepareStatement(query);) {
 
-			stmt.setString(1, value);
+			setFieldParameter(schema, fieldName, stmt, value);
 
 			try (ResultSet rs = stmt.executeQuery();) {
 				while (rs.next()) {
-					TableRow row = getByResultSet(schema, rs, true);
+					TableRow row = readRow(schema, schema, rs);
 					rows.add(row);
 				}
 			} catch (SQLException e) {
@@ -802,6 +1188,9 @@ public class TableDao implements ITableDao {
 			e.printStackTrace();
 		}
 
+		// solve automatic fields, once the connection is released
+		solveFormulas(rows);
+
 		return rows;
 	}
 }
@@ -0,0 +1,64 @@
+package table_database;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Secondary index of a table of the database
+ *
+ */
+public class TableIndex {
+
+	private String tableName;
+	private String name;
+	private List<String> columns;
+
+	public TableIndex(String tableName, String name, List<String> columns) {
+		this.tableName = tableName;
+		this.name = name;
+		this.columns = new ArrayList<>(columns);
+	}
+
+	public String getTableName() {
+		return tableName;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Get the indexed columns, in order
+	 *
+	 * @return
+	 */
+	public List<String> getColumns() {
+		return columns;
+	}
+
+	/**
+	 * Check if the index covers the same columns of another index (the
+	 * database stores the identifiers in upper case, therefore the case is
+	 * ignored)
+	 *
+	 * @param other
+	 * @return
+	 */
+	public boolean hasSameColumns(TableIndex other) {
+
+		if (other.columns.size() != columns.size())
+			return false;
+
+		for (int i = 0; i < columns.size(); ++i) {
+			if (!columns.get(i).equalsIgnoreCase(other.columns.get(i)))
+				return false;
+		}
+
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "TableIndex: table=" + tableName + ";name=" + name + ";columns=" + columns;
+	}
+}
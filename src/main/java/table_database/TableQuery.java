@@ -0,0 +1,147 @@
+package table_database;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import table_skeleton.TableColumn;
+import xlsx_reader.TableSchema;
+
+/**
+ * Options of a read of the rows of a table, used by
+ * {@link ITableDao#getPage(TableQuery, int)} and
+ * {@link ITableDao#iterate(TableQuery)}. Rows are always read in id order.
+ *
+ * <pre>
+ * TableQuery query = new TableQuery(schema).setParent(parentTable, parentId)
+ * 		.setColumns(Arrays.asList("col1", "col2")).setSolveFormulas(false);
+ * </pre>
+ *
+ */
+public class TableQuery {
+
+	public static final int DEFAULT_PAGE_SIZE = 500;
+
+	private final TableSchema schema;
+	private String parentTable;
+	private int parentId;
+	private Collection<String> columnIds; // null => all columns
+	private boolean solveFormulas;
+	private int pageSize;
+
+	/**
+	 * Read all the rows and all the columns of the table, solving the formulas
+	 *
+	 * @param schema
+	 */
+	public TableQuery(TableSchema schema) {
+		this.schema = schema;
+		this.solveFormulas = true;
+		this.pageSize = DEFAULT_PAGE_SIZE;
+	}
+
+	/**
+	 * Read only the children of a parent row
+	 *
+	 * @param parentTable
+	 * @param parentId
+	 * @return
+	 */
+	public TableQuery setParent(String parentTable, int parentId) {
+		this.parentTable = parentTable;
+		this.parentId = parentId;
+		return this;
+	}
+
+	/**
+	 * Read only some columns. The id and the foreign keys are always read.
+	 * Formulas which use the excluded columns are not solved correctly,
+	 * therefore they should be used together with
+	 * {@link #setSolveFormulas(boolean)} set to false.
+	 *
+	 * @param columnIds ids of the columns, null to read all of them
+	 * @return
+	 */
+	public TableQuery setColumns(Collection<String> columnIds) {
+		this.columnIds = columnIds;
+		return this;
+	}
+
+	/**
+	 * Choose if the code and label formulas are solved for each row read
+	 *
+	 * @param solveFormulas
+	 * @return
+	 */
+	public TableQuery setSolveFormulas(boolean solveFormulas) {
+		this.solveFormulas = solveFormulas;
+		return this;
+	}
+
+	/**
+	 * Set the maximum number of rows of a page, also used as fetch size of the
+	 * cursors
+	 *
+	 * @param pageSize
+	 * @return
+	 */
+	public TableQuery setPageSize(int pageSize) {
+
+		if (pageSize <= 0)
+			throw new IllegalArgumentException("The page size must be positive, found " + pageSize);
+
+		this.pageSize = pageSize;
+		return this;
+	}
+
+	public TableSchema getSchema() {
+		return schema;
+	}
+
+	public String getParentTable() {
+		return parentTable;
+	}
+
+	public int getParentId() {
+		return parentId;
+	}
+
+	public boolean hasParent() {
+		return parentTable != null;
+	}
+
+	public Collection<String> getColumnIds() {
+		return columnIds;
+	}
+
+	public boolean isSolveFormulas() {
+		return solveFormulas;
+	}
+
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	/**
+	 * Get the columns which are read, in the schema order
+	 *
+	 * @return
+	 */
+	public List<TableColumn> getColumns() {
+
+		List<TableColumn> columns = new ArrayList<>();
+
+		for (TableColumn column : schema) {
+			if (columnIds == null || column.isForeignKey() || columnIds.contains(column.getId()))
+				columns.add(column);
+		}
+
+		return columns;
+	}
+
+	@Override
+	public String toString() {
+		return "TableQuery: table=" + schema.getSheetName() + ";parentTable=" + parentTable + ";parentId="
+				+ parentId + ";columns=" + columnIds + ";solveFormulas=" + solveFormulas + ";pageSize=" + pageSize;
+	}
+}
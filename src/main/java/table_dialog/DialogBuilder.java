@@ -631,6 +631,29 @@ public class DialogBuilder {
 		table.setInput(row);
 	}
 
+	/**
+	 * Set the table input, loading the rows only when they are visible
+	 * 
+	 * @param rowIds
+	 */
+	public void setLazyInput(int[] rowIds) {
+		setLazyInput(rowIds, null);
+	}
+
+	/**
+	 * Set the table input, loading the rows only when they are visible
+	 * 
+	 * @param rowIds
+	 * @param parent parent of the rows, null if they are not filtered by parent
+	 */
+	public void setLazyInput(int[] rowIds, TableRow parent) {
+
+		if (table == null)
+			return;
+
+		table.setLazyInput(rowIds, parent);
+	}
+
 	/**
 	 * Clear all the records
 	 */
@@ -0,0 +1,522 @@
+package table_dialog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.jface.viewers.ILazyContentProvider;
+import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.jface.viewers.Viewer;
+
+import table_database.ITableCursor;
+import table_database.ITableDao;
+import table_database.TableQuery;
+import table_skeleton.TableColumn;
+import table_skeleton.TableRow;
+import table_skeleton.TableRowList;
+import xlsx_reader.TableSchema;
+
+/**
+ * Lazy content provider of the {@link TableView}. Only the ids of the rows are
+ * kept in memory, the rows are loaded from the database one page at a time
+ * when they become visible in the table. Only the last used pages are kept in
+ * memory. The rows with values not saved in the database are kept until they
+ * are saved, also when their page is removed.
+ *
+ * The input of the viewer is ignored, the rows are set with
+ * {@link #setIds(int[])}. Sorting and checking the mandatory fields read the
+ * rows from the database one at a time, without keeping them in memory.
+ *
+ */
+public class LazyTableContentProvider implements ILazyContentProvider {
+
+	public static final int DEFAULT_PAGE_SIZE = 100;
+	public static final int DEFAULT_MAX_PAGES = 10;
+
+	private final TableViewer viewer;
+	private final TableSchema schema;
+	private final ITableDao dao;
+	private final int pageSize;
+
+	private int[] ids; // ids of the rows, in the order of the table
+	private int size;
+	private Map<Integer, Integer> positions; // position of each id, null if to be computed
+
+	private String parentTable; // parent of the rows, null if all the rows of the table
+	private int parentId;
+
+	private Map<Integer, TableRow[]> pages; // last used pages
+	private Map<Integer, TableRow> changedRows; // rows not saved, whose page was removed
+	private Set<Integer> notFilledIds; // rows with mandatory fields not filled, null if to be computed
+
+	public LazyTableContentProvider(TableViewer viewer, TableSchema schema, ITableDao dao) {
+		this(viewer, schema, dao, DEFAULT_PAGE_SIZE, DEFAULT_MAX_PAGES);
+	}
+
+	/**
+	 * @param viewer   viewer which shows the rows
+	 * @param schema   schema of the rows
+	 * @param dao      dao used to load the rows
+	 * @param pageSize number of rows loaded with a single query
+	 * @param maxPages number of pages kept in memory
+	 */
+	public LazyTableContentProvider(TableViewer viewer, TableSchema schema, ITableDao dao, int pageSize,
+			int maxPages) {
+
+		this.viewer = viewer;
+		this.schema = schema;
+		this.dao = dao;
+		this.pageSize = pageSize;
+		this.ids = new int[0];
+		this.changedRows = new HashMap<>();
+
+		this.pages = new LinkedHashMap<Integer, TableRow[]>(maxPages + 1, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, TableRow[]> eldest) {
+
+				if (size() <= maxPages)
+					return false;
+
+				release(eldest.getValue());
+				return true;
+			}
+		};
+	}
+
+	@Override
+	public void dispose() {
+		pages.clear();
+		changedRows.clear();
+	}
+
+	@Override
+	public void inputChanged(Viewer viewer, Object oldInput, Object newInput) {
+	}
+
+	@Override
+	public void updateElement(int index) {
+
+		TableRow row = getRow(index);
+
+		// as the eager provider, show only the visible fields
+		if (row != null)
+			viewer.replace(row.getVisibleFields(), index);
+	}
+
+	/**
+	 * Set the ids of the rows which are shown in the table. The rows not
+	 * saved of the previous ids are discarded.
+	 *
+	 * @param ids
+	 */
+	public void setIds(int[] ids) {
+		this.ids = ids;
+		this.size = ids.length;
+		this.positions = null;
+		this.pages.clear();
+		this.changedRows.clear();
+		this.notFilledIds = null;
+	}
+
+	/**
+	 * Set the parent of the rows, so that only its children are read when the
+	 * rows are sorted or checked. By default all the rows of the table are read.
+	 *
+	 * @param parentTable null to read all the rows of the table
+	 * @param parentId
+	 */
+	public void setParent(String parentTable, int parentId) {
+		this.parentTable = parentTable;
+		this.parentId = parentId;
+	}
+
+	/**
+	 * Get the ids of the rows, in the order of the table
+	 *
+	 * @return
+	 */
+	public int[] getIds() {
+		return Arrays.copyOf(ids, size);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Get the row at the chosen position, loading its page if needed
+	 *
+	 * @param index
+	 * @return
+	 */
+	public TableRow getRow(int index) {
+
+		if (index < 0 || index >= size)
+			return null;
+
+		TableRow changed = changedRows.get(ids[index]);
+
+		if (changed != null)
+			return changed;
+
+		int page = index / pageSize;
+
+		TableRow[] rows = pages.get(page);
+
+		if (rows == null) {
+			rows = loadPage(page);
+			pages.put(page, rows);
+		}
+
+		return rows[index - page * pageSize];
+	}
+
+	/**
+	 * Get a row by its database id, from the loaded pages or from the database
+	 *
+	 * @param id
+	 * @return
+	 */
+	public TableRow getRowById(int id) {
+
+		int index = indexOf(id);
+
+		if (index == -1)
+			return null;
+
+		return getRow(index);
+	}
+
+	/**
+	 * Get the position of a row in the table
+	 *
+	 * @param id database id of the row
+	 * @return the position or -1 if not present
+	 */
+	public int indexOf(int id) {
+
+		if (positions == null) {
+			positions = new HashMap<>(size * 2);
+			for (int i = 0; i < size; ++i)
+				positions.put(ids[i], i);
+		}
+
+		Integer index = positions.get(id);
+
+		return index == null ? -1 : index;
+	}
+
+	/**
+	 * Load all the rows of the table, in the order of the table. The rows not
+	 * saved are returned with their current values.
+	 *
+	 * @return
+	 */
+	public TableRowList getAll() {
+
+		TableRowList all = new TableRowList(schema);
+
+		for (int i = 0; i < size; ++i) {
+			TableRow row = getRow(i);
+			if (row != null)
+				all.add(row);
+		}
+
+		return all;
+	}
+
+	/**
+	 * Add a row at the end of the table
+	 *
+	 * @param row
+	 */
+	public void add(TableRow row) {
+
+		if (size == ids.length)
+			ids = Arrays.copyOf(ids, Math.max(16, size * 2));
+
+		int index = size;
+		ids[size++] = row.getDatabaseId();
+
+		if (positions != null)
+			positions.put(row.getDatabaseId(), index);
+
+		// put it in its page, if loaded
+		TableRow[] rows = pages.get(index / pageSize);
+		if (rows != null) {
+			if (rows.length <= index % pageSize)
+				rows = Arrays.copyOf(rows, index % pageSize + 1);
+			rows[index % pageSize] = row;
+			pages.put(index / pageSize, rows);
+		} else {
+			release(new TableRow[] { row });
+		}
+	}
+
+	/**
+	 * Remove a row from the table
+	 *
+	 * @param id database id of the row
+	 */
+	public void remove(int id) {
+
+		int index = indexOf(id);
+
+		if (index == -1)
+			return;
+
+		System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+		size--;
+
+		changedRows.remove(id);
+
+		if (notFilledIds != null)
+			notFilledIds.remove(id);
+
+		// positions after the removed row are changed
+		positions = null;
+		clearPages();
+	}
+
+	/**
+	 * Remove all the loaded rows, they will be read again from the database.
+	 * The rows not saved are kept.
+	 */
+	public void invalidate() {
+		clearPages();
+		notFilledIds = null;
+	}
+
+	/**
+	 * Sort the rows by a column, as {@link TableRowComparator} does. Only the
+	 * values of the column are read from the database, the rows not saved are
+	 * sorted with their current values.
+	 *
+	 * @param column
+	 * @param ascendant
+	 */
+	public void sortBy(TableColumn column, boolean ascendant) {
+
+		TableQuery query = createQuery().setColumns(Collections.singleton(column.getId()))
+				.setSolveFormulas(false);
+
+		List<TableRow> rows = new ArrayList<>(size);
+		Set<Integer> read = new HashSet<>();
+
+		try (ITableCursor cursor = dao.iterate(query);) {
+			while (cursor.hasNext()) {
+
+				TableRow row = cursor.next();
+				int id = row.getDatabaseId();
+
+				if (indexOf(id) == -1)
+					continue;
+
+				TableRow loaded = getLoadedRow(id);
+				rows.add(loaded != null && loaded.isChanged() ? loaded : row);
+				read.add(id);
+			}
+		}
+
+		TableRowComparator.sort(rows, column, ascendant);
+
+		int[] sorted = new int[size];
+		int count = 0;
+
+		for (TableRow row : rows)
+			sorted[count++] = row.getDatabaseId();
+
+		// rows which could not be read, at the end
+		for (int i = 0; i < size; ++i) {
+			if (!read.contains(ids[i]))
+				sorted[count++] = ids[i];
+		}
+
+		// the rows not saved are kept, only the order changes
+		clearPages();
+		this.ids = sorted;
+		this.positions = null;
+	}
+
+	/**
+	 * Check if all the mandatory fields of the rows are filled. The rows are
+	 * read from the database only the first time, then the rows used in the
+	 * table are checked again with their current values.
+	 *
+	 * @return
+	 */
+	public boolean areMandatoryFilled() {
+
+		if (notFilledIds == null)
+			notFilledIds = readNotFilledIds();
+
+		// the loaded rows can be changed, check their current values
+		Set<Integer> checked = new HashSet<>();
+
+		for (TableRow row : changedRows.values()) {
+			checked.add(row.getDatabaseId());
+			if (!row.areMandatoryFilled())
+				return false;
+		}
+
+		for (TableRow[] rows : pages.values()) {
+			for (TableRow row : rows) {
+
+				if (row == null)
+					continue;
+
+				checked.add(row.getDatabaseId());
+				if (!row.areMandatoryFilled())
+					return false;
+			}
+		}
+
+		for (int id : notFilledIds) {
+			if (!checked.contains(id))
+				return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Read the rows one at a time and get the ones with mandatory fields not
+	 * filled
+	 *
+	 * @return ids of the rows
+	 */
+	private Set<Integer> readNotFilledIds() {
+
+		Set<Integer> notFilled = new HashSet<>();
+
+		try (ITableCursor cursor = dao.iterate(createQuery());) {
+			while (cursor.hasNext()) {
+
+				TableRow row = cursor.next();
+
+				if (indexOf(row.getDatabaseId()) != -1 && !row.areMandatoryFilled())
+					notFilled.add(row.getDatabaseId());
+			}
+		}
+
+		return notFilled;
+	}
+
+	/**
+	 * Get the query which reads the rows of the table
+	 *
+	 * @return
+	 */
+	private TableQuery createQuery() {
+
+		TableQuery query = new TableQuery(schema);
+
+		if (parentTable != null)
+			query.setParent(parentTable, parentId);
+
+		return query;
+	}
+
+	/**
+	 * Get a row if it is in memory, without loading it
+	 *
+	 * @param id
+	 * @return the row or null if not loaded
+	 */
+	private TableRow getLoadedRow(int id) {
+
+		TableRow row = changedRows.get(id);
+
+		if (row != null)
+			return row;
+
+		int index = indexOf(id);
+
+		if (index == -1)
+			return null;
+
+		TableRow[] rows = pages.get(index / pageSize);
+
+		if (rows == null || rows.length <= index % pageSize)
+			return null;
+
+		return rows[index % pageSize];
+	}
+
+	/**
+	 * Remove all the pages, keeping the rows not saved
+	 */
+	private void clearPages() {
+
+		for (TableRow[] rows : pages.values())
+			release(rows);
+
+		pages.clear();
+	}
+
+	/**
+	 * Called when rows are removed from memory. The rows not saved are kept,
+	 * and the state of their mandatory fields is remembered.
+	 *
+	 * @param rows
+	 */
+	private void release(TableRow[] rows) {
+
+		for (TableRow row : rows) {
+
+			if (row == null)
+				continue;
+
+			int id = row.getDatabaseId();
+
+			if (row.isChanged())
+				changedRows.put(id, row);
+			else
+				changedRows.remove(id);
+
+			if (notFilledIds != null) {
+				if (row.areMandatoryFilled())
+					notFilledIds.remove(id);
+				else
+					notFilledIds.add(id);
+			}
+		}
+	}
+
+	/**
+	 * Load a page of rows from the database
+	 *
+	 * @param page
+	 * @return
+	 */
+	private TableRow[] loadPage(int page) {
+
+		int from = page * pageSize;
+		int to = Math.min(size, from + pageSize);
+
+		int[] pageIds = Arrays.copyOfRange(ids, from, to);
+
+		Map<Integer, TableRow> byId = new HashMap<>();
+		for (TableRow row : dao.getByIds(schema, pageIds, true))
+			byId.put(row.getDatabaseId(), row);
+
+		// keep the order of the table, with the rows not saved
+		TableRow[] rows = new TableRow[pageIds.length];
+		for (int i = 0; i < pageIds.length; ++i) {
+
+			TableRow changed = changedRows.remove(pageIds[i]);
+
+			rows[i] = changed != null ? changed : byId.get(pageIds[i]);
+		}
+
+		return rows;
+	}
+}
@@ -1,7 +1,9 @@
 package table_dialog;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.Collection;
+import java.util.Collections;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.eclipse.jface.viewers.DoubleClickEvent;
@@ -21,11 +23,15 @@ import org.eclipse.swt.widgets.Listener;
 import org.eclipse.swt.widgets.Menu;
 import org.eclipse.swt.widgets.Shell;
 
+import app_config.PropertiesReader;
 import global_utils.Warnings;
 import i18n_messages.Messages;
+import providers.TableDaoService;
 import table_database.TableDao;
+import table_database.TableQuery;
 import table_dialog.DialogBuilder.RowCreationMode;
 import table_dialog.RowCreatorViewer.CatalogChangedListener;
+import table_exporter.TableToExcel;
 import table_list.TableMetaData;
 import table_skeleton.TableCell;
 import table_skeleton.TableColumn;
@@ -98,6 +104,7 @@ public abstract class TableDialog {
 	private boolean createPopUp;
 	private boolean addSaveBtn;
 	private boolean autoSave; // if rows should be auto saved in the db
+	private boolean lazyLoading; // if the rows of the parent filter are loaded only when visible
 
 	private EditorListener editorListener;
 
@@ -207,7 +214,7 @@ public abstract class TableDialog {
 					editorListener.editEnded(row, field, changed);
 
 				if (changed) {
-					panel.getTable().refreshAndSave(row, autoSave);
+					panel.getTable().refreshAndSave(row, autoSave, Collections.singleton(field.getId()));
 				}
 
 				if (saveButton != null)
@@ -350,10 +357,33 @@ public abstract class TableDialog {
 
 		this.panel.clearTable();
 
+		// big tables are loaded only when the rows become visible
+		int[] ids = getRowIds();
+		if (lazyLoading || ids.length > PropertiesReader.getLazyLoadingRows()) {
+			this.panel.setLazyInput(ids, parentFilter);
+			return;
+		}
+
 		TableRowList rows = getRows();
 		this.panel.setInput(rows);
 	}
 
+	/**
+	 * Load the rows of the table only when they become visible, instead of loading
+	 * all of them in memory. Used by {@link #setParentFilter(TableRow)}. Tables
+	 * with more rows than {@link PropertiesReader#getLazyLoadingRows()} are always
+	 * loaded in this way.
+	 * 
+	 * @param lazyLoading
+	 */
+	public void setLazyLoading(boolean lazyLoading) {
+		this.lazyLoading = lazyLoading;
+	}
+
+	public boolean isLazyLoading() {
+		return lazyLoading;
+	}
+
 	public void setRows(TableRowList rows) {
 		this.panel.setInput(rows);
 	}
@@ -717,6 +747,42 @@ public abstract class TableDialog {
 		return rows;
 	}
 
+	/**
+	 * Get the ids of the records of the current table, filtered as in
+	 * {@link #getRows()}
+	 * 
+	 * @return
+	 */
+	public int[] getRowIds() {
+
+		TableDao dao = new TableDao();
+
+		if (parentFilter == null)
+			return dao.getIds(schema);
+
+		return dao.getIdsByParentId(schema, parentFilter.getSchema().getSheetName(), parentFilter.getDatabaseId());
+	}
+
+	/**
+	 * Export the records of the current table to an xlsx file, filtered as in
+	 * {@link #getRows()}. The records are read one at a time, therefore also
+	 * big tables can be exported (e.g. from the menu of the table).
+	 * 
+	 * @param file
+	 * @throws IOException if the records cannot be read or written, the file is
+	 *                     not created in this case
+	 */
+	public void exportToExcel(File file) throws IOException {
+
+		TableQuery query = new TableQuery(schema);
+
+		if (parentFilter != null)
+			query.setParent(parentFilter.getSchema().getSheetName(), parentFilter.getDatabaseId());
+
+		TableToExcel exporter = new TableToExcel(new TableDaoService(new TableDao()));
+		exporter.export(query, TableToExcel.getExportableColumns(schema), file);
+	}
+
 	/**
 	 * Add listener to the selector if it was added (i.e. {@link #addSelector} true)
 	 * 
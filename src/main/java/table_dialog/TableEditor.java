@@ -243,6 +243,14 @@ public class TableEditor extends EditingSupport {
 		case STRING:
 		case PASSWORD:
 			String newValue2 = (String) value;
+
+			// as the wrong numbers, values which cannot be stored are ignored
+			if (!column.getStorageType().accepts(newValue2)) {
+				LOGGER.warn("Cannot store value=" + newValue2 + " in column " + column.getId() + " as "
+						+ column.getStorageType());
+				break;
+			}
+
 			row.put(column.getId(), newValue2);
 			break;
 		default:
@@ -1,5 +1,7 @@
 package table_dialog;
 
+import java.util.Arrays;
+
 import org.eclipse.jface.viewers.ColumnLabelProvider;
 import org.eclipse.jface.viewers.ILabelProviderListener;
 import org.eclipse.swt.graphics.Image;
@@ -65,8 +67,9 @@ public class TableLabelProvider extends ColumnLabelProvider {
 		
 		if (col.isPassword() && !showPwds) {
 			// show as password with dots
-			String ECHARSTR = Character.toString((char)9679);
-			return cell.getLabel().replaceAll(".", ECHARSTR);
+			char[] dots = new char[cell.getLabel().length()];
+			Arrays.fill(dots, (char)9679);
+			return new String(dots);
 		}
 		else
 			return cell.getLabel();
@@ -1,16 +1,20 @@
 package table_dialog;
 
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.List;
 
+import table_database.StorageType;
 import table_skeleton.TableCell;
 import table_skeleton.TableColumn;
+import table_skeleton.TableColumn.ColumnType;
 import table_skeleton.TableRow;
 
 public class TableRowComparator implements Comparator<TableRow> {
-	
+
 	private TableColumn column;
 	private boolean ascendant;
-	
+
 	/**
 	 * Order a table by the values of a column
 	 * @param column sort the table by this column
@@ -20,71 +24,96 @@ public class TableRowComparator implements Comparator<TableRow> {
 		this.column = column;
 		this.ascendant = ascendant;
 	}
-	
+
+	/**
+	 * Sort a list of rows by the values of a column. The value of
+	 * each row is converted only once, therefore it should be preferred
+	 * to {@link java.util.Collections#sort(List, Comparator)} with
+	 * this comparator for large lists.
+	 * @param rows
+	 * @param column
+	 * @param ascendant
+	 */
+	public static void sort(List<TableRow> rows, TableColumn column, boolean ascendant) {
+
+		TableRowComparator comparator = new TableRowComparator(column, ascendant);
+
+		List<SortEntry> entries = new ArrayList<>(rows.size());
+		for (TableRow row : rows)
+			entries.add(new SortEntry(row, comparator.getSortKey(row)));
+
+		entries.sort((entry1, entry2) -> comparator.compareKeys(entry1.key, entry2.key));
+
+		for (int i = 0; i < entries.size(); ++i)
+			rows.set(i, entries.get(i).row);
+	}
+
 	/**
 	 * Compare two rows
 	 */
 	public int compare(TableRow row1, TableRow row2) {
-		
-		String value1 = null;
-		String value2 = null;
-		
-		TableCell sel1 = row1.get(column.getId());
-		TableCell sel2 = row2.get(column.getId());
-		
-		// get values
-		if (sel1 != null)
-			value1 = sel1.getLabel();
-		
-		if (sel2 != null)
-			value2 = sel2.getLabel();
-		
-		int compare = 0;
-		
-		switch(column.getType()) {
-		case U_INTEGER:
-		case INTEGER:
-			
-			int intValue1;
-			int intValue2;
-			
-			// set default values if no value is retrieved
-			if (value1 == null)
-				intValue1 = ascendant ? Integer.MAX_VALUE : Integer.MIN_VALUE;
-			else
-				intValue1 = Integer.valueOf(value1);
-			
-			if (value2 == null)
-				intValue2 = ascendant ? Integer.MAX_VALUE : Integer.MIN_VALUE;
-			else
-				intValue2 = Integer.valueOf(value2);
-
-			// check if equal
-			if (intValue1 == intValue2)
-				compare = 0;
-			else {
-				
-				// if not equal check greater/less than
-				boolean result = ascendant ? intValue1 > intValue2 : intValue2 > intValue1;
-				
-				// convert boolean to integer
-				compare = result ? 1 : -1;
-			}
-			
-			break;
-		default:
-			
-			// check null values
-			if (value1 == null)
-				value1 = "";
-			
-			if (value2 == null)
-				value2 = "";
-			
-			compare = ascendant ? value1.compareTo(value2) : value2.compareTo(value1);
-			break;
+		return compareKeys(getSortKey(row1), getSortKey(row2));
+	}
+
+	/**
+	 * Get the value of the row used to sort it
+	 * @param row
+	 * @return
+	 */
+	private Comparable<?> getSortKey(TableRow row) {
+
+		String value = null;
+
+		TableCell sel = row.get(column.getId());
+
+		if (sel != null)
+			value = sel.getLabel();
+
+		StorageType storage = column.getStorageType();
+
+		// typed columns are sorted by their sql type
+		if (!storage.isText())
+			return storage.toSortKey(value);
+
+		if (column.getType() == ColumnType.INTEGER || column.getType() == ColumnType.U_INTEGER)
+			return StorageType.INTEGER.toSortKey(value);
+
+		// check null values
+		return value == null ? "" : value;
+	}
+
+	/**
+	 * Compare two keys. Empty values are put at the end
+	 * @param key1
+	 * @param key2
+	 * @return
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private int compareKeys(Comparable key1, Comparable key2) {
+
+		if (key1 == null && key2 == null)
+			return 0;
+
+		if (key1 == null)
+			return 1;
+
+		if (key2 == null)
+			return -1;
+
+		return ascendant ? key1.compareTo(key2) : key2.compareTo(key1);
+	}
+
+	/**
+	 * Row with its sort key
+	 */
+	private static class SortEntry {
+
+		private final TableRow row;
+		private final Comparable<?> key;
+
+		SortEntry(TableRow row, Comparable<?> key) {
+			this.row = row;
+			this.key = key;
 		}
-		
-		return compare;
 	}
 }
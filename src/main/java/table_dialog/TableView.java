@@ -2,7 +2,6 @@ package table_dialog;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import org.apache.logging.log4j.LogManager;
@@ -24,6 +23,7 @@ import org.eclipse.swt.widgets.Listener;
 import org.eclipse.swt.widgets.Menu;
 import org.eclipse.swt.widgets.Table;
 import i18n_messages.Messages;
+import table_database.TableDao;
 import table_skeleton.TableColumn;
 import table_skeleton.TableRow;
 import table_skeleton.TableRowList;
@@ -54,6 +54,7 @@ public class TableView {
 	private Listener inputChangedListener; // called when table data changes
 	private List<EditorListener> editorListeners; // called when editor starts/ends
 	private TableViewerColumn validator; // data validator, only if needed
+	private LazyTableContentProvider lazyProvider; // only if rows are loaded lazily
 
 	private Collection<TableRow> parents; // parents of the table (tables from which this table was created)
 
@@ -281,22 +282,43 @@ public class TableView {
 	 */
 	private void orderRowsBy(TableColumn column, boolean ascendant) {
 
+		if (isLazy()) {
+			lazyProvider.sortBy(column, ascendant);
+			resetLazyItems();
+			return;
+		}
+
 		// sort elements
-		Collections.sort(tableElements, new TableRowComparator(column, ascendant));
+		TableRowComparator.sort(tableElements, column, ascendant);
 
 		// reset input with ordered elements
 		this.tableViewer.setInput(tableElements);
 	}
 
 	/**
-	 * Get all the table rows
+	 * Get all the table rows. If the rows are loaded lazily, all of them are
+	 * read from the database, with the changes not saved.
 	 * 
 	 * @return
 	 */
 	public TableRowList getTableElements() {
+
+		if (isLazy())
+			return lazyProvider.getAll();
+
 		return tableElements;
 	}
 
+	/**
+	 * Check if the rows are loaded lazily from the database, see
+	 * {@link #setLazyInput(int[])}
+	 * 
+	 * @return
+	 */
+	public boolean isLazy() {
+		return lazyProvider != null;
+	}
+
 	/**
 	 * Get the table viewer
 	 * 
@@ -329,10 +351,15 @@ public class TableView {
 
 		TableRow lightRow = (TableRow) selection.getFirstElement();
 
-		return this.tableElements.getElementById(lightRow.getDatabaseId());
+		return getCompleteRow(lightRow.getDatabaseId());
 	}
 
 	public TableRow getCompleteRow(int id) {
+
+		// lazy rows are already complete
+		if (isLazy())
+			return lazyProvider.getRowById(id);
+
 		TableRow completeRow = this.tableElements.getElementById(id);
 		return completeRow;
 	}
@@ -461,6 +488,10 @@ public class TableView {
 	 * @return
 	 */
 	public boolean areMandatoryFilled() {
+
+		if (isLazy())
+			return lazyProvider.areMandatoryFilled();
+
 		for (TableRow row : tableElements) {
 			if (!row.areMandatoryFilled())
 				return false;
@@ -474,6 +505,14 @@ public class TableView {
 	 * @param row
 	 */
 	public void addRow(TableRow row) {
+
+		if (isLazy()) {
+			lazyProvider.add(row);
+			this.tableViewer.setItemCount(lazyProvider.size());
+			moveToBottom();
+			return;
+		}
+
 		this.tableViewer.add(row);
 		this.tableElements.add(row);
 		moveToBottom();
@@ -495,6 +534,14 @@ public class TableView {
 	 * @param row
 	 */
 	public void addAll(Collection<TableRow> rows) {
+
+		if (isLazy()) {
+			for (TableRow r : rows)
+				lazyProvider.add(r);
+			this.tableViewer.setItemCount(lazyProvider.size());
+			return;
+		}
+
 		for (TableRow r : rows) {
 			this.tableViewer.add(r);
 		}
@@ -507,6 +554,14 @@ public class TableView {
 	 * @param row
 	 */
 	public void removeRow(TableRow row) {
+
+		if (isLazy()) {
+			lazyProvider.remove(row.getDatabaseId());
+			resetLazyItems();
+			row.delete();
+			return;
+		}
+
 		this.tableViewer.remove(row);
 		this.tableElements.remove(row);
 		row.delete();
@@ -514,6 +569,14 @@ public class TableView {
 
 	public void removeRows(TableRowList rows) {
 
+		if (isLazy()) {
+			for (TableRow row : rows)
+				lazyProvider.remove(row.getDatabaseId());
+			resetLazyItems();
+			rows.deleteAll();
+			return;
+		}
+
 		this.tableViewer.getTable().setRedraw(false);
 
 		for (TableRow row : rows)
@@ -542,6 +605,10 @@ public class TableView {
 	 * Clear all the elements of the table
 	 */
 	public void clear() {
+
+		if (isLazy())
+			lazyProvider.setIds(new int[0]);
+
 		this.tableElements.clear();
 		this.tableViewer.getTable().removeAll();
 	}
@@ -552,11 +619,63 @@ public class TableView {
 	 * @param elements
 	 */
 	public void setInput(TableRowList elements) {
+
+		if (isLazy()) {
+			this.lazyProvider = null;
+			this.tableViewer.setContentProvider(new TableContentProvider());
+		}
+
 		this.tableViewer.setInput(elements);
 		this.tableViewer.setItemCount(elements.size());
 		this.tableElements = new TableRowList(elements);
 	}
 
+	/**
+	 * Show the rows with the chosen ids. Only the ids are kept in memory, the rows
+	 * are loaded from the database a page at a time when they become visible. Use
+	 * it for tables with many rows.
+	 * 
+	 * @param rowIds database ids of the rows, in the order of the table
+	 */
+	public void setLazyInput(int[] rowIds) {
+		setLazyInput(rowIds, null);
+	}
+
+	/**
+	 * Show the rows with the chosen ids, loading them only when they become
+	 * visible, see {@link #setLazyInput(int[])}
+	 * 
+	 * @param rowIds database ids of the rows, in the order of the table
+	 * @param parent parent of the rows, used to read only its children when
+	 *               the rows are sorted or checked. Null to read all the rows
+	 *               of the table
+	 */
+	public void setLazyInput(int[] rowIds, TableRow parent) {
+
+		if (!isLazy()) {
+			this.lazyProvider = new LazyTableContentProvider(tableViewer, schema, new TableDao());
+			this.tableViewer.setContentProvider(lazyProvider);
+		}
+
+		this.tableElements.clear();
+		this.lazyProvider.setIds(rowIds);
+
+		if (parent == null)
+			this.lazyProvider.setParent(null, -1);
+		else
+			this.lazyProvider.setParent(parent.getSchema().getSheetName(), parent.getDatabaseId());
+
+		resetLazyItems();
+	}
+
+	/**
+	 * Recreate the items of the table after that the lazy rows changed position
+	 */
+	private void resetLazyItems() {
+		this.tableViewer.setInput(lazyProvider.getIds());
+		this.tableViewer.setItemCount(lazyProvider.size());
+	}
+
 	/**
 	 * Set menu to the table
 	 * 
@@ -585,8 +704,21 @@ public class TableView {
 	 * @param row
 	 */
 	public void refreshAndSave(TableRow row, boolean saveInDb) {
+		refreshAndSave(row, saveInDb, null);
+	}
 
-		TableRow oldRow = this.tableElements.getElementById(row.getDatabaseId());
+	/**
+	 * Refresh a single row of the table, solving again only the formulas which
+	 * depend on the changed columns
+	 * 
+	 * @param row
+	 * @param saveInDb
+	 * @param changedColumnIds ids of the edited columns, null to solve all the
+	 *                         formulas
+	 */
+	public void refreshAndSave(TableRow row, boolean saveInDb, Collection<String> changedColumnIds) {
+
+		TableRow oldRow = getCompleteRow(row.getDatabaseId());
 
 		if (oldRow == null) {
 			LOGGER.warn("Cannot refresh row " + row.getDatabaseId() + " since it is not present in the table.");
@@ -595,11 +727,14 @@ public class TableView {
 
 		// update the edited values
 		oldRow.copyValues(row);
-		row.updateFormulas();
+		updateFormulas(row, changedColumnIds);
 
 		if (saveInDb) {
+
 			// update also the formulas using the new values
-			oldRow.updateFormulas();
+			// (if the edited row is not the one of the table)
+			if (oldRow != row)
+				updateFormulas(oldRow, changedColumnIds);
 
 			// save in db the changed values
 			oldRow.update();
@@ -615,6 +750,13 @@ public class TableView {
 		}
 	}
 
+	private void updateFormulas(TableRow row, Collection<String> changedColumnIds) {
+		if (changedColumnIds == null)
+			row.updateFormulas();
+		else
+			row.updateFormulas(changedColumnIds);
+	}
+
 	/**
 	 * Select a row of the table
 	 * 
@@ -633,6 +775,12 @@ public class TableView {
 	}
 
 	public void replaceRow(TableRow row) {
+
+		if (isLazy()) {
+			this.tableViewer.replace(row.getVisibleFields(), lazyProvider.indexOf(row.getDatabaseId()));
+			return;
+		}
+
 		int index = this.tableElements.indexOf(row);
 		this.tableViewer.replace(row.getVisibleFields(), index);
 	}
@@ -645,6 +793,14 @@ public class TableView {
 	 * Refresh all the elements
 	 */
 	public void refresh() {
+
+		// read again the visible rows from the database
+		if (isLazy()) {
+			lazyProvider.invalidate();
+			this.tableViewer.refresh();
+			return;
+		}
+
 		this.tableViewer.setInput(tableElements);
 	}
 
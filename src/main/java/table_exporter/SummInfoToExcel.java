@@ -61,40 +61,45 @@ public class SummInfoToExcel {
 		style.setName("TableStyleMedium2");
 		style.setShowRowStripes(true);
 
+		// styles shared by all the cells
+		XSSFCellStyle headerStyle = wb.createCellStyle();
+		headerStyle.setAlignment(HorizontalAlignment.CENTER);
+
+		XSSFCellStyle textStyle = wb.createCellStyle();
+		textStyle.setAlignment(HorizontalAlignment.LEFT);
+
 		int rowIndex = 0;
 		int cellIndex = 0;
 
 		// add column headers
-		XSSFRow header = sheet.createRow((short) rowIndex++);
+		XSSFRow header = sheet.createRow(rowIndex++);
 		for (TableColumn column : headers) {
 			XSSFCell cell = header.createCell(cellIndex++);
 			cell.setCellValue(column.getLabel());
-			
-			// set the horizontal alignment
-			XSSFCellStyle cellStyle = wb.createCellStyle();
-			cellStyle.setAlignment(HorizontalAlignment.CENTER);
-			cell.setCellStyle(cellStyle);
+			cell.setCellStyle(headerStyle);
 		}
 
 		// add data rows
 		for (TableRow item : records) {
 			// create a new row
-			XSSFRow row = sheet.createRow((short) rowIndex++);
+			XSSFRow row = sheet.createRow(rowIndex++);
 			cellIndex = 0;
 
 			for (TableColumn col : headers) {
 				// create a new cell
 				XSSFCell cell = row.createCell(cellIndex++);
-
-				// set the horizontal alignment
-				XSSFCellStyle cellStyle = wb.createCellStyle();
-				cellStyle.setAlignment(HorizontalAlignment.LEFT);
-				cell.setCellStyle(cellStyle);
+				cell.setCellStyle(textStyle);
 
 				String cellContent = item.getLabel(col.getId());
-				String emptyContent = (col.isEditable(item) && cellContent == "") ? "/" : "Not applicable";
+
+				// the editable formula is solved only for empty cells
+				String text;
+				if (cellContent != null && !cellContent.isEmpty())
+					text = cellContent;
+				else
+					text = col.isEditable(item) ? "/" : "Not applicable";
+
 				// set the cell's value
-				String text = (cellContent != "") ? cellContent : emptyContent;
 				cell.setCellValue(text);
 			}
 		}
@@ -0,0 +1,295 @@
+package table_exporter;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.streaming.SXSSFCell;
+import org.apache.poi.xssf.streaming.SXSSFRow;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import providers.ITableDaoService;
+import table_database.TableQuery;
+import table_skeleton.TableColumn;
+import table_skeleton.TableRow;
+import xlsx_reader.TableSchema;
+
+/**
+ * Export a table of any {@link TableSchema} to xlsx. The rows are read one at
+ * a time from the database and written with a {@link SXSSFWorkbook}, which
+ * keeps in memory only the last {@link #ROW_WINDOW} rows, therefore big tables
+ * can be exported with a bounded heap.
+ *
+ * All the cells share a few styles created once for the workbook and the
+ * widths of the columns are estimated from the first {@link #SAMPLE_ROWS}
+ * rows, instead of measuring all the cells.
+ *
+ * If the rows cannot be read the export fails and the partial file is
+ * deleted.
+ *
+ */
+public class TableToExcel {
+
+	private static final Logger LOGGER = LogManager.getLogger(TableToExcel.class);
+
+	// rows kept in memory before being flushed to the temporary file
+	private static final int ROW_WINDOW = 100;
+
+	// rows used to estimate the width of the columns
+	private static final int SAMPLE_ROWS = 200;
+
+	// limits of the width of the columns, in characters
+	private static final int MIN_WIDTH = 8;
+	private static final int MAX_WIDTH = 60;
+
+	private final ITableDaoService daoService;
+
+	public TableToExcel(ITableDaoService daoService) {
+		this.daoService = daoService;
+	}
+
+	/**
+	 * Get the columns exported by default, that is all the columns of the
+	 * schema except foreign keys and passwords
+	 *
+	 * @param schema
+	 * @return
+	 */
+	public static List<TableColumn> getExportableColumns(TableSchema schema) {
+
+		List<TableColumn> columns = new ArrayList<>();
+
+		for (TableColumn column : schema) {
+			if (!column.isForeignKey() && !column.isPassword())
+				columns.add(column);
+		}
+
+		return columns;
+	}
+
+	/**
+	 * Export all the rows of a table into an xlsx file
+	 *
+	 * @param schema
+	 * @param file
+	 * @throws IOException
+	 */
+	public void export(TableSchema schema, File file) throws IOException {
+		export(schema, getExportableColumns(schema), file);
+	}
+
+	/**
+	 * Export all the rows of a table into an xlsx file
+	 *
+	 * @param schema
+	 * @param columns columns to export, in order
+	 * @param file
+	 * @throws IOException
+	 */
+	public void export(TableSchema schema, Collection<TableColumn> columns, File file) throws IOException {
+		export(new TableQuery(schema), columns, file);
+	}
+
+	/**
+	 * Export the rows of a query into an xlsx file
+	 *
+	 * @param query   rows to export (e.g. only the children of a parent)
+	 * @param columns columns to export, in order
+	 * @param file
+	 * @throws IOException
+	 */
+	public void export(TableQuery query, Collection<TableColumn> columns, File file) throws IOException {
+
+		try (OutputStream out = new FileOutputStream(file);) {
+			export(query, columns, out);
+		} catch (IOException | RuntimeException e) {
+
+			// do not leave a truncated workbook
+			if (file.exists() && !file.delete())
+				LOGGER.warn("Cannot delete the partially exported file " + file);
+
+			throw e;
+		}
+	}
+
+	/**
+	 * Export all the rows of a table in xlsx format
+	 *
+	 * @param schema
+	 * @param columns columns to export, in order
+	 * @param out     stream where the workbook is written, it is not closed
+	 * @throws IOException
+	 */
+	public void export(TableSchema schema, Collection<TableColumn> columns, OutputStream out) throws IOException {
+		export(new TableQuery(schema), columns, out);
+	}
+
+	/**
+	 * Export the rows of a query in xlsx format
+	 *
+	 * @param query
+	 * @param columns columns to export, in order
+	 * @param out     stream where the workbook is written, it is not closed
+	 * @throws IOException if the rows cannot be read or written
+	 */
+	public void export(TableQuery query, Collection<TableColumn> columns, OutputStream out) throws IOException {
+
+		TableSchema schema = query.getSchema();
+
+		LOGGER.info("Exporting table " + schema.getSheetName() + " to xlsx");
+
+		SXSSFWorkbook wb = new SXSSFWorkbook(ROW_WINDOW);
+		wb.setCompressTempFiles(true);
+
+		try {
+
+			SheetWriter writer = new SheetWriter(wb, schema.getSheetName(), columns);
+
+			try {
+				daoService.forEach(query, writer::addRow);
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			} catch (SQLException e) {
+				throw new IOException("Cannot read the rows of table " + schema.getSheetName(), e);
+			}
+
+			writer.close();
+
+			wb.write(out);
+
+			LOGGER.info("Exported " + writer.getRowsCount() + " rows of table " + schema.getSheetName());
+		} finally {
+			// delete the temporary files
+			wb.dispose();
+			wb.close();
+		}
+	}
+
+	/**
+	 * Writer of the rows of a single sheet
+	 *
+	 */
+	private static class SheetWriter {
+
+		private final SXSSFSheet sheet;
+		private final TableColumn[] columns;
+		private final int[] widths;
+		private final CellStyle textStyle;
+		private int rowIndex;
+
+		SheetWriter(SXSSFWorkbook wb, String name, Collection<TableColumn> columns) {
+
+			this.sheet = wb.createSheet(name);
+			this.columns = columns.toArray(new TableColumn[columns.size()]);
+			this.widths = new int[this.columns.length];
+
+			// shared styles
+			Font bold = wb.createFont();
+			bold.setBold(true);
+
+			CellStyle headerStyle = wb.createCellStyle();
+			headerStyle.setAlignment(HorizontalAlignment.CENTER);
+			headerStyle.setFont(bold);
+			headerStyle.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
+			headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+
+			this.textStyle = wb.createCellStyle();
+			this.textStyle.setAlignment(HorizontalAlignment.LEFT);
+
+			// add column headers
+			SXSSFRow header = sheet.createRow(rowIndex++);
+			for (int i = 0; i < this.columns.length; i++) {
+
+				String label = this.columns[i].getLabel();
+
+				SXSSFCell cell = header.createCell(i);
+				cell.setCellValue(label);
+				cell.setCellStyle(headerStyle);
+
+				sample(i, label);
+			}
+
+			sheet.createFreezePane(0, 1);
+		}
+
+		/**
+		 * Add a row to the sheet
+		 *
+		 * @param item
+		 */
+		void addRow(TableRow item) {
+
+			if (rowIndex >= SpreadsheetVersion.EXCEL2007.getMaxRows())
+				throw new UncheckedIOException(new IOException(
+						"Too many rows to export, the maximum is " + SpreadsheetVersion.EXCEL2007.getMaxRows()));
+
+			boolean sampled = rowIndex <= SAMPLE_ROWS;
+
+			SXSSFRow row = sheet.createRow(rowIndex++);
+
+			for (int i = 0; i < columns.length; i++) {
+
+				String text = item.getLabel(columns[i].getId());
+
+				// empty cells are not created
+				if (text == null || text.isEmpty())
+					continue;
+
+				SXSSFCell cell = row.createCell(i);
+				cell.setCellValue(text);
+				cell.setCellStyle(textStyle);
+
+				if (sampled)
+					sample(i, text);
+			}
+		}
+
+		/**
+		 * Update the estimated width of a column
+		 *
+		 * @param column
+		 * @param text
+		 */
+		private void sample(int column, String text) {
+			if (text != null)
+				widths[column] = Math.max(widths[column], text.length());
+		}
+
+		/**
+		 * Complete the sheet
+		 */
+		void close() {
+
+			for (int i = 0; i < columns.length; i++) {
+
+				int width = Math.min(MAX_WIDTH, Math.max(MIN_WIDTH, widths[i] + 2));
+
+				// width in units of 1/256th of a character
+				sheet.setColumnWidth(i, width * 256);
+			}
+
+			if (columns.length > 0)
+				sheet.setAutoFilter(new CellRangeAddress(0, Math.max(0, rowIndex - 1), 0, columns.length - 1));
+		}
+
+		int getRowsCount() {
+			return rowIndex - 1;
+		}
+	}
+}
@@ -1,5 +1,6 @@
 package table_importer;
 
+import java.util.ArrayList;
 import java.util.Collection;
 
 import providers.ITableDaoService;
@@ -41,7 +42,9 @@ public abstract class TableImporter {
 		int parentToWriteId = parentToWrite.getDatabaseId();
 		daoService.deleteByParentId(childSchema, parentTable, parentToWriteId);
 		
-		// for each copied row, insert it into the
+		Collection<TableRow> copiedRows = new ArrayList<>();
+		
+		// for each copied row, prepare it for the
 		// parentToWrite table
 		for (TableRow row : rowsToCopy) {
 			
@@ -52,9 +55,11 @@ public abstract class TableImporter {
 			Relation.injectParent(parentToWrite, copiedRow);
 			filterRowData(copiedRow);
 			
-			// add the row
-			daoService.add(copiedRow);
+			copiedRows.add(copiedRow);
 		}
+		
+		// add all the rows at once
+		daoService.addAll(copiedRows);
 	}
 	
 	/**
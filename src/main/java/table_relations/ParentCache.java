@@ -0,0 +1,169 @@
+package table_relations;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import app_config.PropertiesReader;
+import metrics.Metrics;
+import providers.ITableDaoService;
+import table_skeleton.TableRow;
+import xlsx_reader.TableSchema;
+
+/**
+ * Bounded cache of the parent rows used by the relations, identified by their
+ * table and their database id. When the cache is full the least recently used
+ * row is removed. It can be used by several threads at the same time.
+ *
+ * The rows are removed from the cache by the {@link table_database.TableDao}
+ * when they are updated or deleted.
+ *
+ */
+public class ParentCache {
+
+	private final Map<Key, TableRow> rows;
+
+	/**
+	 * Create a cache
+	 *
+	 * @param maxSize maximum number of rows kept in memory
+	 */
+	public ParentCache(int maxSize) {
+		this.rows = Collections.synchronizedMap(new LinkedHashMap<Key, TableRow>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, TableRow> eldest) {
+				return size() > maxSize;
+			}
+		});
+	}
+
+	/**
+	 * Get the cache shared by the application, sized as in the properties
+	 *
+	 * @return
+	 */
+	public static ParentCache getInstance() {
+		return Holder.INSTANCE;
+	}
+
+	/**
+	 * Created the first time it is used
+	 */
+	private static class Holder {
+		private static final ParentCache INSTANCE = new ParentCache(PropertiesReader.getParentCacheSize());
+	}
+
+	/**
+	 * Get a row, loading it from the database if it is not in the cache. The
+	 * returned row is shared, it must not be changed.
+	 *
+	 * @param schema     table of the row
+	 * @param id         database id of the row
+	 * @param daoService service used to load the row
+	 * @return the row or null if it does not exist
+	 */
+	public TableRow get(TableSchema schema, int id, ITableDaoService daoService) {
+
+		Key key = new Key(schema.getSheetName(), id);
+
+		TableRow row = rows.get(key);
+
+		if (row != null) {
+			Metrics.increment("relation.cache.hit", key.table);
+			return row;
+		}
+
+		Metrics.increment("relation.cache.miss", key.table);
+
+		// not locked, at worst the row is read twice
+		row = daoService.getById(schema, id);
+
+		if (row != null)
+			rows.put(key, row);
+
+		return row;
+	}
+
+	/**
+	 * Replace a row if it is in the cache
+	 *
+	 * @param row
+	 */
+	public void update(TableRow row) {
+
+		Key key = new Key(row.getSchema().getSheetName(), row.getDatabaseId());
+
+		synchronized (rows) {
+			if (rows.containsKey(key))
+				rows.put(key, row);
+		}
+	}
+
+	/**
+	 * Remove a row from the cache
+	 *
+	 * @param table
+	 * @param id
+	 */
+	public void invalidate(String table, int id) {
+		rows.remove(new Key(table, id));
+	}
+
+	/**
+	 * Remove all the rows of a table from the cache
+	 *
+	 * @param table
+	 */
+	public void invalidate(String table) {
+
+		synchronized (rows) {
+
+			Iterator<Key> keys = rows.keySet().iterator();
+
+			while (keys.hasNext()) {
+				if (keys.next().table.equals(table))
+					keys.remove();
+			}
+		}
+	}
+
+	public void clear() {
+		rows.clear();
+	}
+
+	public int size() {
+		return rows.size();
+	}
+
+	/**
+	 * Table and id of a row
+	 */
+	private static final class Key {
+
+		private final String table;
+		private final int id;
+
+		Key(String table, int id) {
+			this.table = table;
+			this.id = id;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * table.hashCode() + id;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+
+			if (!(obj instanceof Key))
+				return false;
+
+			Key other = (Key) obj;
+			return id == other.id && table.equals(other.table);
+		}
+	}
+}
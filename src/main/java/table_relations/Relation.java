@@ -3,17 +3,18 @@ package table_relations;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import app_config.AppPaths;
 import providers.ITableDaoService;
 import providers.TableDaoService;
 import table_database.TableDao;
+import table_database.TableQuery;
 import table_skeleton.TableRow;
-import xlsx_reader.SchemaReader;
+import xlsx_reader.SchemaRegistry;
 import xlsx_reader.TableSchema;
 import xlsx_reader.TableSchemaList;
 
@@ -21,10 +22,8 @@ public class Relation {
 
 	private static final Logger LOGGER = LogManager.getLogger(Relation.class);
 
-	// caches for each table of the database, using the
-	// table name as key
-	private static HashMap<String, TableRow> parentValueCache;
-	private static HashMap<String, Integer> lastIds;
+	// ids of the global parents, using the table name as key
+	private static final Map<String, Integer> globalParentIds = new ConcurrentHashMap<>();
 
 	private String parent;
 	private String child;
@@ -32,14 +31,6 @@ public class Relation {
 
 	public Relation(String parent, String child, boolean directRelation) {
 
-		// Initialise cache if necessary
-		if (parentValueCache == null)
-			parentValueCache = new HashMap<>();
-
-		// Initialise cache if necessary
-		if (lastIds == null)
-			lastIds = new HashMap<>();
-
 		this.parent = parent;
 		this.child = child;
 		this.directRelation = directRelation;
@@ -74,7 +65,7 @@ public class Relation {
 
 		Collection<TableSchema> leaves = new ArrayList<>();
 
-		for (TableSchema schema : TableSchemaList.getAll()) {
+		for (TableSchema schema : SchemaRegistry.getInstance().getSchemas()) {
 
 			// get children tables
 			Collection<Relation> relations = schema.getChildrenTables();
@@ -97,7 +88,7 @@ public class Relation {
 
 		Collection<TableSchema> roots = new ArrayList<>();
 
-		for (TableSchema schema : TableSchemaList.getAll()) {
+		for (TableSchema schema : SchemaRegistry.getInstance().getSchemas()) {
 
 			// get children tables
 			Collection<Relation> relations = schema.getParentTables();
@@ -123,26 +114,12 @@ public class Relation {
 	 * @return
 	 */
 	public TableRow getParentValue(int parentId, ITableDaoService daoService) {
-
-		Integer lastUsedId = lastIds.get(parent);
-
-		// if we are not requiring the same parentId
-		// update cache
-		if (lastUsedId == null || parentId != lastUsedId) {
-
-			// get the first (and unique) value related to this
-			// relation from the parent data
-			parentValueCache.put(parent, daoService.getById(getParentSchema(), parentId));
-			lastIds.put(parent, parentId);
-		}
-
-		// return the cached value
-		return parentValueCache.get(parent);
+		return ParentCache.getInstance().get(getParentSchema(), parentId, daoService);
 	}
 
 	public static void emptyCache() {
-		lastIds.clear();
-		parentValueCache.clear();
+		globalParentIds.clear();
+		ParentCache.getInstance().clear();
 	}
 
 	/**
@@ -151,14 +128,7 @@ public class Relation {
 	 * @param parentId
 	 */
 	public static void updateCache(TableRow parentValue) {
-
-		String tablename = parentValue.getSchema().getSheetName();
-
-		Integer lastUsedId = lastIds.get(tablename);
-
-		if (lastUsedId != null && lastUsedId == parentValue.getDatabaseId()) {
-			parentValueCache.put(tablename, parentValue);
-		}
+		ParentCache.getInstance().update(parentValue);
 	}
 
 	/**
@@ -232,12 +202,26 @@ public class Relation {
 
 		TableSchema schema = TableSchemaList.getByName(tableName);
 
-		Collection<TableRow> opts = daoService.getAll(schema);
+		// the global parent is the first row of the table
+		Integer id = globalParentIds.get(tableName);
+
+		if (id != null) {
+
+			TableRow row = ParentCache.getInstance().get(schema, id, daoService);
+
+			if (row != null)
+				return row;
+		}
+
+		Collection<TableRow> opts = daoService.getPage(new TableQuery(schema).setPageSize(1), 0);
 
 		if (opts.isEmpty())
 			return null;
 
-		return opts.iterator().next();
+		TableRow row = opts.iterator().next();
+		globalParentIds.put(tableName, row.getDatabaseId());
+
+		return row;
 	}
 
 	/**
@@ -248,17 +232,7 @@ public class Relation {
 	public TableSchema getParentSchema() {
 
 		try {
-
-			SchemaReader reader = new SchemaReader(AppPaths.TABLES_SCHEMA_FILE);
-
-			reader.read(getParent());
-
-			TableSchema schema = reader.getSchema();
-
-			reader.close();
-
-			return schema;
-
+			return SchemaRegistry.getInstance().getSchema(getParent());
 		} catch (IOException e) {
 			LOGGER.error("Cannot get parent schema for " + getParent(), e);
 			e.printStackTrace();
@@ -275,17 +249,7 @@ public class Relation {
 	public TableSchema getChildSchema() {
 
 		try {
-
-			SchemaReader reader = new SchemaReader(AppPaths.TABLES_SCHEMA_FILE);
-
-			reader.read(getChild());
-
-			TableSchema schema = reader.getSchema();
-
-			reader.close();
-
-			return schema;
-
+			return SchemaRegistry.getInstance().getSchema(getChild());
 		} catch (IOException e) {
 			LOGGER.error("Cannot get child schema for" + getChild(), e);
 			e.printStackTrace();
@@ -2,27 +2,38 @@ package table_relations;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.Collections;
 
 import app_config.AppPaths;
 
 public class RelationList {
 	
-	private static Collection<Relation> relationsCache;
+	private static volatile Collection<Relation> relationsCache;
 
 	/**
-	 * Get all the relations contained in the excel sheet {@link AppPaths#RELATIONS_SHEET}
+	 * Get all the relations contained in the excel sheet {@link AppPaths#RELATIONS_SHEET}.
+	 * The sheet is read only once, the returned collection cannot be modified.
 	 * @return
 	 * @throws IOException
 	 */
 	public static Collection<Relation> getAll() throws IOException {
 		
-		if (relationsCache == null) {
+		Collection<Relation> relations = relationsCache;
+		
+		if (relations == null) {
 			
-			RelationParser parser = new RelationParser(AppPaths.TABLES_SCHEMA_FILE);
-			relationsCache = parser.read();
-			parser.close();
+			synchronized (RelationList.class) {
+				
+				if (relationsCache == null) {
+					RelationParser parser = new RelationParser(AppPaths.TABLES_SCHEMA_FILE);
+					relationsCache = Collections.unmodifiableCollection(parser.read());
+					parser.close();
+				}
+				
+				relations = relationsCache;
+			}
 		}
 
-		return relationsCache;
+		return relations;
 	}
 }
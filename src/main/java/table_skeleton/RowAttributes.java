@@ -0,0 +1,190 @@
+package table_skeleton;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import formula.CompiledFormula;
+import formula.FormulaDependencyGraph;
+import formula.FormulaException;
+import formula.FormulaSolver;
+import xlsx_reader.TableHeaders.XlsxHeader;
+import xlsx_reader.TableSchema;
+
+/**
+ * Solved formulas of the column properties (visible, editable, mandatory, put
+ * in output, picklist filter) of a single {@link TableRow}. Each formula is
+ * solved the first time it is needed and kept until one of the columns it
+ * uses, also through the code and label formulas of other columns, changes
+ * its value in the row.
+ *
+ * Formulas which read values of the parents (RELATION), also through the
+ * formulas of the referenced columns, are not kept, since the parents can
+ * change without the row being notified.
+ *
+ */
+class RowAttributes {
+
+	private static final String[] DEPENDENCY_HEADERS = new String[] {
+			XlsxHeader.CODE_FORMULA.getHeaderName(),
+			XlsxHeader.LABEL_FORMULA.getHeaderName() };
+
+	// column id => column property => solved formula
+	private final Map<String, Map<String, String>> values;
+
+	RowAttributes() {
+		this.values = new HashMap<>();
+	}
+
+	/**
+	 * Copy the solved formulas of another row with the same values
+	 * @param other
+	 */
+	RowAttributes(RowAttributes other) {
+		this();
+		for (Map.Entry<String, Map<String, String>> entry : other.values.entrySet())
+			values.put(entry.getKey(), new HashMap<>(entry.getValue()));
+	}
+
+	/**
+	 * Get the solved formula of a column property, solving it only if needed
+	 * @param row
+	 * @param column
+	 * @param fieldHeader
+	 * @return the solved formula or null if the column has no formula for
+	 * the {@code fieldHeader}
+	 * @throws FormulaException
+	 */
+	String get(TableRow row, TableColumn column, String fieldHeader) throws FormulaException {
+
+		Map<String, String> columnValues = values.get(column.getId());
+
+		if (columnValues != null && columnValues.containsKey(fieldHeader))
+			return columnValues.get(fieldHeader);
+
+		FormulaSolver solver = new FormulaSolver(row);
+		String value = solver.evaluate(column, fieldHeader);
+
+		if (usesParents(row.getSchema(), column.getCompiledFormula(fieldHeader)))
+			return value;
+
+		if (columnValues == null) {
+			columnValues = new HashMap<>(4);
+			values.put(column.getId(), columnValues);
+		}
+
+		columnValues.put(fieldHeader, value);
+
+		return value;
+	}
+
+	/**
+	 * Remove the solved formulas which use the changed column
+	 * @param schema
+	 * @param columnId id of the column whose value changed
+	 */
+	void invalidate(TableSchema schema, String columnId) {
+
+		if (values.isEmpty())
+			return;
+
+		TableColumn changed = schema.getById(columnId);
+
+		// the parents of the row could be changed
+		if (changed == null || changed.isForeignKey()) {
+			clear();
+			return;
+		}
+
+		// the column itself and all the columns computed from it
+		Set<String> affected = new HashSet<>();
+		affected.add(columnId);
+
+		FormulaDependencyGraph graph = schema.getFormulaGraph();
+		for (String header : DEPENDENCY_HEADERS) {
+			for (TableColumn dependent : graph.getDependents(header, Collections.singleton(columnId)))
+				affected.add(dependent.getId());
+		}
+
+		Iterator<Map.Entry<String, Map<String, String>>> columns = values.entrySet().iterator();
+		while (columns.hasNext()) {
+
+			Map.Entry<String, Map<String, String>> entry = columns.next();
+			TableColumn column = schema.getById(entry.getKey());
+
+			Iterator<String> headers = entry.getValue().keySet().iterator();
+			while (headers.hasNext()) {
+				if (uses(column, headers.next(), affected))
+					headers.remove();
+			}
+
+			if (entry.getValue().isEmpty())
+				columns.remove();
+		}
+	}
+
+	/**
+	 * Check if a formula reads values of the parents of the row, directly or
+	 * through the code and label formulas of the columns it references
+	 * @param schema
+	 * @param formula
+	 * @return
+	 * @throws FormulaException
+	 */
+	private boolean usesParents(TableSchema schema, CompiledFormula formula) throws FormulaException {
+
+		if (formula.usesParents())
+			return true;
+
+		// the referenced columns without value are solved with their formulas
+		Set<String> columnIds = new HashSet<>(formula.getReferencedColumns());
+
+		FormulaDependencyGraph graph = schema.getFormulaGraph();
+		for (String columnId : formula.getReferencedColumns()) {
+			for (String header : DEPENDENCY_HEADERS)
+				columnIds.addAll(graph.getTransitiveReferences(header, columnId));
+		}
+
+		for (String columnId : columnIds) {
+
+			TableColumn column = schema.getById(columnId);
+
+			if (column == null)
+				continue;
+
+			for (String header : DEPENDENCY_HEADERS) {
+				if (column.getCompiledFormula(header).usesParents())
+					return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Check if the formula of the column property uses one of the columns
+	 * @param column
+	 * @param fieldHeader
+	 * @param columnIds
+	 * @return
+	 */
+	private boolean uses(TableColumn column, String fieldHeader, Set<String> columnIds) {
+
+		if (column == null)
+			return true;
+
+		try {
+			CompiledFormula formula = column.getCompiledFormula(fieldHeader);
+			return !Collections.disjoint(formula.getReferencedColumns(), columnIds);
+		} catch (FormulaException e) {
+			return true;
+		}
+	}
+
+	void clear() {
+		values.clear();
+	}
+}
@@ -26,6 +26,16 @@ public class TableCell {
 		this.setLabel(label);
 	}
 	
+	/**
+	 * Copy a cell
+	 * @param other
+	 */
+	public TableCell(TableCell other) {
+		this.code = other.code;
+		this.label = other.label;
+		this.changed = other.changed;
+	}
+	
 	public TableCell(Selection sel) {
 		this.code = sel.getCode();
 		this.label = sel.getDescription();
@@ -74,6 +84,12 @@ public class TableCell {
 		return label;
 	}
 	
+	/**
+	 * Check if the code or the label were set after the
+	 * last {@link #setChanged(boolean)} with false (that is,
+	 * after the row was read from or written to the database)
+	 * @return
+	 */
 	public boolean isChanged() {
 		return changed;
 	}
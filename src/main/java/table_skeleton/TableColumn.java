@@ -1,14 +1,17 @@
 package table_skeleton;
 
 import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import app_config.BooleanValue;
-import formula.Formula;
+import formula.CompiledFormula;
+import formula.FormulaCompiler;
 import formula.FormulaException;
-import formula.FormulaSolver;
+import table_database.StorageType;
 import table_dialog.TableView;
 import table_relations.Relation;
 import xlsx_reader.TableHeaders.XlsxHeader;
@@ -46,6 +49,11 @@ public class TableColumn implements Comparable<TableColumn> {
 	private String putInOutput;  // if the column value should be exported in the .xml
 	private int order;           // order of visualization, only for visible columns
 	private String naturalKey;   // if the column is part of a natural key or not
+	private String lookup;       // if the column is used to search rows in the database
+	private StorageType storageType = StorageType.TEXT; // sql type used in the database
+	
+	// compiled formulas of the column properties, by header name
+	private final Map<String, CompiledFormula> compiledFormulas = new ConcurrentHashMap<>();
 	
 	/**
 	 * Create a column
@@ -107,6 +115,29 @@ public class TableColumn implements Comparable<TableColumn> {
 		}
 	}
 	
+	/**
+	 * Get the compiled formula of a column field. The formula is compiled
+	 * only the first time and then reused, unless the field is changed.
+	 * @param header
+	 * @return
+	 * @throws FormulaException
+	 */
+	public CompiledFormula getCompiledFormula(String header) throws FormulaException {
+		
+		String text = getFieldByHeader(header);
+		if (text == null)
+			text = "";
+		
+		CompiledFormula compiled = compiledFormulas.get(header);
+		
+		if (compiled == null || !compiled.getText().equals(text)) {
+			compiled = FormulaCompiler.compile(text);
+			compiledFormulas.put(header, compiled);
+		}
+		
+		return compiled;
+	}
+	
 	/**
 	 * Get a column field by its header
 	 * @param header
@@ -181,6 +212,12 @@ public class TableColumn implements Comparable<TableColumn> {
 		case NATURAL_KEY:
 			value = this.naturalKey;
 			break;
+		case LOOKUP:
+			value = this.lookup;
+			break;
+		case STORAGE_TYPE:
+			value = this.storageType.getHeaderName();
+			break;
 		default:
 			break;
 		}
@@ -263,20 +300,42 @@ public class TableColumn implements Comparable<TableColumn> {
 		return BooleanValue.isTrue(naturalKey);
 	}
 	
+	public void setLookup(String lookup) {
+		this.lookup = lookup;
+	}
+	
+	/**
+	 * Check if the column is used to search rows in the
+	 * database (an index is created for it)
+	 * @return
+	 */
+	public boolean isLookup() {
+		return BooleanValue.isTrue(lookup);
+	}
+	
+	public void setStorageType(StorageType storageType) {
+		this.storageType = storageType == null ? StorageType.TEXT : storageType;
+	}
+	
 	/**
-	 * Solve a formula for a specific field using the row values
+	 * Get how the values of the column are stored in the database.
+	 * Foreign keys are always stored as integers, regardless of it.
+	 * @return
+	 */
+	public StorageType getStorageType() {
+		return storageType;
+	}
+	
+	/**
+	 * Solve a formula for a specific field using the row values. The
+	 * result is kept in the row until the values it uses change.
 	 * @param row
 	 * @param headerName
 	 * @return
 	 * @throws FormulaException 
 	 */
 	private String solveFormula(TableRow row, String headerName) throws FormulaException {
-		
-		FormulaSolver solver = new FormulaSolver(row);
-		Formula formula = solver.solve(this, headerName);
-
-		// check the solved formula
-		return formula.getSolvedFormula();
+		return row.getAttribute(this, headerName);
 	}
 	
 	/**
@@ -489,7 +548,7 @@ public class TableColumn implements Comparable<TableColumn> {
 	 */
 	public boolean isPutInOutput(TableRow row) {
 		
-		return xmlTag != null && !xmlTag.replaceAll(" ", "").isEmpty() 
+		return xmlTag != null && xmlTag.chars().anyMatch(c -> c != ' ') 
 				&& isTrue(row, XlsxHeader.PUT_IN_OUTPUT.getHeaderName());
 	}
 	
@@ -4,6 +4,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import app_config.BooleanValue;
+import table_database.StorageType;
 import table_skeleton.TableColumn.ColumnType;
 
 public class TableColumnBuilder {
@@ -28,6 +29,8 @@ public class TableColumnBuilder {
 	private String putInOutput;   // if the column value should be exported in the .xml
 	private int order;
 	private String naturalKey;
+	private String lookup;        // if the column is often used to search rows
+	private String storageType;   // sql type used in the database
 	
 	public TableColumnBuilder() {
 		this.mandatory = BooleanValue.getTrueValue();
@@ -43,6 +46,7 @@ public class TableColumnBuilder {
 		this.xmlTag = "";
 		this.order = 0;
 		this.naturalKey = BooleanValue.getFalseValue();
+		this.lookup = BooleanValue.getFalseValue();
 	}
 	
 	public TableColumnBuilder setId(String id) {
@@ -120,6 +124,21 @@ public class TableColumnBuilder {
 		return this;
 	}
 	
+	public TableColumnBuilder setLookup(String lookup) {
+		this.lookup = lookup;
+		return this;
+	}
+	
+	/**
+	 * Set how the values are stored in the database,
+	 * see {@link StorageType}. Text by default.
+	 * @param storageType
+	 */
+	public TableColumnBuilder setStorageType(String storageType) {
+		this.storageType = storageType;
+		return this;
+	}
+	
 	/**
 	 * Set the type of the column. Do not use
 	 * this method for {@link ColumnType#PICKLIST}
@@ -173,6 +192,9 @@ public class TableColumnBuilder {
 		TableColumn col = new TableColumn(id, code, label, xmlTag, tip, type, mandatory, editable, 
 				visible, defaultCode, codeFormula, defaultValue, labelFormula, putInOutput, order, naturalKey);
 		
+		col.setLookup(lookup);
+		col.setStorageType(StorageType.fromString(storageType));
+		
 		if (type == ColumnType.PICKLIST && picklistKey == null) {
 			LOGGER.error("Cannot set type to picklist without specifying list key for column " + this.id);
 			return null;
@@ -4,16 +4,20 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import app_config.AppPaths;
 import app_config.BooleanValue;
 import duplicates_detector.Checkable;
-import formula.Formula;
 import formula.FormulaException;
 import formula.FormulaSolver;
+import providers.TableDaoService;
 import report.Report;
 import table_database.TableDao;
+import table_relations.ParentCache;
 import xlsx_reader.TableHeaders.XlsxHeader;
 import xlsx_reader.TableSchema;
 import xml_catalog_reader.Selection;
@@ -38,6 +42,8 @@ public class TableRow implements Checkable {
 
 	private HashMap<String, TableCell> values;
 	private TableSchema schema;
+	private RowAttributes attributes; // solved formulas of the columns properties
+	private Set<String> changes; // columns put or removed since the last save, null if none
 
 	/**
 	 * Careful use
@@ -51,6 +57,7 @@ public class TableRow implements Checkable {
 	 */
 	public void setSchema(TableSchema schema) {
 		this.schema = schema;
+		this.attributes = null;
 	}
 
 	/**
@@ -79,6 +86,13 @@ public class TableRow implements Checkable {
 	public TableRow(TableRow row) {
 		this.values = new HashMap<>(row.values);
 		this.schema = row.getSchema();
+
+		// same values, same solved formulas
+		if (row.attributes != null)
+			this.attributes = new RowAttributes(row.attributes);
+
+		if (row.changes != null)
+			this.changes = new HashSet<>(row.changes);
 	}
 
 	/**
@@ -100,14 +114,26 @@ public class TableRow implements Checkable {
 	 */
 	public void setId(int id) {
 
+		int oldId = getDatabaseId();
+
+		// the values now refer to another row of the database
+		if (oldId != -1 && oldId != id) {
+			for (String key : values.keySet())
+				addChange(key);
+		}
+
 		String index = String.valueOf(id);
 		TableCell idValue = new TableCell();
 		idValue.setCode(index);
 		idValue.setLabel(index);
+		idValue.setChanged(false); // the id is never written
 
 		// put directly into the values and not with this.put
 		// to avoid to put the id into the changes hashmap
 		this.values.put(schema.getTableIdField(), idValue);
+
+		if (attributes != null)
+			attributes.clear();
 	}
 
 	/**
@@ -139,7 +165,6 @@ public class TableRow implements Checkable {
 			e.printStackTrace();
 		}
 
-		LOGGER.info("Database id: " + id);
 		return id;
 	}
 
@@ -152,13 +177,12 @@ public class TableRow implements Checkable {
 	 */
 	public TableRow getParent(TableSchema parentSchema) {
 
-		// open the child dao
-		TableDao dao = new TableDao();
-
 		// get parent using the id contained in the row
-		TableRow parent = dao.getById(parentSchema, this.getNumLabel(parentSchema.getTableIdField()));
+		TableRow parent = ParentCache.getInstance().get(parentSchema,
+				this.getNumLabel(parentSchema.getTableIdField()), new TableDaoService(new TableDao()));
 
-		return parent;
+		// the cached row is shared, the caller gets its own copy
+		return parent == null ? null : new TableRow(parent);
 	}
 
 	public Collection<TableRow> getChildren(TableSchema childSchema) {
@@ -283,7 +307,21 @@ public class TableRow implements Checkable {
 	 * @param value
 	 */
 	public void put(String key, TableCell value) {
-		values.put(key, value);
+
+		TableCell previous = values.put(key, value);
+
+		// same instance, its changed flag tells if it was modified
+		if (previous == value)
+			return;
+
+		// same values (e.g. a formula solved again), nothing to save
+		if (previous != null && value != null && previous.equals(value)) {
+			value.setChanged(previous.isChanged());
+			return;
+		}
+
+		addChange(key);
+		invalidateAttributes(key);
 	}
 
 	public void put(String key, int value) {
@@ -365,6 +403,101 @@ public class TableRow implements Checkable {
 	 */
 	public void remove(String key) {
 		this.values.remove(key);
+		addChange(key);
+		invalidateAttributes(key);
+	}
+
+	private void addChange(String key) {
+
+		if (changes == null)
+			changes = new HashSet<>();
+
+		changes.add(key);
+	}
+
+	/**
+	 * Check if the value of a column was changed after the row was read from or
+	 * written to the database
+	 * 
+	 * @param key id of the column
+	 * @return
+	 */
+	public boolean isChanged(String key) {
+
+		if (changes != null && changes.contains(key))
+			return true;
+
+		TableCell cell = values.get(key);
+
+		return cell != null && cell.isChanged();
+	}
+
+	/**
+	 * Check if at least a value of the row was changed after the row was read
+	 * from or written to the database
+	 * 
+	 * @return
+	 */
+	public boolean isChanged() {
+
+		if (changes != null && !changes.isEmpty())
+			return true;
+
+		for (TableCell cell : values.values()) {
+			if (cell != null && cell.isChanged())
+				return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Mark all the values as equal to the ones in the database, called after
+	 * the row is read or written
+	 */
+	public void clearChanges() {
+
+		changes = null;
+
+		for (TableCell cell : values.values()) {
+			if (cell != null)
+				cell.setChanged(false);
+		}
+	}
+
+	/**
+	 * Get the solved formula of a column property (visible, editable,
+	 * mandatory...). The formula is solved only the first time, and again only
+	 * after that one of the values it uses is changed.
+	 * 
+	 * @param column
+	 * @param fieldHeader
+	 * @return the solved formula or null if the column has no formula for the
+	 *         {@code fieldHeader}
+	 * @throws FormulaException
+	 */
+	String getAttribute(TableColumn column, String fieldHeader) throws FormulaException {
+
+		if (attributes == null)
+			attributes = new RowAttributes();
+
+		return attributes.get(this, column, fieldHeader);
+	}
+
+	/**
+	 * Remove the solved formulas which use the changed column
+	 * 
+	 * @param key
+	 */
+	private void invalidateAttributes(String key) {
+
+		if (attributes == null)
+			return;
+
+		if (schema == null)
+			attributes.clear();
+		else
+			attributes.invalidate(schema, key);
 	}
 
 	public void Initialise(String colId) {
@@ -381,20 +514,20 @@ public class TableRow implements Checkable {
 
 		// TODO
 		try {
-			Formula label = solver.solve(col, XlsxHeader.DEFAULT_VALUE.getHeaderName());
-			sel.setLabel(label.getSolvedFormula());
+			String label = solver.evaluate(col, XlsxHeader.DEFAULT_VALUE.getHeaderName());
+			sel.setLabel(label);
 		} catch (FormulaException e) {
 			LOGGER.error("Cannot solve formula for column=" + colId, e);
 			e.printStackTrace();
 		}
 
 		try {
-			Formula code = solver.solve(col, XlsxHeader.DEFAULT_CODE.getHeaderName());
+			String code = solver.evaluate(col, XlsxHeader.DEFAULT_CODE.getHeaderName());
 
 			if (col.getPicklistKey() == null || col.getPicklistKey().isEmpty())
-				sel.setCode(code.getSolvedFormula());
+				sel.setCode(code);
 			else
-				sel = getTableColumnValue(code.getSolvedFormula(), col.getPicklistKey());
+				sel = getTableColumnValue(code, col.getPicklistKey());
 
 		} catch (FormulaException e) {
 			LOGGER.error("Cannot solve formula for column=" + colId, e);
@@ -447,11 +580,11 @@ public class TableRow implements Checkable {
 				this.put(col.getId(), value);
 		} else if (h == XlsxHeader.LABEL_FORMULA && !col.getLabelFormula().isEmpty()) {
 
-			TableCell colVal = this.get(col.getId());
+			TableCell current = this.get(col.getId());
 
-			// if no value found, initialise
-			if (colVal == null)
-				colVal = new TableCell();
+			// work on a copy, so that the row can check if the value changed.
+			// If no value found, initialise
+			TableCell colVal = current == null ? new TableCell() : new TableCell(current);
 
 			colVal.setLabel(value);
 
@@ -491,6 +624,24 @@ public class TableRow implements Checkable {
 		}
 	}
 
+	/**
+	 * Update only the code and label formulas which depend on the changed
+	 * columns (e.g. after the user edited a cell)
+	 * 
+	 * @param changedColumnIds ids of the columns whose value was changed
+	 */
+	public void updateFormulas(Collection<String> changedColumnIds) {
+
+		FormulaSolver solver = new FormulaSolver(this);
+
+		try {
+			solver.solveDependents(changedColumnIds);
+		} catch (FormulaException e) {
+			LOGGER.error("Cannot solve row formulas", e);
+			e.printStackTrace();
+		}
+	}
+
 	/**
 	 * Save the current row into the database (this is an insert operation! Multiple
 	 * calls create multiple rows). Return the new id of the database
@@ -708,6 +859,43 @@ public class TableRow implements Checkable {
 		return true;
 	}
 
+	/**
+	 * Get the code and label of the natural key fields, as compared by
+	 * {@link #sameAs(Object)}. Empty values are all considered equal.
+	 * 
+	 * @return the fingerprint or null if a natural key field is missing
+	 */
+	@Override
+	public Object getFingerprint() {
+
+		if (schema == null)
+			return null;
+
+		List<String> fingerprint = new ArrayList<>();
+
+		for (TableColumn col : schema) {
+
+			if (!col.isNaturalKey() || col.getId().equals(schema.getTableIdField()))
+				continue;
+
+			TableCell value = this.values.get(col.getId());
+
+			// cannot be compared with the fingerprint
+			if (value == null)
+				return null;
+
+			if (value.isEmpty()) {
+				fingerprint.add(null);
+				fingerprint.add(null);
+			} else {
+				fingerprint.add(value.getCode());
+				fingerprint.add(value.getLabel());
+			}
+		}
+
+		return fingerprint;
+	}
+
 	/**
 	 * Convert the row into an xml
 	 * 
@@ -777,7 +965,7 @@ public class TableRow implements Checkable {
 			// remove invisible fields (not fk and id)
 			if (!col.isVisible(row) && !col.isForeignKey()
 					&& !col.getId().equals(AppPaths.CHILDREN_CONTAIN_ERRORS_COL)) {
-				row.values.remove(col.getId());
+				row.remove(col.getId());
 			}
 		}
 
@@ -0,0 +1,107 @@
+package task_manager;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import app_config.PropertiesReader;
+
+/**
+ * Process-wide registry of the {@link TaskPool} used to run the background
+ * tasks of the application, so that the number of threads stays bounded
+ * also when many tasks are started together.
+ *
+ */
+public class TaskManager {
+
+	/**
+	 * Pool of the short tasks which call the DCF web services (as refreshing
+	 * the status of a report or getting an ack)
+	 */
+	public static final String REMOTE_POOL = "dcf";
+
+	/**
+	 * Pool of the long tasks which process entire reports (as sending or
+	 * importing a report)
+	 */
+	public static final String REPORT_POOL = "report";
+
+	// milliseconds that a submission waits for a free place
+	private static final long SUBMIT_TIMEOUT = 60000;
+
+	private static TaskManager instance;
+
+	private final Map<String, TaskPool> pools;
+
+	private TaskManager() {
+		this.pools = new HashMap<>();
+	}
+
+	/**
+	 * Get the instance of the manager
+	 *
+	 * @return
+	 */
+	public static synchronized TaskManager getInstance() {
+
+		if (instance == null)
+			instance = new TaskManager();
+
+		return instance;
+	}
+
+	/**
+	 * Get a pool by its name, creating it if it is the first request. Pools
+	 * which are not predefined have the same size of the
+	 * {@link #REPORT_POOL}
+	 *
+	 * @param name
+	 * @return
+	 */
+	public synchronized TaskPool getPool(String name) {
+
+		TaskPool pool = pools.get(name);
+
+		if (pool == null) {
+
+			if (REMOTE_POOL.equals(name))
+				pool = new TaskPool(name, PropertiesReader.getRemoteTasksPoolSize(),
+						PropertiesReader.getTasksQueueSize(), SUBMIT_TIMEOUT);
+			else
+				pool = new TaskPool(name, PropertiesReader.getReportTasksPoolSize(),
+						PropertiesReader.getTasksQueueSize(), SUBMIT_TIMEOUT);
+
+			pools.put(name, pool);
+		}
+
+		return pool;
+	}
+
+	/**
+	 * Get the pool of the DCF calls
+	 *
+	 * @return
+	 */
+	public TaskPool getRemotePool() {
+		return getPool(REMOTE_POOL);
+	}
+
+	/**
+	 * Get the pool of the report processes
+	 *
+	 * @return
+	 */
+	public TaskPool getReportPool() {
+		return getPool(REPORT_POOL);
+	}
+
+	/**
+	 * Stop all the pools
+	 */
+	public synchronized void shutdown() {
+
+		for (TaskPool pool : pools.values())
+			pool.shutdown();
+
+		pools.clear();
+	}
+}
@@ -0,0 +1,184 @@
+package task_manager;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.eclipse.swt.widgets.Display;
+
+/**
+ * Named pool of background threads with a bounded number of tasks. When the
+ * running and waiting tasks reach the capacity of the pool, new submissions
+ * wait for a free place (back-pressure) and are rejected if none becomes free
+ * within the submit timeout. Submissions from the SWT display thread never
+ * wait, so that the user interface is not blocked: they are rejected at once
+ * if the pool is full. The submitted tasks can be cancelled through the
+ * returned {@link Future}, which interrupts them if already running. The
+ * exceptions thrown by the tasks are logged.
+ *
+ */
+public class TaskPool {
+
+	private static final Logger LOGGER = LogManager.getLogger(TaskPool.class);
+
+	private final String name;
+	private final ThreadPoolExecutor executor;
+	private final Semaphore places;
+	private final int capacity;
+	private final long submitTimeout;
+
+	/**
+	 * Create a pool
+	 *
+	 * @param name          name of the pool, used also for its threads
+	 * @param threads       maximum number of tasks running at the same time
+	 * @param queueCapacity maximum number of tasks waiting to be run
+	 * @param submitTimeout milliseconds that a submission waits for a free
+	 *                      place in the pool
+	 */
+	public TaskPool(String name, int threads, int queueCapacity, long submitTimeout) {
+
+		if (threads <= 0)
+			throw new IllegalArgumentException("The number of threads must be positive, found=" + threads);
+
+		this.name = name;
+		this.capacity = threads + Math.max(0, queueCapacity);
+		this.places = new Semaphore(capacity, true);
+		this.submitTimeout = submitTimeout;
+
+		AtomicInteger counter = new AtomicInteger();
+
+		this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+				runnable -> {
+					Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+
+		// do not keep idle threads alive
+		this.executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Submit a task
+	 *
+	 * @param task
+	 * @return future to wait for the result or to cancel the task
+	 * @throws RejectedExecutionException if the pool is full or shut down
+	 */
+	public <T> Future<T> submit(Callable<T> task) {
+		return execute(new PoolTask<>(task));
+	}
+
+	/**
+	 * Submit a task
+	 *
+	 * @param task
+	 * @return future to wait for the end or to cancel the task
+	 * @throws RejectedExecutionException if the pool is full or shut down
+	 */
+	public Future<?> submit(Runnable task) {
+		return execute(new PoolTask<>(Executors.callable(task)));
+	}
+
+	private <T> Future<T> execute(PoolTask<T> task) {
+
+		// do not freeze the user interface waiting for a place
+		long timeout = isDisplayThread() ? 0 : submitTimeout;
+
+		try {
+			if (!places.tryAcquire(timeout, TimeUnit.MILLISECONDS)) {
+				throw new RejectedExecutionException("Too many tasks in pool " + name + ", capacity=" + capacity);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RejectedExecutionException("Interrupted while waiting for pool " + name, e);
+		}
+
+		try {
+			executor.execute(task);
+		} catch (RejectedExecutionException e) {
+			places.release();
+			throw e;
+		}
+
+		LOGGER.debug("Task submitted to pool " + name + ", pending tasks=" + getPendingCount());
+
+		return task;
+	}
+
+	/**
+	 * Check if the current thread runs the user interface
+	 *
+	 * @return
+	 */
+	private static boolean isDisplayThread() {
+		try {
+			return Display.getCurrent() != null;
+		} catch (LinkageError e) {
+			// the swt libraries cannot be loaded, there is no user interface
+			return false;
+		}
+	}
+
+	/**
+	 * Get the number of tasks which are running or waiting
+	 *
+	 * @return
+	 */
+	public int getPendingCount() {
+		return capacity - places.availablePermits();
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Stop accepting tasks and interrupt the running ones
+	 */
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Task which gives back its place in the pool when it ends or it is
+	 * cancelled, and logs the exception which stopped it
+	 *
+	 * @param <T>
+	 */
+	private class PoolTask<T> extends FutureTask<T> {
+
+		PoolTask(Callable<T> callable) {
+			super(callable);
+		}
+
+		@Override
+		protected void done() {
+
+			places.release();
+
+			if (isCancelled())
+				return;
+
+			try {
+				get();
+			} catch (ExecutionException e) {
+				LOGGER.error("Task failed in pool " + name, e.getCause());
+				e.getCause().printStackTrace();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
@@ -31,8 +31,13 @@ public class SchemaReader extends XlsxReader {
 		this.builder = new TableColumnBuilder();
 	}
 
+	/**
+	 * Read a sheet into a new schema, the same reader can be used for
+	 * reading several sheets
+	 */
 	@Override
 	public void read(String sheetName) throws IOException {
+		this.schema = new TableSchema();
 		this.schema.setSheetName(sheetName);
 		super.read(sheetName);
 	}
@@ -115,6 +120,12 @@ public class SchemaReader extends XlsxReader {
 		case NATURAL_KEY:
 			builder.setNaturalKey(value);
 			break;
+		case LOOKUP:
+			builder.setLookup(value);
+			break;
+		case STORAGE_TYPE:
+			builder.setStorageType(value);
+			break;
 		default:
 			break;
 		}
@@ -0,0 +1,162 @@
+package xlsx_reader;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.poi.ss.usermodel.Sheet;
+
+import app_config.AppPaths;
+import formula.FormulaException;
+import table_list.TableListParser;
+import table_relations.Relation;
+import table_relations.RelationList;
+import table_relations.RelationParser;
+
+/**
+ * Process-wide registry of the {@link TableSchema} defined in a tables schema
+ * .xlsx file. The workbook is parsed only once, the first time that the
+ * registry of the file is requested, and the registry cannot be changed
+ * afterwards, therefore it can be shared among threads.
+ *
+ */
+public class SchemaRegistry {
+
+	private static final Logger LOGGER = LogManager.getLogger(SchemaRegistry.class);
+
+	// registries by file name
+	private static final Map<String, SchemaRegistry> REGISTRIES = new HashMap<>();
+
+	private final String filename;
+	private final List<TableSchema> schemas;
+	private final Map<String, TableSchema> schemasByName;
+	private final Collection<Relation> relations;
+
+	private SchemaRegistry(String filename, List<TableSchema> schemas, Collection<Relation> relations) {
+
+		this.filename = filename;
+		this.schemas = Collections.unmodifiableList(schemas);
+
+		Map<String, TableSchema> byName = new LinkedHashMap<>();
+		for (TableSchema schema : schemas)
+			byName.put(schema.getSheetName(), schema);
+
+		this.schemasByName = Collections.unmodifiableMap(byName);
+		this.relations = relations;
+	}
+
+	/**
+	 * Get the registry of the {@link AppPaths#TABLES_SCHEMA_FILE}
+	 * @return
+	 * @throws IOException
+	 */
+	public static SchemaRegistry getInstance() throws IOException {
+		return getInstance(AppPaths.TABLES_SCHEMA_FILE);
+	}
+
+	/**
+	 * Get the registry of a tables schema file, parsing the file if it is
+	 * the first request
+	 * @param tablesSchemaFilename
+	 * @return
+	 * @throws IOException
+	 */
+	public static SchemaRegistry getInstance(String tablesSchemaFilename) throws IOException {
+
+		synchronized (REGISTRIES) {
+
+			SchemaRegistry registry = REGISTRIES.get(tablesSchemaFilename);
+
+			if (registry == null) {
+				registry = load(tablesSchemaFilename);
+				REGISTRIES.put(tablesSchemaFilename, registry);
+			}
+
+			return registry;
+		}
+	}
+
+	/**
+	 * Parse all the tables of the file
+	 * @param tablesSchemaFilename
+	 * @return
+	 * @throws IOException
+	 */
+	private static SchemaRegistry load(String tablesSchemaFilename) throws IOException {
+
+		LOGGER.info("Loading tables schemas from " + tablesSchemaFilename);
+
+		// the relations are needed to build the schemas
+		Collection<Relation> relations = RelationList.getAll();
+
+		List<TableSchema> schemas = new ArrayList<>();
+
+		try (SchemaReader parser = new SchemaReader(tablesSchemaFilename);) {
+
+			for (int i = 0; i < parser.getNumberOfSheets(); ++i) {
+
+				Sheet sheet = parser.getSheetAt(i);
+
+				// skip special sheets
+				if (RelationParser.isRelationsSheet(sheet.getSheetName())
+						|| TableListParser.isTablesSheet(sheet.getSheetName()))
+					continue;
+
+				// parse
+				parser.read(sheet.getSheetName());
+
+				// get parsed schema
+				TableSchema schema = parser.getSchema();
+
+				// formulas which depend on themselves cannot be solved,
+				// they are left out of the graph and never solved
+				try {
+					schema.getFormulaGraph().checkCycles();
+				} catch (FormulaException e) {
+					LOGGER.error("Wrong formulas in " + tablesSchemaFilename + ", they will not be solved", e);
+					e.printStackTrace();
+				}
+
+				schemas.add(schema);
+			}
+		}
+
+		return new SchemaRegistry(tablesSchemaFilename, schemas, relations);
+	}
+
+	public String getFilename() {
+		return filename;
+	}
+
+	/**
+	 * Get all the schemas, in the order of the sheets
+	 * @return
+	 */
+	public List<TableSchema> getSchemas() {
+		return schemas;
+	}
+
+	/**
+	 * Get a schema by its sheet name
+	 * @param sheetName
+	 * @return the schema or null if not found
+	 */
+	public TableSchema getSchema(String sheetName) {
+		return schemasByName.get(sheetName);
+	}
+
+	/**
+	 * Get the relations among the tables
+	 * @return
+	 */
+	public Collection<Relation> getRelations() {
+		return relations;
+	}
+}
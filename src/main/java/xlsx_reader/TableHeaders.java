@@ -25,7 +25,9 @@ public class TableHeaders {
 		PUT_IN_OUTPUT("putInOutput"),
 		ORDER("order"),
 		
-		NATURAL_KEY("naturalKey");
+		NATURAL_KEY("naturalKey"),
+		LOOKUP("lookup"),
+		STORAGE_TYPE("storageType");
 		
 		private String headerName;
 		
@@ -9,6 +9,8 @@ import java.util.Comparator;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import formula.FormulaDependencyGraph;
+import table_database.PersistencePlan;
 import table_relations.Relation;
 import table_relations.RelationList;
 import table_skeleton.TableColumn;
@@ -24,6 +26,8 @@ public class TableSchema extends ArrayList<TableColumn> {
 	private String sheetName;
 	private String tableIdField;
 	private Collection<Relation> relations;
+	private volatile FormulaDependencyGraph formulaGraph;
+	private volatile PersistencePlan persistencePlan;
 	
 	/**
 	 * Set the sheet name related to the schema
@@ -32,6 +36,7 @@ public class TableSchema extends ArrayList<TableColumn> {
 	public void setSheetName(String sheetName) {
 		this.sheetName = sheetName;
 		this.tableIdField = sheetName + "Id";
+		this.persistencePlan = null;
 
 		try {
 			this.relations = getParentTables();
@@ -201,13 +206,50 @@ public class TableSchema extends ArrayList<TableColumn> {
 		return out;
 	}
 	
+	/**
+	 * Get the dependencies among the formulas of the columns. The graph
+	 * is computed only the first time.
+	 * @return
+	 */
+	public FormulaDependencyGraph getFormulaGraph() {
+		
+		FormulaDependencyGraph graph = formulaGraph;
+		
+		if (graph == null) {
+			graph = new FormulaDependencyGraph(this);
+			formulaGraph = graph;
+		}
+		
+		return graph;
+	}
+	
+	/**
+	 * Get the statements used to save and read the rows
+	 * of the table. The plan is computed only the first time.
+	 * @return
+	 */
+	public PersistencePlan getPersistencePlan() {
+		
+		PersistencePlan plan = persistencePlan;
+		
+		if (plan == null) {
+			plan = new PersistencePlan(this);
+			persistencePlan = plan;
+		}
+		
+		return plan;
+	}
+	
 	@Override
 	public boolean add(TableColumn arg0) {
 		
 		boolean added = super.add(arg0);
 		
-		if (added)
+		if (added) {
 			sort();
+			formulaGraph = null;
+			persistencePlan = null;
+		}
 		
 		return added;
 	}
@@ -223,6 +265,7 @@ public class TableSchema extends ArrayList<TableColumn> {
 	 * Sort columns by id
 	 */
 	public void sortById() {
+		persistencePlan = null;
 		Collections.sort(this, new Comparator<TableColumn>() {
 
 			@Override
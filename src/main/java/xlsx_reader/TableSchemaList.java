@@ -2,15 +2,12 @@ package xlsx_reader;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.apache.poi.ss.usermodel.Sheet;
 
 import app_config.AppPaths;
-import table_list.TableListParser;
-import table_relations.RelationParser;
 
 public class TableSchemaList extends ArrayList<TableSchema> {
 
@@ -18,49 +15,25 @@ public class TableSchemaList extends ArrayList<TableSchema> {
 
 	private static final long serialVersionUID = 1L;
 
-	private static HashMap<String, TableSchemaList> schemasCache;
-
-	public static TableSchemaList getAll(String tablesSchemaFilename) throws IOException {
-
-		// if first time
-		if (schemasCache == null) {
-			schemasCache = new HashMap<>();
-		}
-
-		// if the schema was not loaded yet
-		if (schemasCache.get(tablesSchemaFilename) == null) {
-
-			TableSchemaList list = new TableSchemaList();
-
-			SchemaReader parser = new SchemaReader(tablesSchemaFilename);
-
-			for (int i = 0; i < parser.getNumberOfSheets(); ++i) {
-
-				parser = new SchemaReader(tablesSchemaFilename);
-
-				Sheet sheet = parser.getSheetAt(i);
-
-				// skip special sheets
-				if (RelationParser.isRelationsSheet(sheet.getSheetName())
-						|| TableListParser.isTablesSheet(sheet.getSheetName()))
-					continue;
-
-				// parse
-				parser.read(sheet.getSheetName());
-
-				// get parsed schema
-				TableSchema schema = parser.getSchema();
-
-				// add to cache
-				list.add(schema);
-			}
-
-			schemasCache.put(tablesSchemaFilename, list);
+	public TableSchemaList() {
+		super();
+	}
 
-			parser.close();
-		}
+	public TableSchemaList(Collection<TableSchema> schemas) {
+		super(schemas);
+	}
 
-		return schemasCache.get(tablesSchemaFilename);
+	/**
+	 * Get all the table schemas defined in a file. The file is parsed only
+	 * once (see {@link SchemaRegistry}), a new list of the same schemas is
+	 * returned at each call.
+	 * 
+	 * @param tablesSchemaFilename
+	 * @return
+	 * @throws IOException
+	 */
+	public static TableSchemaList getAll(String tablesSchemaFilename) throws IOException {
+		return new TableSchemaList(SchemaRegistry.getInstance(tablesSchemaFilename).getSchemas());
 	}
 
 	/**
@@ -86,22 +59,13 @@ public class TableSchemaList extends ArrayList<TableSchema> {
 
 	public static TableSchema getByName(String tablesSchemaFilename, String sheetName) {
 
-		TableSchemaList schemas;
 		try {
-			schemas = getAll(tablesSchemaFilename);
+			return SchemaRegistry.getInstance(tablesSchemaFilename).getSchema(sheetName);
 		} catch (IOException e) {
 			LOGGER.error("Cannot get tables schemas from filename=" + tablesSchemaFilename + ". Returning null", e);
 			e.printStackTrace();
 			return null;
 		}
-
-		for (TableSchema schema : schemas) {
-
-			if (schema.getSheetName().equals(sheetName))
-				return schema;
-		}
-
-		return null;
 	}
 
 	/**
@@ -99,6 +99,9 @@ public abstract class XlsxReader implements Closeable {
 		Sheet firstSheet = workbook.getSheet(sheetName);
 		Iterator<Row> iterator = firstSheet.iterator();
 
+		// headers of the previous sheet
+		headers.clear();
+
 		while (iterator.hasNext()) {
 
 			Row row = iterator.next();
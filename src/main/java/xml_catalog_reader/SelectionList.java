@@ -2,6 +2,8 @@ package xml_catalog_reader;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * List of {@link Selection}, this class represents the structure of a
@@ -15,8 +17,17 @@ public class SelectionList {
 	private String id;                         // id of the selection list (e.g. BSE, SCRAPIE)
 	private Collection<Selection> selections;  // list of selections contained in the .xml
 	
+	// first selection for each code/label
+	private Map<String, Selection> selectionsByCode;
+	private Map<String, Selection> selectionsByLabel;
+	
+	// document which contains the list, if any
+	private XmlContents owner;
+	
 	public SelectionList() {
 		selections = new ArrayList<>();
+		selectionsByCode = new HashMap<>();
+		selectionsByLabel = new HashMap<>();
 	}
 	
 	public void setId(String id) {
@@ -33,6 +44,15 @@ public class SelectionList {
 	 */
 	public void add(Selection selection) {
 		selections.add(selection);
+		selectionsByCode.putIfAbsent(selection.getCode(), selection);
+		selectionsByLabel.putIfAbsent(selection.getDescription(), selection);
+		
+		if (owner != null)
+			owner.index(selection);
+	}
+	
+	void setOwner(XmlContents owner) {
+		this.owner = owner;
 	}
 	
 	public boolean contains(Selection selection) {
@@ -63,13 +83,23 @@ public class SelectionList {
 		return selections;
 	}
 	
+	/**
+	 * Get the first selection of the list with the given code
+	 * @param code
+	 * @return the selection or null if not found
+	 */
 	public Selection getSelectionByCode(String code) {
-		for (Selection sel : selections) {
-			if (sel.getCode().equals(code))
-				return sel;
-		}
-		
-		return null;
+		return selectionsByCode.get(code);
+	}
+	
+	/**
+	 * Get the first selection of the list with the given label
+	 * (description)
+	 * @param label
+	 * @return the selection or null if not found
+	 */
+	public Selection getSelectionByLabel(String label) {
+		return selectionsByLabel.get(label);
 	}
 	
 	@Override
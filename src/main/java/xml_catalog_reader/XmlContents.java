@@ -2,6 +2,10 @@ package xml_catalog_reader;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import metrics.Metrics;
 
 /**
  * Class which represents an entire .xml configuration document
@@ -13,8 +17,17 @@ public class XmlContents {
 	private String code;                         // code of the main node of the .xml
 	private Collection<SelectionList> elements;  // list of selection lists of the .xml
 	
+	// first list for each id and first element of all the lists
+	// for each code/label, to avoid scanning the lists
+	private Map<String, SelectionList> listsById;
+	private Map<String, Selection> elementsByCode;
+	private Map<String, Selection> elementsByLabel;
+	
 	public XmlContents() {
 		elements = new ArrayList<>();
+		listsById = new HashMap<>();
+		elementsByCode = new HashMap<>();
+		elementsByLabel = new HashMap<>();
 	}
 	
 	public void setCode(String code) {
@@ -23,6 +36,22 @@ public class XmlContents {
 	
 	public void addElement(SelectionList elem) {
 		elements.add(elem);
+		listsById.putIfAbsent(elem.getId(), elem);
+		
+		for (Selection sel : elem.getSelections())
+			index(sel);
+		
+		// keep the index updated if selections are added later
+		elem.setOwner(this);
+	}
+	
+	/**
+	 * Add a selection of one of the lists to the indexes
+	 * @param sel
+	 */
+	void index(Selection sel) {
+		elementsByCode.putIfAbsent(sel.getCode(), sel);
+		elementsByLabel.putIfAbsent(sel.getDescription(), sel);
 	}
 	
 	public String getCode() {
@@ -63,15 +92,19 @@ public class XmlContents {
 	 * @return
 	 */
 	public Selection getElementByCode(String code) {
-		
-		Collection<Selection> objs = getAllListsElements();
-
-		for (Selection sel : objs) {
-			if (sel.getCode().equals(code))
-				return sel;
-		}
-		
-		return null;
+		Metrics.increment("catalog.lookupByCode", this.code);
+		return elementsByCode.get(code);
+	}
+	
+	/**
+	 * Get an element of the .xml document using its label
+	 * (description), independently on the lists ids (only
+	 * the first match is returned)
+	 * @param label
+	 * @return
+	 */
+	public Selection getElementByLabel(String label) {
+		return elementsByLabel.get(label);
 	}
 	
 	/**
@@ -96,13 +129,7 @@ public class XmlContents {
 	 * @return
 	 */
 	public SelectionList getListById(String id) {
-		
-		for (SelectionList list : elements) {
-			if (list.getId().equals(id))
-				return list;
-		}
-		
-		return null;
+		return listsById.get(id);
 	}
 
 	public int size() {
@@ -2,8 +2,8 @@ package xml_catalog_reader;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 
 import javax.xml.stream.XMLStreamException;
 
@@ -11,6 +11,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import app_config.AppPaths;
+import metrics.Metrics;
 
 /**
  * Load all the .xml contents which are contained in {@link CustomPaths#XML_FOLDER}
@@ -21,8 +22,8 @@ public class XmlLoader {
 
 	private static final Logger LOGGER = LogManager.getLogger(XmlLoader.class);
 	
-	// cache in memory to speed up
-	private static Collection<XmlContents> contents = new ArrayList<>();
+	// cache in memory to speed up, by picklist key
+	private static volatile Map<String, XmlContents> contents;
 	
 	/**
 	 * Get a picklist by its identification key
@@ -31,44 +32,60 @@ public class XmlLoader {
 	 */
 	public static XmlContents getByPicklistKey(String id) {
 		
-		// if empty, refresh contents
-		if (contents.isEmpty()) {
-			refresh();
-		}
-
-		for (XmlContents item : contents) {
-			if (item.getCode().equals(id)) {
-				return item;
+		Map<String, XmlContents> map = contents;
+		
+		// if first time, load contents
+		if (map == null) {
+			synchronized (XmlLoader.class) {
+				
+				if (contents == null)
+					contents = refresh();
+				
+				map = contents;
 			}
 		}
 
-		return null;
+		Metrics.increment("catalog.lookup", id);
+
+		return map.get(id);
 	}
 	
 	/**
-	 * Refresh the xml contents
+	 * Parse all the xml contents
+	 * @return the contents by picklist key
 	 */
-	private static void refresh() {
+	private static Map<String, XmlContents> refresh() {
 
+		long start = Metrics.start();
+		
+		Map<String, XmlContents> map = new HashMap<>();
+		
 		File dir = new File(AppPaths.XML_FOLDER);
 		
-		// parse each xml and put it into the contents list
-		for (File xml : dir.listFiles()) {
-			
-			try {
-				// parse the xml file
-				XmlParser parser = new XmlParser(xml);
-				
-				XmlContents doc = parser.parse();
+		try {
+			// parse each xml and put it into the contents map
+			for (File xml : dir.listFiles()) {
 				
-				// save the parsed contents
-				contents.add(doc);
-				
-				parser.close();
-			} catch (XMLStreamException | IOException e) {
-				LOGGER.error("Cannot refresh the XmlLoader contents", e);
-				e.printStackTrace();
+				try {
+					// parse the xml file
+					XmlParser parser = new XmlParser(xml);
+					
+					XmlContents doc = parser.parse();
+					
+					// save the parsed contents (the first file wins if
+					// two files have the same main node)
+					map.putIfAbsent(doc.getCode(), doc);
+					
+					parser.close();
+				} catch (XMLStreamException | IOException e) {
+					LOGGER.error("Cannot refresh the XmlLoader contents", e);
+					e.printStackTrace();
+				}
 			}
+		} finally {
+			Metrics.stop("catalog.load", start);
 		}
+		
+		return map;
 	}
 }
@@ -0,0 +1,244 @@
+package amend_manager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class AmendmentEngineTest {
+
+	private static final String DB_URL = "jdbc:derby:memory:amendmentTest;create=true";
+
+	private static final String OLD_VERSION = "00";
+	private static final String LATEST_VERSION = "01";
+
+	// memory budgets: all in memory, some records spilled, all records spilled
+	private static final long[] BUDGETS = { Long.MAX_VALUE, 100, 0 };
+
+	private Connection con;
+
+	@BeforeEach
+	public void setUp() throws SQLException {
+
+		con = DriverManager.getConnection(DB_URL);
+
+		// same table used by the amendments before the engine
+		try (Statement stmt = con.createStatement();) {
+			stmt.executeUpdate("create table APP.DATASET_COMPARISON(ROW_ID varchar(100) not null, "
+					+ "VERSION varchar(50) not null, XML_RECORD varchar(30000) not null, "
+					+ "AM_TYPE varchar(100), IS_NULLIFIED varchar(1), primary key(ROW_ID, VERSION))");
+		}
+	}
+
+	@AfterEach
+	public void tearDown() throws SQLException {
+
+		try (Statement stmt = con.createStatement();) {
+			stmt.executeUpdate("drop table APP.DATASET_COMPARISON");
+		}
+
+		con.close();
+	}
+
+	/**
+	 * Records of the latest version followed by the ones of the old version,
+	 * as they are extracted for the export
+	 */
+	private List<DatasetComparison> twoVersions() {
+		return Arrays.asList(
+				new DatasetComparison("unchanged", LATEST_VERSION, "<resId>1</resId>"),
+				new DatasetComparison("updated", LATEST_VERSION, "<resId>2</resId><resVal>2.5</resVal>"),
+				new DatasetComparison("new", LATEST_VERSION, "<resId>3</resId>"),
+				new DatasetComparison(null, LATEST_VERSION, "<resId>no id</resId>"),
+				new DatasetComparison("new", LATEST_VERSION, "<resId>3 again</resId>"),
+				new DatasetComparison("updatedTwice", LATEST_VERSION, "<resId>6</resId><resVal>1</resVal>"),
+				new DatasetComparison("unchanged", OLD_VERSION, "<resId>1</resId>"),
+				new DatasetComparison("updated", OLD_VERSION, "<resId>2</resId><resVal>2</resVal>"),
+				new DatasetComparison("deleted", OLD_VERSION, "<resId>4</resId>"),
+				new DatasetComparison(null, OLD_VERSION, "<resId>old no id</resId>"),
+				new DatasetComparison("deletedToo", OLD_VERSION, "<resId>5</resId>"),
+				new DatasetComparison("updatedTwice", OLD_VERSION, "<resId>6</resId><resVal>0</resVal>"));
+	}
+
+	/**
+	 * Compute the amendments with the queries on the DATASET_COMPARISON
+	 * table which were used before the engine
+	 */
+	private List<String> solveWithSql(List<DatasetComparison> comps, boolean amend) throws SQLException {
+
+		for (DatasetComparison comp : comps) {
+			try (PreparedStatement stmt = con.prepareStatement(
+					"insert into APP.DATASET_COMPARISON (ROW_ID, VERSION, XML_RECORD) values (?,?,?)");) {
+				stmt.setString(1, comp.getRowId());
+				stmt.setString(2, comp.getVersion());
+				stmt.setString(3, comp.getXmlRecord());
+				stmt.executeUpdate();
+			} catch (SQLException e) {
+				// the record was not added, as it happened in the dao
+			}
+		}
+
+		if (amend) {
+
+			execute("delete from APP.DATASET_COMPARISON where ROW_ID in ( "
+					+ "select ROW_ID from APP.DATASET_COMPARISON "
+					+ "group by ROW_ID, XML_RECORD having COUNT(VERSION) = 2 ) ");
+
+			execute("update APP.DATASET_COMPARISON "
+					+ "set XML_RECORD = XML_RECORD || '<amType>U</amType>',AM_TYPE = 'U' "
+					+ "where VERSION = '" + LATEST_VERSION + "' and ROW_ID in ("
+					+ "select ROW_ID from APP.DATASET_COMPARISON where VERSION = '" + OLD_VERSION + "'"
+					+ " and ROW_ID in (select ROW_ID from APP.DATASET_COMPARISON "
+					+ "group by ROW_ID having COUNT(VERSION) = 2))");
+
+			execute("delete from APP.DATASET_COMPARISON where AM_TYPE is null and ROW_ID in ("
+					+ "select ROW_ID from APP.DATASET_COMPARISON where AM_TYPE = 'U')");
+
+			execute("update APP.DATASET_COMPARISON "
+					+ "set XML_RECORD = XML_RECORD || '<amType>D</amType>',AM_TYPE = 'D' "
+					+ "where VERSION = '" + OLD_VERSION + "' and ROW_ID not in ("
+					+ "select ROW_ID from APP.DATASET_COMPARISON where VERSION = '" + LATEST_VERSION + "')");
+		}
+
+		List<String> out = new ArrayList<>();
+
+		try (Statement stmt = con.createStatement();
+				ResultSet rs = stmt.executeQuery("select * from APP.DATASET_COMPARISON");) {
+			while (rs.next()) {
+				out.add(toString(rs.getString("ROW_ID"), rs.getString("VERSION"), rs.getString("XML_RECORD"),
+						AmendType.fromCode(rs.getString("AM_TYPE"))));
+			}
+		}
+
+		// the table is not ordered
+		Collections.sort(out);
+
+		return out;
+	}
+
+	private void execute(String query) throws SQLException {
+		try (Statement stmt = con.createStatement();) {
+			stmt.executeUpdate(query);
+		}
+	}
+
+	/**
+	 * Compute the amendments with the engine
+	 * @return the records in the order returned by the engine
+	 */
+	private List<String> solveWithEngine(List<DatasetComparison> comps, long memoryBudget, boolean amend)
+			throws IOException {
+
+		List<String> out = new ArrayList<>();
+
+		try (AmendmentEngine engine = new AmendmentEngine(memoryBudget);) {
+
+			for (DatasetComparison comp : comps)
+				engine.add(comp.getRowId(), comp.getVersion(), comp.getXmlRecord());
+
+			if (amend)
+				engine.solveAmendments(LATEST_VERSION, OLD_VERSION);
+
+			for (DatasetComparison comp : engine.getAll()) {
+				out.add(toString(comp.getRowId(), comp.getVersion(), comp.getXmlRecord(), comp.getAmType()));
+			}
+
+			assertEquals(out.size(), engine.size());
+		}
+
+		return out;
+	}
+
+	private static String toString(String rowId, String version, String xmlRecord, AmendType amType) {
+		return rowId + "|" + version + "|" + xmlRecord + "|" + (amType == null ? "" : amType.getCode());
+	}
+
+	private static List<String> sorted(List<String> list) {
+		List<String> copy = new ArrayList<>(list);
+		Collections.sort(copy);
+		return copy;
+	}
+
+	@Test
+	public void amendmentsAreTheSameOfTheQueries() throws SQLException, IOException {
+
+		List<String> expected = solveWithSql(twoVersions(), true);
+
+		for (long budget : BUDGETS)
+			assertEquals(expected, sorted(solveWithEngine(twoVersions(), budget, true)), "budget=" + budget);
+	}
+
+	@Test
+	public void amendmentsAreSet() throws IOException {
+
+		for (long budget : BUDGETS) {
+
+			List<String> records = solveWithEngine(twoVersions(), budget, true);
+
+			// in insertion order
+			assertEquals(Arrays.asList(
+					"updated|01|<resId>2</resId><resVal>2.5</resVal><amType>U</amType>|U",
+					"new|01|<resId>3</resId>|",
+					"updatedTwice|01|<resId>6</resId><resVal>1</resVal><amType>U</amType>|U",
+					"deleted|00|<resId>4</resId><amType>D</amType>|D",
+					"deletedToo|00|<resId>5</resId><amType>D</amType>|D"), records, "budget=" + budget);
+		}
+	}
+
+	@Test
+	public void baselineIsTheSameOfTheQueries() throws SQLException, IOException {
+
+		List<DatasetComparison> baseline = new ArrayList<>();
+		for (DatasetComparison comp : twoVersions()) {
+			if (LATEST_VERSION.equals(comp.getVersion()))
+				baseline.add(comp);
+		}
+
+		List<String> expected = solveWithSql(baseline, false);
+
+		for (long budget : BUDGETS)
+			assertEquals(expected, sorted(solveWithEngine(baseline, budget, false)), "budget=" + budget);
+	}
+
+	@Test
+	public void allRecordsDeletedIsTheSameOfTheQueries() throws SQLException, IOException {
+
+		List<DatasetComparison> onlyOld = new ArrayList<>();
+		for (DatasetComparison comp : twoVersions()) {
+			if (OLD_VERSION.equals(comp.getVersion()))
+				onlyOld.add(comp);
+		}
+
+		List<String> expected = solveWithSql(onlyOld, true);
+
+		for (long budget : BUDGETS)
+			assertEquals(expected, sorted(solveWithEngine(onlyOld, budget, true)), "budget=" + budget);
+	}
+
+	@Test
+	public void recordsWithoutIdOrDuplicatedAreDiscarded() throws IOException {
+
+		try (AmendmentEngine engine = new AmendmentEngine(0);) {
+			assertTrue(engine.add("id", LATEST_VERSION, "<resId>1</resId>"));
+			assertFalse(engine.add(null, LATEST_VERSION, "<resId>2</resId>"));
+			assertFalse(engine.add("id", LATEST_VERSION, "<resId>3</resId>"));
+			assertTrue(engine.add("id", OLD_VERSION, "<resId>3</resId>"));
+			assertEquals(2, engine.size());
+		}
+	}
+}
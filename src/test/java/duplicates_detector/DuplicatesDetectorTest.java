@@ -0,0 +1,130 @@
+package duplicates_detector;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class DuplicatesDetectorTest {
+
+	/**
+	 * Object with a value, which may not provide its fingerprint
+	 */
+	private static class Item implements Checkable {
+
+		private final int value;
+		private final boolean fingerprinted;
+
+		Item(int value, boolean fingerprinted) {
+			this.value = value;
+			this.fingerprinted = fingerprinted;
+		}
+
+		@Override
+		public boolean sameAs(Object arg0) {
+			return arg0 instanceof Item && ((Item) arg0).value == value;
+		}
+
+		@Override
+		public Object getFingerprint() {
+			return fingerprinted ? value : null;
+		}
+
+		@Override
+		public String toString() {
+			return value + (fingerprinted ? "" : "*");
+		}
+	}
+
+	/**
+	 * Comparison of all the pairs, as the detector did before the fingerprints
+	 */
+	private static Collection<Duplicate<Checkable>> detectAllPairs(List<?> list) {
+
+		Collection<Duplicate<Checkable>> duplicates = new ArrayList<>();
+
+		for (int i = 0; i < list.size() - 1; ++i) {
+
+			Checkable first = (Checkable) list.get(i);
+
+			for (int j = i + 1; j < list.size(); ++j) {
+
+				Checkable second = (Checkable) list.get(j);
+
+				if (first.sameAs(second))
+					duplicates.add(new Duplicate<>(first, second));
+			}
+		}
+
+		return duplicates;
+	}
+
+	private static void assertSameDuplicates(List<Item> list) {
+
+		Collection<Duplicate<Checkable>> expected = detectAllPairs(list);
+		Collection<Duplicate<Checkable>> actual = DuplicatesDetector.detect(list);
+
+		assertEquals(expected.size(), actual.size(), "duplicates of " + list);
+
+		Iterator<Duplicate<Checkable>> it = actual.iterator();
+		for (Duplicate<Checkable> dup : expected) {
+			Duplicate<Checkable> other = it.next();
+			assertSame(dup.getFirst(), other.getFirst(), "first of a duplicate of " + list);
+			assertSame(dup.getSecond(), other.getSecond(), "second of a duplicate of " + list);
+		}
+	}
+
+	@Test
+	public void sameDuplicatesOfAllPairs() {
+
+		List<Item> list = new ArrayList<>();
+		list.add(new Item(1, true));
+		list.add(new Item(2, false));
+		list.add(new Item(1, true));
+		list.add(new Item(2, true));
+		list.add(new Item(1, false));
+		list.add(new Item(2, false));
+		list.add(new Item(3, true));
+		list.add(new Item(1, true));
+
+		assertSameDuplicates(list);
+	}
+
+	@Test
+	public void sameDuplicatesOfAllPairsForRandomLists() {
+
+		Random random = new Random(42);
+
+		for (int n = 0; n < 200; ++n) {
+
+			List<Item> list = new ArrayList<>();
+
+			int size = random.nextInt(40);
+			for (int i = 0; i < size; ++i)
+				list.add(new Item(random.nextInt(5), random.nextInt(4) != 0));
+
+			assertSameDuplicates(list);
+		}
+	}
+
+	@Test
+	public void withoutFingerprints() {
+
+		List<Item> list = new ArrayList<>();
+		for (int i = 0; i < 6; ++i)
+			list.add(new Item(i % 2, false));
+
+		assertSameDuplicates(list);
+	}
+
+	@Test
+	public void emptyList() {
+		assertEquals(0, DuplicatesDetector.detect(new ArrayList<>()).size());
+	}
+}
@@ -0,0 +1,240 @@
+package formula;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import mocks.TableDaoMock;
+import providers.ITableDaoService;
+import providers.TableDaoService;
+import table_relations.Relation;
+import table_skeleton.TableCell;
+import table_skeleton.TableColumn;
+import table_skeleton.TableColumn.ColumnType;
+import table_skeleton.TableRow;
+import xlsx_reader.TableSchema;
+
+public class CompiledFormulaTest {
+
+	private static final String PARENT_TABLE = "Report";
+	private static final int PARENT_ID = 1;
+
+	private ITableDaoService daoService;
+	private TableSchema schema;
+	private TableRow row;
+
+	/**
+	 * Relation which reads the parent with the dao, without the tables schema
+	 * file
+	 */
+	private static class TestRelation extends Relation {
+
+		private final TableSchema parentSchema;
+
+		TestRelation(TableSchema parentSchema, String child) {
+			super(parentSchema.getSheetName(), child, true);
+			this.parentSchema = parentSchema;
+		}
+
+		@Override
+		public TableRow getParentValue(int parentId, ITableDaoService daoService) {
+			return daoService.getById(parentSchema, parentId);
+		}
+	}
+
+	/**
+	 * Schema with a single parent table
+	 */
+	private static class ChildSchema extends TableSchema {
+
+		private static final long serialVersionUID = 1L;
+
+		private Relation relation;
+
+		@Override
+		public Collection<Relation> getRelations() {
+			return Collections.singletonList(relation);
+		}
+
+		@Override
+		public Relation getRelationByParentTable(String parentId) {
+			return relation.getParent().equals(parentId) ? relation : null;
+		}
+	}
+
+	private static TableColumn createColumn(String id, String codeFormula, String labelFormula) {
+		return new TableColumn(id, id, id, null, null, ColumnType.STRING, "false", "true", "true", null,
+				codeFormula, null, labelFormula, "false", 0, "false");
+	}
+
+	@BeforeEach
+	public void setUp() {
+
+		TableDaoMock dao = new TableDaoMock();
+		daoService = new TableDaoService(dao);
+
+		TableSchema parentSchema = new TableSchema();
+		parentSchema.setSheetName(PARENT_TABLE);
+		parentSchema.add(createColumn("year", null, null));
+		parentSchema.add(createColumn("country", null, null));
+
+		TableRow parent = new TableRow(parentSchema);
+		parent.setId(PARENT_ID);
+		parent.put("year", new TableCell("2020", "2020"));
+		parent.put("country", new TableCell("IT", "Italy"));
+		dao.add(parent);
+
+		ChildSchema child = new ChildSchema();
+		child.setSheetName("Result");
+		child.relation = new TestRelation(parentSchema, "Result");
+		child.add(createColumn("a", null, null));
+		child.add(createColumn("b", null, null));
+		child.add(createColumn("padded", "ZERO_PADDING(7,3)", "ZERO_PADDING(7,3)"));
+		child.add(createColumn("self", "%self.code|-S", "%self.label|-S"));
+		child.add(createColumn("selfEmpty", "%selfEmpty.code|-S", null));
+		schema = child;
+
+		row = new TableRow(schema);
+		row.setId(12);
+		row.put("a", new TableCell("X", "Ex"));
+		row.put("b", new TableCell("5", "Five"));
+		row.put("self", new TableCell("V", "Vee"));
+		row.put(Relation.foreignKeyFromParent(PARENT_TABLE), new TableCell(String.valueOf(PARENT_ID), ""));
+	}
+
+	/**
+	 * Solve a formula as it was done before the compilation, replacing in the
+	 * text the solved pieces, one kind at a time
+	 */
+	private String solveByReplacing(String formula) throws FormulaException {
+
+		String value = formula;
+
+		value = replace(FormulaFinder.findKeywordFormulas(value), value, false);
+		value = replace(FormulaFinder.findRowKeywordFormulas(value), value, true);
+		value = replace(FormulaFinder.findColumnFormulas(value), value, true);
+		value = replace(FormulaFinder.findRelationFormulas(value, daoService), value, true);
+
+		FormulaList comparisons = new FormulaList();
+		comparisons.addAll(FormulaFinder.findComparatorFormulas(value, ComparatorFormula.EQUAL));
+		comparisons.addAll(FormulaFinder.findComparatorFormulas(value, ComparatorFormula.DISEQUAL));
+		value = replace(comparisons, value, false);
+
+		String[] functionsOrder = new String[] { FunctionFormula.AND, FunctionFormula.OR, FunctionFormula.SUM,
+				FunctionFormula.ZERO_PADDING, FunctionFormula.RIGHT_TRIM, FunctionFormula.LEFT_TRIM,
+				FunctionFormula.IF, FunctionFormula.IF_NOT_NULL, FunctionFormula.HASH, FunctionFormula.NEXT };
+
+		for (String function : functionsOrder)
+			value = replace(FormulaFinder.findFunctionFormulas(value, function), value, false);
+
+		return value.trim();
+	}
+
+	private String replace(FormulaList formulas, String text, boolean useRow) throws FormulaException {
+
+		String command = text;
+
+		for (IFormula f : formulas) {
+
+			String solved = useRow ? f.solve(row) : f.solve();
+
+			if (solved != null)
+				command = command.replace(f.getUnsolvedFormula(), solved);
+		}
+
+		return command;
+	}
+
+	private String evaluate(String formula) throws FormulaException {
+		return FormulaCompiler.compile(formula).evaluate(row, daoService).trim();
+	}
+
+	private void assertSameSolution(String formula, String expected) throws FormulaException {
+		assertEquals(expected, solveByReplacing(formula), "previous solution of " + formula);
+		assertEquals(expected, evaluate(formula), "compiled solution of " + formula);
+	}
+
+	@Test
+	public void columns() throws FormulaException {
+		assertSameSolution("%a.code|-|%b.label", "X-Five");
+		assertSameSolution("  %a.label  ", "Ex");
+	}
+
+	@Test
+	public void keywords() throws FormulaException {
+		assertSameSolution("A|null|B", "AB");
+		assertSameSolution("IF_NOT_NULL(null,full,empty)", solveByReplacing("IF_NOT_NULL(,full,empty)"));
+	}
+
+	@Test
+	public void rowReferences() throws FormulaException {
+		assertSameSolution("{rowId}", "12");
+		assertSameSolution("R{rowId}-%a.code", "R12-X");
+		assertSameSolution("ZERO_PADDING({rowId},5)", "00012");
+	}
+
+	@Test
+	public void relationReferences() throws FormulaException {
+		assertSameSolution("RELATION{Report,year.code}|_|RELATION{Report,country.label}", "2020_Italy");
+		assertSameSolution("IF((RELATION{Report,country.code}==IT),RELATION{Report,year.code},null)", "2020");
+		assertSameSolution("ZERO_PADDING(RELATION{Report,year.code},6)", "002020");
+	}
+
+	@Test
+	public void comparisons() throws FormulaException {
+		assertSameSolution("(%a.code==X)", solveByReplacing("(X==X)"));
+		assertSameSolution("(%a.code!=X)", solveByReplacing("(X!=X)"));
+	}
+
+	@Test
+	public void nestedFunctions() throws FormulaException {
+		assertSameSolution("IF((%a.code==X),ZERO_PADDING(%b.code,3),null)", "005");
+		assertSameSolution("IF((%a.code!=X),ZERO_PADDING(%b.code,3),none)", "none");
+		assertSameSolution("ZERO_PADDING(SUM(%b.code,2),4)", "0007");
+		assertSameSolution("IF_NOT_NULL(%a.code,%a.code,none)", "X");
+		assertSameSolution("IF(AND((%a.code==X),(%b.code==5)),both,one)", "both");
+		assertSameSolution("IF(OR((%a.code==Y),(%b.code==6)),any,none)", "none");
+		assertEquals(solveByReplacing("HASH(MD5,%a.code|%b.code)"), evaluate("HASH(MD5,%a.code|%b.code)"));
+	}
+
+	@Test
+	public void referencesToColumnsWithoutValue() throws FormulaException {
+		// the formula of the referenced column is solved in its place
+		assertSameSolution("%padded.code", "007");
+		assertSameSolution("A%padded.label", "A007");
+	}
+
+	@Test
+	public void selfReferences() throws FormulaException {
+
+		// the value of the column is used
+		assertSameSolution("%self.code|-S", "V-S");
+
+		TableColumn self = schema.getById("self");
+		assertEquals("V-S", self.getCompiledFormula("codeFormula").evaluate(row, daoService).trim());
+		assertEquals("Vee-S", self.getCompiledFormula("labelFormula").evaluate(row, daoService).trim());
+	}
+
+	@Test
+	public void selfReferencesWithoutValue() throws FormulaException {
+
+		// the text of the formula was pasted in the solution, now the formula
+		// is solved once with the circular reference as empty
+		assertEquals("%selfEmpty.code|-S-S", solveByReplacing("%selfEmpty.code|-S"));
+		assertEquals("-S-S", evaluate("%selfEmpty.code|-S"));
+	}
+
+	@Test
+	public void functionsInsideFunctionsSolvedBefore() throws FormulaException {
+
+		// the previous solver could not solve a function inside another which
+		// was solved before it, the compiled formula solves every nesting
+		for (String formula : Arrays.asList("ZERO_PADDING(IF((%a.code==X),7,8),3)", "SUM(IF((%a.code==X),7,8),1)"))
+			assertEquals(formula.startsWith("ZERO") ? "007" : solveByReplacing("SUM(7,1)"), evaluate(formula));
+	}
+}
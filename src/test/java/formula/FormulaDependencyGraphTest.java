@@ -0,0 +1,170 @@
+package formula;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import mocks.TableDaoMock;
+import providers.ITableDaoService;
+import providers.TableDaoService;
+import table_skeleton.TableCell;
+import table_skeleton.TableColumn;
+import table_skeleton.TableColumn.ColumnType;
+import table_skeleton.TableRow;
+import xlsx_reader.TableHeaders.XlsxHeader;
+import xlsx_reader.TableSchema;
+
+public class FormulaDependencyGraphTest {
+
+	private static final String CODE = XlsxHeader.CODE_FORMULA.getHeaderName();
+	private static final String LABEL = XlsxHeader.LABEL_FORMULA.getHeaderName();
+
+	private ITableDaoService daoService;
+	private TableSchema schema;
+
+	private static TableColumn createColumn(String id, ColumnType type, String codeFormula, String labelFormula) {
+		return new TableColumn(id, id, id, null, null, type, "false", "false", "true", null, codeFormula, null,
+				labelFormula, "false", 0, "false");
+	}
+
+	private static TableSchema createSchema(String name, TableColumn... columns) {
+		TableSchema schema = new TableSchema();
+		schema.setSheetName(name);
+		schema.addAll(Arrays.asList(columns));
+		return schema;
+	}
+
+	private static List<String> ids(Collection<TableColumn> columns) {
+		List<String> ids = new ArrayList<>();
+		for (TableColumn column : columns)
+			ids.add(column.getId());
+		return ids;
+	}
+
+	@BeforeEach
+	public void setUp() {
+
+		daoService = new TableDaoService(new TableDaoMock());
+
+		// the columns are not in the order of their dependencies
+		schema = createSchema("Graph",
+				createColumn("c", ColumnType.STRING, "%b.code|C", null),
+				createColumn("d", ColumnType.PICKLIST, null, "%d.code|!"),
+				createColumn("b", ColumnType.STRING, "%a.code|B", "%b.code|-label"),
+				createColumn("a", ColumnType.STRING, null, null));
+	}
+
+	@Test
+	public void order() {
+
+		FormulaDependencyGraph graph = schema.getFormulaGraph();
+
+		assertEquals(Arrays.asList("b", "c"), ids(graph.getOrder(CODE)));
+		assertEquals(Arrays.asList("d", "b"), ids(graph.getOrder(LABEL)));
+		assertTrue(graph.getCircularColumns(CODE).isEmpty());
+	}
+
+	@Test
+	public void dependents() {
+
+		FormulaDependencyGraph graph = schema.getFormulaGraph();
+
+		assertEquals(Arrays.asList("b", "c"), ids(graph.getDependents(CODE, Arrays.asList("a"))));
+		assertEquals(Arrays.asList("b", "c"), ids(graph.getDependents(CODE, Arrays.asList("c", "a"))));
+		assertEquals(Arrays.asList("c"), ids(graph.getDependents(CODE, Arrays.asList("c"))));
+		assertTrue(graph.getDependents(CODE, Arrays.asList("d")).isEmpty());
+
+		// formulas which read their own value
+		assertEquals(Arrays.asList("d"), ids(graph.getDependents(LABEL, Arrays.asList("d"))));
+		assertEquals(Arrays.asList("b"), ids(graph.getDependents(LABEL, Arrays.asList("b"))));
+	}
+
+	private TableRow createRow() throws FormulaException {
+
+		TableRow row = new TableRow(schema);
+		row.put("a", "1");
+		row.put("d", new TableCell("X", ""));
+
+		solveAll(row);
+
+		return row;
+	}
+
+	private void solveAll(TableRow row) throws FormulaException {
+		FormulaSolver solver = new FormulaSolver(row, daoService);
+		solver.solveAll(CODE);
+		solver.solveAll(LABEL);
+	}
+
+	private static void assertSameValues(TableRow expected, TableRow actual) {
+		for (TableColumn column : expected.getSchema()) {
+			String id = column.getId();
+			assertEquals(expected.getCode(id), actual.getCode(id), "code of " + id);
+			assertEquals(expected.getLabel(id), actual.getLabel(id), "label of " + id);
+		}
+	}
+
+	@Test
+	public void solveDependentsAsSolveAll() throws FormulaException {
+
+		TableRow incremental = createRow();
+		TableRow full = createRow();
+
+		assertEquals("1BC", full.getCode("c"));
+		assertEquals("X!", full.getLabel("d"));
+
+		for (TableRow row : Arrays.asList(incremental, full)) {
+			row.put("a", "2");
+			row.put("d", new TableCell("Y", ""));
+		}
+
+		new FormulaSolver(incremental, daoService).solveDependents(Arrays.asList("a", "d"));
+		solveAll(full);
+
+		assertSameValues(full, incremental);
+		assertEquals("2B", incremental.getCode("b"));
+		assertEquals("2B-label", incremental.getLabel("b"));
+		assertEquals("2BC", incremental.getCode("c"));
+		assertEquals("Y!", incremental.getLabel("d"));
+	}
+
+	@Test
+	public void circularFormulasAreNotSolved() throws FormulaException {
+
+		TableSchema circular = createSchema("Circular",
+				createColumn("p", ColumnType.STRING, "%q.code", null),
+				createColumn("q", ColumnType.STRING, "%p.code", null),
+				createColumn("r", ColumnType.STRING, "%q.code|R", null),
+				createColumn("s", ColumnType.STRING, "%t.code|S", null),
+				createColumn("t", ColumnType.STRING, null, null));
+
+		FormulaDependencyGraph graph = circular.getFormulaGraph();
+
+		assertThrows(FormulaException.class, () -> graph.checkCycles());
+		assertEquals(Arrays.asList("p", "q", "r"), graph.getCircularColumns(CODE));
+		assertEquals(Arrays.asList("s"), ids(graph.getOrder(CODE)));
+		assertTrue(graph.getDependents(CODE, Arrays.asList("p", "q")).isEmpty());
+
+		TableRow row = new TableRow(circular);
+		row.put("t", "1");
+
+		FormulaSolver solver = new FormulaSolver(row, daoService);
+		solver.solveAll(CODE);
+		assertEquals("1S", row.getCode("s"));
+		assertNull(row.get("r"));
+
+		row.put("t", "2");
+		solver.solveDependents(Arrays.asList("t", "p"));
+		assertEquals("2S", row.getCode("s"));
+		assertNull(row.get("r"));
+	}
+}
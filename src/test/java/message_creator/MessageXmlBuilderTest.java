@@ -0,0 +1,179 @@
+package message_creator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import amend_manager.DatasetComparison;
+import message.MessageConfigBuilder;
+import table_skeleton.TableColumn;
+import table_skeleton.TableColumn.ColumnType;
+import table_skeleton.TableRow;
+import xlsx_reader.TableSchema;
+
+public class MessageXmlBuilderTest {
+
+	private static final String NL = System.lineSeparator();
+
+	private File xsd;
+	private File out;
+	private MessageSchema schema;
+	private MessageConfigBuilder config;
+
+	/**
+	 * Message configuration which does not need the database
+	 */
+	private static class FixedConfigBuilder extends MessageConfigBuilder {
+
+		private final TableRow messageConfig;
+
+		public FixedConfigBuilder(TableRow messageConfig) {
+			super(null, null);
+			this.messageConfig = messageConfig;
+		}
+
+		@Override
+		public TableRow getMessageConfig() {
+			return messageConfig;
+		}
+	}
+
+	@BeforeEach
+	public void setUp() throws Exception {
+
+		xsd = File.createTempFile("message", ".xsd");
+		out = File.createTempFile("message", ".xml");
+
+		String xsdContent = "<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\">"
+				+ "<xs:complexType name=\"headerType\"><xs:sequence>"
+				+ "<xs:element name=\"senderMessageId\"/><xs:element name=\"notInConfig\"/>"
+				+ "<xs:element name=\"emptyValue\"/><xs:element name=\"notInOutput\"/>"
+				+ "<xs:element name=\"orgCode\"/>"
+				+ "</xs:sequence></xs:complexType>"
+				+ "<xs:complexType name=\"operationType\"><xs:sequence>"
+				+ "<xs:element name=\"opType\"/><xs:element name=\"dcCode\"/>"
+				+ "</xs:sequence></xs:complexType>"
+				+ "</xs:schema>";
+
+		Files.write(xsd.toPath(), xsdContent.getBytes(StandardCharsets.UTF_8));
+
+		schema = MessageSchema.getInstance(xsd.getAbsolutePath());
+
+		TableSchema configSchema = new TableSchema();
+		configSchema.setSheetName("MessageConfigTest");
+		configSchema.add(createColumn("senderMessageId", "true"));
+		configSchema.add(createColumn("emptyValue", "true"));
+		configSchema.add(createColumn("notInOutput", "false"));
+		configSchema.add(createColumn("orgCode", "true"));
+		configSchema.add(createColumn("opType", "true"));
+		configSchema.add(createColumn("dcCode", "true"));
+
+		TableRow row = new TableRow(configSchema);
+		row.put("senderMessageId", "R&D <1>");
+		row.put("emptyValue", "");
+		row.put("notInOutput", "hidden");
+		row.put("orgCode", "EFSA");
+		row.put("opType", "Insert");
+		row.put("dcCode", "TEST");
+
+		config = new FixedConfigBuilder(row);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		xsd.delete();
+		out.delete();
+	}
+
+	private TableColumn createColumn(String id, String putInOutput) {
+		return new TableColumn(id, id, id, id, null, ColumnType.STRING, "false", "true", "true", 
+				null, null, null, null, putInOutput, 0, "false");
+	}
+
+	/**
+	 * Message as it was printed line by line before the streaming. Only the
+	 * header values are now escaped
+	 * @param records
+	 * @return
+	 */
+	private String expectedMessage(List<DatasetComparison> records) {
+
+		StringBuilder sb = new StringBuilder();
+		sb.append("<?xml version='1.0' encoding='UTF-8'?>").append(NL);
+		sb.append("<message>").append(NL);
+		sb.append("<header><senderMessageId>R&amp;D &lt;1&gt;</senderMessageId>"
+				+ "<orgCode>EFSA</orgCode></header>").append(NL);
+		sb.append("<payload>").append(NL);
+		sb.append("<operation><opType>Insert</opType><dcCode>TEST</dcCode></operation>").append(NL);
+		sb.append("<dataset>").append(NL);
+
+		for (DatasetComparison record : records)
+			sb.append("<result>").append(record.getXmlRecord()).append("</result>").append(NL);
+
+		sb.append("</dataset>").append(NL);
+		sb.append("</payload>").append(NL);
+		sb.append("</message>").append(NL);
+
+		return sb.toString();
+	}
+
+	private List<DatasetComparison> sampleReport() {
+		return Arrays.asList(
+				new DatasetComparison("1", "00", "<resId>1</resId><sampId>S&amp;1</sampId>"),
+				new DatasetComparison("2", "00", "<resId>2</resId><paramCode>RF-0001</paramCode>"),
+				new DatasetComparison("3", "01", "<resId>3</resId><amType>U</amType>"));
+	}
+
+	private String read(File file) throws IOException {
+		return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void messageIsPrintedAsBefore() throws IOException {
+
+		List<DatasetComparison> records = sampleReport();
+
+		try (MessageXmlBuilder builder = new MessageXmlBuilder(out, config, schema, false)) {
+			builder.export(records);
+		}
+
+		assertEquals(expectedMessage(records), read(out));
+	}
+
+	@Test
+	public void emptyMessageIsPrintedAsBefore() throws IOException {
+
+		try (MessageXmlBuilder builder = new MessageXmlBuilder(out, config, schema, false)) {
+			builder.exportEmpty();
+		}
+
+		assertEquals(expectedMessage(Collections.<DatasetComparison>emptyList()), read(out));
+	}
+
+	@Test
+	public void compressedMessageHasTheSameContent() throws IOException {
+
+		List<DatasetComparison> records = sampleReport();
+
+		try (MessageXmlBuilder builder = new MessageXmlBuilder(out, config, schema, true)) {
+			builder.export(records);
+		}
+
+		try (InputStream in = new GZIPInputStream(Files.newInputStream(out.toPath()))) {
+			assertEquals(expectedMessage(records), IOUtils.toString(in, StandardCharsets.UTF_8));
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package mocks;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import ack.DcfAck;
+import dataset.DatasetList;
+import dataset.IDataset;
+import providers.IDcfDataSource;
+
+/**
+ * In memory replacement of the DCF web services used in the tests, which
+ * returns the datasets and the acks that were added to it and counts the
+ * requests which were received.
+ * 
+ */
+public class LocalDcfDataSource implements IDcfDataSource {
+
+	private final Map<String, DatasetList> datasets;
+	private final Map<String, DcfAck> acks;
+
+	private int datasetsListRequests;
+	private int ackRequests;
+
+	public LocalDcfDataSource() {
+		this.datasets = new HashMap<>();
+		this.acks = new HashMap<>();
+	}
+
+	/**
+	 * Add a dataset to a data collection
+	 * 
+	 * @param dataCollectionCode
+	 * @param dataset
+	 */
+	public synchronized void addDataset(String dataCollectionCode, IDataset dataset) {
+		datasets.computeIfAbsent(dataCollectionCode, code -> new DatasetList()).add(dataset);
+	}
+
+	/**
+	 * Remove all the datasets of a data collection
+	 * 
+	 * @param dataCollectionCode
+	 */
+	public synchronized void clearDatasets(String dataCollectionCode) {
+		datasets.remove(dataCollectionCode);
+	}
+
+	/**
+	 * Set the ack of a message
+	 * 
+	 * @param messageId
+	 * @param ack
+	 */
+	public synchronized void putAck(String messageId, DcfAck ack) {
+		acks.put(messageId, ack);
+	}
+
+	@Override
+	public synchronized DatasetList getDatasetsList(String dataCollectionCode) {
+
+		datasetsListRequests++;
+
+		DatasetList output = new DatasetList();
+
+		DatasetList list = datasets.get(dataCollectionCode);
+		if (list != null)
+			output.addAll(list);
+
+		return output;
+	}
+
+	@Override
+	public synchronized DcfAck getAck(String messageId) {
+		ackRequests++;
+		return acks.get(messageId);
+	}
+
+	/**
+	 * Get the number of datasets lists which were requested
+	 * 
+	 * @return
+	 */
+	public synchronized int getDatasetsListRequests() {
+		return datasetsListRequests;
+	}
+
+	/**
+	 * Get the number of acks which were requested
+	 * 
+	 * @return
+	 */
+	public synchronized int getAckRequests() {
+		return ackRequests;
+	}
+}
@@ -2,9 +2,13 @@ package mocks;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.function.Consumer;
 
+import table_database.ITableCursor;
 import table_database.ITableDao;
+import table_database.TableQuery;
 import table_relations.Relation;
 import table_skeleton.TableRow;
 import table_skeleton.TableRowList;
@@ -25,6 +29,23 @@ public class TableDaoMock implements ITableDao {
 		return (int) (Math.random() * 10000.000);
 	}
 
+	@Override
+	public int[] addAll(Collection<TableRow> rows) {
+
+		int[] ids = new int[rows.size()];
+
+		int i = 0;
+		for (TableRow row : rows)
+			ids[i++] = add(row);
+
+		return ids;
+	}
+
+	@Override
+	public int[] addAll(Collection<TableRow> rows, int batchSize) {
+		return addAll(rows);
+	}
+
 	@Override
 	public boolean update(TableRow row) {
 		Iterator<TableRow> iterator = db.iterator();
@@ -115,6 +136,99 @@ public class TableDaoMock implements ITableDao {
 		return out;
 	}
 
+	@Override
+	public void forEach(TableSchema schema, Consumer<TableRow> action) throws SQLException {
+		for (TableRow row : getAll(schema))
+			action.accept(row);
+	}
+
+	@Override
+	public void forEach(TableQuery query, Consumer<TableRow> action) throws SQLException {
+		for (TableRow row : getRows(query))
+			action.accept(row);
+	}
+
+	@Override
+	public ITableCursor iterate(TableQuery query) {
+
+		Iterator<TableRow> iterator = getRows(query).iterator();
+
+		return new ITableCursor() {
+
+			@Override
+			public boolean hasNext() {
+				return iterator.hasNext();
+			}
+
+			@Override
+			public TableRow next() {
+				return iterator.next();
+			}
+
+			@Override
+			public void close() {
+			}
+		};
+	}
+
+	@Override
+	public TableRowList getPage(TableQuery query, int afterId) {
+
+		TableRowList page = new TableRowList(query.getSchema());
+
+		for (TableRow row : getRows(query)) {
+
+			if (page.size() == query.getPageSize())
+				break;
+
+			if (row.getDatabaseId() > afterId)
+				page.add(row);
+		}
+
+		return page;
+	}
+
+	/**
+	 * Get the rows of a query ordered by id
+	 * @param query
+	 * @return
+	 */
+	private TableRowList getRows(TableQuery query) {
+
+		TableRowList rows = query.hasParent()
+				? getByParentId(query.getSchema(), query.getParentTable(), query.getParentId())
+				: getAll(query.getSchema());
+
+		rows.sort((r1, r2) -> Integer.compare(r1.getDatabaseId(), r2.getDatabaseId()));
+
+		return rows;
+	}
+
+	@Override
+	public int[] getIds(TableSchema schema) {
+		return getAll(schema).stream().mapToInt(TableRow::getDatabaseId).sorted().toArray();
+	}
+
+	@Override
+	public int[] getIdsByParentId(TableSchema schema, String parentTable, int parentId) {
+		return getByParentId(schema, parentTable, parentId).stream().mapToInt(TableRow::getDatabaseId).sorted()
+				.toArray();
+	}
+
+	@Override
+	public TableRowList getByIds(TableSchema schema, int[] ids, boolean solveFormulas) {
+
+		TableRowList list = new TableRowList(schema);
+
+		for (int id : ids) {
+			TableRow row = getById(schema, id);
+			if (row != null)
+				list.add(row);
+		}
+
+		return list;
+	}
+
 	@Override
 	public boolean delete(TableSchema schema, int rowId) {
 
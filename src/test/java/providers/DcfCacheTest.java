@@ -0,0 +1,114 @@
+package providers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import dataset.Dataset;
+import dataset.DatasetList;
+import mocks.LocalDcfDataSource;
+import task_manager.TaskPool;
+
+public class DcfCacheTest {
+
+	private static final String DATA_COLLECTION = "TEST_DC";
+	private static final int REFRESHES = 20;
+
+	private LocalDcfDataSource source;
+	private DcfCache cache;
+	private TaskPool pool;
+
+	@BeforeEach
+	public void setUp() {
+
+		source = new LocalDcfDataSource();
+
+		Dataset dataset = new Dataset();
+		dataset.setId("1");
+		dataset.setSenderId("REPORT.00");
+		source.addDataset(DATA_COLLECTION, dataset);
+
+		cache = new DcfCache(source, 60000);
+		pool = new TaskPool("test", 4, REFRESHES, 1000);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		pool.shutdown();
+	}
+
+	/**
+	 * Read the datasets list as many refreshes of the reports do, all
+	 * together in the pool
+	 * @return the number of datasets read by each refresh
+	 * @throws InterruptedException
+	 * @throws ExecutionException
+	 */
+	private List<Integer> refreshAll() throws InterruptedException, ExecutionException {
+
+		List<Future<Integer>> futures = new ArrayList<>();
+		for (int i = 0; i < REFRESHES; ++i)
+			futures.add(pool.submit(() -> cache.getDatasetsList(DATA_COLLECTION).size()));
+
+		List<Integer> sizes = new ArrayList<>();
+		for (Future<Integer> future : futures)
+			sizes.add(future.get());
+
+		return sizes;
+	}
+
+	@Test
+	public void refreshesListOnce() throws InterruptedException, ExecutionException {
+
+		for (int size : refreshAll())
+			assertEquals(1, size);
+
+		assertEquals(1, source.getDatasetsListRequests());
+
+		// a second bulk refresh within the time to live
+		refreshAll();
+		assertEquals(1, source.getDatasetsListRequests());
+	}
+
+	@Test
+	public void expireListsAgain() throws Exception {
+
+		cache.getDatasetsList(DATA_COLLECTION);
+
+		// the user refreshes a report
+		cache.expire(DATA_COLLECTION);
+
+		refreshAll();
+		assertEquals(2, source.getDatasetsListRequests());
+	}
+
+	@Test
+	public void invalidateListsAgain() throws Exception {
+
+		cache.getDatasetsList(DATA_COLLECTION);
+
+		// a dataset was sent
+		cache.invalidate(DATA_COLLECTION);
+
+		DatasetList list = cache.getDatasetsList(DATA_COLLECTION);
+		assertEquals(1, list.size());
+		assertEquals(2, source.getDatasetsListRequests());
+	}
+
+	@Test
+	public void listIsCopied() throws Exception {
+
+		// the callers can change the list they receive
+		cache.getDatasetsList(DATA_COLLECTION).clear();
+
+		assertEquals(1, cache.getDatasetsList(DATA_COLLECTION).size());
+		assertEquals(1, source.getDatasetsListRequests());
+	}
+}
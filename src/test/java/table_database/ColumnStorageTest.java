@@ -0,0 +1,169 @@
+package table_database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import table_skeleton.TableColumn;
+import table_skeleton.TableColumnBuilder;
+import xlsx_reader.TableSchema;
+
+/**
+ * Changing the storage of a column must not lose the values which cannot be
+ * stored with the new type, and must not fail because of them.
+ *
+ */
+public class ColumnStorageTest {
+
+	private static final String DB_URL = "jdbc:derby:memory:storageTest;create=true";
+	private static final String SHEET = "StorageTest";
+	private static final String VALUE_COLUMN = "value";
+
+	private Connection con;
+	private TableSchema schema;
+
+	@BeforeEach
+	public void setUp() throws SQLException {
+
+		con = DriverManager.getConnection(DB_URL);
+
+		try (Statement stmt = con.createStatement();) {
+			stmt.executeUpdate("create table APP." + SHEET + " (" + SHEET + "Id integer not null primary key "
+					+ "generated always as identity (start with 1, increment by 1), " + VALUE_COLUMN + " "
+					+ StorageType.TEXT.getSqlType() + ")");
+		}
+
+		schema = new TableSchema();
+		schema.setSheetName(SHEET);
+	}
+
+	@AfterEach
+	public void tearDown() throws SQLException {
+
+		con.setAutoCommit(true);
+
+		try (Statement stmt = con.createStatement();) {
+			stmt.executeUpdate("drop table APP." + SHEET);
+			stmt.executeUpdate("drop table APP." + DatabaseBuilder.STORAGE_BACKUP_TABLE);
+		}
+
+		con.close();
+	}
+
+	private TableColumn column(StorageType type) {
+		return new TableColumnBuilder().setId(VALUE_COLUMN).setCode(VALUE_COLUMN).setLabel(VALUE_COLUMN)
+				.setType("string").setStorageType(type.getHeaderName()).build();
+	}
+
+	private void insert(String... values) throws SQLException {
+		try (Statement stmt = con.createStatement();) {
+			for (String value : values)
+				stmt.executeUpdate("insert into APP." + SHEET + " (" + VALUE_COLUMN + ") values ("
+						+ (value == null ? "null" : "'" + value + "'") + ")");
+		}
+	}
+
+	/**
+	 * @param type current storage of the column
+	 * @return row id => value
+	 */
+	private Map<Integer, String> values(StorageType type) throws SQLException {
+
+		Map<Integer, String> values = new HashMap<>();
+
+		try (Statement stmt = con.createStatement();
+				ResultSet rs = stmt.executeQuery("select * from APP." + SHEET);) {
+			while (rs.next())
+				values.put(rs.getInt(SHEET + "Id"), type.read(rs, VALUE_COLUMN));
+		}
+
+		return values;
+	}
+
+	/**
+	 * @return row id => value
+	 */
+	private Map<Integer, String> backup() throws SQLException {
+
+		Map<Integer, String> values = new HashMap<>();
+
+		try (Statement stmt = con.createStatement();
+				ResultSet rs = stmt.executeQuery("select * from APP." + DatabaseBuilder.STORAGE_BACKUP_TABLE);) {
+			while (rs.next()) {
+				assertEquals(SHEET, rs.getString("TABLE_NAME"));
+				assertEquals(VALUE_COLUMN, rs.getString("COLUMN_NAME"));
+				values.put(rs.getInt("ROW_ID"), rs.getString("VAR_VALUE"));
+			}
+		}
+
+		return values;
+	}
+
+	@Test
+	public void convertedValues() throws SQLException {
+
+		insert("1.50", "2", null, "");
+
+		assertTrue(DatabaseBuilder.changeColumnStorage(con, schema, column(StorageType.TEXT),
+				column(StorageType.DECIMAL)));
+
+		Map<Integer, String> values = values(StorageType.DECIMAL);
+		assertEquals("1.5", values.get(1));
+		assertEquals("2", values.get(2));
+		assertNull(values.get(3));
+		assertNull(values.get(4));
+		assertTrue(backup().isEmpty());
+	}
+
+	@Test
+	public void notConvertibleValuesAreBackedUp() throws SQLException {
+
+		insert("1,5", "3", "01/02/2020");
+
+		assertTrue(DatabaseBuilder.changeColumnStorage(con, schema, column(StorageType.TEXT),
+				column(StorageType.DECIMAL)));
+
+		Map<Integer, String> values = values(StorageType.DECIMAL);
+		assertNull(values.get(1));
+		assertEquals("3", values.get(2));
+		assertNull(values.get(3));
+
+		Map<Integer, String> backup = backup();
+		assertEquals(2, backup.size());
+		assertEquals("1,5", backup.get(1));
+		assertEquals("01/02/2020", backup.get(3));
+	}
+
+	@Test
+	public void tooLongTextIsBackedUp() throws SQLException {
+
+		StringBuilder longValue = new StringBuilder();
+		for (int i = 0; i <= StorageType.SHORT_TEXT.getWidth(); ++i)
+			longValue.append('x');
+
+		insert("short", longValue.toString());
+
+		assertTrue(DatabaseBuilder.changeColumnStorage(con, schema, column(StorageType.TEXT),
+				column(StorageType.SHORT_TEXT)));
+
+		Map<Integer, String> values = values(StorageType.SHORT_TEXT);
+		assertEquals("short", values.get(1));
+		assertNull(values.get(2));
+
+		Map<Integer, String> backup = backup();
+		assertEquals(1, backup.size());
+		assertEquals(longValue.toString(), backup.get(2));
+	}
+}
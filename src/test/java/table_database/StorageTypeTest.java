@@ -0,0 +1,119 @@
+package table_database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import app_config.BooleanValue;
+
+public class StorageTypeTest {
+
+	private static final String DB_URL = "jdbc:derby:memory:storageTest;create=true";
+	private static final String TABLE = "APP.StorageTest";
+
+	private Connection con;
+
+	@BeforeEach
+	public void setUp() throws SQLException {
+
+		con = DriverManager.getConnection(DB_URL);
+
+		StringBuilder columns = new StringBuilder();
+		for (StorageType type : StorageType.values())
+			columns.append(", ").append(getColumn(type)).append(" ").append(type.getSqlType());
+
+		try (Statement stmt = con.createStatement();) {
+			stmt.executeUpdate("create table " + TABLE + " (id integer not null" + columns + ")");
+		}
+	}
+
+	@AfterEach
+	public void tearDown() throws SQLException {
+
+		try (Statement stmt = con.createStatement();) {
+			stmt.executeUpdate("drop table " + TABLE);
+		}
+
+		con.close();
+	}
+
+	private static String getColumn(StorageType type) {
+		return "col_" + type.name();
+	}
+
+	/**
+	 * Write a value with a type and read it back
+	 */
+	private String store(StorageType type, String value) throws SQLException {
+
+		try (Statement stmt = con.createStatement();) {
+			stmt.executeUpdate("delete from " + TABLE);
+		}
+
+		try (PreparedStatement stmt = con
+				.prepareStatement("insert into " + TABLE + " (id, " + getColumn(type) + ") values (1, ?)");) {
+			type.bind(stmt, 1, value);
+			stmt.executeUpdate();
+		}
+
+		try (Statement stmt = con.createStatement();
+				ResultSet rs = stmt.executeQuery("select " + getColumn(type) + " from " + TABLE);) {
+			rs.next();
+			return type.read(rs, getColumn(type));
+		}
+	}
+
+	@Test
+	public void valuesAreReadInCanonicalForm() throws SQLException {
+
+		assertEquals("abc", store(StorageType.TEXT, "abc"));
+		assertEquals("42", store(StorageType.INTEGER, " 42 "));
+		assertEquals("1.5", store(StorageType.DECIMAL, "1.50"));
+		assertEquals("10", store(StorageType.DECIMAL, "10.0"));
+		assertEquals("2020-02-29", store(StorageType.DATE, "2020-02-29"));
+		assertEquals("2020-02-29 10:30:00", store(StorageType.TIMESTAMP, "2020-02-29T10:30:00"));
+		assertEquals(BooleanValue.getTrueValue(), store(StorageType.BOOLEAN, "true"));
+		assertEquals(BooleanValue.getFalseValue(), store(StorageType.BOOLEAN, "0"));
+	}
+
+	@Test
+	public void emptyValuesAreNull() throws SQLException {
+		assertNull(store(StorageType.INTEGER, ""));
+		assertNull(store(StorageType.DECIMAL, null));
+		assertNull(store(StorageType.BOOLEAN, " "));
+	}
+
+	@Test
+	public void wrongValuesAreNotAccepted() throws SQLException {
+
+		assertTrue(StorageType.TEXT.accepts("abc"));
+		assertTrue(StorageType.INTEGER.accepts(""));
+		assertFalse(StorageType.INTEGER.accepts("abc"));
+		assertFalse(StorageType.DECIMAL.accepts("1,5"));
+		assertFalse(StorageType.DATE.accepts("29/02/2020"));
+		assertFalse(StorageType.BOOLEAN.accepts("maybe"));
+
+		assertThrows(SQLDataException.class, () -> store(StorageType.INTEGER, "abc"));
+	}
+
+	@Test
+	public void unknownTypesAreText() {
+		assertEquals(StorageType.INTEGER, StorageType.fromString(" Integer "));
+		assertEquals(StorageType.TEXT, StorageType.fromString(null));
+		assertEquals(StorageType.TEXT, StorageType.fromString("number"));
+	}
+}
@@ -0,0 +1,161 @@
+package table_database;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import table_skeleton.TableColumn;
+import table_skeleton.TableColumnBuilder;
+import table_skeleton.TableRow;
+import table_skeleton.TableRowList;
+import xlsx_reader.TableSchema;
+
+/**
+ * Reads whose formulas read other rows (as the parents of a relation do) must
+ * not wait for a second connection, otherwise a small pool is starved.
+ *
+ */
+public class TableDaoPoolTest {
+
+	private static final String DB_URL = "jdbc:derby:memory:poolTest;create=true";
+	private static final String SHEET = "PoolTest";
+	private static final String NAME_COLUMN = "name";
+	private static final int ROWS = 5;
+
+	private ConnectionPool previousPool;
+	private ConnectionPool pool;
+	private TableSchema schema;
+
+	/**
+	 * Dao which reads another row while solving the formulas of each row, as
+	 * a relation formula does with the parent
+	 */
+	private static class NestedReadDao extends TableDao {
+
+		private final AtomicInteger nestedReads = new AtomicInteger();
+		private boolean reading;
+
+		@Override
+		protected void solveFormulas(TableRow row) {
+
+			// the nested read solves its formulas too, stop there
+			if (reading)
+				return;
+
+			reading = true;
+			try {
+				assertNotNull(getById(row.getSchema(), 1), "The nested read failed");
+				nestedReads.incrementAndGet();
+			} finally {
+				reading = false;
+			}
+		}
+	}
+
+	@BeforeEach
+	public void setUp() throws SQLException {
+
+		// one connection only, with a short timeout so that a starved pool
+		// fails the test instead of hanging it
+		pool = new ConnectionPool(DB_URL, 1, 1000);
+		previousPool = Database.setPool(pool);
+
+		try (Connection con = pool.borrow(); Statement stmt = con.createStatement();) {
+			stmt.executeUpdate("create table APP." + SHEET + " (" + SHEET + "Id integer not null primary key "
+					+ "generated always as identity (start with 1, increment by 1), " + NAME_COLUMN
+					+ " varchar(1000))");
+			for (int i = 0; i < ROWS; ++i)
+				stmt.executeUpdate("insert into APP." + SHEET + " (" + NAME_COLUMN + ") values ('row" + i + "')");
+		}
+
+		schema = new TableSchema();
+		schema.setSheetName(SHEET);
+
+		TableColumn name = new TableColumnBuilder().setId(NAME_COLUMN).setCode(NAME_COLUMN).setLabel(NAME_COLUMN)
+				.setType("string").build();
+
+		schema.add(name);
+	}
+
+	@AfterEach
+	public void tearDown() throws SQLException {
+
+		try (Connection con = pool.borrow(); Statement stmt = con.createStatement();) {
+			stmt.executeUpdate("drop table APP." + SHEET);
+		}
+
+		Database.setPool(previousPool);
+		pool.drain();
+	}
+
+	@Test
+	public void getAllWithNestedReads() {
+
+		NestedReadDao dao = new NestedReadDao();
+
+		assertEquals(ROWS, dao.getAll(schema).size());
+		assertEquals(ROWS, dao.nestedReads.get());
+		assertEquals(0, pool.getStatistics().getActive());
+	}
+
+	@Test
+	public void getByIdWithNestedReads() {
+
+		NestedReadDao dao = new NestedReadDao();
+
+		TableRow row = dao.getById(schema, 2);
+
+		assertNotNull(row);
+		assertEquals("row1", row.getCode(NAME_COLUMN));
+		assertEquals(0, pool.getStatistics().getActive());
+	}
+
+	@Test
+	public void getByIdsWithNestedReads() {
+
+		NestedReadDao dao = new NestedReadDao();
+
+		assertEquals(3, dao.getByIds(schema, new int[] { 1, 3, 5 }, true).size());
+		assertEquals(3, dao.nestedReads.get());
+		assertEquals(0, pool.getStatistics().getActive());
+	}
+
+	@Test
+	public void getPageWithNestedReads() {
+
+		NestedReadDao dao = new NestedReadDao();
+
+		TableQuery query = new TableQuery(schema);
+		query.setPageSize(2);
+
+		TableRowList page = dao.getPage(query, 2);
+
+		assertEquals(2, page.size());
+		assertEquals(3, page.get(0).getDatabaseId());
+		assertEquals(0, pool.getStatistics().getActive());
+	}
+
+	@Test
+	public void forEachWithNestedReads() throws SQLException {
+
+		NestedReadDao dao = new NestedReadDao();
+
+		TableQuery query = new TableQuery(schema);
+		query.setPageSize(2);
+
+		AtomicInteger count = new AtomicInteger();
+		dao.forEach(query, row -> count.incrementAndGet());
+
+		assertEquals(ROWS, count.get());
+		assertEquals(ROWS, dao.nestedReads.get());
+		assertEquals(0, pool.getStatistics().getActive());
+	}
+}
@@ -0,0 +1,275 @@
+package table_database;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import table_skeleton.TableColumn;
+import table_skeleton.TableColumn.ColumnType;
+import table_skeleton.TableRow;
+import xlsx_reader.TableSchema;
+
+/**
+ * The updates write only the columns marked as changed in the row, therefore
+ * a change which is not tracked is never saved. The rows are written and read
+ * again from an in memory database.
+ *
+ */
+public class TableRowChangesTest {
+
+	private static final String DB_URL = "jdbc:derby:memory:changesTest;create=true";
+	private static final String SHEET = "ChangesTest";
+
+	private ConnectionPool previousPool;
+	private ConnectionPool pool;
+	private TableSchema schema;
+	private PersistencePlan plan;
+	private TableDao dao;
+
+	private static TableColumn createColumn(String id, String codeFormula) {
+		return new TableColumn(id, id, id, null, null, ColumnType.STRING, "false", "false", "true", null,
+				codeFormula, null, null, "false", 0, "false");
+	}
+
+	@BeforeEach
+	public void setUp() throws SQLException {
+
+		pool = new ConnectionPool(DB_URL, 2, 1000);
+		previousPool = Database.setPool(pool);
+
+		try (Connection con = pool.borrow(); Statement stmt = con.createStatement();) {
+			stmt.executeUpdate("create table APP." + SHEET + " (" + SHEET + "Id integer not null primary key "
+					+ "generated always as identity (start with 1, increment by 1), "
+					+ "a varchar(1000), b varchar(1000), c varchar(1000))");
+			stmt.executeUpdate("insert into APP." + SHEET + " (a, b, c) values ('a1', 'a1B', 'c1')");
+			stmt.executeUpdate("insert into APP." + SHEET + " (a, b, c) values ('a2', 'a2B', 'c2')");
+		}
+
+		// b is computed from a
+		schema = new TableSchema();
+		schema.setSheetName(SHEET);
+		schema.add(createColumn("a", null));
+		schema.add(createColumn("b", "%a.code|B"));
+		schema.add(createColumn("c", null));
+
+		plan = schema.getPersistencePlan();
+		dao = new TableDao();
+	}
+
+	@AfterEach
+	public void tearDown() throws SQLException {
+
+		try (Connection con = pool.borrow(); Statement stmt = con.createStatement();) {
+			stmt.executeUpdate("drop table APP." + SHEET);
+		}
+
+		Database.setPool(previousPool);
+		pool.drain();
+	}
+
+	/**
+	 * Change a value directly in the database, without the dao
+	 */
+	private void setInDatabase(int id, String column, String value) throws SQLException {
+		try (Connection con = pool.borrow(); Statement stmt = con.createStatement();) {
+			stmt.executeUpdate("update APP." + SHEET + " set " + column + " = '" + value + "' where " + SHEET
+					+ "Id = " + id);
+		}
+	}
+
+	/**
+	 * Read a row as it is in the database, without solving the formulas
+	 */
+	private TableRow read(int id) {
+		return dao.getByIds(schema, new int[] { id }, false).get(0);
+	}
+
+	@Test
+	public void noChangesAfterRead() {
+
+		TableRow row = dao.getById(schema, 1);
+
+		assertFalse(row.isChanged());
+		assertEquals(0, plan.getChangedColumns(row).length);
+	}
+
+	@Test
+	public void onlyChangedColumnsAreWritten() throws SQLException {
+
+		TableRow row = dao.getById(schema, 1);
+
+		row.put("c", "edited");
+
+		assertTrue(row.isChanged("c"));
+		assertArrayEquals(new int[] { 2 }, plan.getChangedColumns(row));
+
+		// not in the row, it must not be overwritten
+		setInDatabase(1, "a", "external");
+
+		assertTrue(dao.update(row));
+
+		TableRow saved = read(1);
+		assertEquals("edited", saved.getCode("c"));
+		assertEquals("external", saved.getCode("a"));
+	}
+
+	@Test
+	public void putEqualValueIsNotAChange() throws SQLException {
+
+		TableRow row = dao.getById(schema, 1);
+
+		row.put("a", "a1");
+		row.put("c", "c1");
+
+		assertFalse(row.isChanged());
+		assertEquals(0, plan.getChangedColumns(row).length);
+
+		// nothing to write
+		setInDatabase(1, "c", "external");
+		assertTrue(dao.update(row));
+		assertEquals("external", read(1).getCode("c"));
+	}
+
+	@Test
+	public void putEqualValueKeepsPendingChange() {
+
+		TableRow row = dao.getById(schema, 1);
+
+		row.put("c", "edited");
+		row.put("c", "edited");
+
+		assertTrue(row.isChanged("c"));
+		assertArrayEquals(new int[] { 2 }, plan.getChangedColumns(row));
+	}
+
+	@Test
+	public void setIdWritesAllTheColumns() {
+
+		TableRow row = dao.getById(schema, 1);
+
+		row.setId(2);
+
+		assertEquals(schema.size(), plan.getChangedColumns(row).length);
+		assertTrue(dao.update(row));
+
+		TableRow saved = read(2);
+		assertEquals("a1", saved.getCode("a"));
+		assertEquals("a1B", saved.getCode("b"));
+		assertEquals("c1", saved.getCode("c"));
+	}
+
+	@Test
+	public void setSameIdIsNotAChange() {
+
+		TableRow row = dao.getById(schema, 1);
+
+		row.setId(1);
+
+		assertFalse(row.isChanged());
+	}
+
+	@Test
+	public void copyValuesWritesTheDifferentValues() throws SQLException {
+
+		// an edited copy of the row is copied back, as the table view does
+		TableRow target = dao.getById(schema, 1);
+		TableRow edited = new TableRow(target);
+
+		edited.put("c", "edited");
+
+		target.copyValues(edited);
+
+		assertArrayEquals(new int[] { 2 }, plan.getChangedColumns(target));
+
+		setInDatabase(1, "a", "external");
+
+		assertTrue(dao.update(target));
+
+		TableRow saved = read(1);
+		assertEquals("external", saved.getCode("a"));
+		assertEquals("edited", saved.getCode("c"));
+	}
+
+	@Test
+	public void copyValuesIntoNewRowWritesAllTheValues() {
+
+		TableRow source = dao.getById(schema, 1);
+
+		TableRow copy = new TableRow(schema);
+		copy.copyValues(source);
+
+		int id = dao.add(copy);
+
+		TableRow saved = read(id);
+		assertEquals("a1", saved.getCode("a"));
+		assertEquals("a1B", saved.getCode("b"));
+		assertEquals("c1", saved.getCode("c"));
+	}
+
+	@Test
+	public void noChangesAfterWrite() throws SQLException {
+
+		TableRow row = new TableRow(schema);
+		row.put("a", "new");
+		row.put("c", "new");
+
+		assertTrue(row.isChanged());
+
+		int id = dao.add(row);
+		row.setId(id);
+
+		assertFalse(row.isChanged());
+		assertEquals("new", read(id).getCode("a"));
+
+		row.put("c", "edited");
+		assertTrue(dao.update(row));
+		assertFalse(row.isChanged());
+
+		// a second update writes nothing
+		setInDatabase(id, "c", "external");
+		assertTrue(dao.update(row));
+		assertEquals("external", read(id).getCode("c"));
+	}
+
+	@Test
+	public void solvedFormulaIsWritten() throws SQLException {
+
+		// b is stale in the database
+		setInDatabase(1, "a", "x");
+
+		TableRow row = dao.getById(schema, 1);
+
+		assertEquals("xB", row.getCode("b"));
+		assertArrayEquals(new int[] { 1 }, plan.getChangedColumns(row));
+
+		assertTrue(dao.update(row));
+		assertEquals("xB", read(1).getCode("b"));
+		assertFalse(row.isChanged());
+	}
+
+	@Test
+	public void formulaOfEditedColumnIsWritten() {
+
+		TableRow row = dao.getById(schema, 1);
+
+		row.put("a", "y");
+		row.updateFormulas();
+
+		assertArrayEquals(new int[] { 0, 1 }, plan.getChangedColumns(row));
+
+		assertTrue(dao.update(row));
+
+		TableRow saved = read(1);
+		assertEquals("y", saved.getCode("a"));
+		assertEquals("yB", saved.getCode("b"));
+	}
+}
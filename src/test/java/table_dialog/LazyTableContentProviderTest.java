@@ -0,0 +1,225 @@
+package table_dialog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import mocks.TableDaoMock;
+import table_skeleton.TableColumn;
+import table_skeleton.TableColumn.ColumnType;
+import table_skeleton.TableRow;
+import table_skeleton.TableRowList;
+import xlsx_reader.TableSchema;
+
+public class LazyTableContentProviderTest {
+
+	private static final int ROWS = 25;
+	private static final int PAGE_SIZE = 10;
+	private static final String VALUE_COLUMN = "value";
+
+	private TableSchema schema;
+	private CountingDao dao;
+	private LazyTableContentProvider provider;
+
+	/**
+	 * Dao which counts the pages read. The rows read are copies, as the rows
+	 * read from a database
+	 */
+	private static class CountingDao extends TableDaoMock {
+
+		private int reads;
+
+		@Override
+		public TableRowList getByIds(TableSchema schema, int[] ids, boolean solveFormulas) {
+
+			reads++;
+
+			TableRowList copies = new TableRowList(schema);
+
+			for (TableRow row : super.getByIds(schema, ids, solveFormulas)) {
+				TableRow copy = new TableRow(row);
+				copy.clearChanges();
+				copies.add(copy);
+			}
+
+			return copies;
+		}
+	}
+
+	@BeforeEach
+	public void setUp() {
+
+		schema = new TableSchema();
+		schema.setSheetName("LazyTest");
+		schema.add(new TableColumn(VALUE_COLUMN, VALUE_COLUMN, VALUE_COLUMN, null, null, ColumnType.STRING, "true",
+				"true", "true", null, null, null, null, "false", 0, "false"));
+
+		dao = new CountingDao();
+
+		// ids in reverse order, to check that the order of the table is kept
+		int[] ids = new int[ROWS];
+		for (int i = 0; i < ROWS; ++i) {
+			ids[i] = ROWS - i;
+			dao.add(createRow(ids[i]));
+		}
+
+		provider = new LazyTableContentProvider(null, schema, dao, PAGE_SIZE, 2);
+		provider.setIds(ids);
+	}
+
+	private TableRow createRow(int id) {
+		TableRow row = new TableRow(schema);
+		row.setId(id);
+		row.put(VALUE_COLUMN, String.format("%02d", id));
+		row.clearChanges();
+		return row;
+	}
+
+	/**
+	 * Use other pages, so that the first one is removed from memory
+	 */
+	private void removeFirstPage() {
+		provider.getRow(PAGE_SIZE);
+		provider.getRow(2 * PAGE_SIZE);
+	}
+
+	@Test
+	public void rowsAreInTheOrderOfTheIds() {
+
+		assertEquals(ROWS, provider.size());
+		assertEquals(ROWS, provider.getRow(0).getDatabaseId());
+		assertEquals(1, provider.getRow(ROWS - 1).getDatabaseId());
+		assertNull(provider.getRow(ROWS));
+
+		TableRowList all = provider.getAll();
+		assertEquals(ROWS, all.size());
+		for (int i = 0; i < ROWS; ++i)
+			assertEquals(ROWS - i, all.get(i).getDatabaseId());
+	}
+
+	@Test
+	public void pagesAreReadOnce() {
+
+		for (int i = 0; i < PAGE_SIZE; ++i)
+			provider.getRow(i);
+
+		assertEquals(1, dao.reads);
+
+		provider.getRow(PAGE_SIZE);
+		provider.getRow(0);
+		assertEquals(2, dao.reads);
+
+		// only two pages are kept, the second is the least recently used
+		provider.getRow(2 * PAGE_SIZE);
+		provider.getRow(0);
+		assertEquals(3, dao.reads);
+
+		provider.getRow(PAGE_SIZE);
+		assertEquals(4, dao.reads);
+	}
+
+	@Test
+	public void indexOfFollowsAddAndRemove() {
+
+		assertEquals(0, provider.indexOf(ROWS));
+		assertEquals(ROWS - 1, provider.indexOf(1));
+		assertEquals(-1, provider.indexOf(ROWS + 1));
+
+		TableRow added = createRow(ROWS + 1);
+		dao.add(added);
+		provider.add(added);
+
+		assertEquals(ROWS, provider.indexOf(ROWS + 1));
+		assertEquals(ROWS + 1, provider.getRowById(ROWS + 1).getDatabaseId());
+
+		provider.remove(ROWS);
+
+		assertEquals(-1, provider.indexOf(ROWS));
+		assertEquals(0, provider.indexOf(ROWS - 1));
+		assertEquals(ROWS - 1, provider.indexOf(ROWS + 1));
+		assertEquals(ROWS - 1, provider.getRow(0).getDatabaseId());
+	}
+
+	@Test
+	public void changedRowsAreKeptWhenPagesAreRemoved() {
+
+		provider.getRow(0).put(VALUE_COLUMN, "edited");
+
+		removeFirstPage();
+		assertEquals("edited", provider.getRow(0).getCode(VALUE_COLUMN));
+
+		provider.invalidate();
+		assertEquals("edited", provider.getRow(0).getCode(VALUE_COLUMN));
+		assertEquals("edited", provider.getAll().get(0).getCode(VALUE_COLUMN));
+
+		// the page is read again for the other rows, the changed row is kept
+		removeFirstPage();
+		assertEquals(String.format("%02d", ROWS - 1), provider.getRow(1).getCode(VALUE_COLUMN));
+		assertEquals("edited", provider.getRow(0).getCode(VALUE_COLUMN));
+	}
+
+	@Test
+	public void savedRowsAreReadAgain() {
+
+		TableRow row = provider.getRow(0);
+		row.put(VALUE_COLUMN, "edited");
+
+		// as the dao does after the update
+		row.clearChanges();
+
+		removeFirstPage();
+		assertEquals(String.format("%02d", ROWS), provider.getRow(0).getCode(VALUE_COLUMN));
+	}
+
+	@Test
+	public void sortReadsOnlyTheIds() {
+
+		TableColumn column = schema.getById(VALUE_COLUMN);
+
+		// not saved, it is sorted with the new value
+		provider.getRowById(10).put(VALUE_COLUMN, "99");
+
+		int reads = dao.reads;
+
+		provider.sortBy(column, true);
+
+		assertEquals(reads, dao.reads);
+		assertEquals(ROWS, provider.size());
+		assertEquals(1, provider.getIds()[0]);
+		assertEquals(ROWS, provider.getIds()[ROWS - 2]);
+		assertEquals(10, provider.getIds()[ROWS - 1]);
+
+		assertEquals("99", provider.getRowById(10).getCode(VALUE_COLUMN));
+
+		provider.sortBy(column, false);
+		assertEquals(10, provider.getIds()[0]);
+		assertEquals(1, provider.getIds()[ROWS - 1]);
+	}
+
+	@Test
+	public void mandatoryFieldsAreCheckedWithoutLoadingThePages() {
+
+		// saved without a mandatory value
+		dao.getById(schema, 3).put(VALUE_COLUMN, "");
+
+		assertFalse(provider.areMandatoryFilled());
+		assertEquals(0, dao.reads);
+
+		// filled, not saved
+		provider.getRowById(3).put(VALUE_COLUMN, "filled");
+		assertTrue(provider.areMandatoryFilled());
+
+		// the page of the row is removed
+		provider.getRow(0);
+		provider.getRow(PAGE_SIZE);
+		assertTrue(provider.areMandatoryFilled());
+
+		// emptied again
+		provider.getRowById(3).put(VALUE_COLUMN, "");
+		assertFalse(provider.areMandatoryFilled());
+	}
+}
@@ -0,0 +1,112 @@
+package table_exporter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.function.Consumer;
+
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import mocks.TableDaoMock;
+import providers.TableDaoService;
+import table_database.TableQuery;
+import table_skeleton.TableColumn;
+import table_skeleton.TableColumn.ColumnType;
+import table_skeleton.TableRow;
+import xlsx_reader.TableSchema;
+
+public class TableToExcelTest {
+
+	private static final int ROWS = 10;
+
+	private TableSchema schema;
+	private File file;
+
+	/**
+	 * Dao which fails to read the rows after the first ones
+	 */
+	private static class FailingDao extends TableDaoMock {
+
+		@Override
+		public void forEach(TableQuery query, Consumer<TableRow> action) throws SQLException {
+
+			int read = 0;
+			for (TableRow row : getAll(query.getSchema())) {
+
+				if (read++ == ROWS / 2)
+					throw new SQLException("Connection lost");
+
+				action.accept(row);
+			}
+		}
+	}
+
+	@BeforeEach
+	public void setUp() throws IOException {
+
+		schema = new TableSchema();
+		schema.setSheetName("ExportTest");
+		schema.add(new TableColumn("name", "name", "Name", null, null, ColumnType.STRING, "false", "true", "true",
+				null, null, null, null, "false", 0, "false"));
+
+		file = File.createTempFile("export", ".xlsx");
+	}
+
+	@AfterEach
+	public void tearDown() {
+		file.delete();
+	}
+
+	private void addRows(TableDaoMock dao) {
+		for (int i = 1; i <= ROWS; ++i) {
+			TableRow row = new TableRow(schema);
+			row.setId(i);
+			row.put("name", "row " + i);
+			dao.add(row);
+		}
+	}
+
+	@Test
+	public void allRowsAreExported() throws IOException, InvalidFormatException {
+
+		TableDaoMock dao = new TableDaoMock();
+		addRows(dao);
+
+		new TableToExcel(new TableDaoService(dao)).export(schema, file);
+
+		try (XSSFWorkbook wb = new XSSFWorkbook(file);) {
+
+			Sheet sheet = wb.getSheetAt(0);
+
+			assertEquals("Name", sheet.getRow(0).getCell(0).getStringCellValue());
+			assertEquals(ROWS, sheet.getLastRowNum());
+
+			for (int i = 1; i <= ROWS; ++i)
+				assertEquals("row " + i, sheet.getRow(i).getCell(0).getStringCellValue());
+		}
+	}
+
+	@Test
+	public void readErrorFailsTheExport() {
+
+		FailingDao dao = new FailingDao();
+		addRows(dao);
+
+		IOException e = assertThrows(IOException.class,
+				() -> new TableToExcel(new TableDaoService(dao)).export(schema, file));
+
+		assertEquals(SQLException.class, e.getCause().getClass());
+
+		// no truncated workbook is left
+		assertFalse(file.exists());
+	}
+}
@@ -0,0 +1,119 @@
+package table_skeleton;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Collection;
+import java.util.Collections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import providers.ITableDaoService;
+import table_relations.Relation;
+import table_skeleton.TableColumn.ColumnType;
+import xlsx_reader.TableSchema;
+
+public class RowAttributesTest {
+
+	private static final String PARENT_TABLE = "Report";
+
+	private TableRow parent;
+	private TableSchema schema;
+	private TableRow row;
+
+	/**
+	 * Relation which always returns the same parent row
+	 */
+	private static class FixedParentRelation extends Relation {
+
+		private final TableRow parent;
+
+		FixedParentRelation(TableRow parent, String child) {
+			super(PARENT_TABLE, child, true);
+			this.parent = parent;
+		}
+
+		@Override
+		public TableRow getParentValue(int parentId, ITableDaoService daoService) {
+			return parent;
+		}
+	}
+
+	/**
+	 * Schema with a single parent table
+	 */
+	private static class ChildSchema extends TableSchema {
+
+		private static final long serialVersionUID = 1L;
+
+		private Relation relation;
+
+		@Override
+		public Collection<Relation> getRelations() {
+			return Collections.singletonList(relation);
+		}
+
+		@Override
+		public Relation getRelationByParentTable(String parentId) {
+			return relation.getParent().equals(parentId) ? relation : null;
+		}
+	}
+
+	private static TableColumn createColumn(String id, String codeFormula, String picklistFilter) {
+		TableColumn column = new TableColumn(id, id, id, null, null, ColumnType.STRING, "false", "true", "true",
+				null, codeFormula, null, null, "false", 0, "false");
+		column.setPicklistFilter(picklistFilter);
+		return column;
+	}
+
+	@BeforeEach
+	public void setUp() {
+
+		TableSchema parentSchema = new TableSchema();
+		parentSchema.setSheetName(PARENT_TABLE);
+		parentSchema.add(createColumn("country", null, null));
+
+		parent = new TableRow(parentSchema);
+		parent.setId(1);
+		parent.put("country", new TableCell("IT", "Italy"));
+
+		ChildSchema child = new ChildSchema();
+		child.setSheetName("Result");
+		child.relation = new FixedParentRelation(parent, "Result");
+		child.add(createColumn("a", null, "%a.code"));
+		child.add(createColumn("direct", null, "RELATION{Report,country.code}"));
+		child.add(createColumn("country", "RELATION{Report,country.code}", null));
+		child.add(createColumn("indirect", null, "%country.code|-|%a.code"));
+		schema = child;
+
+		row = new TableRow(schema);
+		row.put("a", new TableCell("X", "Ex"));
+		row.put(Relation.foreignKeyFromParent(PARENT_TABLE), new TableCell("1", ""));
+	}
+
+	@Test
+	public void rowValueChanges() {
+
+		TableColumn a = schema.getById("a");
+		assertEquals("X", a.getPicklistFilter(row));
+
+		row.put("a", new TableCell("Y", "Why"));
+		assertEquals("Y", a.getPicklistFilter(row));
+	}
+
+	@Test
+	public void parentValueChanges() {
+
+		TableColumn direct = schema.getById("direct");
+		TableColumn indirect = schema.getById("indirect");
+
+		assertEquals("IT", direct.getPicklistFilter(row));
+		assertEquals("IT-X", indirect.getPicklistFilter(row));
+
+		// the parent changes without the child row being updated
+		parent.put("country", new TableCell("FR", "France"));
+
+		assertEquals("FR", direct.getPicklistFilter(row));
+		assertEquals("FR-X", indirect.getPicklistFilter(row));
+	}
+}
@@ -0,0 +1,178 @@
+package task_manager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class TaskPoolTest {
+
+	private TaskPool pool;
+
+	@AfterEach
+	public void tearDown() {
+		if (pool != null)
+			pool.shutdown();
+	}
+
+	/**
+	 * Task which runs until it is released or interrupted
+	 * @param started counted down when the task starts
+	 * @param release
+	 * @param interrupted set if the task was interrupted
+	 * @return
+	 */
+	private static Runnable blocking(CountDownLatch started, CountDownLatch release, AtomicBoolean interrupted) {
+		return () -> {
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				interrupted.set(true);
+			}
+		};
+	}
+
+	/**
+	 * Wait until all the places of the pool are given back
+	 * @throws InterruptedException
+	 */
+	private void awaitEmpty() throws InterruptedException {
+		long end = System.currentTimeMillis() + 5000;
+		while (pool.getPendingCount() > 0 && System.currentTimeMillis() < end)
+			Thread.sleep(10);
+	}
+
+	@Test
+	public void submitWaitsForFreePlace() throws Exception {
+
+		// one running and one waiting task
+		pool = new TaskPool("test", 1, 1, 5000);
+
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicBoolean interrupted = new AtomicBoolean();
+
+		pool.submit(blocking(started, release, interrupted));
+		pool.submit(() -> {});
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		assertEquals(2, pool.getPendingCount());
+
+		// free a place later, while the next submission waits
+		new Thread(() -> {
+			try {
+				Thread.sleep(200);
+			} catch (InterruptedException e) {
+				return;
+			}
+			release.countDown();
+		}).start();
+
+		long start = System.currentTimeMillis();
+		Future<String> future = pool.submit(() -> "done");
+		long waited = System.currentTimeMillis() - start;
+
+		assertTrue(waited >= 100, "The submission did not wait, waited=" + waited);
+		assertEquals("done", future.get(5, TimeUnit.SECONDS));
+		assertFalse(interrupted.get());
+	}
+
+	@Test
+	public void submitRejectedWhenFull() throws Exception {
+
+		pool = new TaskPool("test", 1, 1, 100);
+
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		pool.submit(blocking(started, release, new AtomicBoolean()));
+		pool.submit(() -> {});
+
+		assertThrows(RejectedExecutionException.class, () -> pool.submit(() -> {}));
+		assertEquals(2, pool.getPendingCount());
+
+		// places are available again once the tasks end
+		release.countDown();
+		awaitEmpty();
+		assertEquals(0, pool.getPendingCount());
+		assertEquals("done", pool.submit(() -> "done").get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void cancelRunningTask() throws Exception {
+
+		pool = new TaskPool("test", 1, 1, 100);
+
+		CountDownLatch started = new CountDownLatch(1);
+		AtomicBoolean interrupted = new AtomicBoolean();
+
+		Future<?> future = pool.submit(blocking(started, new CountDownLatch(1), interrupted));
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+
+		assertTrue(future.cancel(true));
+		awaitEmpty();
+		assertEquals(0, pool.getPendingCount());
+
+		// the task is interrupted
+		long end = System.currentTimeMillis() + 5000;
+		while (!interrupted.get() && System.currentTimeMillis() < end)
+			Thread.sleep(10);
+
+		assertTrue(interrupted.get());
+	}
+
+	@Test
+	public void cancelWaitingTask() throws Exception {
+
+		pool = new TaskPool("test", 1, 1, 100);
+
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		AtomicBoolean ran = new AtomicBoolean();
+
+		pool.submit(blocking(started, release, new AtomicBoolean()));
+		Future<?> waiting = pool.submit(() -> ran.set(true));
+
+		// the place of the cancelled task is given back at once
+		assertTrue(waiting.cancel(false));
+		assertEquals(1, pool.getPendingCount());
+
+		release.countDown();
+		awaitEmpty();
+		assertFalse(ran.get());
+	}
+
+	@Test
+	public void failedTaskGivesBackPlace() throws Exception {
+
+		pool = new TaskPool("test", 1, 0, 100);
+
+		Future<?> future = pool.submit(() -> {
+			throw new IllegalStateException("expected by the test");
+		});
+
+		assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+		awaitEmpty();
+		assertEquals(0, pool.getPendingCount());
+	}
+
+	@Test
+	public void shutdownRejectsTasks() {
+
+		pool = new TaskPool("test", 1, 1, 100);
+		pool.shutdown();
+
+		assertThrows(RejectedExecutionException.class, () -> pool.submit(() -> {}));
+		assertEquals(0, pool.getPendingCount());
+	}
+}